@@ -3,6 +3,7 @@ plugins {
     `maven-publish`
     `idea`
     id("de.crazydev22.hytale") version "0.2.2"
+    alias(libs.plugins.jmh)
 }
 
 import java.util.jar.JarFile
@@ -69,6 +70,86 @@ java {
     withSourcesJar()
 }
 
+// Microbenchmarks for the collapse/spawner hot paths over synthetic data: ./gradlew jmh
+// Narrow the run with -Pjmh_include=<regex>; results land in build/reports/jmh/results.json.
+configurations.named("jmhImplementation") {
+    // The server API is compileOnly for the plugin, but the benchmarks run outside the server.
+    extendsFrom(configurations.compileOnly.get())
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    (findProperty("jmh_include") as String?)?.let { includes = listOf(it) }
+    warmupIterations = 3
+    iterations = 5
+    fork = 1
+    profilers = listOf("gc")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+}
+
+// Headless collapse regression over the bundled prefabs on synthetic terrain: ./gradlew collapseRegression
+// Runs as part of check and only warns about the timing budgets; ./gradlew collapseBudgets enforces them.
+// Pass -Pcollapse_budget_scale=<factor> to loosen the timing budgets on slow machines.
+val simulation: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations.named(simulation.implementationConfigurationName) {
+    // Same as the benchmarks: the simulator runs the plugin's classes outside the server.
+    extendsFrom(configurations.compileOnly.get())
+}
+
+val collapseRegression by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Collapses every bundled tower prefab headlessly and checks the ruin and terrain."
+    classpath = simulation.runtimeClasspath
+    mainClass = "com.ralkage.battletowers.worldgen.BattleTowerCollapseRegression"
+    // Compile in the foreground: on a single-core runner the JIT threads would otherwise preempt measured ticks.
+    jvmArgs("-XX:-BackgroundCompilation")
+    (findProperty("collapse_budget_scale") as String?)?.let { args(it) }
+}
+
+tasks.named("check") {
+    dependsOn(collapseRegression)
+}
+
+// Same scenarios, but failing on the world-thread budgets too. Not part of check: the budgets are wall-clock.
+val collapseBudgets by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Collapses every bundled tower prefab headlessly and checks the ruin, terrain and world-thread budgets."
+    classpath = simulation.runtimeClasspath
+    mainClass = "com.ralkage.battletowers.worldgen.BattleTowerCollapseRegression"
+    jvmArgs("-XX:-BackgroundCompilation")
+    args("budgets")
+    (findProperty("collapse_budget_scale") as String?)?.let { args(it) }
+}
+
+// Multi-tower load test on one synthetic world: ./gradlew collapseLoadTest -Pload_towers=32 -Pload_players=16
+// Not part of check; writes a JSON report under build/reports/loadtest for comparing runs.
+val collapseLoadTest by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Runs towers, players, boss fights and concurrent collapses on a virtual clock and reports world-thread costs."
+    classpath = simulation.runtimeClasspath
+    mainClass = "com.ralkage.battletowers.worldgen.BattleTowerLoadTest"
+    listOf("towers", "players", "minutes", "seed", "spacing", "survey", "trace").forEach { key ->
+        (findProperty("load_$key") as String?)?.let { args("$key=$it") }
+    }
+}
+
+// Replays a recorded tower trace (tower_trace=true in the config): ./gradlew traceReplay -Ptrace_file=<path>
+val traceReplay by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Re-drives the spawner and collapse logic from a recorded tower trace and reports world-thread costs."
+    classpath = simulation.runtimeClasspath
+    mainClass = "com.ralkage.battletowers.worldgen.BattleTowerTraceReplay"
+    (findProperty("trace_file") as String?)?.let { args(it) }
+    listOf("plan", "runs", "budgetMicros", "maxActive").forEach { key ->
+        (findProperty("trace_$key") as String?)?.let { args("$key=$it") }
+    }
+}
+
 tasks.named<ProcessResources>("processResources") {
     val serverVersionProperty = (findProperty("server_version") as String?)?.trim()
     val resolvedServerVersion = when {
@@ -0,0 +1,65 @@
+package com.ralkage.battletowers.vault;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The unlocked-vault check a chest click does: pack the position and look it up in the world's set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BattleTowerVaultsBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"100", "10000"})
+    public int unlockedVaults;
+
+    private final Set<Long> unlocked = ConcurrentHashMap.newKeySet();
+    private int[] queryX;
+    private int[] queryY;
+    private int[] queryZ;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(11);
+        queryX = new int[QUERIES];
+        queryY = new int[QUERIES];
+        queryZ = new int[QUERIES];
+        for (int i = 0; i < unlockedVaults; i++) {
+            int x = random.nextInt(-100_000, 100_000);
+            int y = random.nextInt(0, 256);
+            int z = random.nextInt(-100_000, 100_000);
+            unlocked.add(BattleTowerVaults.packBlockPos(x, y, z));
+            if (i < QUERIES / 2) {
+                queryX[i] = x;
+                queryY[i] = y;
+                queryZ[i] = z;
+            }
+        }
+        for (int i = Math.min(unlockedVaults, QUERIES / 2); i < QUERIES; i++) {
+            queryX[i] = random.nextInt(-100_000, 100_000);
+            queryY[i] = random.nextInt(0, 256);
+            queryZ[i] = random.nextInt(-100_000, 100_000);
+        }
+    }
+
+    @Benchmark
+    public boolean unlockedLookup() {
+        next = (next + 1) & (QUERIES - 1);
+        return unlocked.contains(BattleTowerVaults.packBlockPos(queryX[next], queryY[next], queryZ[next]));
+    }
+}
@@ -0,0 +1,65 @@
+package com.ralkage.battletowers.worldgen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block-type classification: the string rules run once per block type when the table is built, and the table
+ * lookup every scan does per block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BattleTowerClassifierBenchmark {
+
+    private static final int BLOCK_TYPES = 4096;
+    private static final int LOOKUPS = 4096;
+    private static final String[] PREFIXES = {
+            "Rock_Stone_Brick", "Rock_Basalt_Cobble", "Rock_Stone", "Soil_Dirt", "Soil_Grass", "Wood_Oak_Planks",
+            "Furniture_Village_Chest", "Deco_Banner", "Plant_Flower", "Foliage_Leaves", "Fluid_Water", "Ore_Iron",
+    };
+
+    private String[] ids;
+    private BattleTowerBlockClassTable table;
+    private int[] lookups;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new String[BLOCK_TYPES];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = PREFIXES[random.nextInt(PREFIXES.length)] + "_" + i;
+        }
+        table = BattleTowerBlockClassTable.build(ids, 0);
+        lookups = new int[LOOKUPS];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = random.nextInt(BLOCK_TYPES);
+        }
+    }
+
+    @Benchmark
+    public Object buildTable() {
+        return BattleTowerBlockClassTable.build(ids, 0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int lookupFlags() {
+        int implodable = 0;
+        for (int blockId : lookups) {
+            if ((table.flags(blockId) & BattleTowerBlockClassTable.IMPLODABLE) != 0) {
+                implodable++;
+            }
+        }
+        return implodable;
+    }
+}
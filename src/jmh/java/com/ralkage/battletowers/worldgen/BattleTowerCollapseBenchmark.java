@@ -0,0 +1,98 @@
+package com.ralkage.battletowers.worldgen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collapse geometry and removal over a synthetic tower.
+ *
+ * {@link #survey} covers tower-top detection, footprint/radius and ground-surface detection, which all happen in
+ * the one survey pass. {@link #implodeLayer} removes one layer, {@link #implodePlan} one tick's worth of the
+ * top-down walk a collapse spreads across ticks.
+ *
+ * The removal benchmarks work on their own copy of the tower, restored once per iteration rather than per call:
+ * each call moves a cursor one layer (or one walk step) further down, and the copy is only restored early when a
+ * call finds the tower fully removed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BattleTowerCollapseBenchmark {
+
+    // Blocks per implodePlan call, about what one collapse tick removes.
+    private static final int OPS_PER_STEP = 256;
+
+    @State(Scope.Benchmark)
+    public static class Tower {
+
+        @Param({"8", "12"})
+        public int radius;
+
+        @Param({"40", "80"})
+        public int height;
+
+        BattleTowerBlockClassTable classes;
+        BattleTowerArrayVoxels template;
+        BattleTowerCollapsePlan plan;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            classes = BattleTowerSyntheticWorld.classes();
+            template = BattleTowerSyntheticWorld.tower(radius, height);
+            plan = BattleTowerSurvey.survey(template, classes, 0, 0,
+                    BattleTowerSyntheticWorld.surveyMaxY(height), BattleTowerSyntheticWorld.surveyMinY()).plan();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Removal {
+
+        BattleTowerArrayVoxels voxels;
+        // Next layer implodeLayer removes.
+        int layerY;
+        BattleTowerPlanWalk walk;
+
+        @Setup(Level.Trial)
+        public void setUpTrial(Tower tower) {
+            voxels = BattleTowerSyntheticWorld.tower(tower.radius, tower.height);
+        }
+
+        @Setup(Level.Iteration)
+        public void reset(Tower tower) {
+            voxels.copyFrom(tower.template);
+            layerY = tower.plan.topY;
+            walk = new BattleTowerPlanWalk(tower.plan);
+        }
+    }
+
+    @Benchmark
+    public Object survey(Tower tower) {
+        return BattleTowerSurvey.survey(tower.template, tower.classes, 0, 0,
+                BattleTowerSyntheticWorld.surveyMaxY(tower.height), BattleTowerSyntheticWorld.surveyMinY());
+    }
+
+    @Benchmark
+    public int implodeLayer(Tower tower, Removal removal) {
+        if (removal.layerY < tower.plan.floorY) {
+            removal.reset(tower);
+        }
+        int y = removal.layerY--;
+        return BattleTowerPlanWalk.removeLayers(removal.voxels, tower.classes, tower.plan, y, y, false);
+    }
+
+    @Benchmark
+    public int implodePlan(Tower tower, Removal removal) {
+        if (removal.walk.isDone()) {
+            removal.reset(tower);
+        }
+        return removal.walk.step(removal.voxels, tower.classes, false, OPS_PER_STEP, Long.MAX_VALUE);
+    }
+}
@@ -0,0 +1,123 @@
+package com.ralkage.battletowers.worldgen;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-tick lookups over synthetic towers and players: nearest tower (chest clicks, sigil delays), boss marker
+ * registry lookups, and the spawner's set of chunks to scan around players.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BattleTowerLookupBenchmark {
+
+    private static final String WORLD = "bench";
+    private static final int WORLD_HALF_WIDTH = 8192;
+    private static final int QUERIES = 1024;
+
+    @Param({"100", "1000"})
+    public int towers;
+
+    @Param({"4", "16"})
+    public int players;
+
+    private final BattleTowerTowerIndex index = new BattleTowerTowerIndex();
+    private Path registryDir;
+    private BattleTowerTowerRegistry registry;
+    private int[] towerX;
+    private int[] towerZ;
+    private int[] queryX;
+    private int[] queryZ;
+    private double[] playerX;
+    private double[] playerZ;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        registryDir = Files.createTempDirectory("battletowers-bench");
+        BattleTowerTowerRegistry.setDirectory(registryDir);
+        registry = BattleTowerTowerRegistry.of(WORLD);
+
+        towerX = new int[towers];
+        towerZ = new int[towers];
+        for (int i = 0; i < towers; i++) {
+            towerX[i] = random.nextInt(-WORLD_HALF_WIDTH, WORLD_HALF_WIDTH);
+            towerZ[i] = random.nextInt(-WORLD_HALF_WIDTH, WORLD_HALF_WIDTH);
+            index.add(new BattleTowerCollapse.TowerKey(WORLD, towerX[i], 80, towerZ[i]));
+            registry.putMarker(towerX[i], 80, towerZ[i], new UUID(random.nextLong(), random.nextLong()), 1 + (i % 3));
+        }
+
+        queryX = new int[QUERIES];
+        queryZ = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            // Half the queries start next to a tower, half anywhere.
+            int t = random.nextInt(towers);
+            boolean nearTower = (i & 1) == 0;
+            queryX[i] = nearTower ? towerX[t] + random.nextInt(-32, 32) : random.nextInt(-WORLD_HALF_WIDTH, WORLD_HALF_WIDTH);
+            queryZ[i] = nearTower ? towerZ[t] + random.nextInt(-32, 32) : random.nextInt(-WORLD_HALF_WIDTH, WORLD_HALF_WIDTH);
+        }
+
+        playerX = new double[players];
+        playerZ = new double[players];
+        for (int i = 0; i < players; i++) {
+            playerX[i] = random.nextDouble(-512, 512);
+            playerZ[i] = random.nextDouble(-512, 512);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BattleTowerTowerRegistry.closeAll();
+        try (Stream<Path> files = Files.walk(registryDir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public Object nearestTower() {
+        int q = nextQuery();
+        return index.nearest(WORLD, queryX[q], queryZ[q], 128, null);
+    }
+
+    @Benchmark
+    public Object registryFind() {
+        int t = nextQuery() % towers;
+        return registry.find(towerX[t], 80, towerZ[t]);
+    }
+
+    @Benchmark
+    public Set<Long> spawnerChunkSet() {
+        Set<Long> chunks = new HashSet<>();
+        for (int i = 0; i < players; i++) {
+            BattleTowerSpawner.addChunksAround(chunks, playerX[i], playerZ[i], 4);
+        }
+        return chunks;
+    }
+}
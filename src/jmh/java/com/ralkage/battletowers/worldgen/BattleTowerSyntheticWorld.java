@@ -0,0 +1,85 @@
+package com.ralkage.battletowers.worldgen;
+
+/**
+ * Synthetic towers for the benchmarks: a round stone-brick tower with plank floors and a chest per floor,
+ * standing on flat grass-topped stone with some tall grass around it.
+ */
+final class BattleTowerSyntheticWorld {
+
+    static final String[] BLOCK_IDS = {
+            "Empty",
+            "Soil_Grass",
+            "Rock_Stone",
+            "Rock_Stone_Brick",
+            "Wood_Oak_Planks",
+            "Furniture_Village_Chest_Small",
+            "Plant_Grass_Tall",
+    };
+    static final int EMPTY = 0;
+    static final int GRASS = 1;
+    static final int STONE = 2;
+    static final int BRICK = 3;
+    static final int PLANKS = 4;
+    static final int CHEST = 5;
+    static final int TALL_GRASS = 6;
+
+    // Wide enough for the survey square (MAX_SWEEP_RADIUS around the anchor) plus its chunk rounding.
+    static final int HALF_WIDTH = 64;
+    static final int GROUND_Y = 64;
+    private static final int FLOOR_SPACING = 6;
+
+    private BattleTowerSyntheticWorld() {
+    }
+
+    static BattleTowerBlockClassTable classes() {
+        return BattleTowerBlockClassTable.build(BLOCK_IDS, EMPTY);
+    }
+
+    /**
+     * A tower of {@code height} layers and the given outer radius, centered on (0, 0) with its lowest layer just
+     * above {@link #GROUND_Y}.
+     */
+    static BattleTowerArrayVoxels tower(int radius, int height) {
+        int minY = GROUND_Y - 16;
+        BattleTowerArrayVoxels voxels = new BattleTowerArrayVoxels(-HALF_WIDTH, minY, -HALF_WIDTH,
+                2 * HALF_WIDTH, height + 48, 2 * HALF_WIDTH, EMPTY);
+
+        int outerSq = radius * radius;
+        int innerSq = (radius - 1) * (radius - 1);
+        for (int x = -HALF_WIDTH; x < HALF_WIDTH; x++) {
+            for (int z = -HALF_WIDTH; z < HALF_WIDTH; z++) {
+                for (int y = minY; y < GROUND_Y; y++) {
+                    voxels.set(x, y, z, STONE);
+                }
+                voxels.set(x, GROUND_Y, z, GRASS);
+                int distSq = x * x + z * z;
+                if (distSq > outerSq && ((x * 31 + z * 17) & 7) == 0) {
+                    voxels.set(x, GROUND_Y + 1, z, TALL_GRASS);
+                }
+                if (distSq > outerSq) {
+                    continue;
+                }
+                for (int layer = 1; layer <= height; layer++) {
+                    int y = GROUND_Y + layer;
+                    if (distSq > innerSq) {
+                        voxels.set(x, y, z, BRICK);
+                    } else if (layer % FLOOR_SPACING == 0) {
+                        voxels.set(x, y, z, PLANKS);
+                    }
+                }
+            }
+        }
+        for (int layer = FLOOR_SPACING; layer < height; layer += FLOOR_SPACING) {
+            voxels.setContainer(1, GROUND_Y + layer + 1, 1, CHEST);
+        }
+        return voxels;
+    }
+
+    static int surveyMaxY(int height) {
+        return GROUND_Y + height + 8;
+    }
+
+    static int surveyMinY() {
+        return GROUND_Y - 12;
+    }
+}
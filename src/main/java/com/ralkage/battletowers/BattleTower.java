@@ -1,10 +1,17 @@
 package com.ralkage.battletowers;
 
+import com.hypixel.hytale.component.ResourceType;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.ralkage.battletowers.worldgen.BattleTowerBlockClassifier;
 import com.ralkage.battletowers.worldgen.BattleTowerCollapse;
+import com.ralkage.battletowers.worldgen.BattleTowerCollapseResource;
+import com.ralkage.battletowers.worldgen.BattleTowerCollapseSystem;
+import com.ralkage.battletowers.worldgen.BattleTowerDropSuppressionSystem;
+import com.ralkage.battletowers.worldgen.BattleTowerMetrics;
 import com.ralkage.battletowers.worldgen.BattleTowerBossDeathSystem;
 import com.ralkage.battletowers.worldgen.BattleTowerPrefabInstaller;
 import com.ralkage.battletowers.worldgen.BattleTowerSpawnMarkerPrefabPlaceSystem;
@@ -40,9 +47,11 @@ public class BattleTower extends JavaPlugin {
 
         // Register worldgen event listener for battle tower placement
         BattleTowerWorldGen.register(getEventRegistry());
+        BattleTowerBlockClassifier.register(getEventRegistry());
         BattleTowerCollapse.register(getEventRegistry());
         BattleTowerSpawnMarkerUuidBackfill.register(getEventRegistry());
         BattleTowerVaults.register(getEventRegistry());
+        BattleTowerMetrics.start();
 
         // Log i18n resolution after a short delay (BattleTowers is an early plugin; i18n loads later in boot).
         try {
@@ -58,6 +67,18 @@ public class BattleTower extends JavaPlugin {
             LOGGER.atWarning().log("Failed to register BattleTowerBossDeathSystem: %s", e.getMessage());
         }
 
+        // Tower collapses run in-tick on each world thread, with their state in a per-world resource.
+        try {
+            ResourceType<EntityStore, BattleTowerCollapseResource> collapseResourceType =
+                    getEntityStoreRegistry().registerResource(BattleTowerCollapseResource.class, BattleTowerCollapseResource::new);
+            BattleTowerCollapseResource.setResourceType(collapseResourceType);
+            getEntityStoreRegistry().registerSystem(new BattleTowerCollapseSystem(collapseResourceType));
+            getEntityStoreRegistry().registerSystem(new BattleTowerDropSuppressionSystem(collapseResourceType));
+            LOGGER.atInfo().log("BattleTowerCollapseSystem registered.");
+        } catch (Exception e) {
+            LOGGER.atWarning().log("Failed to register BattleTowerCollapseSystem: %s", e.getMessage());
+        }
+
         // Ensure tower SpawnMarker entities get UUIDComponent during prefab placement (prevents vanilla NPE in spawnNPC()).
         try {
             getEntityStoreRegistry().registerSystem(new BattleTowerSpawnMarkerPrefabPlaceSystem());
@@ -77,6 +98,7 @@ public class BattleTower extends JavaPlugin {
     @Override
     protected void shutdown() {
         BattleTowerCollapse.shutdown();
+        BattleTowerMetrics.shutdown();
     }
 
     public static HytaleLogger getPluginLogger() {
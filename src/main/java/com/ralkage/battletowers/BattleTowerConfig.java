@@ -10,6 +10,7 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Locale;
 import java.util.Properties;
 
 public final class BattleTowerConfig {
@@ -19,14 +20,34 @@ public final class BattleTowerConfig {
     private static final String KEY_IMPLOSION_DELAY_SECONDS = "implosion_delay_seconds";
     private static final String KEY_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS = "implosion_announce_radius_blocks";
     private static final String KEY_IMPLOSION_TICK_MS = "implosion_tick_ms";
-    private static final String KEY_IMPLOSION_LAYERS_PER_TICK = "implosion_layers_per_tick";
+    private static final String KEY_IMPLOSION_TARGET_SECONDS = "implosion_target_seconds";
+    private static final String KEY_IMPLOSION_TICK_BUDGET_US = "implosion_tick_budget_us";
+    private static final String KEY_IMPLOSION_MAX_ACTIVE_PER_WORLD = "implosion_max_active_per_world";
     private static final String KEY_SPAWNER_ACTIVATION_RADIUS_BLOCKS = "spawner_activation_radius_blocks";
+    private static final String KEY_IMPLOSION_PREFAB_PLAN = "implosion_prefab_plan";
+    private static final String KEY_IMPLOSION_PREFAB_VERIFY_BLOCKS = "implosion_prefab_verify_blocks";
+    private static final String KEY_IMPLOSION_EFFECT_BUDGET = "implosion_effect_budget";
+    private static final String KEY_IMPLOSION_CONTAINER_LOOT = "implosion_container_loot";
+    private static final String KEY_IMPLOSION_RUBBLE_BLOCK = "implosion_rubble_block";
+    private static final String KEY_IMPLOSION_SNAPSHOT_COUNT = "implosion_snapshot_count";
+    private static final String KEY_TOWER_TRACE = "tower_trace";
+    private static final String KEY_TOWER_TRACE_MAX_MB = "tower_trace_max_mb";
 
     private static final long DEFAULT_IMPLOSION_DELAY_SECONDS = 30;
     private static final int DEFAULT_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS = 64;
     private static final long DEFAULT_IMPLOSION_TICK_MS = 300;
-    private static final int DEFAULT_IMPLOSION_LAYERS_PER_TICK = 2;
+    private static final long DEFAULT_IMPLOSION_TARGET_SECONDS = 10;
+    private static final long DEFAULT_IMPLOSION_TICK_BUDGET_US = 2000;
+    private static final int DEFAULT_IMPLOSION_MAX_ACTIVE_PER_WORLD = 2;
     private static final int DEFAULT_SPAWNER_ACTIVATION_RADIUS_BLOCKS = 64;
+    private static final boolean DEFAULT_IMPLOSION_PREFAB_PLAN = true;
+    private static final boolean DEFAULT_IMPLOSION_PREFAB_VERIFY_BLOCKS = true;
+    private static final int DEFAULT_IMPLOSION_EFFECT_BUDGET = 64;
+    private static final BattleTowerCollapse.ContainerLoot DEFAULT_IMPLOSION_CONTAINER_LOOT = BattleTowerCollapse.ContainerLoot.DISCARD;
+    private static final String DEFAULT_IMPLOSION_RUBBLE_BLOCK = "Furniture_Village_Chest_Small";
+    private static final int DEFAULT_IMPLOSION_SNAPSHOT_COUNT = 16;
+    private static final boolean DEFAULT_TOWER_TRACE = false;
+    private static final int DEFAULT_TOWER_TRACE_MAX_MB = 256;
 
     private BattleTowerConfig() {
     }
@@ -60,17 +81,46 @@ public final class BattleTowerConfig {
         long delaySeconds = getLong(props, KEY_IMPLOSION_DELAY_SECONDS, DEFAULT_IMPLOSION_DELAY_SECONDS, 5, 600);
         int announceRadius = getInt(props, KEY_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS, DEFAULT_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS, 16, 512);
         long tickMs = getLong(props, KEY_IMPLOSION_TICK_MS, DEFAULT_IMPLOSION_TICK_MS, 50, 2000);
-        int layersPerTick = getInt(props, KEY_IMPLOSION_LAYERS_PER_TICK, DEFAULT_IMPLOSION_LAYERS_PER_TICK, 1, 10);
+        long targetSeconds = getLong(props, KEY_IMPLOSION_TARGET_SECONDS, DEFAULT_IMPLOSION_TARGET_SECONDS, 2, 300);
+        long tickBudgetUs = getLong(props, KEY_IMPLOSION_TICK_BUDGET_US, DEFAULT_IMPLOSION_TICK_BUDGET_US, 200, 50_000);
+        int maxActivePerWorld = getInt(props, KEY_IMPLOSION_MAX_ACTIVE_PER_WORLD, DEFAULT_IMPLOSION_MAX_ACTIVE_PER_WORLD, 1, 16);
         int activationRadiusBlocks = getInt(props, KEY_SPAWNER_ACTIVATION_RADIUS_BLOCKS, DEFAULT_SPAWNER_ACTIVATION_RADIUS_BLOCKS, 16, 512);
+        boolean prefabPlan = getBoolean(props, KEY_IMPLOSION_PREFAB_PLAN, DEFAULT_IMPLOSION_PREFAB_PLAN);
+        boolean prefabVerify = getBoolean(props, KEY_IMPLOSION_PREFAB_VERIFY_BLOCKS, DEFAULT_IMPLOSION_PREFAB_VERIFY_BLOCKS);
+        int effectBudget = getInt(props, KEY_IMPLOSION_EFFECT_BUDGET, DEFAULT_IMPLOSION_EFFECT_BUDGET, 1, 4096);
+        BattleTowerCollapse.ContainerLoot containerLoot = getContainerLoot(props, KEY_IMPLOSION_CONTAINER_LOOT, DEFAULT_IMPLOSION_CONTAINER_LOOT);
+        String rubbleBlock = getString(props, KEY_IMPLOSION_RUBBLE_BLOCK, DEFAULT_IMPLOSION_RUBBLE_BLOCK);
+        int snapshotCount = getInt(props, KEY_IMPLOSION_SNAPSHOT_COUNT, DEFAULT_IMPLOSION_SNAPSHOT_COUNT, 0, 256);
+        boolean trace = getBoolean(props, KEY_TOWER_TRACE, DEFAULT_TOWER_TRACE);
+        int traceMaxMb = getInt(props, KEY_TOWER_TRACE_MAX_MB, DEFAULT_TOWER_TRACE_MAX_MB, 1, 16_384);
 
         BattleTowerCollapse.setCollapseDelaySeconds(delaySeconds);
         BattleTowerCollapse.setAnnounceRadiusBlocks(announceRadius);
         BattleTowerCollapse.setImplosionTickMs(tickMs);
-        BattleTowerCollapse.setLayersPerTick(layersPerTick);
+        BattleTowerCollapse.setImplosionTargetSeconds(targetSeconds);
+        BattleTowerCollapse.setImplosionTickBudgetMicros(tickBudgetUs);
+        BattleTowerCollapse.setMaxActivePerWorld(maxActivePerWorld);
+        BattleTowerCollapse.setPrefabPlanEnabled(prefabPlan);
+        BattleTowerCollapse.setPrefabPlanVerifyBlocks(prefabVerify);
+        BattleTowerCollapse.setEffectPacketBudgetPerTick(effectBudget);
+        BattleTowerCollapse.setContainerLoot(containerLoot);
+        BattleTowerCollapse.setRubbleBlockId(rubbleBlock);
+        BattleTowerCollapse.setSnapshotCount(snapshotCount);
+        BattleTowerCollapse.setTraceEnabled(trace);
+        BattleTowerCollapse.setTraceMaxMegabytes(traceMaxMb);
         BattleTowerSpawner.setActivationRadiusBlocks(activationRadiusBlocks);
+        BattleTowerCollapse.setDataDirectory(getDataDirectory());
 
-        LOGGER.atInfo().log("BattleTowers config: delay=%ds announceRadius=%d tickMs=%d layersPerTick=%d activationRadius=%d (file=%s)",
-                delaySeconds, announceRadius, tickMs, layersPerTick, activationRadiusBlocks, configPath);
+        LOGGER.atInfo().log("BattleTowers config: delay=%ds announceRadius=%d tickMs=%d target=%ds tickBudget=%dus maxActivePerWorld=%d activationRadius=%d prefabPlan=%s prefabVerify=%s effectBudget=%d containerLoot=%s rubbleBlock=%s snapshots=%d trace=%s (file=%s)",
+                delaySeconds, announceRadius, tickMs, targetSeconds, tickBudgetUs, maxActivePerWorld, activationRadiusBlocks, prefabPlan, prefabVerify,
+                effectBudget, containerLoot, rubbleBlock, snapshotCount, trace, configPath);
+    }
+
+    /**
+     * Directory for files the mod writes at runtime (collapse journals, snapshots, ...), next to the config file.
+     */
+    public static Path getDataDirectory() {
+        return getDefaultConfigPath().resolveSibling("BattleTowers");
     }
 
     private static Path getDefaultConfigPath() {
@@ -91,8 +141,18 @@ public final class BattleTowerConfig {
         defaults.setProperty(KEY_IMPLOSION_DELAY_SECONDS, Long.toString(DEFAULT_IMPLOSION_DELAY_SECONDS));
         defaults.setProperty(KEY_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS, Integer.toString(DEFAULT_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS));
         defaults.setProperty(KEY_IMPLOSION_TICK_MS, Long.toString(DEFAULT_IMPLOSION_TICK_MS));
-        defaults.setProperty(KEY_IMPLOSION_LAYERS_PER_TICK, Integer.toString(DEFAULT_IMPLOSION_LAYERS_PER_TICK));
+        defaults.setProperty(KEY_IMPLOSION_TARGET_SECONDS, Long.toString(DEFAULT_IMPLOSION_TARGET_SECONDS));
+        defaults.setProperty(KEY_IMPLOSION_TICK_BUDGET_US, Long.toString(DEFAULT_IMPLOSION_TICK_BUDGET_US));
+        defaults.setProperty(KEY_IMPLOSION_MAX_ACTIVE_PER_WORLD, Integer.toString(DEFAULT_IMPLOSION_MAX_ACTIVE_PER_WORLD));
         defaults.setProperty(KEY_SPAWNER_ACTIVATION_RADIUS_BLOCKS, Integer.toString(DEFAULT_SPAWNER_ACTIVATION_RADIUS_BLOCKS));
+        defaults.setProperty(KEY_IMPLOSION_PREFAB_PLAN, Boolean.toString(DEFAULT_IMPLOSION_PREFAB_PLAN));
+        defaults.setProperty(KEY_IMPLOSION_PREFAB_VERIFY_BLOCKS, Boolean.toString(DEFAULT_IMPLOSION_PREFAB_VERIFY_BLOCKS));
+        defaults.setProperty(KEY_IMPLOSION_EFFECT_BUDGET, Integer.toString(DEFAULT_IMPLOSION_EFFECT_BUDGET));
+        defaults.setProperty(KEY_IMPLOSION_CONTAINER_LOOT, DEFAULT_IMPLOSION_CONTAINER_LOOT.name().toLowerCase(Locale.ROOT));
+        defaults.setProperty(KEY_IMPLOSION_RUBBLE_BLOCK, DEFAULT_IMPLOSION_RUBBLE_BLOCK);
+        defaults.setProperty(KEY_IMPLOSION_SNAPSHOT_COUNT, Integer.toString(DEFAULT_IMPLOSION_SNAPSHOT_COUNT));
+        defaults.setProperty(KEY_TOWER_TRACE, Boolean.toString(DEFAULT_TOWER_TRACE));
+        defaults.setProperty(KEY_TOWER_TRACE_MAX_MB, Integer.toString(DEFAULT_TOWER_TRACE_MAX_MB));
 
         try (OutputStream out = Files.newOutputStream(configPath)) {
             defaults.store(out, "BattleTowers settings");
@@ -104,8 +164,18 @@ public final class BattleTowerConfig {
         changed |= putIfMissing(props, KEY_IMPLOSION_DELAY_SECONDS, Long.toString(DEFAULT_IMPLOSION_DELAY_SECONDS));
         changed |= putIfMissing(props, KEY_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS, Integer.toString(DEFAULT_IMPLOSION_ANNOUNCE_RADIUS_BLOCKS));
         changed |= putIfMissing(props, KEY_IMPLOSION_TICK_MS, Long.toString(DEFAULT_IMPLOSION_TICK_MS));
-        changed |= putIfMissing(props, KEY_IMPLOSION_LAYERS_PER_TICK, Integer.toString(DEFAULT_IMPLOSION_LAYERS_PER_TICK));
+        changed |= putIfMissing(props, KEY_IMPLOSION_TARGET_SECONDS, Long.toString(DEFAULT_IMPLOSION_TARGET_SECONDS));
+        changed |= putIfMissing(props, KEY_IMPLOSION_TICK_BUDGET_US, Long.toString(DEFAULT_IMPLOSION_TICK_BUDGET_US));
+        changed |= putIfMissing(props, KEY_IMPLOSION_MAX_ACTIVE_PER_WORLD, Integer.toString(DEFAULT_IMPLOSION_MAX_ACTIVE_PER_WORLD));
         changed |= putIfMissing(props, KEY_SPAWNER_ACTIVATION_RADIUS_BLOCKS, Integer.toString(DEFAULT_SPAWNER_ACTIVATION_RADIUS_BLOCKS));
+        changed |= putIfMissing(props, KEY_IMPLOSION_PREFAB_PLAN, Boolean.toString(DEFAULT_IMPLOSION_PREFAB_PLAN));
+        changed |= putIfMissing(props, KEY_IMPLOSION_PREFAB_VERIFY_BLOCKS, Boolean.toString(DEFAULT_IMPLOSION_PREFAB_VERIFY_BLOCKS));
+        changed |= putIfMissing(props, KEY_IMPLOSION_EFFECT_BUDGET, Integer.toString(DEFAULT_IMPLOSION_EFFECT_BUDGET));
+        changed |= putIfMissing(props, KEY_IMPLOSION_CONTAINER_LOOT, DEFAULT_IMPLOSION_CONTAINER_LOOT.name().toLowerCase(Locale.ROOT));
+        changed |= putIfMissing(props, KEY_IMPLOSION_RUBBLE_BLOCK, DEFAULT_IMPLOSION_RUBBLE_BLOCK);
+        changed |= putIfMissing(props, KEY_IMPLOSION_SNAPSHOT_COUNT, Integer.toString(DEFAULT_IMPLOSION_SNAPSHOT_COUNT));
+        changed |= putIfMissing(props, KEY_TOWER_TRACE, Boolean.toString(DEFAULT_TOWER_TRACE));
+        changed |= putIfMissing(props, KEY_TOWER_TRACE_MAX_MB, Integer.toString(DEFAULT_TOWER_TRACE_MAX_MB));
 
         if (changed) {
             LOGGER.atInfo().log("BattleTowers config upgraded with missing defaults (file=%s).", configPath);
@@ -141,6 +211,42 @@ public final class BattleTowerConfig {
         }
     }
 
+    private static boolean getBoolean(Properties props, String key, boolean def) {
+        String raw = props.getProperty(key);
+        if (raw == null || raw.isBlank()) {
+            return def;
+        }
+        String v = raw.trim();
+        if (v.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (v.equalsIgnoreCase("false")) {
+            return false;
+        }
+        return def;
+    }
+
+    private static String getString(Properties props, String key, String def) {
+        String raw = props.getProperty(key);
+        if (raw == null || raw.isBlank()) {
+            return def;
+        }
+        return raw.trim();
+    }
+
+    private static BattleTowerCollapse.ContainerLoot getContainerLoot(Properties props, String key,
+                                                                      BattleTowerCollapse.ContainerLoot def) {
+        String raw = props.getProperty(key);
+        if (raw == null || raw.isBlank()) {
+            return def;
+        }
+        try {
+            return BattleTowerCollapse.ContainerLoot.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        } catch (Exception ignored) {
+            return def;
+        }
+    }
+
     private static long getLong(Properties props, String key, long def, long min, long max) {
         try {
             String raw = props.getProperty(key);
@@ -17,11 +17,15 @@ import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.npc.NPCPlugin;
 import com.hypixel.hytale.server.spawning.ISpawnableWithModel;
 import com.hypixel.hytale.server.spawning.SpawningContext;
 import com.ralkage.battletowers.worldgen.BattleTowerCollapse;
+import com.ralkage.battletowers.worldgen.BattleTowerMetrics;
+import com.ralkage.battletowers.worldgen.BattleTowerPrefabInstaller;
+import com.ralkage.battletowers.worldgen.BattleTowerWorldTasks;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -30,6 +34,8 @@ import java.util.List;
 public class BattleTowers extends CommandBase {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+    // Restores paste whole towers back into the world, so only admins get them.
+    private static final String RESTORE_PERMISSION = "battletowers.command.restore";
 
     private final OptionalArg<String> subcommandArg;
     private final OptionalArg<String> npcArg;
@@ -37,7 +43,7 @@ public class BattleTowers extends CommandBase {
 
     public BattleTowers() {
         super("battletowers", "Battle Towers command");
-        this.subcommandArg = withOptionalArg("action", "Subcommand: implode, spawn", ArgTypes.STRING);
+        this.subcommandArg = withOptionalArg("action", "Subcommand: implode, spawn, delay, forgekey, restore", ArgTypes.STRING);
         this.npcArg = withOptionalArg("npc", "NPC type ID (e.g. Skeleton_Soldier)", ArgTypes.STRING);
         this.amountArg = withOptionalArg("amount", "Optional amount (e.g. sigils to spend)", ArgTypes.INTEGER);
     }
@@ -63,6 +69,10 @@ public class BattleTowers extends CommandBase {
                 handleForgeKey(context);
                 return;
             }
+            if ("restore".equalsIgnoreCase(sub)) {
+                handleRestore(context);
+                return;
+            }
 
             runDiagnostics(context);
         } catch (Throwable t) {
@@ -122,6 +132,55 @@ public class BattleTowers extends CommandBase {
         }
     }
 
+    private void handleRestore(CommandContext context) {
+        if (!context.isPlayer()) {
+            context.sendMessage(Message.raw("This command must be run by a player."));
+            return;
+        }
+        if (!context.sender().hasPermission(RESTORE_PERMISSION)) {
+            context.sendMessage(Message.raw("You don't have permission to restore towers."));
+            return;
+        }
+
+        try {
+            var ref = context.senderAsPlayerRef();
+            if (ref == null || !ref.isValid()) {
+                context.sendMessage(Message.raw("Could not resolve player reference."));
+                return;
+            }
+
+            var store = ref.getStore();
+            World world = store.getExternalData().getWorld();
+            if (world == null) {
+                context.sendMessage(Message.raw("Could not get world."));
+                return;
+            }
+
+            world.execute(() -> {
+                try {
+                    PlayerRef player = store.getComponent(ref, PlayerRef.getComponentType());
+                    if (player == null) {
+                        context.sendMessage(Message.raw("Could not get player component."));
+                        return;
+                    }
+
+                    Vector3d pos = player.getTransform().getPosition();
+                    int x = (int) Math.floor(pos.getX());
+                    int z = (int) Math.floor(pos.getZ());
+
+                    BattleTowerCollapse.restoreNearestSnapshot(world, x, z, 64,
+                            message -> context.sendMessage(Message.raw(message)));
+                } catch (Exception e) {
+                    context.sendMessage(Message.raw("Error: " + e.getClass().getSimpleName() + " - " + e.getMessage()));
+                    LOGGER.atWarning().log("Restore command failed: %s", e);
+                }
+            });
+        } catch (Exception e) {
+            context.sendMessage(Message.raw("Error: " + e.getClass().getSimpleName() + " - " + e.getMessage()));
+            LOGGER.atWarning().log("Restore command failed: %s", e);
+        }
+    }
+
     private void handleSpawn(CommandContext context) {
         if (!context.isPlayer()) {
             context.sendMessage(Message.raw("This command must be run by a player."));
@@ -401,6 +460,27 @@ public class BattleTowers extends CommandBase {
     private void runDiagnostics(CommandContext context) {
         context.sendMessage(Message.raw("Battle Towers - Diagnostic Report:"));
 
+        List<String> worldTasks = BattleTowerWorldTasks.describe();
+        context.sendMessage(Message.raw("  World tasks: " + (worldTasks.isEmpty() ? "none yet" : worldTasks.size() + " slot(s)")));
+        for (String line : worldTasks) {
+            context.sendMessage(Message.raw("    - " + line));
+        }
+
+        List<String> metrics = BattleTowerMetrics.describe();
+        context.sendMessage(Message.raw("  Metrics: " + (metrics.isEmpty() ? "none yet" : metrics.size() + " world(s)")));
+        for (String line : metrics) {
+            context.sendMessage(Message.raw("    - " + line));
+        }
+
+        // Collapse queues live on each world's thread; each world reports its own line.
+        try {
+            for (World world : Universe.get().getWorlds().values()) {
+                world.execute(() -> context.sendMessage(Message.raw("  Collapse queue " + BattleTowerCollapse.describeCollapseQueue(world))));
+            }
+        } catch (Exception e) {
+            context.sendMessage(Message.raw("  Collapse queues: " + e.getMessage()));
+        }
+
         try {
             PrefabStore store = PrefabStore.get();
             if (store == null) {
@@ -425,13 +505,8 @@ public class BattleTowers extends CommandBase {
                 context.sendMessage(Message.raw("    - " + p));
             }
 
-            String[] prefabFiles = {
-                "BattleTower/battletower_tier1.prefab.json",
-                "BattleTower/battletower_tier2.prefab.json",
-                "BattleTower/battletower_tier3.prefab.json",
-                "BattleTower/battletower_shore.prefab.json"
-            };
-            for (String f : prefabFiles) {
+            for (String file : BattleTowerPrefabInstaller.PREFAB_FILES) {
+                String f = BattleTowerPrefabInstaller.PREFAB_DIR + file;
                 try {
                     BlockSelection bs = store.getPrefab(serverPrefabsPath.resolve(f));
                     if (bs != null) {
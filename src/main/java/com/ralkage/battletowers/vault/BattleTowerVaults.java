@@ -16,6 +16,7 @@ import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.ralkage.battletowers.worldgen.BattleTowerBlockClassifier;
 import com.ralkage.battletowers.worldgen.BattleTowerCollapse;
 
 import java.util.Set;
@@ -55,8 +56,7 @@ public final class BattleTowerVaults {
             return;
         }
 
-        String blockTypeId = blockType.getId();
-        if (blockTypeId == null || !blockTypeId.startsWith("Furniture_Village_Chest")) {
+        if (!BattleTowerBlockClassifier.isVaultChest(blockType)) {
             return;
         }
 
@@ -169,7 +169,7 @@ public final class BattleTowerVaults {
         }
     }
 
-    private static long packBlockPos(int x, int y, int z) {
+    static long packBlockPos(int x, int y, int z) {
         // Minecraft-style packing (26 bits X, 12 bits Y, 26 bits Z).
         long lx = ((long) x & 0x3FFFFFFL) << 38;
         long lz = ((long) z & 0x3FFFFFFL) << 12;
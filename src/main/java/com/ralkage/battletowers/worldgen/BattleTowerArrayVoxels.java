@@ -0,0 +1,139 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * {@link BattleTowerVoxelAccess} over a flat array of block indices, for running collapses without a world
+ * (benchmarks, offline checks). Positions outside the volume read as the empty block; every chunk column that
+ * overlaps the volume counts as loaded. Not thread-safe.
+ */
+final class BattleTowerArrayVoxels implements BattleTowerVoxelAccess {
+
+    final int minX;
+    final int minY;
+    final int minZ;
+    final int sizeX;
+    final int sizeY;
+    final int sizeZ;
+    private final int emptyId;
+    private final int[] blocks;
+    private final BitSet containers = new BitSet();
+    private long reads;
+    private long clears;
+
+    /**
+     * @param emptyId block index of air; the volume starts filled with it
+     */
+    BattleTowerArrayVoxels(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int emptyId) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.emptyId = emptyId;
+        this.blocks = new int[sizeX * sizeY * sizeZ];
+        Arrays.fill(blocks, emptyId);
+    }
+
+    int get(int x, int y, int z) {
+        int index = indexOf(x, y, z);
+        return index < 0 ? emptyId : blocks[index];
+    }
+
+    void set(int x, int y, int z, int blockId) {
+        int index = indexOf(x, y, z);
+        if (index >= 0) {
+            blocks[index] = blockId;
+            containers.clear(index);
+        }
+    }
+
+    void setContainer(int x, int y, int z, int blockId) {
+        int index = indexOf(x, y, z);
+        if (index >= 0) {
+            blocks[index] = blockId;
+            containers.set(index);
+        }
+    }
+
+    /**
+     * Makes this volume's blocks and containers a copy of {@code source}'s, which must have the same size.
+     */
+    void copyFrom(BattleTowerArrayVoxels source) {
+        System.arraycopy(source.blocks, 0, blocks, 0, blocks.length);
+        containers.clear();
+        containers.or(source.containers);
+    }
+
+    /**
+     * Blocks read through {@link Column#blockAt} so far.
+     */
+    long reads() {
+        return reads;
+    }
+
+    /**
+     * Blocks removed through {@link Column#clear} so far.
+     */
+    long clears() {
+        return clears;
+    }
+
+    void resetCounters() {
+        reads = 0;
+        clears = 0;
+    }
+
+    private int indexOf(int x, int y, int z) {
+        int lx = x - minX;
+        int ly = y - minY;
+        int lz = z - minZ;
+        if (lx < 0 || ly < 0 || lz < 0 || lx >= sizeX || ly >= sizeY || lz >= sizeZ) {
+            return -1;
+        }
+        return (ly * sizeZ + lz) * sizeX + lx;
+    }
+
+    @Override
+    public Column column(int chunkX, int chunkZ) {
+        int baseX = chunkX * ChunkUtil.SIZE;
+        int baseZ = chunkZ * ChunkUtil.SIZE;
+        if (baseX > minX + sizeX - 1 || baseX + ChunkUtil.SIZE <= minX
+                || baseZ > minZ + sizeZ - 1 || baseZ + ChunkUtil.SIZE <= minZ) {
+            return null;
+        }
+        return new ArrayColumn(baseX, baseZ);
+    }
+
+    private final class ArrayColumn implements Column {
+        private final int baseX;
+        private final int baseZ;
+
+        ArrayColumn(int baseX, int baseZ) {
+            this.baseX = baseX;
+            this.baseZ = baseZ;
+        }
+
+        @Override
+        public int blockAt(int localX, int y, int localZ) {
+            reads++;
+            return get(baseX + localX, y, baseZ + localZ);
+        }
+
+        @Override
+        public boolean isContainer(int localX, int y, int localZ) {
+            int index = indexOf(baseX + localX, y, baseZ + localZ);
+            return index >= 0 && containers.get(index);
+        }
+
+        @Override
+        public void clear(int localX, int y, int localZ, int blockId, int planIndex) {
+            clears++;
+            set(baseX + localX, y, baseZ + localZ, emptyId);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.Locale;
+
+/**
+ * Immutable per-block-index classification flags.
+ *
+ * Built once from the block type id list (index -> id) so hot scan paths can classify a block with a single
+ * array read instead of string prefix/contains checks. Unknown or out-of-range indexes classify as 0.
+ */
+final class BattleTowerBlockClassTable {
+
+    static final int EMPTY = 1;
+    static final int IMPLODABLE = 1 << 1;
+    static final int SURFACE_NOISE = 1 << 2;
+    static final int FLUID = 1 << 3;
+    static final int VAULT_CHEST = 1 << 4;
+
+    static final BattleTowerBlockClassTable NONE = new BattleTowerBlockClassTable(new byte[0]);
+
+    private final byte[] flags;
+
+    private BattleTowerBlockClassTable(byte[] flags) {
+        this.flags = flags;
+    }
+
+    /**
+     * @param ids block type ids by asset index ({@code null} entries are skipped)
+     * @param emptyIndex index of the empty/air block type, or -1 if unknown
+     */
+    static BattleTowerBlockClassTable build(String[] ids, int emptyIndex) {
+        byte[] flags = new byte[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            String id = ids[i];
+            if (id == null) {
+                continue;
+            }
+            flags[i] = (byte) classify(id);
+        }
+        if (emptyIndex >= 0 && emptyIndex < flags.length) {
+            flags[emptyIndex] = (byte) EMPTY;
+        }
+        return new BattleTowerBlockClassTable(flags);
+    }
+
+    int size() {
+        return flags.length;
+    }
+
+    int flags(int blockIndex) {
+        if (blockIndex < 0 || blockIndex >= flags.length) {
+            return 0;
+        }
+        return flags[blockIndex];
+    }
+
+    boolean has(int blockIndex, int flag) {
+        return (flags(blockIndex) & flag) != 0;
+    }
+
+    static int classify(String blockTypeId) {
+        int result = 0;
+        if (isImplodableId(blockTypeId)) {
+            result |= IMPLODABLE;
+        }
+        if (isFluidId(blockTypeId)) {
+            result |= FLUID;
+        } else if (isSurfaceNoiseId(blockTypeId)) {
+            result |= SURFACE_NOISE;
+        }
+        if (isVaultChestId(blockTypeId)) {
+            result |= VAULT_CHEST;
+        }
+        return result;
+    }
+
+    static boolean isImplodableId(String blockTypeId) {
+        if (blockTypeId == null || blockTypeId.isEmpty()) {
+            return false;
+        }
+        if (blockTypeId.startsWith("Rock_")) {
+            // Tower prefabs use Rock_*_(Brick|Cobble) variants across tiers.
+            // Avoid carving natural terrain by only removing tower-like "brick/cobble" blocks.
+            return blockTypeId.contains("_Cobble") || blockTypeId.contains("_Brick");
+        }
+        return blockTypeId.startsWith("Wood_")
+                || blockTypeId.startsWith("Furniture_")
+                || blockTypeId.startsWith("Deco_");
+    }
+
+    static boolean isFluidId(String blockTypeId) {
+        if (blockTypeId == null || blockTypeId.isEmpty()) {
+            return false;
+        }
+        String id = blockTypeId.toLowerCase(Locale.ROOT);
+        return id.contains("water") || id.contains("lava") || id.contains("liquid");
+    }
+
+    static boolean isSurfaceNoiseId(String blockTypeId) {
+        if (blockTypeId == null || blockTypeId.isEmpty()) {
+            return true;
+        }
+
+        String id = blockTypeId.toLowerCase(Locale.ROOT);
+
+        // Treat fluids as a "surface" to avoid scanning down through deep rivers/lakes.
+        if (id.contains("water") || id.contains("lava") || id.contains("liquid")) {
+            return false;
+        }
+
+        // Skip canopy/foliage/decor so ground detection doesn't lock onto trees or tall grass.
+        return id.startsWith("foliage_")
+                || id.startsWith("plant_")
+                || id.startsWith("flower_")
+                || id.contains("leaf")
+                || id.contains("leaves")
+                || id.contains("vine")
+                || id.contains("mushroom")
+                || id.contains("sapling")
+                || id.contains("bush")
+                || id.startsWith("deco_")
+                || id.startsWith("furniture_")
+                || id.startsWith("wood_")
+                || id.contains("log")
+                || id.contains("branch");
+    }
+
+    static boolean isVaultChestId(String blockTypeId) {
+        return blockTypeId != null && blockTypeId.startsWith("Furniture_Village_Chest");
+    }
+}
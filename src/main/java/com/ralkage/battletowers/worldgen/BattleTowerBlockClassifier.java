@@ -0,0 +1,123 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Block type classification for tower scans, keyed by BlockType asset index.
+ *
+ * The table is built lazily from the BlockType asset map the first time it is needed (assets are not ready
+ * during plugin setup) and dropped whenever BlockType assets are (re)loaded, so it always matches the live
+ * index space. A table whose build overlapped a reload is used by its caller but not kept.
+ *
+ * Vault chests are also kept as the BlockType instances at the table's VAULT_CHEST indexes, so a block type
+ * handed over by an event can be classified without looking its id up again.
+ */
+public final class BattleTowerBlockClassifier {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static volatile Classes classes;
+    // Bumped on every invalidation; guarded by the class lock.
+    private static int generation;
+
+    private BattleTowerBlockClassifier() {
+    }
+
+    public static void register(EventRegistry eventRegistry) {
+        eventRegistry.register(LoadedAssetsEvent.class, BlockType.class, _e -> invalidate());
+        LOGGER.atInfo().log("BattleTowerBlockClassifier listener registered.");
+    }
+
+    public static synchronized void invalidate() {
+        generation++;
+        classes = null;
+    }
+
+    private record Classes(BattleTowerBlockClassTable table, BlockType[] vaultChests) {
+    }
+
+    /**
+     * Current classification table. Callers on hot paths should fetch this once per scan and reuse it.
+     */
+    static BattleTowerBlockClassTable table() {
+        return classes().table();
+    }
+
+    private static Classes classes() {
+        Classes current = classes;
+        if (current != null) {
+            return current;
+        }
+        int builtFor;
+        synchronized (BattleTowerBlockClassifier.class) {
+            builtFor = generation;
+        }
+        current = build();
+        if (current.table().size() > 0) {
+            synchronized (BattleTowerBlockClassifier.class) {
+                if (generation == builtFor) {
+                    classes = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Whether a block type is one of the vault chest types found while building the table.
+     */
+    public static boolean isVaultChest(BlockType type) {
+        if (type == null) {
+            return false;
+        }
+        for (BlockType vaultChest : classes().vaultChests()) {
+            if (vaultChest == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Classes build() {
+        try {
+            var assetMap = BlockType.getAssetMap();
+            var assets = assetMap.getAssetMap();
+
+            int maxIndex = -1;
+            for (String id : assets.keySet()) {
+                maxIndex = Math.max(maxIndex, assetMap.getIndex(id));
+            }
+
+            String[] ids = new String[maxIndex + 1];
+            for (String id : assets.keySet()) {
+                int index = assetMap.getIndex(id);
+                if (index >= 0) {
+                    ids[index] = id;
+                }
+            }
+
+            int emptyIndex = assetMap.getIndex(BlockType.EMPTY.getId());
+            BattleTowerBlockClassTable built = BattleTowerBlockClassTable.build(ids, emptyIndex == Integer.MIN_VALUE ? -1 : emptyIndex);
+            List<BlockType> vaultChests = new ArrayList<>();
+            for (int i = 0; i < built.size(); i++) {
+                if (built.has(i, BattleTowerBlockClassTable.VAULT_CHEST)) {
+                    BlockType type = assetMap.getAsset(i);
+                    if (type != null) {
+                        vaultChests.add(type);
+                    }
+                }
+            }
+            LOGGER.atInfo().log("Block classification table built for %d block types.", built.size());
+            return new Classes(built, vaultChests.toArray(new BlockType[0]));
+        } catch (Exception e) {
+            LOGGER.atWarning().log("Block classification table build failed: %s", e.getMessage());
+            return new Classes(BattleTowerBlockClassTable.NONE, new BlockType[0]);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package com.ralkage.battletowers.worldgen;
 
 import com.hypixel.hytale.event.EventRegistry;
-import com.hypixel.hytale.component.RemoveReason;
 import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.ResourceType;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.math.util.ChunkUtil;
@@ -11,33 +11,33 @@ import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
 import com.hypixel.hytale.server.core.entity.Entity;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
-import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.event.events.entity.EntityRemoveEvent;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackTransaction;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
-import com.hypixel.hytale.server.core.universe.world.ParticleUtil;
-import com.hypixel.hytale.server.core.universe.world.SoundUtil;
-import com.hypixel.hytale.server.core.asset.type.soundevent.config.SoundEvent;
-import com.hypixel.hytale.protocol.SoundCategory;
+import com.hypixel.hytale.server.core.universe.world.events.AllWorldsLoadedEvent;
 import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
-import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
-import com.hypixel.hytale.server.core.modules.entity.item.PickupItemComponent;
 import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
-import com.hypixel.hytale.server.core.universe.world.meta.state.DestroyableBlockState;
 import com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerBlockState;
 import com.hypixel.hytale.server.npc.entities.NPCEntity;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.npc.components.SpawnMarkerReference;
-import com.hypixel.hytale.server.spawning.spawnmarkers.SpawnMarkerEntity;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -45,8 +45,9 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 
 /**
  * Tower implosion logic for Battle Towers.
@@ -129,20 +130,31 @@ public final class BattleTowerCollapse {
     private static volatile long collapseDelaySeconds = 30;
     private static volatile long implosionTickMs = 300;
     // Tower prefab footprint is ~13x13, so radius ~9 covers corners; keep a little padding.
-    private static final int IMPLOSION_RADIUS = 10;
+    static final int IMPLOSION_RADIUS = 10;
     // Boss markers aren't perfectly centered in every prefab; allow wider scans and a larger final sweep to avoid stray pillars.
-    private static final int TOP_SCAN_RADIUS = IMPLOSION_RADIUS + 12;
-    private static final int FINAL_SWEEP_EXTRA_RADIUS = 12;
-    private static final int MAX_SWEEP_RADIUS = 28;
-    private static final int ROOF_HEADROOM = 20;     // extra range above player for roof/spire
-    private static final int TOWER_CLEARANCE = 256;    // max range below player (used for base/ground scans)
-    // We avoid carving terrain via shouldImplode() and stop based on computed ground surface.
-    private static volatile int layersPerTick = 2;
+    static final int TOP_SCAN_RADIUS = IMPLOSION_RADIUS + 12;
+    static final int FINAL_SWEEP_EXTRA_RADIUS = 12;
+    static final int MAX_SWEEP_RADIUS = 28;
+    static final int ROOF_HEADROOM = 20;     // extra range above player for roof/spire
+    static final int TOWER_CLEARANCE = 256;    // max range below player (used for base/ground scans)
+    // We avoid carving terrain via the block classification table (IMPLODABLE) and stop based on computed ground surface.
+    // Each collapse aims to finish in this time, spending at most the tick budget on the world thread per tick.
+    private static volatile long implosionTargetSeconds = 10;
+    private static volatile long implosionTickBudgetMicros = 2000;
+    // Collapses beyond this many per world wait their turn; the tick budget above is shared by a world's active ones.
+    private static volatile int maxActivePerWorld = 2;
+    private static volatile boolean prefabPlanEnabled = true;
+    private static volatile boolean prefabPlanVerifyBlocks = true;
+    private static volatile ContainerLoot containerLoot = ContainerLoot.DISCARD;
+    private static volatile String rubbleBlockId = "Furniture_Village_Chest_Small";
+    // Containers stacked at the ruin base before leftover items are dropped.
+    private static final int MAX_RUBBLE_CONTAINERS = 4;
+    // Prefab matching: how many prefab blocks to probe, and how many must match the live world.
+    private static final int PREFAB_MATCH_SAMPLES = 32;
+    private static final double PREFAB_MATCH_MIN_RATIO = 0.75;
     private static volatile int nearbyPlayerRadiusBlocks = 64;
-    private static final int MOB_PURGE_RADIUS = IMPLOSION_RADIUS + 10;
-    private static final int DROP_CLEAN_RADIUS = IMPLOSION_RADIUS + 6;
     // Preserve a few layers at the bottom so the tower leaves a ruin/foundation instead of a crater.
-    private static final int RUIN_PRESERVE_LAYERS = 3;
+    static final int RUIN_PRESERVE_LAYERS = 3;
 
     /**
      * Tracks which tower a boss belongs to at spawn time, so if the boss is knocked off and killed elsewhere,
@@ -156,46 +168,34 @@ public final class BattleTowerCollapse {
     private static final Set<Integer> DEFEATED_BOSS_REFHASHES = ConcurrentHashMap.newKeySet();
     private static final Set<Long> DEFEATED_BOSS_REFIDS = ConcurrentHashMap.newKeySet();
 
-    /**
-     * IMPORTANT: Don't use Explosion_Big as the per-layer effect.
-     * Explosion_Big includes lingering fire spawners (Explosion_Big_Fires / _Fire_Ground) which look like
-     * floating fires when spawned mid-air during the top-down collapse.
-     */
-    private static final String[] COLLAPSE_PARTICLES = {
-            "Explosion_Small",
-            "Block_Break_Stone",
-            "Block.Stone.Block_Break_Stone"
-    };
-    private static final String[] FINISH_PARTICLES = {
-            // Avoid Explosion_Big here too; it spawns lingering fires.
-            "Impact_Explosion",
-            "Explosion_Small"
-    };
-    private static volatile String resolvedCollapseParticleId = null;
-    private static volatile String resolvedFinishParticleId = null;
-
-    private static final String[] EXPLOSION_SOUNDS = {
-            "SFX_Golem_Earth_Slam_Impact",
-            "SFX_Bomb_Fire_Goblin_Death",
-            "SFX_GunPvP_Grenade_Frag_Death",
-            "SFX_Stone_Break"
-    };
-    private static final String[] RUMBLE_SOUNDS = {
-            "SFX_Golem_Earth_Stomp_Impact",
-            "SFX_Golem_Sand_Stomp_Impact",
-            "SFX_Z3_Emit_Cave_Ice_Rumble"
-    };
-    private static volatile int resolvedExplosionSoundId = Integer.MIN_VALUE;
-    private static volatile int resolvedRumbleSoundId = Integer.MIN_VALUE;
-
     private static final ConcurrentHashMap<TowerKey, TowerState> TOWERS = new ConcurrentHashMap<>();
+    // Spatial view of TOWERS' keys; only touch it through trackTower/untrackTower.
+    private static final BattleTowerTowerIndex TOWER_INDEX = new BattleTowerTowerIndex();
+
+    // How long item spawns stay suppressed after a collapse finishes, and the cap for one that never finishes.
+    private static final long DROP_SUPPRESSION_LINGER_SECONDS = 6;
+    private static final long DROP_SUPPRESSION_MAX_SECONDS = 120;
+
+    private static final String ANNOUNCE_TASK = "collapse-announce";
+    private static final String ENQUEUE_TASK = "collapse-enqueue";
 
     private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(
             new NamedDaemonThreadFactory("BattleTower-Implosion"));
+    // Surveys collapses from block copies taken on the world thread; never touches the world itself.
+    private static final ExecutorService PLANNER = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)),
+            new NamedDaemonThreadFactory("BattleTower-Planner"));
 
     private BattleTowerCollapse() {
     }
 
+    /**
+     * The pool surveys run on, for driving collapses outside a server.
+     */
+    static Executor planner() {
+        return PLANNER;
+    }
+
     public static long getCollapseDelaySeconds() {
         return collapseDelaySeconds;
     }
@@ -213,12 +213,94 @@ public final class BattleTowerCollapse {
         implosionTickMs = Math.max(50, Math.min(2000, tickMs));
     }
 
-    public static int getLayersPerTick() {
-        return layersPerTick;
+    public static long getImplosionTargetSeconds() {
+        return implosionTargetSeconds;
+    }
+
+    public static void setImplosionTargetSeconds(long seconds) {
+        implosionTargetSeconds = Math.max(2, Math.min(300, seconds));
+    }
+
+    public static long getImplosionTickBudgetMicros() {
+        return implosionTickBudgetMicros;
+    }
+
+    public static void setImplosionTickBudgetMicros(long micros) {
+        implosionTickBudgetMicros = Math.max(200, Math.min(50_000, micros));
+    }
+
+    public static int getMaxActivePerWorld() {
+        return maxActivePerWorld;
+    }
+
+    public static void setMaxActivePerWorld(int maxActive) {
+        maxActivePerWorld = Math.max(1, Math.min(16, maxActive));
+    }
+
+    public static boolean isPrefabPlanEnabled() {
+        return prefabPlanEnabled;
+    }
+
+    public static void setPrefabPlanEnabled(boolean enabled) {
+        prefabPlanEnabled = enabled;
+    }
+
+    public static void setPrefabPlanVerifyBlocks(boolean verify) {
+        prefabPlanVerifyBlocks = verify;
+    }
+
+    /**
+     * What happens to the contents of containers (chests, barrels, crates) removed by a collapse.
+     */
+    public enum ContainerLoot {
+        /** Contents are moved into one container placed at the ruin base. */
+        RUBBLE,
+        /** Contents are deleted with the container, as they always were before this option existed (default). */
+        DISCARD
+    }
+
+    public static void setContainerLoot(ContainerLoot mode) {
+        containerLoot = mode != null ? mode : ContainerLoot.DISCARD;
+    }
+
+    public static void setRubbleBlockId(String blockId) {
+        if (blockId != null && !blockId.isBlank()) {
+            rubbleBlockId = blockId.trim();
+        }
+    }
+
+    /**
+     * Directory for the per-world tower registries, collapse journals, snapshots and traces; {@code null} disables
+     * all of them.
+     */
+    public static void setDataDirectory(Path dir) {
+        BattleTowerTowerRegistry.setDirectory(dir != null ? dir.resolve("towers") : null);
+        BattleTowerCollapseJournal.setDirectory(dir != null ? dir.resolve("journal") : null);
+        BattleTowerCollapseSnapshot.setDirectory(dir != null ? dir.resolve("snapshots") : null);
+        BattleTowerTrace.setDirectory(dir != null ? dir.resolve("traces") : null);
+    }
+
+    /**
+     * A world name made safe to use as a file name in the data directory.
+     */
+    static String worldFileName(String worldName) {
+        return worldName.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    public static void setSnapshotCount(int count) {
+        BattleTowerCollapseSnapshot.setKeepCount(count);
+    }
+
+    public static void setTraceEnabled(boolean enabled) {
+        BattleTowerTrace.setEnabled(enabled);
+    }
+
+    public static void setTraceMaxMegabytes(int megabytes) {
+        BattleTowerTrace.setMaxMegabytes(megabytes);
     }
 
-    public static void setLayersPerTick(int layers) {
-        layersPerTick = Math.max(1, Math.min(10, layers));
+    public static void setEffectPacketBudgetPerTick(int budget) {
+        BattleTowerCollapseEffects.setPacketBudgetPerTick(budget);
     }
 
     public static void setAnnounceRadiusBlocks(int radiusBlocks) {
@@ -227,6 +309,14 @@ public final class BattleTowerCollapse {
 
     public static void register(EventRegistry eventRegistry) {
         eventRegistry.registerGlobal(EntityRemoveEvent.class, BattleTowerCollapse::onEntityRemove);
+        eventRegistry.registerGlobal(AllWorldsLoadedEvent.class, _e -> SCHEDULER.execute(() -> {
+            if (prefabPlanEnabled) {
+                // Prefab placements are recorded against these shapes as towers generate.
+                BattleTowerPrefabShape.bundled(BattleTowerCollapse::isTowerBossMarkerId);
+            }
+            resumeJournaledCollapses();
+        }));
+        BattleTowerCollapseEffects.register(eventRegistry);
         LOGGER.atInfo().log("BattleTowerCollapse listener registered.");
     }
 
@@ -240,7 +330,7 @@ public final class BattleTowerCollapse {
 
     public static void triggerImplosion(World world, int x, int y, int z, int baseY) {
         TowerKey key = new TowerKey(world.getName(), x, y, z);
-        TowerState state = TOWERS.computeIfAbsent(key, _k -> new TowerState());
+        TowerState state = trackTower(key);
         if (state.collapseScheduled) {
             return;
         }
@@ -258,7 +348,15 @@ public final class BattleTowerCollapse {
             SCHEDULER.shutdownNow();
         } catch (Exception ignored) {
         }
+        try {
+            PLANNER.shutdownNow();
+        } catch (Exception ignored) {
+        }
+        BattleTowerCollapseJournal.closeAll();
+        BattleTowerTowerRegistry.closeAll();
+        BattleTowerTrace.closeAll();
         TOWERS.clear();
+        TOWER_INDEX.clear();
         BOSS_UUID_TO_TOWER.clear();
         BOSS_REFHASH_TO_TOWER.clear();
         BOSS_REFID_TO_TOWER.clear();
@@ -292,7 +390,7 @@ public final class BattleTowerCollapse {
         TowerKey key = new TowerKey(world.getName(), x, y, z);
 
         // Track this tower anchor even before collapse is scheduled (used for vault detection).
-        TowerState state = TOWERS.computeIfAbsent(key, _k -> new TowerState());
+        TowerState state = trackTower(key);
         state.baseY = y;
 
         BOSS_REFHASH_TO_TOWER.put(bossRef.hashCode(), key);
@@ -314,6 +412,14 @@ public final class BattleTowerCollapse {
      * (even if the boss is moved away from the tower before dying).
      */
     public static void registerBossMarkerAnchor(World world, UUID markerUuid, Vector3d towerAnchorPos) {
+        registerBossMarkerAnchor(world, markerUuid, towerAnchorPos, null);
+    }
+
+    /**
+     * Same as {@link #registerBossMarkerAnchor(World, UUID, Vector3d)}, also recording the tower's tier from its
+     * boss marker ID in the world's tower registry.
+     */
+    public static void registerBossMarkerAnchor(World world, UUID markerUuid, Vector3d towerAnchorPos, String markerId) {
         if (world == null || markerUuid == null || towerAnchorPos == null) {
             return;
         }
@@ -322,46 +428,120 @@ public final class BattleTowerCollapse {
         int y = (int) Math.floor(towerAnchorPos.getY());
         int z = (int) Math.floor(towerAnchorPos.getZ());
         TowerKey key = new TowerKey(world.getName(), x, y, z);
+        if (key.equals(BOSS_MARKER_UUID_TO_TOWER.get(markerUuid))) {
+            // Known already (from the registry or an earlier chunk load).
+            return;
+        }
 
         // Track this tower anchor even before collapse is scheduled (used for vault detection).
-        TowerState state = TOWERS.computeIfAbsent(key, _k -> new TowerState());
+        TowerState state = trackTower(key);
         state.baseY = y;
 
         BOSS_MARKER_UUID_TO_TOWER.put(markerUuid, key);
-    }
 
-    public static boolean isTowerVaultChest(World world, int blockX, int blockY, int blockZ) {
-        if (world == null) {
-            return false;
+        BattleTowerTowerRegistry registry = BattleTowerTowerRegistry.of(key.worldName());
+        if (registry != null) {
+            registry.putMarker(x, y, z, markerUuid, towerTier(markerId));
         }
+    }
 
-        // Restrict to chests near the tower-top boss anchor so mid-tower chests remain free loot.
-        final int radius = 28;
-        final int radiusSq = radius * radius;
-        final int maxBelowTop = 20;
-        final int maxAboveTop = 8;
-
-        String worldName = world.getName();
-        for (var entry : TOWERS.entrySet()) {
-            TowerKey key = entry.getKey();
-            if (key == null || !worldName.equals(key.worldName())) {
+    /**
+     * Records in the world's tower registry which prefab placement a tower boss marker came from, from the marker
+     * as the prefab paste placed it, so the collapse checks that placement instead of searching for one. Shapes with
+     * the same boss marker all imply the same placement; the prefab id is only recorded when one shape has it.
+     *
+     * @param yaw the placed marker's yaw, in radians
+     */
+    static void recordBossMarkerPlacement(World world, String markerId, Vector3d position, float yaw) {
+        BattleTowerTowerRegistry registry = world != null && position != null ? BattleTowerTowerRegistry.of(world.getName()) : null;
+        if (registry == null) {
+            return;
+        }
+        BattleTowerPrefabPlacement placement = null;
+        int candidates = 0;
+        for (BattleTowerPrefabShape shape : BattleTowerPrefabShape.loaded()) {
+            if (!shape.bossMarkerId.equals(markerId)) {
                 continue;
             }
-
-            int dx = blockX - key.x();
-            int dz = blockZ - key.z();
-            if (dx * dx + dz * dz > radiusSq) {
-                continue;
+            BattleTowerPrefabPlacement implied = BattleTowerPrefabPlacement.fromBossMarker(shape, yaw,
+                    position.getX(), position.getY(), position.getZ());
+            if (placement != null && (implied.rotation() != placement.rotation() || implied.originX() != placement.originX()
+                    || implied.originY() != placement.originY() || implied.originZ() != placement.originZ())) {
+                // The shapes disagree; leave it to block matching at collapse time.
+                return;
             }
+            placement = implied;
+            candidates++;
+        }
+        if (placement != null) {
+            registry.setPlacement((int) Math.floor(position.getX()), (int) Math.floor(position.getY()),
+                    (int) Math.floor(position.getZ()), candidates == 1 ? placement.shape().id.hashCode() : 0,
+                    placement.rotation(), placement.originX(), placement.originY(), placement.originZ());
+        }
+    }
 
-            if (blockY < (key.y() - maxBelowTop) || blockY > (key.y() + maxAboveTop)) {
+    /**
+     * True if the boss marker's tower anchor is already tracked, so chunk loads can skip re-registering it.
+     */
+    public static boolean isBossMarkerAnchored(UUID markerUuid) {
+        return markerUuid != null && BOSS_MARKER_UUID_TO_TOWER.containsKey(markerUuid);
+    }
+
+    /**
+     * Tracks every tower in the world's registry that has not collapsed, including registered towers whose chunks
+     * are not loaded.
+     *
+     * @return {@code false} if the world has no usable registry yet, in which case its towers have to be found by
+     * a full pass over the loaded spawn markers (which also fills the registry)
+     */
+    public static boolean restoreTowerAnchors(World world) {
+        BattleTowerTowerRegistry registry = world != null ? BattleTowerTowerRegistry.of(world.getName()) : null;
+        if (registry == null || registry.wasRebuilt()) {
+            return false;
+        }
+        int restored = 0;
+        for (BattleTowerTowerRegistry.Tower tower : registry.towers()) {
+            if (tower.state() == BattleTowerTowerRegistry.COLLAPSED) {
                 continue;
             }
+            TowerKey key = new TowerKey(world.getName(), tower.x(), tower.y(), tower.z());
+            trackTower(key).baseY = tower.y();
+            BOSS_MARKER_UUID_TO_TOWER.put(tower.markerUuid(), key);
+            restored++;
+        }
+        LOGGER.atInfo().log("Restored %d tower anchors from the registry of world '%s'.", restored, world.getName());
+        return true;
+    }
 
-            return true;
+    /**
+     * 3 for towers whose boss comes from the tier 3 pool, 1 for the tier 1-2 pool, 0 if unknown.
+     */
+    private static int towerTier(String markerId) {
+        if (markerId == null || markerId.isEmpty()) {
+            return 0;
         }
+        return "Outlander_Priest".equals(markerId) || TOWER_BOSS_POOL_TIER_3.contains(markerId) ? 3 : 1;
+    }
 
-        return false;
+    private static void updateRegistry(TowerKey key, int state) {
+        BattleTowerTowerRegistry registry = BattleTowerTowerRegistry.of(key.worldName());
+        if (registry != null) {
+            registry.setState(key.x(), key.y(), key.z(), state);
+        }
+    }
+
+    public static boolean isTowerVaultChest(World world, int blockX, int blockY, int blockZ) {
+        if (world == null) {
+            return false;
+        }
+
+        // Restrict to chests near the tower-top boss anchor so mid-tower chests remain free loot.
+        final int radius = 28;
+        final int maxBelowTop = 20;
+        final int maxAboveTop = 8;
+
+        return TOWER_INDEX.anyWithin(world.getName(), blockX, blockZ, radius,
+                key -> blockY >= (key.y() - maxBelowTop) && blockY <= (key.y() + maxAboveTop));
     }
 
     private static void cleanupBossAnchor(Store<EntityStore> store, Ref<EntityStore> bossRef) {
@@ -492,6 +672,10 @@ public final class BattleTowerCollapse {
         }
 
         TowerKey key = resolveBossTowerKey(world, store, bossRef);
+        BattleTowerTrace trace = BattleTowerTrace.of(world.getName());
+        if (trace != null) {
+            trace.bossDeath(System.nanoTime(), bossPos.getX(), bossPos.getY(), bossPos.getZ(), key);
+        }
         if (key == null) {
             // Without a recorded tower anchor, don't implode anything.
             // This prevents non-tower NPC deaths (e.g. world-spawned golems) from collapsing terrain.
@@ -505,7 +689,7 @@ public final class BattleTowerCollapse {
         markBossDefeated(store, bossRef);
         final TowerKey collapseKey = key;
 
-        TowerState state = TOWERS.computeIfAbsent(key, _k -> new TowerState());
+        TowerState state = trackTower(key);
         if (state.collapseScheduled) {
             return;
         }
@@ -614,46 +798,7 @@ public final class BattleTowerCollapse {
         }
 
         long now = System.currentTimeMillis();
-        String worldName = world.getName();
-        int r = Math.max(1, radiusBlocks);
-        int radiusSq = r * r;
-
-        TowerKey bestKey = null;
-        double bestDistSq = Double.MAX_VALUE;
-
-        for (var entry : TOWERS.entrySet()) {
-            TowerKey key = entry.getKey();
-            TowerState state = entry.getValue();
-            if (key == null || state == null) {
-                continue;
-            }
-            if (!worldName.equals(key.worldName())) {
-                continue;
-            }
-            if (!state.collapseScheduled || state.imploding) {
-                continue;
-            }
-            long startAt = state.collapseStartAtEpochMs;
-            if (startAt <= 0) {
-                continue;
-            }
-            long remaining = Math.max(0, (startAt - now + 999) / 1000);
-            if (remaining <= 0) {
-                continue;
-            }
-
-            double dx = key.x() - x;
-            double dz = key.z() - z;
-            double distSq = dx * dx + dz * dz;
-            if (distSq > radiusSq) {
-                continue;
-            }
-            if (distSq < bestDistSq) {
-                bestDistSq = distSq;
-                bestKey = key;
-            }
-        }
-
+        TowerKey bestKey = findNearestPendingCollapse(world, x, z, radiusBlocks, now);
         if (bestKey == null) {
             return -1;
         }
@@ -675,61 +820,184 @@ public final class BattleTowerCollapse {
         }
 
         long now = System.currentTimeMillis();
-        String worldName = world.getName();
-        int r = Math.max(1, radiusBlocks);
-        int radiusSq = r * r;
+        TowerKey bestKey = findNearestPendingCollapse(world, x, z, radiusBlocks, now);
+        TowerState bestState = bestKey == null ? null : TOWERS.get(bestKey);
+        if (bestKey == null || bestState == null) {
+            return -1;
+        }
 
-        TowerKey bestKey = null;
-        TowerState bestState = null;
-        double bestDistSq = Double.MAX_VALUE;
+        long remaining = Math.max(0, (bestState.collapseStartAtEpochMs - now + 999) / 1000);
+        if (remaining <= 0) {
+            return -1;
+        }
 
-        for (var entry : TOWERS.entrySet()) {
-            TowerKey key = entry.getKey();
-            TowerState state = entry.getValue();
-            if (key == null || state == null) {
-                continue;
+        // Cap to prevent griefing / infinite delay.
+        long newDelay = Math.min(remaining + extraSeconds, 180);
+        scheduleImplosionStart(world, bestKey, bestState, newDelay);
+        return newDelay;
+    }
+
+    /**
+     * Rebuilds the most recently collapsed tower within the radius from its snapshot. The file is read off the
+     * world thread; the blocks are pasted back a slice per collapse tick. {@code reply} is called once the restore
+     * is queued, or with the reason it can't be.
+     */
+    public static void restoreNearestSnapshot(World world, int x, int z, int radiusBlocks, Consumer<String> reply) {
+        SCHEDULER.execute(() -> {
+            Path file = BattleTowerCollapseSnapshot.findNearest(world.getName(), x, z, Math.max(1, radiusBlocks));
+            if (file == null) {
+                reply.accept("No collapse snapshot within " + radiusBlocks + " blocks.");
+                return;
             }
-            if (!worldName.equals(key.worldName())) {
-                continue;
+            BattleTowerCollapseSnapshot.Restore restore;
+            try {
+                restore = BattleTowerCollapseSnapshot.load(file);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.atWarning().log("Could not read collapse snapshot %s: %s", file, e.getMessage());
+                reply.accept("Could not read snapshot " + file.getFileName() + ": " + e.getMessage());
+                return;
             }
-            if (!state.collapseScheduled || state.imploding) {
-                continue;
+            world.execute(() -> {
+                BattleTowerCollapseResource resource = collapseResource(world);
+                if (resource == null) {
+                    reply.accept("Collapse system unavailable in this world.");
+                    return;
+                }
+                resource.restores.add(restore);
+                reply.accept("Restoring " + restore.blockCount() + " blocks from " + restore.name + "...");
+            });
+        });
+    }
+
+    /**
+     * Nearest tower within the radius whose collapse is scheduled but has not started yet.
+     */
+    private static TowerKey findNearestPendingCollapse(World world, int x, int z, int radiusBlocks, long nowEpochMs) {
+        return TOWER_INDEX.nearest(world.getName(), x, z, Math.max(1, radiusBlocks), key -> {
+            TowerState state = TOWERS.get(key);
+            if (state == null || !state.collapseScheduled || state.imploding) {
+                return false;
             }
             long startAt = state.collapseStartAtEpochMs;
-            if (startAt <= 0) {
-                continue;
-            }
-            long remaining = Math.max(0, (startAt - now + 999) / 1000);
-            if (remaining <= 0) {
-                continue;
-            }
+            return startAt > 0 && (startAt - nowEpochMs + 999) / 1000 > 0;
+        });
+    }
 
-            double dx = key.x() - x;
-            double dz = key.z() - z;
-            double distSq = dx * dx + dz * dz;
-            if (distSq > radiusSq) {
-                continue;
+    private static TowerState trackTower(TowerKey key) {
+        return TOWERS.computeIfAbsent(key, k -> {
+            TOWER_INDEX.add(k);
+            return new TowerState();
+        });
+    }
+
+    private static void untrackTower(TowerKey key) {
+        if (TOWERS.remove(key) != null) {
+            TOWER_INDEX.remove(key);
+        }
+    }
+
+    private static BattleTowerCollapseJournal journal(TowerKey key) {
+        return BattleTowerCollapseJournal.of(key.worldName());
+    }
+
+    /**
+     * Picks up every collapse a previous run left unfinished, from the worlds' journals: countdowns restart with
+     * the time they had left, and collapses already under way continue from the last layer they reached, using the
+     * journaled geometry instead of planning again.
+     */
+    private static void resumeJournaledCollapses() {
+        try {
+            Universe universe = Universe.get();
+            if (universe == null || universe.getWorlds() == null) {
+                return;
             }
-            if (distSq < bestDistSq) {
-                bestDistSq = distSq;
-                bestKey = key;
-                bestState = state;
+            for (World world : universe.getWorlds().values()) {
+                BattleTowerCollapseJournal journal = world != null ? BattleTowerCollapseJournal.of(world.getName()) : null;
+                if (journal == null) {
+                    continue;
+                }
+                for (BattleTowerCollapseJournal.Entry entry : journal.takeRecovered()) {
+                    try {
+                        resumeCollapse(world, entry);
+                    } catch (Exception e) {
+                        LOGGER.atWarning().log("Could not resume collapse at (%d, %d, %d) in %s: %s",
+                                entry.key.x(), entry.key.y(), entry.key.z(), world.getName(), e.getMessage());
+                    }
+                }
             }
+        } catch (Exception ignored) {
         }
+    }
 
-        if (bestKey == null || bestState == null) {
-            return -1;
+    private static void resumeCollapse(World world, BattleTowerCollapseJournal.Entry entry) {
+        TowerKey key = entry.key;
+        TowerState state = trackTower(key);
+        if (state.collapseScheduled) {
+            return;
+        }
+        state.collapseScheduled = true;
+        state.baseY = entry.baseY;
+
+        BattleTowerCollapsePlan plan = journaledPlan(entry, state);
+        if (plan == null) {
+            // Still counting down when the server stopped (or the geometry no longer resolves): count down the rest.
+            long remaining = Math.max(1, (entry.startAtEpochMs - System.currentTimeMillis() + 999) / 1000);
+            LOGGER.atInfo().log("Resuming collapse countdown at (%d, %d, %d) in %s: %d seconds left.",
+                    key.x(), key.y(), key.z(), key.worldName(), remaining);
+            scheduleImplosionStart(world, key, state, remaining);
+            return;
         }
 
-        long remaining = Math.max(0, (bestState.collapseStartAtEpochMs - now + 999) / 1000);
-        if (remaining <= 0) {
-            return -1;
+        startPlan(key, state, plan);
+        if (entry.layerReached && entry.cursor <= plan.lastIndex()) {
+            state.walk.cursor = entry.cursor;
+            state.walk.visited = Math.max(0, Math.min(plan.blockCount, entry.visited));
+            // Cues for the part already removed were played before the restart.
+            List<BattleTowerCollapseEffects.Cue> cues = BattleTowerCollapseEffects.CUES;
+            double progress = (double) state.walk.visited / Math.max(1, plan.blockCount);
+            while (state.nextCue < cues.size() && cues.get(state.nextCue).at <= progress) {
+                state.nextCue++;
+            }
         }
+        LOGGER.atInfo().log("Resuming implosion at (%d, %d, %d) in %s: %d of %d planned blocks already visited.",
+                key.x(), key.y(), key.z(), key.worldName(), state.walk.visited, plan.blockCount);
+        scheduleImplosion(world, key);
+    }
 
-        // Cap to prevent griefing / infinite delay.
-        long newDelay = Math.min(remaining + extraSeconds, 180);
-        scheduleImplosionStart(world, bestKey, bestState, newDelay);
-        return newDelay;
+    /**
+     * Rebuilds a collapse plan from its journaled geometry and fills in the state's geometry fields, or returns
+     * {@code null} if the collapse had not been planned (or its prefab is no longer bundled).
+     */
+    private static BattleTowerCollapsePlan journaledPlan(BattleTowerCollapseJournal.Entry entry, TowerState state) {
+        if (entry.geometry == BattleTowerCollapseJournal.PREFAB_GEOMETRY) {
+            for (BattleTowerPrefabShape shape : BattleTowerPrefabShape.bundled(BattleTowerCollapse::isTowerBossMarkerId)) {
+                if (shape.id.hashCode() != entry.shapeIdHash) {
+                    continue;
+                }
+                BattleTowerPrefabPlacement placement = new BattleTowerPrefabPlacement(
+                        shape, entry.rotation, entry.originX, entry.originY, entry.originZ);
+                BattleTowerCollapsePlan plan = planForPlacement(placement);
+                if (plan == null) {
+                    return null;
+                }
+                state.placement = placement;
+                adoptPrefabPlan(state, plan);
+                return plan;
+            }
+            return null;
+        }
+        if (entry.geometry == BattleTowerCollapseJournal.SURVEY_GEOMETRY) {
+            int[] g = entry.survey;
+            BattleTowerCollapsePlan plan = BattleTowerCollapsePlan.fromOccupancy(
+                    g[0], g[1], g[2], g[3], g[4], g[5], BitSet.valueOf(entry.words), g[6]);
+            state.ruinMinY = plan.floorY;
+            state.topY = g[7];
+            state.centerX = g[8];
+            state.centerZ = g[9];
+            state.radius = g[10];
+            return plan;
+        }
+        return null;
     }
 
     private static void scheduleImplosionStart(World world, TowerKey key, TowerState state, long delaySeconds) {
@@ -758,6 +1026,11 @@ public final class BattleTowerCollapse {
             state.countdownFutures.clear();
 
             state.collapseStartAtEpochMs = System.currentTimeMillis() + safeDelay * 1000L;
+            BattleTowerCollapseJournal journal = journal(key);
+            if (journal != null) {
+                journal.scheduled(key, state.baseY, state.collapseStartAtEpochMs);
+            }
+            updateRegistry(key, BattleTowerTowerRegistry.COLLAPSING);
 
             announceImplosionCountdown(world, key.x(), key.z(), safeDelay, (afterSeconds, message) -> {
                 ScheduledFuture<?> f = SCHEDULER.schedule(
@@ -796,7 +1069,8 @@ public final class BattleTowerCollapse {
 
     private static void sendMessageToNearbyPlayers(World world, int centerX, int centerZ, String message) {
         try {
-            world.execute(() -> {
+            // Countdown lines for every tower in a world share one world task.
+            BattleTowerWorldTasks.submitBatched(world, ANNOUNCE_TASK, true, () -> {
                 int radius = nearbyPlayerRadiusBlocks;
                 int radiusSq = radius * radius;
 
@@ -824,849 +1098,771 @@ public final class BattleTowerCollapse {
         }
         state.imploding = true;
 
-        AtomicInteger centerXRef = new AtomicInteger(key.x());
-        AtomicInteger centerZRef = new AtomicInteger(key.z());
-        AtomicInteger radiusRef = new AtomicInteger(IMPLOSION_RADIUS);
-        int baseY = state.baseY;
-
-        // Y increases upward. Tower: high Y = top, low Y = base.
-        // Start at the first actual tower block from the top (not empty air above the tower) and collapse downward,
-        // preserving the base.
-        int plannedMaxY = baseY + ROOF_HEADROOM;                    // above player for roof/spire
-        int fallbackMinY = baseY - TOWER_CLEARANCE;          // fallback if we can't detect ground
-        var minYRef = new AtomicInteger(fallbackMinY);
-
-        AtomicInteger maxYRef = new AtomicInteger(plannedMaxY);
-        AtomicInteger currentY = new AtomicInteger(plannedMaxY);
-        AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
+        if (prefabPlanEnabled) {
+            // Parse the bundled prefab shapes here rather than on the world thread.
+            BattleTowerPrefabShape.bundled(BattleTowerCollapse::isTowerBossMarkerId);
+        }
 
-        ScheduledFuture<?> future = SCHEDULER.scheduleAtFixedRate(() -> {
-            if (state.topY == Integer.MIN_VALUE) {
-                try {
-                    world.execute(() -> {
-                        int anchorX = key.x();
-                        int anchorZ = key.z();
-                        int topY = findTowerTopY(world, anchorX, anchorZ, plannedMaxY, fallbackMinY, TOP_SCAN_RADIUS);
-                        state.topY = topY;
-                        maxYRef.set(topY);
-                        currentY.set(topY);
-
-                        CollapseGeometry geo = computeCollapseGeometry(world, anchorX, anchorZ, topY, Math.max(fallbackMinY, topY - 64), 24);
-                        centerXRef.set(geo.centerX);
-                        centerZRef.set(geo.centerZ);
-                        radiusRef.set(geo.radius);
-
-                        LOGGER.atInfo().log("Starting top-down implosion maxY=%d to minY=%d (baseY=%d) at anchor (%d, %d) -> center (%d, %d) radius=%d",
-                                topY, fallbackMinY, baseY, anchorX, anchorZ, geo.centerX, geo.centerZ, geo.radius);
-                    });
-                } catch (Exception ignored) {
-                }
+        // The only hop onto the world thread per collapse; from here on the collapse system drives it in-tick.
+        // Never shed: a dropped enqueue would leave the tower imploding but never collapsed.
+        boolean submitted = BattleTowerWorldTasks.submitBatched(world, ENQUEUE_TASK, false, () -> {
+            BattleTowerCollapseResource resource = collapseResource(world);
+            if (resource == null) {
+                state.imploding = false;
+                LOGGER.atWarning().log("No collapse resource for world %s; implosion at (%d, %d, %d) dropped.",
+                        key.worldName(), key.x(), key.y(), key.z());
                 return;
             }
-
-            int centerX = centerXRef.get();
-            int centerZ = centerZRef.get();
-            int towerRadius = radiusRef.get();
-            int mobRadius = Math.min(MAX_SWEEP_RADIUS, towerRadius + 10);
-            int dropRadius = Math.min(MAX_SWEEP_RADIUS, towerRadius + 6);
-            int finalSweepRadius = Math.min(MAX_SWEEP_RADIUS, towerRadius + FINAL_SWEEP_EXTRA_RADIUS);
-
-            int maxY = maxYRef.get();
-            int y = currentY.get();
-            int effectiveMinY = minYRef.get();
-            if (y < effectiveMinY) {
-                ScheduledFuture<?> f = futureRef.get();
-                if (f != null) {
-                    f.cancel(false);
-                }
-                try {
-                    int cleanupMinY = state.cleanupMinY != Integer.MIN_VALUE
-                            ? state.cleanupMinY
-                            : Math.max(fallbackMinY, effectiveMinY - Math.max(12, RUIN_PRESERVE_LAYERS + 4));
-                    world.execute(() -> {
-                        int swept = sweepTowerBlocks(world, centerX, centerZ, effectiveMinY, maxY, finalSweepRadius);
-                        if (swept > 0) {
-                            LOGGER.atInfo().log("Implosion cleanup removed %d remaining blocks at (%d, %d)",
-                                    swept, centerX, centerZ);
-                        }
-
-                        int drops = removeDroppedItems(world, centerX, centerZ, cleanupMinY, maxY, dropRadius);
-                        if (drops > 0) {
-                            LOGGER.atInfo().log("Implosion cleanup removed %d dropped items at (%d, %d)",
-                                    drops, centerX, centerZ);
-                        }
-
-                        // One final, big explosion near the preserved base (not mid-air layers).
-                        spawnCollapseEffects(world, centerX, Math.min(maxY, effectiveMinY + 2), centerZ, true);
-                    });
-                } catch (Exception ignored) {
-                }
-                TOWERS.remove(key);
-                // Drops can be spawned a tick or two after blocks/NPCs are removed; do a couple delayed sweeps.
-                int cleanupMinY = state.cleanupMinY != Integer.MIN_VALUE
-                        ? state.cleanupMinY
-                        : Math.max(fallbackMinY, effectiveMinY - Math.max(12, RUIN_PRESERVE_LAYERS + 4));
-                SCHEDULER.schedule(() -> {
-                    try {
-                        world.execute(() -> {
-                            sweepTowerBlocks(world, centerX, centerZ, effectiveMinY, maxY, finalSweepRadius);
-                            removeDroppedItems(world, centerX, centerZ, cleanupMinY, maxY, dropRadius);
-                        });
-                    } catch (Exception ignored) {
-                    }
-                }, 2, TimeUnit.SECONDS);
-                SCHEDULER.schedule(() -> {
-                    try {
-                        world.execute(() -> {
-                            sweepTowerBlocks(world, centerX, centerZ, effectiveMinY, maxY, finalSweepRadius);
-                            removeDroppedItems(world, centerX, centerZ, cleanupMinY, maxY, dropRadius);
-                        });
-                    } catch (Exception ignored) {
-                    }
-                }, 6, TimeUnit.SECONDS);
-                LOGGER.atInfo().log("Implosion complete at (%d, %d)", centerX, centerZ);
-                return;
+            BattleTowerTrace trace = BattleTowerTrace.of(key.worldName());
+            long now = System.nanoTime();
+            if (trace != null) {
+                trace.enqueue(now, key);
+            }
+            int ahead = resource.queue.enqueue(key, now);
+            if (ahead > 0) {
+                LOGGER.atInfo().log("Implosion at (%d, %d, %d) queued behind %d other collapse(s) in %s",
+                        key.x(), key.y(), key.z(), ahead, key.worldName());
             }
+        });
+        if (!submitted) {
+            // Not admitted; let a later boss death or restart try again.
+            state.imploding = false;
+            LOGGER.atWarning().log("Could not queue implosion at (%d, %d, %d) in %s.",
+                    key.x(), key.y(), key.z(), key.worldName());
+        }
+    }
 
-            int startY = y;
-            int endY = Math.max(y - layersPerTick + 1, effectiveMinY);
-            currentY.set(endY - 1);
+    private static BattleTowerCollapseResource collapseResource(World world) {
+        ResourceType<EntityStore, BattleTowerCollapseResource> type = BattleTowerCollapseResource.getResourceType();
+        if (type == null) {
+            return null;
+        }
+        try {
+            return world.getEntityStore().getStore().getResource(type);
+        } catch (Exception ignored) {
+            return null;
+        }
+    }
 
-            world.execute(() -> {
-                if (state.ruinMinY == Integer.MIN_VALUE) {
-                    int ruinMinY = computeRuinMinY(world, centerX, centerZ, maxY, fallbackMinY, towerRadius);
-                    state.ruinMinY = ruinMinY;
-                    if (ruinMinY > minYRef.get()) {
-                        minYRef.set(ruinMinY);
-                        LOGGER.atInfo().log("Ruin base preserved: stopping implosion at minY=%d (base+%d) at (%d, %d)",
-                                ruinMinY, RUIN_PRESERVE_LAYERS, centerX, centerZ);
+    /**
+     * Called by {@link BattleTowerCollapseSystem} every world tick. Steps the world's collapses once per
+     * {@code implosion_tick_ms} and runs follow-up sweeps that have come due.
+     */
+    static void tickWorld(World world, BattleTowerCollapseResource resource, long nowNanos) {
+        if (nowNanos - resource.lastStepNanos >= TimeUnit.MILLISECONDS.toNanos(implosionTickMs)) {
+            resource.lastStepNanos = nowNanos;
+            BattleTowerTrace trace = BattleTowerTrace.of(world.getName());
+            if (trace != null) {
+                trace.collapseTick(nowNanos);
+            }
+            BattleTowerCollapseEffects.beginTick(resource);
+            if (resource.worker == null) {
+                resource.worker = new BattleTowerCollapseQueue.Worker<>() {
+                    @Override
+                    public boolean step(TowerKey key, long share) {
+                        return stepCollapse(world, resource, key, share);
                     }
-                }
 
-                int minY = minYRef.get();
-                int cleanupMinY = Math.max(fallbackMinY, minY - Math.max(12, RUIN_PRESERVE_LAYERS + 4));
-                state.cleanupMinY = cleanupMinY;
-
-                if (!state.mobsPurged) {
-                    state.mobsPurged = true;
-                    int purged = purgeTowerMobs(world, centerX, centerZ, cleanupMinY, maxY, mobRadius);
-                    if (purged > 0) {
-                        LOGGER.atInfo().log("Purged %d NPCs from tower during implosion at (%d, %d)",
-                                purged, centerX, centerZ);
+                    @Override
+                    public void failed(TowerKey key, RuntimeException e) {
+                        abandonCollapse(resource, key, e);
                     }
+                };
+            }
+            resource.queue.tick(nowNanos, maxActivePerWorld, TimeUnit.MICROSECONDS.toNanos(implosionTickBudgetMicros), resource.worker);
+            BattleTowerMetrics.set(world.getName(), BattleTowerMetrics.Gauge.ACTIVE_COLLAPSES, resource.queue.activeCount());
+            BattleTowerMetrics.set(world.getName(), BattleTowerMetrics.Gauge.WAITING_COLLAPSES, resource.queue.waitingCount());
+            stepRestores(world, resource);
+        }
+
+        List<BattleTowerCollapseResource.DropRegion> regions = resource.dropRegions;
+        for (int i = regions.size() - 1; i >= 0; i--) {
+            BattleTowerCollapseResource.DropRegion region = regions.get(i);
+            if (nowNanos - region.expiresAtNanos >= 0) {
+                regions.remove(i);
+                if (region.suppressed > 0) {
+                    BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.DROPS_SUPPRESSED, region.suppressed);
+                    LOGGER.atFine().log("Suppressed %d item drops during implosion at (%d, %d)",
+                            region.suppressed, region.centerX, region.centerZ);
                 }
-
-                if (!state.spawnMarkersRemoved) {
-                    state.spawnMarkersRemoved = true;
-                    int removed = removeTowerSpawnMarkers(world, centerX, centerZ, cleanupMinY, maxY, mobRadius);
-                    if (removed > 0) {
-                        LOGGER.atInfo().log("Removed %d spawn markers from tower during implosion at (%d, %d)",
-                                removed, centerX, centerZ);
-                    }
-                }
-
-                for (int ly = startY; ly >= endY; ly--) {
-                    int removed = implodeLayer(world, centerX, centerZ, ly, towerRadius);
-                    // No terrain-count heuristic; we stop at the computed ruin minY.
-                }
-                spawnCollapseEffects(world, centerX, startY, centerZ, false);
-            });
-        }, 0, implosionTickMs, TimeUnit.MILLISECONDS);
-
-        futureRef.set(future);
-        state.implosionFuture = future;
-    }
-
-    private static int computeRuinMinY(World world, int centerX, int centerZ, int scanStartY, int fallbackMinY, int towerRadius) {
-        try {
-            int groundY = findLocalGroundSurfaceY(world, centerX, centerZ, scanStartY, fallbackMinY, towerRadius);
-            if (groundY == Integer.MIN_VALUE) {
-                // Fail-safe: prefer leaving a stump over digging into terrain if we can't detect ground.
-                return Math.max(fallbackMinY, scanStartY - 60);
             }
-
-            int stopY = groundY + RUIN_PRESERVE_LAYERS;
-            // Sanity clamps: never above scanStartY and never below the hard fallback.
-            stopY = Math.min(stopY, scanStartY);
-            stopY = Math.max(stopY, fallbackMinY);
-            return stopY;
-        } catch (Exception ignored) {
-            return Math.max(fallbackMinY, scanStartY - 60);
         }
     }
 
-    private static int findLocalGroundSurfaceY(World world, int centerX, int centerZ, int startY, int minY, int towerRadius) {
-        try {
-            // Sample just outside the tower footprint to avoid reading the tower itself.
-            int r0 = Math.max(IMPLOSION_RADIUS, towerRadius);
-            int[] radii = {r0 + 3, r0 + 6};
-            List<Integer> samples = new ArrayList<>();
-
-            for (int r : radii) {
-                int half = Math.max(1, r / 2);
-                int[][] offsets = {
-                        {r, 0}, {-r, 0}, {0, r}, {0, -r},
-                        {r, r}, {-r, r}, {r, -r}, {-r, -r},
-                        {r, half}, {r, -half}, {-r, half}, {-r, -half},
-                        {half, r}, {-half, r}, {half, -r}, {-half, -r},
-                };
-
-                for (int[] o : offsets) {
-                    int y = findGroundSurfaceY(world, centerX + o[0], centerZ + o[1], startY, minY);
-                    if (y != Integer.MIN_VALUE) {
-                        samples.add(y);
-                    }
-                }
-            }
-
-            if (samples.size() < 5) {
-                return Integer.MIN_VALUE;
-            }
-
-            samples.sort(Integer::compareTo);
-            return samples.get(samples.size() / 2); // median
-        } catch (Exception ignored) {
-            return Integer.MIN_VALUE;
+    /**
+     * Pastes the oldest pending restore for up to one tick's budget.
+     */
+    private static void stepRestores(World world, BattleTowerCollapseResource resource) {
+        if (resource.restores.isEmpty()) {
+            return;
+        }
+        BattleTowerCollapseSnapshot.Restore restore = resource.restores.get(0);
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(implosionTickBudgetMicros);
+        if (restore.step(world, deadline)) {
+            resource.restores.remove(0);
+            LOGGER.atInfo().log("Restored %s in %s: %d blocks placed, %d skipped.",
+                    restore.name, world.getName(), restore.placed, restore.skipped);
         }
     }
 
-    private static int findTowerTopY(World world, int centerX, int centerZ, int startY, int minY, int radius) {
-        try {
-            int rSq = radius * radius;
-            for (int y = startY; y >= minY; y--) {
-                for (int x = centerX - radius; x <= centerX + radius; x++) {
-                    for (int z = centerZ - radius; z <= centerZ + radius; z++) {
-                        int dx = x - centerX;
-                        int dz = z - centerZ;
-                        if (dx * dx + dz * dz > rSq) {
-                            continue;
-                        }
-
-                        WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(x, z));
-                        if (chunk == null) {
-                            continue;
-                        }
-                        int localX = ChunkUtil.localCoordinate(x);
-                        int localZ = ChunkUtil.localCoordinate(z);
-
-                        BlockType type;
-                        try {
-                            type = chunk.getBlockType(localX, y, localZ);
-                        } catch (Exception ignored) {
-                            continue;
-                        }
-                        if (type == null || type == BlockType.EMPTY) {
-                            continue;
-                        }
+    /**
+     * One tick of a single collapse: plan it on its first tick, then remove blocks within {@code budgetNanos},
+     * then finish. Runs on the world thread.
+     *
+     * @return {@code true} once the collapse is complete
+     */
+    private static boolean stepCollapse(World world, BattleTowerCollapseResource resource, TowerKey key, long budgetNanos) {
+        TowerState state = TOWERS.get(key);
+        if (state == null) {
+            return true;
+        }
+        if (state.plan == null) {
+            // Planning uses this tick's share (and, for a survey, a few more); removal starts the tick after.
+            planCollapse(world, key, state, budgetNanos);
+            return false;
+        }
 
-                        String id = type.getId();
-                        if (shouldImplode(id)) {
-                            return y;
-                        }
+        int centerX = state.centerX;
+        int centerZ = state.centerZ;
+        int maxY = state.topY;
+        int mobRadius = Math.min(MAX_SWEEP_RADIUS, state.radius + 10);
+        if (state.cleanupMinY == Integer.MIN_VALUE) {
+            int fallbackMinY = state.baseY - TOWER_CLEARANCE;
+            state.cleanupMinY = Math.max(fallbackMinY, state.ruinMinY - Math.max(12, RUIN_PRESERVE_LAYERS + 4));
+        }
+        int cleanupMinY = state.cleanupMinY;
+
+        if (!state.entitiesPurged) {
+            state.entitiesPurged = true;
+            // From here on, items dropped by removed blocks/NPCs inside the tower are despawned as they spawn.
+            int dropRadius = Math.min(MAX_SWEEP_RADIUS, state.radius + 6);
+            long maxLifetime = TimeUnit.SECONDS.toNanos(Math.max(DROP_SUPPRESSION_MAX_SECONDS, implosionTargetSeconds * 4));
+            state.dropRegion = new BattleTowerCollapseResource.DropRegion(
+                    centerX, centerZ, cleanupMinY, maxY, dropRadius, System.nanoTime() + maxLifetime);
+            resource.dropRegions.add(state.dropRegion);
+            var purged = BattleTowerEntitySweep.sweep(world,
+                    BattleTowerEntitySweep.NPCS | BattleTowerEntitySweep.SPAWN_MARKERS,
+                    centerX, centerZ, cleanupMinY, maxY, mobRadius);
+            BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.NPCS_PURGED, purged.npcs());
+            BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.MARKERS_REMOVED, purged.spawnMarkers());
+            if (purged.npcs() > 0 || purged.spawnMarkers() > 0) {
+                LOGGER.atFine().log("Purged %d NPCs and %d spawn markers from tower during implosion at (%d, %d)",
+                        purged.npcs(), purged.spawnMarkers(), centerX, centerZ);
+            }
+        }
 
-                        try {
-                            BlockState state = chunk.getState(localX, y, localZ);
-                            if (state instanceof ItemContainerBlockState) {
-                                return y;
-                            }
-                        } catch (Exception ignored) {
-                        }
-                    }
+        // Remove as much of the plan as this tick's budget allows, top layer first.
+        // Surveyed plans only hold tower blocks, so they need no per-block verification.
+        BattleTowerCollapsePlan plan = state.plan;
+        BattleTowerPlanWalk walk = state.walk;
+        if (!walk.isDone()) {
+            int tickTopY = plan.yAt(walk.cursor);
+            boolean verify = state.placement != null && prefabPlanVerifyBlocks;
+            implodePlanBudgeted(world, state, plan, verify, budgetNanos);
+            playDueCue(world, resource, state, tickTopY);
+            int next = walk.cursor;
+            if (next < 0 || plan.yAt(next) != tickTopY) {
+                BattleTowerCollapseJournal journal = journal(key);
+                if (journal != null) {
+                    journal.layerReached(key, next, walk.visited);
                 }
             }
-        } catch (Exception ignored) {
+            return false;
         }
-        return startY;
-    }
 
-    private record CollapseGeometry(int centerX, int centerZ, int radius) {
+        finishCollapse(world, resource, key, state);
+        return true;
     }
 
-    private static CollapseGeometry computeCollapseGeometry(World world, int anchorX, int anchorZ, int topY, int minY, int scanRadius) {
-        int r = Math.max(IMPLOSION_RADIUS, Math.min(64, scanRadius));
-        int bestMinX = Integer.MAX_VALUE;
-        int bestMaxX = Integer.MIN_VALUE;
-        int bestMinZ = Integer.MAX_VALUE;
-        int bestMaxZ = Integer.MIN_VALUE;
-        int bestCount = 0;
-
-        int startY = topY;
-        int stopY = Math.max(minY, topY - 48);
-        for (int y = startY; y >= stopY; y--) {
-            int minX = Integer.MAX_VALUE;
-            int maxX = Integer.MIN_VALUE;
-            int minZ = Integer.MAX_VALUE;
-            int maxZ = Integer.MIN_VALUE;
-            int count = 0;
-
-            for (int x = anchorX - r; x <= anchorX + r; x++) {
-                for (int z = anchorZ - r; z <= anchorZ + r; z++) {
-                    WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(x, z));
-                    if (chunk == null) {
-                        continue;
-                    }
-                    int localX = ChunkUtil.localCoordinate(x);
-                    int localZ = ChunkUtil.localCoordinate(z);
-
-                    BlockType type;
-                    try {
-                        type = chunk.getBlockType(localX, y, localZ);
-                    } catch (Exception ignored) {
-                        continue;
-                    }
-                    if (type == null || type == BlockType.EMPTY) {
-                        continue;
-                    }
-
-                    String id = type.getId();
-                    if (!isLikelyTowerBlockId(id)) {
-                        // Still treat containers as tower geometry (top vaults).
-                        try {
-                            BlockState state = chunk.getState(localX, y, localZ);
-                            if (!(state instanceof ItemContainerBlockState)) {
-                                continue;
-                            }
-                        } catch (Exception ignored) {
-                            continue;
-                        }
-                    }
-
-                    count++;
-                    if (x < minX) minX = x;
-                    if (x > maxX) maxX = x;
-                    if (z < minZ) minZ = z;
-                    if (z > maxZ) maxZ = z;
-                }
+    /**
+     * One planning tick. The first tick tries the prefab plan; without one, the blocks the survey needs are copied
+     * over as many ticks as the budget requires, the survey runs on the planner pool, the columns it stopped above
+     * the ruin floor are read on within the budget, and a later tick adopts its plan. Runs on the world thread.
+     */
+    private static void planCollapse(World world, TowerKey key, TowerState state, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos;
+        if (state.surveyScan != null) {
+            if (!state.surveyScan.extend(traced(world, new BattleTowerWorldVoxels(world)), BattleTowerBlockClassifier.table(), deadline)) {
+                return;
             }
-
-            if (count > bestCount) {
-                bestCount = count;
-                bestMinX = minX;
-                bestMaxX = maxX;
-                bestMinZ = minZ;
-                bestMaxZ = maxZ;
+            BattleTowerSurvey.Result survey = state.surveyScan.result();
+            state.surveyScan = null;
+            startSurveyedCollapse(key, state, survey);
+            return;
+        }
+        if (state.surveyCopy == null && state.survey == null) {
+            if (startCollapse(world, key, state)) {
+                return;
             }
+            // Y increases upward. Tower: high Y = top, low Y = base.
+            // Survey from above the roof/spire down to well below the base, stopping at natural ground at or below the ruin floor.
+            state.surveyCopy = new BattleTowerSurveyCopy(key.x(), key.z(), state.baseY + ROOF_HEADROOM,
+                    state.baseY - TOWER_CLEARANCE);
+        }
 
-            if (count >= 24) {
-                break;
+        BattleTowerSurveyCopy copy = state.surveyCopy;
+        if (copy != null) {
+            if (!copy.copy(traced(world, new BattleTowerWorldVoxels(world)), BattleTowerBlockClassifier.table(), deadline)) {
+                return;
             }
+            state.surveyCopy = null;
+            try {
+                state.survey = BattleTowerSurvey.surveyAsync(copy, BattleTowerBlockClassifier.table(), PLANNER);
+            } catch (Exception e) {
+                state.survey = CompletableFuture.failedFuture(e);
+            }
+            return;
         }
 
-        if (bestCount <= 0 || bestMinX == Integer.MAX_VALUE || bestMinZ == Integer.MAX_VALUE) {
-            return new CollapseGeometry(anchorX, anchorZ, IMPLOSION_RADIUS);
+        if (!state.survey.isDone()) {
+            return;
         }
-
-        int centerX = (bestMinX + bestMaxX) / 2;
-        int centerZ = (bestMinZ + bestMaxZ) / 2;
-        int rx = Math.max(Math.abs(bestMaxX - centerX), Math.abs(bestMinX - centerX));
-        int rz = Math.max(Math.abs(bestMaxZ - centerZ), Math.abs(bestMinZ - centerZ));
-        int radius = Math.max(IMPLOSION_RADIUS, Math.max(rx, rz) + 3);
-        radius = Math.min(MAX_SWEEP_RADIUS, radius);
-        return new CollapseGeometry(centerX, centerZ, radius);
+        BattleTowerSurvey.Scan scan;
+        try {
+            scan = state.survey.join();
+        } catch (Exception e) {
+            // Shouldn't happen; the in-tick survey gives the same plan, just on the world thread.
+            LOGGER.atWarning().log("Off-thread survey failed at (%d, %d, %d), surveying in-tick: %s",
+                    key.x(), key.y(), key.z(), e.getMessage());
+            state.survey = null;
+            startSurveyedCollapse(key, state, BattleTowerSurvey.survey(traced(world, new BattleTowerWorldVoxels(world)),
+                    BattleTowerBlockClassifier.table(), key.x(), key.z(), state.baseY + ROOF_HEADROOM,
+                    state.baseY - TOWER_CLEARANCE));
+            return;
+        }
+        state.survey = null;
+        // The copy ended where each column's scan stopped; columns stopped above the floor are read from here on.
+        state.surveyScan = scan;
     }
 
-    private static boolean isLikelyTowerBlockId(String blockTypeId) {
-        if (blockTypeId == null || blockTypeId.isEmpty()) {
-            return false;
-        }
-        // Tower prefabs use Rock_*_(Brick|Cobble) variants across tiers.
-        if (blockTypeId.startsWith("Rock_")) {
-            return blockTypeId.contains("_Cobble") || blockTypeId.contains("_Brick");
+    /**
+     * Starts the collapse from its bundled prefab, if it matches one.
+     *
+     * @return {@code false} if the tower has to be surveyed instead
+     */
+    private static boolean startCollapse(World world, TowerKey key, TowerState state) {
+        int anchorX = key.x();
+        int anchorZ = key.z();
+
+        BattleTowerMetrics.increment(world.getName(), BattleTowerMetrics.Stat.COLLAPSES_STARTED);
+        BattleTowerCollapsePlan plan = prefabPlanEnabled ? buildPrefabPlan(world, key, state) : null;
+        if (plan != null) {
+            adoptPrefabPlan(state, plan);
+            startPlan(key, state, plan);
+
+            BattleTowerPrefabPlacement placement = state.placement;
+            BattleTowerCollapseJournal journal = journal(key);
+            if (journal != null) {
+                journal.prefabGeometry(key, placement);
+            }
+            BattleTowerTowerRegistry registry = BattleTowerTowerRegistry.of(key.worldName());
+            if (registry != null) {
+                registry.setPlacement(key.x(), key.y(), key.z(), placement.shape().id.hashCode(), placement.rotation(),
+                        placement.originX(), placement.originY(), placement.originZ());
+            }
+            LOGGER.atInfo().log("Starting prefab-planned implosion (%s rot=%d, %d blocks) maxY=%d to minY=%d at anchor (%d, %d) -> center (%d, %d) radius=%d",
+                    placement.shape().id, placement.rotation(), plan.blockCount,
+                    plan.topY, plan.floorY, anchorX, anchorZ, plan.centerX, plan.centerZ, state.radius);
+            return true;
         }
-        return blockTypeId.startsWith("Wood_")
-                || blockTypeId.startsWith("Furniture_")
-                || blockTypeId.startsWith("Deco_");
+        return false;
     }
 
-    private static int findGroundSurfaceY(World world, int x, int z, int startY, int minY) {
-        int yMax = Math.max(startY, minY);
-        int yMin = Math.min(startY, minY);
+    /**
+     * Starts removal from a survey, which gave the top, footprint, ground and the exact blocks to remove.
+     */
+    private static void startSurveyedCollapse(TowerKey key, TowerState state, BattleTowerSurvey.Result survey) {
+        BattleTowerCollapsePlan surveyed = survey.plan();
+        state.ruinMinY = surveyed.floorY;
+        state.centerX = survey.centerX();
+        state.centerZ = survey.centerZ();
+        state.radius = survey.radius();
+        state.topY = survey.topY();
+        startPlan(key, state, surveyed);
+        BattleTowerCollapseJournal journal = journal(key);
+        if (journal != null) {
+            journal.surveyGeometry(key, surveyed, state.topY, state.centerX, state.centerZ, state.radius);
+        }
+
+        LOGGER.atInfo().log("Starting surveyed implosion (%d blocks, %d reads) maxY=%d to minY=%d (baseY=%d, groundY=%d) at anchor (%d, %d) -> center (%d, %d) radius=%d",
+                surveyed.blockCount, survey.blocksRead(), survey.topY(), surveyed.floorY, state.baseY, survey.groundY(),
+                key.x(), key.z(), survey.centerX(), survey.centerZ(), survey.radius());
+    }
 
-        WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(x, z));
-        if (chunk == null) {
-            return Integer.MIN_VALUE;
-        }
+    private static void finishCollapse(World world, BattleTowerCollapseResource resource, TowerKey key, TowerState state) {
+        int centerX = state.centerX;
+        int centerZ = state.centerZ;
+        int maxY = state.topY;
+        int minY = state.ruinMinY;
+        int cleanupMinY = state.cleanupMinY;
+        int dropRadius = Math.min(MAX_SWEEP_RADIUS, state.radius + 6);
 
-        int localX = ChunkUtil.localCoordinate(x);
-        int localZ = ChunkUtil.localCoordinate(z);
+        // Prefab plans removed exactly the tower's blocks; surveyed ones recheck their bitmap.
+        int swept = sweepSurveyedBlocks(world, state);
+        BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.BLOCKS_REMOVED, swept);
+        if (swept > 0) {
+            LOGGER.atFine().log("Implosion cleanup removed %d remaining blocks at (%d, %d)",
+                    swept, centerX, centerZ);
+        }
 
-        for (int y = yMax; y >= yMin; y--) {
-            BlockType type;
-            try {
-                type = chunk.getBlockType(localX, y, localZ);
-            } catch (Exception ignored) {
-                continue;
-            }
+        // Collapse drops never spawned; this only catches items left from before the collapse (e.g. the boss fight).
+        int drops = removeDroppedItems(world, centerX, centerZ, cleanupMinY, maxY, dropRadius);
+        BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.DROPS_REMOVED, drops);
+        if (drops > 0) {
+            LOGGER.atFine().log("Implosion cleanup removed %d dropped items at (%d, %d)",
+                    drops, centerX, centerZ);
+        }
 
-            if (type == null || type == BlockType.EMPTY) {
-                continue;
-            }
+        // One final, big explosion near the preserved base (not mid-air layers).
+        for (BattleTowerCollapseEffects.Cue cue : BattleTowerCollapseEffects.FINAL_CUES) {
+            BattleTowerCollapseEffects.play(world, resource, cue, centerX, Math.min(maxY, minY + 2), centerZ);
+        }
 
-            String id = type.getId();
-            if (isSurfaceNoiseBlock(id)) {
-                continue;
-            }
-            return y;
+        int stored = storeRubble(world, state);
+        BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.RUBBLE_STACKS, stored);
+        BattleTowerCollapseSnapshot snapshot = state.snapshot;
+        state.snapshot = null;
+        if (snapshot != null) {
+            SCHEDULER.execute(snapshot::save);
         }
 
-        return Integer.MIN_VALUE;
+        releaseCollapse(key);
+        // Drops can be spawned a tick or two after blocks/NPCs are removed; keep suppressing them a little longer.
+        BattleTowerCollapseResource.DropRegion region = state.dropRegion;
+        if (region != null) {
+            region.expiresAtNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(DROP_SUPPRESSION_LINGER_SECONDS);
+        }
+        BattleTowerMetrics.increment(world.getName(), BattleTowerMetrics.Stat.COLLAPSES_FINISHED);
+        LOGGER.atInfo().log("Implosion complete at (%d, %d)", centerX, centerZ);
     }
 
-    private static boolean isSurfaceNoiseBlock(String blockTypeId) {
-        if (blockTypeId == null || blockTypeId.isEmpty()) {
-            return true;
+    /**
+     * Ends a collapse whose step threw, with the same bookkeeping as {@link #finishCollapse} but no final effects
+     * or rubble, so a restart doesn't resume it and throw again.
+     */
+    private static void abandonCollapse(BattleTowerCollapseResource resource, TowerKey key, RuntimeException e) {
+        LOGGER.atWarning().withCause(e).log("Implosion at (%d, %d, %d) in %s failed and was abandoned.",
+                key.x(), key.y(), key.z(), key.worldName());
+        TowerState state = TOWERS.get(key);
+        if (state != null) {
+            // Keep what was removed so far restorable.
+            BattleTowerCollapseSnapshot snapshot = state.snapshot;
+            state.snapshot = null;
+            if (snapshot != null) {
+                SCHEDULER.execute(snapshot::save);
+            }
+            if (state.dropRegion != null) {
+                resource.dropRegions.remove(state.dropRegion);
+                state.dropRegion = null;
+            }
         }
+        releaseCollapse(key);
+    }
 
-        String id = blockTypeId.toLowerCase(Locale.ROOT);
-
-        // Treat fluids as a "surface" to avoid scanning down through deep rivers/lakes.
-        if (id.contains("water") || id.contains("lava") || id.contains("liquid")) {
-            return false;
+    /**
+     * Forgets a tower once its collapse is over: no longer tracked, journal entry completed, registry marked collapsed.
+     */
+    private static void releaseCollapse(TowerKey key) {
+        untrackTower(key);
+        BattleTowerCollapseJournal journal = journal(key);
+        if (journal != null) {
+            journal.completed(key);
         }
+        updateRegistry(key, BattleTowerTowerRegistry.COLLAPSED);
+    }
+
+    /**
+     * One line describing a world's collapse queue: active/waiting counts and queue wait times.
+     * Must run on the world thread.
+     */
+    public static String describeCollapseQueue(World world) {
+        BattleTowerCollapseResource resource = collapseResource(world);
+        if (resource == null) {
+            return world.getName() + ": unavailable";
+        }
+        BattleTowerCollapseQueue<TowerKey> queue = resource.queue;
+        return String.format("%s: active=%d/%d waiting=%d oldestWait=%.1fs lastWait=%.1fs maxWait=%.1fs admitted=%d",
+                world.getName(), queue.activeCount(), maxActivePerWorld, queue.waitingCount(),
+                queue.oldestWaitNanos(System.nanoTime()) / 1e9, queue.lastWaitNanos() / 1e9, queue.maxWaitNanos() / 1e9,
+                queue.admittedCount());
+    }
 
-        // Skip canopy/foliage/decor so ground detection doesn't lock onto trees or tall grass.
-        return id.startsWith("foliage_")
-                || id.startsWith("plant_")
-                || id.startsWith("flower_")
-                || id.contains("leaf")
-                || id.contains("leaves")
-                || id.contains("vine")
-                || id.contains("mushroom")
-                || id.contains("sapling")
-                || id.contains("bush")
-                || id.startsWith("deco_")
-                || id.startsWith("furniture_")
-                || id.startsWith("wood_")
-                || id.contains("log")
-                || id.contains("branch");
-    }
-
-    private static int sweepTowerBlocks(World world, int centerX, int centerZ, int minY, int maxY, int radius) {
+    /**
+     * Builds the exact removal plan for a tower from its bundled prefab, or returns {@code null} when the tower
+     * can't be matched to a prefab (player-built, edited beyond recognition, or unloaded chunks).
+     */
+    private static BattleTowerCollapsePlan buildPrefabPlan(World world, TowerKey key, TowerState state) {
         try {
-            int removed = 0;
-            for (int y = maxY; y >= minY; y--) {
-                removed += implodeLayer(world, centerX, centerZ, y, radius, false);
+            BattleTowerPrefabPlacement placement = state.placement;
+            if (placement == null) {
+                BattleTowerTowerRegistry registry = BattleTowerTowerRegistry.of(key.worldName());
+                placement = resolvePrefabPlacement(traced(world, new BattleTowerWorldVoxels(world)), key.x(), key.y(), key.z(),
+                        BattleTowerCollapse::assetIndex, registry != null ? registry.find(key.x(), key.y(), key.z()) : null);
+                if (placement == null) {
+                    LOGGER.atInfo().log("No prefab match for tower at (%d, %d, %d); using scanned collapse.",
+                            key.x(), key.y(), key.z());
+                    return null;
+                }
+                state.placement = placement;
             }
-            return removed;
-        } catch (Exception ignored) {
-            return 0;
+            return planForPlacement(placement);
+        } catch (Exception e) {
+            LOGGER.atWarning().log("Prefab collapse plan failed at (%d, %d, %d): %s", key.x(), key.y(), key.z(), e.getMessage());
+            return null;
         }
     }
 
-    private static int purgeTowerMobs(World world, int centerX, int centerZ, int minY, int maxY, int radius) {
-        try {
-            var store = world.getEntityStore().getStore();
-            int chunkX = ChunkUtil.chunkCoordinate(centerX);
-            int chunkZ = ChunkUtil.chunkCoordinate(centerZ);
-            int radiusChunks = (radius / ChunkUtil.SIZE) + 1;
-            int radiusSq = radius * radius;
-
-            List<NPCEntity> toRemove = new ArrayList<>();
-            Set<Integer> visited = new HashSet<>();
-
-            for (int cx = chunkX - radiusChunks; cx <= chunkX + radiusChunks; cx++) {
-                for (int cz = chunkZ - radiusChunks; cz <= chunkZ + radiusChunks; cz++) {
-                    WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunk(cx, cz));
-                    if (chunk == null || chunk.getEntityChunk() == null) {
-                        continue;
-                    }
-
-                    for (var ref : chunk.getEntityChunk().getEntityReferences()) {
-                        try {
-                            int hash = ref.hashCode();
-                            if (!visited.add(hash)) {
-                                continue;
-                            }
-
-                            Player player = store.getComponent(ref, Player.getComponentType());
-                            if (player != null) {
-                                continue;
-                            }
+    private static BattleTowerCollapsePlan planForPlacement(BattleTowerPrefabPlacement placement) {
+        return planForPlacement(placement, BattleTowerCollapse::assetIndex);
+    }
 
-                            NPCEntity npc = store.getComponent(ref, NPCEntity.getComponentType());
-                            if (npc == null) {
-                                continue;
-                            }
+    /**
+     * @param blockIndex resolves a block type id to its block index (negative if unknown)
+     * @return the removal plan for a placed prefab, or {@code null} if nothing of it stands above the ruin
+     */
+    static BattleTowerCollapsePlan planForPlacement(BattleTowerPrefabPlacement placement, ToIntFunction<String> blockIndex) {
+        // The anchor layer sits on grade, so this keeps the same ruin height as the scanned collapse.
+        int floorY = placement.originY() + RUIN_PRESERVE_LAYERS - 1;
+        BattleTowerCollapsePlan plan = BattleTowerCollapsePlan.fromPrefab(placement, floorY, blockIndex);
+        return plan.isEmpty() ? null : plan;
+    }
 
-                            TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
-                            if (transform == null) {
-                                continue;
-                            }
+    private static int assetIndex(String blockTypeId) {
+        int index = BlockType.getAssetMap().getIndex(blockTypeId);
+        return index == Integer.MIN_VALUE ? -1 : index;
+    }
 
-                            Vector3d pos = transform.getPosition();
-                            int y = (int) Math.floor(pos.getY());
-                            if (y < minY || y > maxY) {
-                                continue;
-                            }
+    /**
+     * Finds which bundled prefab (and which rotation/origin) a tower was placed from, by checking a spread of
+     * prefab blocks against the blocks around the boss anchor. On a live world, must run on the world thread.
+     *
+     * @param blockIndex resolves a block type id to its block index (negative if unknown)
+     */
+    static BattleTowerPrefabPlacement resolvePrefabPlacement(BattleTowerVoxelAccess voxels, int anchorX, int anchorY, int anchorZ,
+                                                             ToIntFunction<String> blockIndex) {
+        return resolvePrefabPlacement(voxels, anchorX, anchorY, anchorZ, blockIndex, null);
+    }
 
-                            double dx = pos.getX() - centerX;
-                            double dz = pos.getZ() - centerZ;
-                            if (dx * dx + dz * dz > radiusSq) {
-                                continue;
-                            }
+    /**
+     * Same as {@link #resolvePrefabPlacement(BattleTowerVoxelAccess, int, int, int, ToIntFunction)}, but first
+     * checks the placement recorded when the tower was placed, if any. Every shape, rotation and nearby origin is
+     * only tried when the recorded one doesn't match.
+     */
+    static BattleTowerPrefabPlacement resolvePrefabPlacement(BattleTowerVoxelAccess voxels, int anchorX, int anchorY, int anchorZ,
+                                                             ToIntFunction<String> blockIndex,
+                                                             BattleTowerTowerRegistry.Tower recorded) {
+        List<BattleTowerPrefabShape> shapes = BattleTowerPrefabShape.bundled(BattleTowerCollapse::isTowerBossMarkerId);
+        if (shapes.isEmpty()) {
+            return null;
+        }
+        // Every candidate reads the same few chunk columns around the anchor.
+        BattleTowerColumnCache columns = new BattleTowerColumnCache(voxels);
+        PrefabMatch match = new PrefabMatch();
 
-                            toRemove.add(npc);
-                        } catch (Exception ignored) {
-                        }
-                    }
+        if (recorded != null && recorded.hasPlacement()) {
+            for (BattleTowerPrefabShape shape : shapes) {
+                if (recorded.prefabIdHash() != 0 && shape.id.hashCode() != recorded.prefabIdHash()) {
+                    continue;
                 }
+                match.probe(columns, new BattleTowerPrefabPlacement(shape, recorded.rotation(),
+                        recorded.originX(), recorded.originY(), recorded.originZ()), blockIndex);
             }
+            if (match.accepted()) {
+                return match.best;
+            }
+        }
 
-            int removed = 0;
-            for (NPCEntity npc : toRemove) {
-                try {
-                    if (npc.remove()) {
-                        removed++;
-                    }
-                } catch (Exception ignored) {
-                }
+        for (BattleTowerPrefabShape shape : shapes) {
+            for (int rotation = 0; rotation < 4; rotation++) {
+                match.probe(columns, BattleTowerPrefabPlacement.fromBossAnchor(shape, rotation, anchorX, anchorY, anchorZ),
+                        blockIndex);
             }
-            return removed;
-        } catch (Exception ignored) {
-            return 0;
         }
+        return match.accepted() ? match.best : null;
     }
 
-    private static int removeTowerSpawnMarkers(World world, int centerX, int centerZ, int minY, int maxY, int radius) {
-        try {
-            var store = world.getEntityStore().getStore();
-            int chunkX = ChunkUtil.chunkCoordinate(centerX);
-            int chunkZ = ChunkUtil.chunkCoordinate(centerZ);
-            int radiusChunks = (radius / ChunkUtil.SIZE) + 1;
-            int radiusSq = radius * radius;
-
-            List<Ref<EntityStore>> toRemove = new ArrayList<>();
-            Set<Integer> visited = new HashSet<>();
-
-            for (int cx = chunkX - radiusChunks; cx <= chunkX + radiusChunks; cx++) {
-                for (int cz = chunkZ - radiusChunks; cz <= chunkZ + radiusChunks; cz++) {
-                    WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunk(cx, cz));
-                    if (chunk == null || chunk.getEntityChunk() == null) {
-                        continue;
-                    }
-
-                    for (var ref : chunk.getEntityChunk().getEntityReferences()) {
-                        try {
-                            int hash = ref.hashCode();
-                            if (!visited.add(hash)) {
-                                continue;
-                            }
-
-                            SpawnMarkerEntity marker = store.getComponent(ref, SpawnMarkerEntity.getComponentType());
-                            if (marker == null) {
-                                continue;
-                            }
-
-                            TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
-                            if (transform == null) {
-                                continue;
-                            }
-
-                            Vector3d pos = transform.getPosition();
-                            int y = (int) Math.floor(pos.getY());
-                            if (y < minY || y > maxY) {
-                                continue;
-                            }
-
-                            double dx = pos.getX() - centerX;
-                            double dz = pos.getZ() - centerZ;
-                            if (dx * dx + dz * dz > radiusSq) {
-                                continue;
-                            }
-
-                            toRemove.add(ref);
-                        } catch (Exception ignored) {
+    /**
+     * Best prefab placement seen so far while matching a tower.
+     */
+    private static final class PrefabMatch {
+        BattleTowerPrefabPlacement best;
+        int bestScore = -1;
+        int bestSampleCount;
+        private BattleTowerPrefabShape sampledShape;
+        private final int[] sampleBlocks = new int[PREFAB_MATCH_SAMPLES];
+        private final int[] sampleIds = new int[PREFAB_MATCH_SAMPLES];
+        private int sampleCount;
+
+        /**
+         * Scores {@code base} and the origins next to it, which absorb rounding in how the anchor was derived.
+         */
+        void probe(BattleTowerVoxelAccess voxels, BattleTowerPrefabPlacement base, ToIntFunction<String> blockIndex) {
+            if (base.shape() != sampledShape) {
+                sample(base.shape(), blockIndex);
+            }
+            if (sampleCount == 0) {
+                return;
+            }
+            int required = (int) Math.ceil(sampleCount * PREFAB_MATCH_MIN_RATIO);
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dz = -1; dz <= 1; dz++) {
+                        BattleTowerPrefabPlacement candidate = base.offset(dx, dy, dz);
+                        int score = scorePrefabPlacement(voxels, candidate, sampleBlocks, sampleIds, sampleCount, required);
+                        if (score > bestScore || (score == bestScore && sampleCount > bestSampleCount)) {
+                            bestScore = score;
+                            bestSampleCount = sampleCount;
+                            best = candidate;
                         }
                     }
                 }
             }
+        }
 
-            int removed = 0;
-            for (Ref<EntityStore> ref : toRemove) {
-                try {
-                    store.removeEntity(ref, RemoveReason.REMOVE);
-                    removed++;
-                } catch (Exception ignored) {
+        boolean accepted() {
+            return best != null && bestScore >= Math.ceil(bestSampleCount * PREFAB_MATCH_MIN_RATIO);
+        }
+
+        private void sample(BattleTowerPrefabShape shape, ToIntFunction<String> blockIndex) {
+            sampledShape = shape;
+            sampleCount = 0;
+            int stride = Math.max(1, shape.blockCount() / PREFAB_MATCH_SAMPLES);
+            for (int i = 0; i < shape.blockCount() && sampleCount < PREFAB_MATCH_SAMPLES; i += stride) {
+                int id = blockIndex.applyAsInt(shape.names[i]);
+                if (id < 0) {
+                    continue;
                 }
+                sampleBlocks[sampleCount] = i;
+                sampleIds[sampleCount] = id;
+                sampleCount++;
             }
-            return removed;
-        } catch (Exception ignored) {
-            return 0;
         }
     }
 
-    private static int removeDroppedItems(World world, int centerX, int centerZ, int minY, int maxY, int radius) {
-        try {
-            var store = world.getEntityStore().getStore();
-            int chunkX = ChunkUtil.chunkCoordinate(centerX);
-            int chunkZ = ChunkUtil.chunkCoordinate(centerZ);
-            int radiusChunks = (radius / ChunkUtil.SIZE) + 1;
-            int radiusSq = radius * radius;
-
-            List<Ref<EntityStore>> toRemove = new ArrayList<>();
-            Set<Integer> visited = new HashSet<>();
-
-            for (int cx = chunkX - radiusChunks; cx <= chunkX + radiusChunks; cx++) {
-                for (int cz = chunkZ - radiusChunks; cz <= chunkZ + radiusChunks; cz++) {
-                    WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunk(cx, cz));
-                    if (chunk == null || chunk.getEntityChunk() == null) {
-                        continue;
-                    }
-
-                    for (var ref : chunk.getEntityChunk().getEntityReferences()) {
-                        try {
-                            int hash = ref.hashCode();
-                            if (!visited.add(hash)) {
-                                continue;
-                            }
-
-                            // Skip players.
-                            Player player = store.getComponent(ref, Player.getComponentType());
-                            if (player != null) {
-                                continue;
-                            }
-
-                            // Dropped items are ECS entities with ItemComponent / PickupItemComponent.
-                            ItemComponent itemComponent = store.getComponent(ref, ItemComponent.getComponentType());
-                            PickupItemComponent pickupItem = store.getComponent(ref, PickupItemComponent.getComponentType());
-                            if (itemComponent == null && pickupItem == null) {
-                                continue;
-                            }
-
-                            TransformComponent transform = store.getComponent(ref, TransformComponent.getComponentType());
-                            if (transform == null) {
-                                continue;
-                            }
-
-                            Vector3d pos = transform.getPosition();
-                            int y = (int) Math.floor(pos.getY());
-                            if (y < minY || y > maxY) {
-                                continue;
-                            }
-
-                            double dx = pos.getX() - centerX;
-                            double dz = pos.getZ() - centerZ;
-                            if (dx * dx + dz * dz > radiusSq) {
-                                continue;
-                            }
-
-                            toRemove.add(ref);
-                        } catch (Exception ignored) {
-                        }
-                    }
-                }
+    /**
+     * @return number of matching samples, or -1 as soon as the candidate can no longer reach {@code required}.
+     */
+    private static int scorePrefabPlacement(BattleTowerVoxelAccess voxels, BattleTowerPrefabPlacement candidate,
+                                            int[] sampleBlocks, int[] sampleIds, int sampleCount, int required) {
+        BattleTowerPrefabShape shape = candidate.shape();
+        int matches = 0;
+        for (int s = 0; s < sampleCount; s++) {
+            int i = sampleBlocks[s];
+            int x = candidate.worldX(shape.xs[i], shape.zs[i]);
+            int y = candidate.worldY(shape.ys[i]);
+            int z = candidate.worldZ(shape.xs[i], shape.zs[i]);
+
+            BattleTowerVoxelAccess.Column column = voxels.column(ChunkUtil.chunkCoordinate(x), ChunkUtil.chunkCoordinate(z));
+            if (column != null && column.blockAt(ChunkUtil.localCoordinate(x), y, ChunkUtil.localCoordinate(z)) == sampleIds[s]) {
+                matches++;
             }
 
-            int removed = 0;
-            for (Ref<EntityStore> ref : toRemove) {
-                try {
-                    store.removeEntity(ref, RemoveReason.REMOVE);
-                    removed++;
-                } catch (Exception ignored) {
-                }
+            int misses = (s + 1) - matches;
+            if (sampleCount - misses < required) {
+                return -1;
             }
-            return removed;
-        } catch (Exception ignored) {
-            return 0;
         }
+        return matches;
     }
 
-    private static int implodeLayer(World world, int centerX, int centerZ, int y, int radius) {
-        return implodeLayer(world, centerX, centerZ, y, radius, true);
+    private static int removeDroppedItems(World world, int centerX, int centerZ, int minY, int maxY, int radius) {
+        return BattleTowerEntitySweep.sweep(world, BattleTowerEntitySweep.ITEMS,
+                centerX, centerZ, minY, maxY, radius).items();
     }
 
-    private static int implodeLayer(World world, int centerX, int centerZ, int y, int radius, boolean log) {
-        int removed = 0;
-        for (int x = centerX - radius; x <= centerX + radius; x++) {
-            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
-                int dx = x - centerX;
-                int dz = z - centerZ;
-                if (dx * dx + dz * dz > radius * radius) {
-                    continue;
-                }
-
-                long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
-                WorldChunk chunk = world.getChunkIfLoaded(chunkIndex);
-                if (chunk == null) {
-                    continue;
-                }
+    /**
+     * Plays the effect cue this collapse's progress has reached, if any. When a slow tick jumps past several
+     * cues only the latest one plays.
+     */
+    private static void playDueCue(World world, BattleTowerCollapseResource resource, TowerState state, int y) {
+        List<BattleTowerCollapseEffects.Cue> cues = BattleTowerCollapseEffects.CUES;
+        double progress = (double) state.walk.visited / Math.max(1, state.plan.blockCount);
+        BattleTowerCollapseEffects.Cue due = null;
+        while (state.nextCue < cues.size() && cues.get(state.nextCue).at <= progress) {
+            due = cues.get(state.nextCue++);
+        }
+        if (due != null) {
+            BattleTowerCollapseEffects.play(world, resource, due, state.centerX, y, state.centerZ);
+        }
+    }
 
-                int localX = ChunkUtil.localCoordinate(x);
-                int localZ = ChunkUtil.localCoordinate(z);
+    private static void adoptPrefabPlan(TowerState state, BattleTowerCollapsePlan plan) {
+        state.ruinMinY = plan.floorY;
+        state.centerX = plan.centerX;
+        state.centerZ = plan.centerZ;
+        state.radius = Math.max(IMPLOSION_RADIUS, Math.min(MAX_SWEEP_RADIUS, plan.radius + 1));
+        state.topY = plan.topY;
+    }
 
-                BlockType type = chunk.getBlockType(localX, y, localZ);
-                if (type == null) {
-                    continue;
-                }
-                String id = type.getId();
-                BlockState state = null;
-                try {
-                    state = chunk.getState(localX, y, localZ);
-                } catch (Exception ignored) {
-                }
-                boolean hasContainerState = state instanceof ItemContainerBlockState;
+    private static void startPlan(TowerKey key, TowerState state, BattleTowerCollapsePlan plan) {
+        state.pacer = new BattleTowerCollapsePacer(
+                TimeUnit.SECONDS.toNanos(implosionTargetSeconds),
+                TimeUnit.MILLISECONDS.toNanos(implosionTickMs));
+        state.plan = plan;
+        state.walk = new BattleTowerPlanWalk(plan);
+        state.nextCue = 0;
+        state.rubble = new ArrayList<>();
+        state.snapshot = BattleTowerCollapseSnapshot.begin(key, plan);
+    }
 
-                if (!hasContainerState && !shouldImplode(id)) {
-                    continue;
-                }
+    /**
+     * Visits planned positions from the walk's cursor downward until the pacer's op count or the tick's time
+     * budget runs out. Must run on the world thread.
+     */
+    private static int implodePlanBudgeted(World world, TowerState state, BattleTowerCollapsePlan plan, boolean verify, long budgetNanos) {
+        BattleTowerCollapsePacer pacer = state.pacer;
+        BattleTowerPlanWalk walk = state.walk;
+        long start = System.nanoTime();
+        int maxOps = pacer.opsForTick(start, walk.remaining(), budgetNanos);
+        int topY = walk.isDone() ? 0 : plan.yAt(walk.cursor);
+        int visitedBefore = walk.visited;
+
+        int removed = walk.step(collapseVoxels(world, state), BattleTowerBlockClassifier.table(), verify,
+                maxOps, start + budgetNanos);
+        int ops = walk.visited - visitedBefore;
+        pacer.record(ops, System.nanoTime() - start);
 
-                removeBlockAndState(chunk, localX, y, localZ, state);
-                removed++;
-            }
-        }
-        if (log && removed > 0) {
-            LOGGER.atInfo().log("Imploded Y=%d: removed %d blocks", y, removed);
+        String worldName = world.getName();
+        BattleTowerMetrics.add(worldName, BattleTowerMetrics.Stat.BLOCKS_VISITED, ops);
+        BattleTowerMetrics.add(worldName, BattleTowerMetrics.Stat.BLOCKS_REMOVED, removed);
+        if (removed > 0 && BattleTowerMetrics.sampled(worldName, BattleTowerMetrics.Stat.BLOCKS_REMOVED)) {
+            LOGGER.atFine().log("Imploded Y=%d..%d: removed %d planned blocks (%d visited, %d left)",
+                    topY, walk.isDone() ? plan.floorY : plan.yAt(walk.cursor) + 1, removed, ops, walk.remaining());
         }
         return removed;
     }
 
-    private static void removeBlockAndState(WorldChunk chunk, int localX, int y, int localZ, BlockState state) {
-        try {
-            if (state != null) {
-                try {
-                    if (state instanceof DestroyableBlockState destroyable) {
-                        destroyable.onDestroy();
-                    }
-                } catch (Exception ignored) {
-                }
-                try {
-                    state.invalidate();
-                } catch (Exception ignored) {
-                }
-                try {
-                    chunk.setState(localX, y, localZ, (BlockState) null, true);
-                } catch (Exception ignored) {
-                }
-            }
-        } catch (Exception ignored) {
+    /**
+     * Final pass for surveyed collapses: clears anything still standing at the surveyed positions. Reads only the
+     * bitmap's own positions, never the surrounding area.
+     */
+    private static int sweepSurveyedBlocks(World world, TowerState state) {
+        BattleTowerCollapsePlan plan = state.plan;
+        if (plan == null || state.placement != null) {
+            return 0;
         }
-
         try {
-            chunk.setBlock(localX, y, localZ, BlockType.EMPTY);
+            return BattleTowerPlanWalk.removeLayers(collapseVoxels(world, state), BattleTowerBlockClassifier.table(),
+                    plan, plan.topY, plan.floorY, false);
         } catch (Exception ignored) {
+            return 0;
         }
     }
 
-    private static void spawnCollapseEffects(World world, int centerX, int y, int centerZ, boolean big) {
-        try {
-            var accessor = world.getEntityStore().getStore();
-
-            int[][] offsets = big
-                    ? new int[][]{{0, 0}}
-                    : new int[][]{
-                    {0, 0}, {5, 5}, {-5, 5}, {5, -5}, {-5, -5},
-                    {8, 0}, {-8, 0}, {0, 8}, {0, -8}
-            };
-
-            // --- Particles ---
-            for (int[] off : offsets) {
-                Vector3d pos = new Vector3d(centerX + off[0], y, centerZ + off[1]);
-
-                String cached = big ? resolvedFinishParticleId : resolvedCollapseParticleId;
-                if (cached != null) {
-                    try {
-                        ParticleUtil.spawnParticleEffect(cached, pos, accessor);
-                        continue;
-                    } catch (Exception ignored) {
-                        if (big) {
-                            resolvedFinishParticleId = null;
-                        } else {
-                            resolvedCollapseParticleId = null;
-                        }
-                    }
-                }
+    /**
+     * The world as the collapse's removals see it: containers drain into its rubble, removed blocks go into its
+     * snapshot.
+     */
+    private static BattleTowerVoxelAccess collapseVoxels(World world, TowerState state) {
+        return traced(world, new BattleTowerWorldVoxels(world, state.rubble, state.snapshot));
+    }
 
-                String[] candidates = big ? FINISH_PARTICLES : COLLAPSE_PARTICLES;
-                for (String id : candidates) {
-                    try {
-                        ParticleUtil.spawnParticleEffect(id, pos, accessor);
-                        if (big) {
-                            resolvedFinishParticleId = id;
-                        } else {
-                            resolvedCollapseParticleId = id;
-                        }
-                        LOGGER.atInfo().log("Resolved %s particle system ID: %s", big ? "finish" : "collapse", id);
-                        break;
-                    } catch (Exception ignored) {
-                    }
-                }
-            }
+    /**
+     * Records the collapse's block reads when the world is being traced.
+     */
+    private static BattleTowerVoxelAccess traced(World world, BattleTowerVoxelAccess voxels) {
+        return BattleTowerTrace.recording(world.getName(), voxels);
+    }
 
-            // --- Sounds ---
-            Vector3d soundPos = new Vector3d(centerX, y, centerZ);
+    /**
+     * Puts the items drained from the tower's containers into containers on top of the ruin, next to the tower
+     * center. Whatever does not fit (or can't be placed) is lost, like a collapse's drops always were.
+     *
+     * @return the number of item stacks stored
+     */
+    private static int storeRubble(World world, TowerState state) {
+        List<ItemStack> rubble = state.rubble;
+        state.rubble = null;
+        if (rubble == null || rubble.isEmpty()) {
+            return 0;
+        }
+        if (containerLoot != ContainerLoot.RUBBLE || state.plan == null) {
+            LOGGER.atFine().log("Discarded %d item stacks from tower containers at (%d, %d)",
+                    rubble.size(), state.centerX, state.centerZ);
+            return 0;
+        }
 
-            // Only play the big explosion sound once (finish), otherwise it spams during the 200ms implosion ticks.
-            if (big) {
-                int explosionId = resolvedExplosionSoundId;
-                if (explosionId == Integer.MIN_VALUE) {
-                    explosionId = resolveSoundId(EXPLOSION_SOUNDS, "explosion");
-                    if (explosionId != Integer.MIN_VALUE) {
-                        resolvedExplosionSoundId = explosionId;
-                    }
-                }
-                if (explosionId != Integer.MIN_VALUE) {
-                    try {
-                        SoundUtil.playSoundEvent3d(explosionId, SoundCategory.SFX, soundPos, accessor);
-                        LOGGER.atInfo().log("Played explosion sound id=%d at (%d, %d, %d)", explosionId, centerX, y, centerZ);
-                    } catch (Throwable t) {
-                        LOGGER.atWarning().log("Explosion sound FAILED: %s: %s", t.getClass().getSimpleName(), t.getMessage());
-                        resolvedExplosionSoundId = Integer.MIN_VALUE;
-                    }
-                }
-            }
+        BlockType rubbleType = null;
+        try {
+            rubbleType = BlockType.getAssetMap().getAsset(rubbleBlockId);
+        } catch (Exception ignored) {
+        }
+        if (rubbleType == null) {
+            LOGGER.atWarning().log("Rubble container block '%s' not found; discarded %d item stacks",
+                    rubbleBlockId, rubble.size());
+            return 0;
+        }
 
-            // Rumble sound
-            int rumbleId = resolvedRumbleSoundId;
-            if (rumbleId == Integer.MIN_VALUE) {
-                rumbleId = resolveSoundId(RUMBLE_SOUNDS, "rumble");
-                if (rumbleId != Integer.MIN_VALUE) {
-                    resolvedRumbleSoundId = rumbleId;
-                }
+        int next = 0;
+        int containers = 0;
+        for (int i = 0; i < MAX_RUBBLE_CONTAINERS && next < rubble.size(); i++) {
+            // Fill a 2x2 cluster around the tower center.
+            int x = state.centerX + (i & 1);
+            int z = state.centerZ + (i >> 1);
+            ItemContainer container = placeRubbleContainer(world, rubbleType, x, z, state.plan.floorY, state.cleanupMinY,
+                    state.snapshot);
+            if (container == null) {
+                continue;
             }
-            if (rumbleId != Integer.MIN_VALUE) {
+            containers++;
+            while (next < rubble.size()) {
+                ItemStack remainder = null;
                 try {
-                    SoundUtil.playSoundEvent3d(rumbleId, SoundCategory.SFX, soundPos, accessor);
-                    LOGGER.atInfo().log("Played rumble sound id=%d at (%d, %d, %d)", rumbleId, centerX, y, centerZ);
-                } catch (Throwable t) {
-                    LOGGER.atWarning().log("Rumble sound FAILED: %s: %s", t.getClass().getSimpleName(), t.getMessage());
-                    resolvedRumbleSoundId = Integer.MIN_VALUE;
+                    ItemStackTransaction transaction = container.addItemStack(rubble.get(next));
+                    remainder = transaction != null ? transaction.getRemainder() : null;
+                } catch (Exception ignored) {
                 }
+                if (remainder != null && !remainder.isEmpty()) {
+                    // Container full; the rest of this stack goes into the next one.
+                    rubble.set(next, remainder);
+                    break;
+                }
+                next++;
             }
-        } catch (Exception e) {
-            LOGGER.atFine().log("Could not spawn collapse effects: %s", e.getMessage());
         }
+
+        int lost = rubble.size() - next;
+        LOGGER.atFine().log("Stored %d item stacks from tower containers in %d rubble containers at (%d, %d)%s",
+                next, containers, state.centerX, state.centerZ, lost > 0 ? " (" + lost + " did not fit)" : "");
+        return next;
     }
 
-    private static int resolveSoundId(String[] candidates, String label) {
+    private static ItemContainer placeRubbleContainer(World world, BlockType type, int x, int z, int fromY, int minY,
+                                                      BattleTowerCollapseSnapshot snapshot) {
         try {
-            var assetMap = SoundEvent.getAssetMap();
-            for (String name : candidates) {
-                int id = assetMap.getIndex(name);
-                if (id != Integer.MIN_VALUE) {
-                    LOGGER.atInfo().log("Resolved %s sound event: %s (id=%d)", label, name, id);
-                    return id;
-                }
+            WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(x, z));
+            if (chunk == null) {
+                return null;
+            }
+            int localX = ChunkUtil.localCoordinate(x);
+            int localZ = ChunkUtil.localCoordinate(z);
+            BattleTowerBlockClassTable classes = BattleTowerBlockClassifier.table();
+
+            // Rest it on whatever the collapse left standing: the ruin, or the ground.
+            int y = fromY;
+            while (y > minY && classes.has(chunk.getBlock(localX, y - 1, localZ), BattleTowerBlockClassTable.EMPTY)) {
+                y--;
+            }
+            int maxY = fromY + 8;
+            while (y < maxY && !classes.has(chunk.getBlock(localX, y, localZ), BattleTowerBlockClassTable.EMPTY)) {
+                y++;
+            }
+            if (!classes.has(chunk.getBlock(localX, y, localZ), BattleTowerBlockClassTable.EMPTY)) {
+                return null;
             }
-        } catch (Exception e) {
-            LOGGER.atFine().log("Could not resolve %s sound: %s", label, e.getMessage());
-        }
-        return Integer.MIN_VALUE;
-    }
 
-    private static boolean shouldImplode(String blockTypeId) {
-        if (blockTypeId == null || blockTypeId.isEmpty()) {
-            return false;
-        }
-        if (blockTypeId.startsWith("Rock_")) {
-            // Avoid carving natural terrain by only removing tower-like "brick/cobble" blocks.
-            return blockTypeId.contains("_Cobble") || blockTypeId.contains("_Brick");
+            chunk.setBlock(localX, y, localZ, type);
+            if (snapshot != null) {
+                snapshot.recordRubble(x, y, z);
+            }
+            BlockState placed = chunk.getState(localX, y, localZ);
+            return placed instanceof ItemContainerBlockState containerState ? containerState.getItemContainer() : null;
+        } catch (Exception ignored) {
+            return null;
         }
-        return blockTypeId.startsWith("Wood_")
-                || blockTypeId.startsWith("Furniture_")
-                || blockTypeId.startsWith("Deco_");
     }
 
-    private record TowerKey(String worldName, int x, int y, int z) {
+    record TowerKey(String worldName, int x, int y, int z) {
     }
 
     private static final class TowerState {
@@ -1677,11 +1873,29 @@ public final class BattleTowerCollapse {
         volatile ScheduledFuture<?> collapseStartFuture;
         volatile long collapseStartAtEpochMs;
         final List<ScheduledFuture<?>> countdownFutures = new ArrayList<>();
-        volatile ScheduledFuture<?> implosionFuture;
-        volatile boolean mobsPurged;
-        volatile boolean spawnMarkersRemoved;
+        volatile boolean entitiesPurged;
+        BattleTowerCollapseResource.DropRegion dropRegion;
         volatile int cleanupMinY = Integer.MIN_VALUE;
         volatile int ruinMinY = Integer.MIN_VALUE;
+        volatile int centerX;
+        volatile int centerZ;
+        volatile int radius = IMPLOSION_RADIUS;
+        volatile BattleTowerPrefabPlacement placement;
+        volatile BattleTowerCollapsePlan plan;
+        // Progress through the plan; set together with it.
+        BattleTowerPlanWalk walk;
+        // Index of the next progress cue to play.
+        int nextCue;
+        BattleTowerCollapsePacer pacer;
+        // Items taken out of removed containers; null once they have been stored or discarded.
+        List<ItemStack> rubble;
+        // What the collapse has removed so far; null when snapshots are off.
+        BattleTowerCollapseSnapshot snapshot;
+        // Surveyed collapses before their plan: the block copy while it is being taken, then the running survey,
+        // then its scan while the columns it left above the ruin floor are read.
+        BattleTowerSurveyCopy surveyCopy;
+        CompletableFuture<BattleTowerSurvey.Scan> survey;
+        BattleTowerSurvey.Scan surveyScan;
     }
 
     private static final class NamedDaemonThreadFactory implements ThreadFactory {
@@ -0,0 +1,251 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.assetstore.event.LoadedAssetsEvent;
+import com.hypixel.hytale.event.EventRegistry;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.protocol.SoundCategory;
+import com.hypixel.hytale.server.core.asset.type.particle.config.ParticleSystem;
+import com.hypixel.hytale.server.core.asset.type.soundevent.config.SoundEvent;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.ParticleUtil;
+import com.hypixel.hytale.server.core.universe.world.SoundUtil;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Particles and sounds for tower collapses, scaled to who can see them.
+ *
+ * What plays and when is the cue table below. Each progress cue fires once per collapse, when that fraction of the
+ * tower's blocks has been removed, at the layer the collapse has reached by then; the final cues fire at the ruin
+ * base when the collapse finishes. So the number of effects depends on the table, not on the tower height or the
+ * tick rate. Avoid Explosion_Big as a candidate: it spawns lingering fires that float mid-air during a top-down
+ * collapse.
+ *
+ * Every emitter (particle system or sound)
+ * turns into one packet per nearby player, so each world gets a budget of effect packets per collapse tick,
+ * shared by its active collapses. A collapse nobody is near emits nothing; with many viewers a cue uses fewer
+ * emitters, picked from a fixed offset table in order of importance.
+ *
+ * Particle and sound IDs are picked from each cue's candidates once, when the asset maps load (and again on
+ * reload), so a collapse tick never probes for them.
+ *
+ * Runs on the world thread only, apart from the asset listeners.
+ */
+final class BattleTowerCollapseEffects {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    // Players further away than this don't get (or see) the effects.
+    static final int VIEW_RADIUS = 96;
+
+    // Particle positions around the tower center, most important first: center, corners, sides.
+    private static final int[] OFFSET_X = {0, 5, -5, 5, -5, 8, -8, 0, 0};
+    private static final int[] OFFSET_Z = {0, 5, 5, -5, -5, 0, 0, 8, -8};
+
+    static final class Cue {
+        final double at;
+        final boolean isFinal;
+        // Particle positions to use around the tower center, at most.
+        final int emitters;
+        final String[] particleCandidates;
+        final String[][] soundCandidates;
+
+        // Resolved against the asset maps; null / Integer.MIN_VALUE if no candidate exists.
+        volatile String particleId;
+        volatile int[] soundIds = new int[0];
+
+        Cue(double at, boolean isFinal, int emitters, String[] particleCandidates, String[][] soundCandidates) {
+            this.at = at;
+            this.isFinal = isFinal;
+            this.emitters = emitters;
+            this.particleCandidates = particleCandidates;
+            this.soundCandidates = soundCandidates;
+        }
+    }
+
+    // Candidate IDs for each effect; the first one present in the loaded assets is used.
+    private static final String[] DEBRIS_PARTICLES = {
+            "Explosion_Small", "Block_Break_Stone", "Block.Stone.Block_Break_Stone"};
+    private static final String[] RUMBLE_SOUNDS = {
+            "SFX_Golem_Earth_Stomp_Impact", "SFX_Golem_Sand_Stomp_Impact", "SFX_Z3_Emit_Cave_Ice_Rumble"};
+    private static final String[] SLAM_SOUNDS = {
+            "SFX_Golem_Earth_Slam_Impact", "SFX_Bomb_Fire_Goblin_Death", "SFX_GunPvP_Grenade_Frag_Death", "SFX_Stone_Break"};
+
+    // Progress cues in firing order; the first and last use every emitter.
+    static final List<Cue> CUES = List.of(
+            debris(0.0, 9), debris(0.15, 5), debris(0.3, 5), debris(0.45, 5), debris(0.6, 5), debris(0.75, 5),
+            debris(0.9, 9));
+    static final List<Cue> FINAL_CUES = List.of(
+            new Cue(1, true, 1, new String[]{"Impact_Explosion", "Explosion_Small"},
+                    new String[][]{SLAM_SOUNDS, RUMBLE_SOUNDS}));
+
+    private static volatile boolean particlesResolved;
+    private static volatile boolean soundsResolved;
+    private static volatile int packetBudgetPerTick = 64;
+
+    private BattleTowerCollapseEffects() {
+    }
+
+    static void register(EventRegistry eventRegistry) {
+        eventRegistry.register(LoadedAssetsEvent.class, ParticleSystem.class, _e -> resolveParticles());
+        eventRegistry.register(LoadedAssetsEvent.class, SoundEvent.class, _e -> resolveSounds());
+    }
+
+    static void setPacketBudgetPerTick(int budget) {
+        packetBudgetPerTick = Math.max(1, budget);
+    }
+
+    private static Cue debris(double at, int emitters) {
+        return new Cue(at, false, emitters, DEBRIS_PARTICLES, new String[][]{RUMBLE_SOUNDS});
+    }
+
+    /**
+     * Refills the world's effect budget; called once per collapse tick, before any collapse steps.
+     */
+    static void beginTick(BattleTowerCollapseResource resource) {
+        resource.effectPacketsLeft = packetBudgetPerTick;
+    }
+
+    /**
+     * Plays one cue centered on (centerX, y, centerZ). Final cues are shown in full regardless of budget.
+     */
+    static void play(World world, BattleTowerCollapseResource resource, Cue cue,
+                     int centerX, int y, int centerZ) {
+        try {
+            int viewers = countViewers(world, centerX, y, centerZ);
+            if (viewers == 0) {
+                return;
+            }
+            if (!particlesResolved) {
+                // Assets were already loaded when the listener was registered.
+                resolveParticles();
+            }
+            if (!soundsResolved) {
+                resolveSounds();
+            }
+
+            String particleId = cue.particleId;
+            int[] soundIds = cue.soundIds;
+            int particles = particleId == null ? 0 : Math.min(cue.emitters, OFFSET_X.length);
+            int sounds = soundIds.length;
+            if (!cue.isFinal && particles + sounds > 0) {
+                int affordable = resource.effectPacketsLeft / viewers;
+                if (affordable <= 0) {
+                    return;
+                }
+                if (particles + sounds > affordable) {
+                    // Keep at least one particle; sounds get what's left.
+                    particles = Math.min(particles, Math.max(1, affordable - sounds));
+                    sounds = Math.max(0, affordable - particles);
+                }
+            }
+            int packets = (particles + sounds) * viewers;
+            resource.effectPacketsLeft -= packets;
+            BattleTowerMetrics.increment(world.getName(), BattleTowerMetrics.Stat.EFFECT_CUES);
+            BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.EFFECT_PACKETS, packets);
+
+            var accessor = world.getEntityStore().getStore();
+            Vector3d pos = resource.effectPos;
+
+            for (int i = 0; i < particles; i++) {
+                pos.assign(centerX + OFFSET_X[i], y, centerZ + OFFSET_Z[i]);
+                ParticleUtil.spawnParticleEffect(particleId, pos, accessor);
+            }
+
+            pos.assign(centerX, y, centerZ);
+            for (int i = 0; i < sounds; i++) {
+                SoundUtil.playSoundEvent3d(soundIds[i], SoundCategory.SFX, pos, accessor);
+            }
+        } catch (Exception e) {
+            LOGGER.atFine().log("Could not spawn collapse effects: %s", e.getMessage());
+        }
+    }
+
+    private static int countViewers(World world, int x, int y, int z) {
+        long radiusSq = (long) VIEW_RADIUS * VIEW_RADIUS;
+        int viewers = 0;
+        for (PlayerRef player : world.getPlayerRefs()) {
+            try {
+                Vector3d pos = player.getTransform().getPosition();
+                double dx = pos.getX() - x;
+                double dy = pos.getY() - y;
+                double dz = pos.getZ() - z;
+                if (dx * dx + dy * dy + dz * dz <= radiusSq) {
+                    viewers++;
+                }
+            } catch (Exception ignored) {
+            }
+        }
+        return viewers;
+    }
+
+    static void resolveParticles() {
+        for (Cue cue : CUES) {
+            cue.particleId = resolveParticleId(cue.particleCandidates);
+        }
+        for (Cue cue : FINAL_CUES) {
+            cue.particleId = resolveParticleId(cue.particleCandidates);
+        }
+        particlesResolved = true;
+    }
+
+    static void resolveSounds() {
+        for (Cue cue : CUES) {
+            cue.soundIds = resolveSoundIds(cue.soundCandidates);
+        }
+        for (Cue cue : FINAL_CUES) {
+            cue.soundIds = resolveSoundIds(cue.soundCandidates);
+        }
+        soundsResolved = true;
+    }
+
+    private static String resolveParticleId(String[] candidates) {
+        if (candidates.length == 0) {
+            return null;
+        }
+        try {
+            var assetMap = ParticleSystem.getAssetMap();
+            for (String id : candidates) {
+                if (assetMap.getAsset(id) != null) {
+                    return id;
+                }
+            }
+            LOGGER.atWarning().log("No particle system found among %s", String.join(", ", candidates));
+        } catch (Exception e) {
+            LOGGER.atFine().log("Could not resolve collapse particles: %s", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * One resolved ID per candidate list; lists with no available sound are left out.
+     */
+    private static int[] resolveSoundIds(String[][] candidateLists) {
+        int[] ids = new int[candidateLists.length];
+        int count = 0;
+        try {
+            var assetMap = SoundEvent.getAssetMap();
+            for (String[] candidates : candidateLists) {
+                int resolved = Integer.MIN_VALUE;
+                for (String name : candidates) {
+                    int id = assetMap.getIndex(name);
+                    if (id != Integer.MIN_VALUE) {
+                        resolved = id;
+                        break;
+                    }
+                }
+                if (resolved == Integer.MIN_VALUE) {
+                    LOGGER.atWarning().log("No sound event found among %s", String.join(", ", candidates));
+                    continue;
+                }
+                ids[count++] = resolved;
+            }
+        } catch (Exception e) {
+            LOGGER.atFine().log("Could not resolve collapse sounds: %s", e.getMessage());
+        }
+        return Arrays.copyOf(ids, count);
+    }
+}
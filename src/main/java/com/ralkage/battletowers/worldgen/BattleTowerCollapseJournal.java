@@ -0,0 +1,363 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only record of each world's collapses, so a server restart resumes them instead of leaving towers
+ * half-destroyed.
+ *
+ * Records are {@value #RECORD_SIZE} bytes: a type, the tower key and a fixed payload. A collapse writes one record
+ * when it is scheduled, its geometry once planned (the prefab placement, or the surveyed bitmap in a run of
+ * {@link #PLAN_BITS} records), one per layer reached and one when it completes. Each record is a single write to
+ * the OS without a forced sync: that survives the server process dying, not the machine losing power.
+ *
+ * The first {@link #of} for a world folds its file into one {@link Entry} per unfinished collapse and rewrites the
+ * file with just those, before anything new is appended; {@link #takeRecovered} hands them out once. Once a world
+ * has no unfinished collapses left its file is emptied.
+ */
+final class BattleTowerCollapseJournal {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    static final int RECORD_SIZE = 64;
+    // Bitmap words carried by one PLAN_BITS record.
+    private static final int WORDS_PER_RECORD = 5;
+
+    static final int SCHEDULED = 1;
+    static final int PREFAB_GEOMETRY = 2;
+    static final int SURVEY_GEOMETRY = 3;
+    static final int PLAN_BITS = 4;
+    static final int LAYER_REACHED = 5;
+    static final int COMPLETED = 6;
+
+    private static final ConcurrentHashMap<String, BattleTowerCollapseJournal> JOURNALS = new ConcurrentHashMap<>();
+    private static volatile Path directory;
+
+    private final String worldName;
+    private final Path file;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    // Towers with a scheduled but unfinished collapse; the file is emptied when this drops to zero.
+    private final Map<BattleTowerCollapse.TowerKey, Boolean> live = new LinkedHashMap<>();
+    private FileChannel channel;
+    private boolean failed;
+    // Unfinished collapses read back when the journal was opened, until taken.
+    private List<Entry> recovered = List.of();
+
+    /**
+     * What the journal knows about one unfinished collapse.
+     */
+    static final class Entry {
+        final BattleTowerCollapse.TowerKey key;
+        int baseY;
+        long startAtEpochMs;
+        int geometry;
+        // PREFAB_GEOMETRY
+        int shapeIdHash;
+        int rotation;
+        int originX;
+        int originY;
+        int originZ;
+        // SURVEY_GEOMETRY: minX, minY, minZ, sizeX, sizeY, sizeZ, floorY, topY, centerX, centerZ, radius
+        final int[] survey = new int[11];
+        long[] words = new long[0];
+        boolean layerReached;
+        int cursor;
+        int visited;
+
+        Entry(BattleTowerCollapse.TowerKey key) {
+            this.key = key;
+        }
+    }
+
+    private BattleTowerCollapseJournal(String worldName, Path file) {
+        this.worldName = worldName;
+        this.file = file;
+    }
+
+    /**
+     * Where journals are kept; {@code null} turns journaling off.
+     */
+    static void setDirectory(Path dir) {
+        directory = dir;
+    }
+
+    /**
+     * The world's journal, or {@code null} when journaling is off. The first call for a world replays its file, so
+     * collapses journaled by this run are never lost to that replay.
+     */
+    static BattleTowerCollapseJournal of(String worldName) {
+        Path dir = directory;
+        if (dir == null || worldName == null) {
+            return null;
+        }
+        return JOURNALS.computeIfAbsent(worldName, name -> {
+            BattleTowerCollapseJournal journal = new BattleTowerCollapseJournal(name,
+                    dir.resolve(BattleTowerCollapse.worldFileName(name) + ".journal"));
+            journal.recovered = journal.replay();
+            return journal;
+        });
+    }
+
+    static void closeAll() {
+        for (BattleTowerCollapseJournal journal : JOURNALS.values()) {
+            journal.close();
+        }
+        JOURNALS.clear();
+    }
+
+    synchronized void scheduled(BattleTowerCollapse.TowerKey key, int baseY, long startAtEpochMs) {
+        live.put(key, Boolean.TRUE);
+        begin(SCHEDULED, key);
+        record.putLong(startAtEpochMs).putInt(baseY);
+        append();
+    }
+
+    synchronized void prefabGeometry(BattleTowerCollapse.TowerKey key, BattleTowerPrefabPlacement placement) {
+        begin(PREFAB_GEOMETRY, key);
+        record.putInt(placement.shape().id.hashCode()).putInt(placement.rotation())
+                .putInt(placement.originX()).putInt(placement.originY()).putInt(placement.originZ());
+        append();
+    }
+
+    synchronized void surveyGeometry(BattleTowerCollapse.TowerKey key, BattleTowerCollapsePlan plan,
+                                     int topY, int centerX, int centerZ, int radius) {
+        begin(SURVEY_GEOMETRY, key);
+        record.putInt(plan.minX).putInt(plan.minY).putInt(plan.minZ)
+                .putInt(plan.sizeX).putInt(plan.sizeY).putInt(plan.sizeZ)
+                .putInt(plan.floorY).putInt(topY).putInt(centerX).putInt(centerZ).putInt(radius);
+        append();
+        appendBits(key, plan.occupancyWords());
+    }
+
+    synchronized void layerReached(BattleTowerCollapse.TowerKey key, int cursor, int visited) {
+        begin(LAYER_REACHED, key);
+        record.putInt(cursor).putInt(visited);
+        append();
+    }
+
+    synchronized void completed(BattleTowerCollapse.TowerKey key) {
+        if (live.remove(key) == null) {
+            return;
+        }
+        if (live.isEmpty()) {
+            // Nothing left to resume; start the next collapse on an empty file.
+            truncate();
+            return;
+        }
+        begin(COMPLETED, key);
+        append();
+    }
+
+    /**
+     * The unfinished collapses a previous run left in this world's journal, in the order they were scheduled; empty
+     * after the first call.
+     */
+    synchronized List<Entry> takeRecovered() {
+        List<Entry> entries = recovered;
+        recovered = List.of();
+        return entries;
+    }
+
+    /**
+     * Reads the world's journal and returns its unfinished collapses in the order they were scheduled. The file is
+     * rewritten to hold only those. Runs once, when the journal is opened and before anything is appended.
+     */
+    private List<Entry> replay() {
+        Map<BattleTowerCollapse.TowerKey, Entry> entries = new LinkedHashMap<>();
+        try {
+            if (Files.exists(file)) {
+                ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+                // A record torn by a crash is at the very end and shorter than RECORD_SIZE; it is skipped.
+                while (data.remaining() >= RECORD_SIZE) {
+                    int start = data.position();
+                    read(data, entries);
+                    data.position(start + RECORD_SIZE);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.atWarning().log("Could not read collapse journal %s: %s", file, e.getMessage());
+        }
+
+        List<Entry> unfinished = new ArrayList<>(entries.values());
+        live.clear();
+        truncate();
+        for (Entry entry : unfinished) {
+            rewrite(entry);
+        }
+        return unfinished;
+    }
+
+    private void read(ByteBuffer data, Map<BattleTowerCollapse.TowerKey, Entry> entries) {
+        int type = data.getInt();
+        int x = data.getInt();
+        int y = data.getInt();
+        int z = data.getInt();
+        // The world name is implied by the file.
+        BattleTowerCollapse.TowerKey key = new BattleTowerCollapse.TowerKey(worldName, x, y, z);
+        if (type == SCHEDULED) {
+            Entry entry = entries.computeIfAbsent(key, Entry::new);
+            entry.startAtEpochMs = data.getLong();
+            entry.baseY = data.getInt();
+            return;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return;
+        }
+        switch (type) {
+            case PREFAB_GEOMETRY -> {
+                entry.geometry = PREFAB_GEOMETRY;
+                entry.shapeIdHash = data.getInt();
+                entry.rotation = data.getInt();
+                entry.originX = data.getInt();
+                entry.originY = data.getInt();
+                entry.originZ = data.getInt();
+            }
+            case SURVEY_GEOMETRY -> {
+                entry.geometry = SURVEY_GEOMETRY;
+                for (int i = 0; i < entry.survey.length; i++) {
+                    entry.survey[i] = data.getInt();
+                }
+                entry.words = new long[0];
+            }
+            case PLAN_BITS -> {
+                int wordIndex = data.getInt();
+                int count = data.getInt();
+                if (wordIndex < 0 || count < 0 || count > WORDS_PER_RECORD) {
+                    return;
+                }
+                if (entry.words.length < wordIndex + count) {
+                    entry.words = Arrays.copyOf(entry.words, wordIndex + count);
+                }
+                for (int i = 0; i < count; i++) {
+                    entry.words[wordIndex + i] = data.getLong();
+                }
+            }
+            case LAYER_REACHED -> {
+                entry.layerReached = true;
+                entry.cursor = data.getInt();
+                entry.visited = data.getInt();
+            }
+            case COMPLETED -> entries.remove(key);
+            default -> {
+            }
+        }
+    }
+
+    private void rewrite(Entry entry) {
+        BattleTowerCollapse.TowerKey key = entry.key;
+        live.put(key, Boolean.TRUE);
+        begin(SCHEDULED, key);
+        record.putLong(entry.startAtEpochMs).putInt(entry.baseY);
+        append();
+        if (entry.geometry == PREFAB_GEOMETRY) {
+            begin(PREFAB_GEOMETRY, key);
+            record.putInt(entry.shapeIdHash).putInt(entry.rotation)
+                    .putInt(entry.originX).putInt(entry.originY).putInt(entry.originZ);
+            append();
+        } else if (entry.geometry == SURVEY_GEOMETRY) {
+            begin(SURVEY_GEOMETRY, key);
+            for (int v : entry.survey) {
+                record.putInt(v);
+            }
+            append();
+            appendBits(key, entry.words);
+        }
+        if (entry.layerReached) {
+            begin(LAYER_REACHED, key);
+            record.putInt(entry.cursor).putInt(entry.visited);
+            append();
+        }
+    }
+
+    /**
+     * Writes the non-zero runs of a plan bitmap, {@link #WORDS_PER_RECORD} words per record.
+     */
+    private void appendBits(BattleTowerCollapse.TowerKey key, long[] words) {
+        for (int i = 0; i < words.length; i += WORDS_PER_RECORD) {
+            int count = Math.min(WORDS_PER_RECORD, words.length - i);
+            boolean empty = true;
+            for (int j = 0; j < count && empty; j++) {
+                empty = words[i + j] == 0;
+            }
+            if (empty) {
+                continue;
+            }
+            begin(PLAN_BITS, key);
+            record.putInt(i).putInt(count);
+            for (int j = 0; j < count; j++) {
+                record.putLong(words[i + j]);
+            }
+            append();
+        }
+    }
+
+    private void begin(int type, BattleTowerCollapse.TowerKey key) {
+        record.clear();
+        record.putInt(type).putInt(key.x()).putInt(key.y()).putInt(key.z());
+    }
+
+    private void append() {
+        if (failed) {
+            return;
+        }
+        // Unused payload bytes are zeroed so every record has the same size on disk.
+        while (record.position() < RECORD_SIZE) {
+            record.put((byte) 0);
+        }
+        record.flip();
+        try {
+            FileChannel ch = channel();
+            while (record.hasRemaining()) {
+                ch.write(record);
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            LOGGER.atWarning().log("Collapse journal %s disabled after write error: %s", file, e.getMessage());
+        }
+    }
+
+    private void truncate() {
+        if (failed) {
+            return;
+        }
+        try {
+            channel().truncate(0);
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            LOGGER.atWarning().log("Collapse journal %s disabled after write error: %s", file, e.getMessage());
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(file.getParent());
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    private synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (Exception ignored) {
+            }
+            channel = null;
+        }
+    }
+}
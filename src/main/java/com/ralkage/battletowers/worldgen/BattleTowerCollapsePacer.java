@@ -0,0 +1,62 @@
+package com.ralkage.battletowers.worldgen;
+
+/**
+ * Decides how many block removals one collapse tick may do.
+ *
+ * Each tick asks for enough work to finish by the target duration, capped by what the measured per-block cost
+ * allows inside the per-tick time budget. A tall spire and a wide base therefore cost about the same per tick;
+ * a collapse that falls behind finishes late rather than spiking the world thread.
+ */
+final class BattleTowerCollapsePacer {
+
+    // Always make some progress, even when the cost estimate is pessimistic.
+    static final int MIN_OPS_PER_TICK = 16;
+    private static final double INITIAL_NANOS_PER_OP = 2_000.0;
+    private static final double COST_SMOOTHING = 0.3;
+
+    private final long targetNanos;
+    private final long tickNanos;
+    private long startedAtNanos = Long.MIN_VALUE;
+    private double nanosPerOp = INITIAL_NANOS_PER_OP;
+
+    BattleTowerCollapsePacer(long targetNanos, long tickNanos) {
+        this.targetNanos = Math.max(1, targetNanos);
+        this.tickNanos = Math.max(1, tickNanos);
+    }
+
+    double nanosPerOp() {
+        return nanosPerOp;
+    }
+
+    /**
+     * @param remainingOps planned positions not yet visited
+     * @param budgetNanos  world-thread time this collapse may use this tick
+     */
+    int opsForTick(long nowNanos, int remainingOps, long budgetNanos) {
+        if (remainingOps <= 0) {
+            return 0;
+        }
+        if (startedAtNanos == Long.MIN_VALUE) {
+            startedAtNanos = nowNanos;
+        }
+
+        long remainingTime = targetNanos - (nowNanos - startedAtNanos);
+        long ticksLeft = Math.max(1, remainingTime / tickNanos);
+        long paced = (remainingOps + ticksLeft - 1) / ticksLeft;
+        long affordable = (long) (Math.max(1, budgetNanos) / nanosPerOp);
+
+        long ops = Math.max(MIN_OPS_PER_TICK, Math.min(paced, affordable));
+        return (int) Math.min(ops, remainingOps);
+    }
+
+    /**
+     * Feeds back what a tick actually cost.
+     */
+    void record(int ops, long elapsedNanos) {
+        if (ops <= 0 || elapsedNanos <= 0) {
+            return;
+        }
+        double sample = (double) elapsedNanos / ops;
+        nanosPerOp += (sample - nanosPerOp) * COST_SMOOTHING;
+    }
+}
@@ -0,0 +1,214 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exact set of block positions a collapse will remove, stored as an occupancy bitmap over the tower's
+ * bounding box, plus the geometry the rest of the collapse needs (top, floor, center, radius).
+ *
+ * A plan never touches the world; callers walk it layer by layer and chunk by chunk.
+ */
+final class BattleTowerCollapsePlan {
+
+    final int minX;
+    final int minY;
+    final int minZ;
+    final int sizeX;
+    final int sizeY;
+    final int sizeZ;
+    final int topY;
+    final int floorY;
+    final int centerX;
+    final int centerZ;
+    final int radius;
+    final int blockCount;
+    private final BitSet blocks;
+    /** Expected block index per bit, or {@code null} when the plan has no reference blocks. */
+    private final int[] expected;
+
+    private BattleTowerCollapsePlan(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ,
+                                    BitSet blocks, int[] expected, int floorY) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+        this.blocks = blocks;
+        this.expected = expected;
+        this.floorY = floorY;
+        this.blockCount = blocks.cardinality();
+
+        int top = Integer.MIN_VALUE;
+        int colMinX = Integer.MAX_VALUE;
+        int colMaxX = Integer.MIN_VALUE;
+        int colMinZ = Integer.MAX_VALUE;
+        int colMaxZ = Integer.MIN_VALUE;
+        for (int i = blocks.nextSetBit(0); i >= 0; i = blocks.nextSetBit(i + 1)) {
+            int x = minX + i % sizeX;
+            int z = minZ + (i / sizeX) % sizeZ;
+            int y = minY + i / (sizeX * sizeZ);
+            top = Math.max(top, y);
+            colMinX = Math.min(colMinX, x);
+            colMaxX = Math.max(colMaxX, x);
+            colMinZ = Math.min(colMinZ, z);
+            colMaxZ = Math.max(colMaxZ, z);
+        }
+
+        if (top == Integer.MIN_VALUE) {
+            this.topY = floorY - 1;
+            this.centerX = minX + sizeX / 2;
+            this.centerZ = minZ + sizeZ / 2;
+            this.radius = 0;
+            return;
+        }
+
+        this.topY = top;
+        this.centerX = (colMinX + colMaxX) / 2;
+        this.centerZ = (colMinZ + colMaxZ) / 2;
+        int rx = Math.max(colMaxX - centerX, centerX - colMinX);
+        int rz = Math.max(colMaxZ - centerZ, centerZ - colMinZ);
+        this.radius = (int) Math.ceil(Math.sqrt((double) rx * rx + (double) rz * rz));
+    }
+
+    int maxX() {
+        return minX + sizeX - 1;
+    }
+
+    int maxZ() {
+        return minZ + sizeZ - 1;
+    }
+
+    boolean isEmpty() {
+        return blockCount == 0;
+    }
+
+    boolean contains(int x, int y, int z) {
+        int index = indexOf(x, y, z);
+        return index >= 0 && blocks.get(index);
+    }
+
+    /**
+     * @return the block index the plan expects at this position, or -1 if unknown.
+     */
+    int expectedBlock(int x, int y, int z) {
+        if (expected == null) {
+            return -1;
+        }
+        int index = indexOf(x, y, z);
+        return index >= 0 ? expected[index] : -1;
+    }
+
+    /**
+     * Highest planned index at or below {@code index}, or -1. Indices are y-major, so walking down from
+     * {@link #lastIndex()} visits the plan top layer first.
+     */
+    int previous(int index) {
+        return index < 0 ? -1 : blocks.previousSetBit(index);
+    }
+
+    int lastIndex() {
+        return blocks.length() - 1;
+    }
+
+    int xAt(int index) {
+        return minX + index % sizeX;
+    }
+
+    int yAt(int index) {
+        return minY + index / (sizeX * sizeZ);
+    }
+
+    int zAt(int index) {
+        return minZ + (index / sizeX) % sizeZ;
+    }
+
+    int expectedAt(int index) {
+        return expected == null ? -1 : expected[index];
+    }
+
+    /**
+     * The occupancy bitmap as {@link BitSet#toLongArray()} words, for {@link #fromOccupancy}.
+     */
+    long[] occupancyWords() {
+        return blocks.toLongArray();
+    }
+
+    /**
+     * The plan index of a position, or -1 outside the bounding box.
+     */
+    int indexOf(int x, int y, int z) {
+        int lx = x - minX;
+        int ly = y - minY;
+        int lz = z - minZ;
+        if (lx < 0 || ly < 0 || lz < 0 || lx >= sizeX || ly >= sizeY || lz >= sizeZ) {
+            return -1;
+        }
+        return (ly * sizeZ + lz) * sizeX + lx;
+    }
+
+    /**
+     * Builds a plan from a prefab placement, keeping only blocks at or above {@code floorY}.
+     *
+     * @param blockIndex resolves a block type id to its current asset index (negative if unknown)
+     */
+    static BattleTowerCollapsePlan fromPrefab(BattleTowerPrefabPlacement placement, int floorY, ToIntFunction<String> blockIndex) {
+        BattleTowerPrefabShape shape = placement.shape();
+        int n = shape.blockCount();
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            int x = placement.worldX(shape.xs[i], shape.zs[i]);
+            int y = placement.worldY(shape.ys[i]);
+            int z = placement.worldZ(shape.xs[i], shape.zs[i]);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        if (n == 0) {
+            return new BattleTowerCollapsePlan(placement.originX(), floorY, placement.originZ(), 1, 1, 1, new BitSet(), null, floorY);
+        }
+
+        minY = Math.max(minY, floorY);
+        int sizeX = maxX - minX + 1;
+        int sizeY = Math.max(1, maxY - minY + 1);
+        int sizeZ = maxZ - minZ + 1;
+
+        BitSet blocks = new BitSet(sizeX * sizeY * sizeZ);
+        int[] expected = new int[sizeX * sizeY * sizeZ];
+        Arrays.fill(expected, -1);
+        for (int i = 0; i < n; i++) {
+            int y = placement.worldY(shape.ys[i]);
+            if (y < floorY) {
+                continue;
+            }
+            int x = placement.worldX(shape.xs[i], shape.zs[i]);
+            int z = placement.worldZ(shape.xs[i], shape.zs[i]);
+            int index = ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX);
+            blocks.set(index);
+            int resolved = blockIndex.applyAsInt(shape.names[i]);
+            expected[index] = resolved >= 0 ? resolved : -1;
+        }
+
+        return new BattleTowerCollapsePlan(minX, minY, minZ, sizeX, sizeY, sizeZ, blocks, expected, floorY);
+    }
+
+    /**
+     * Builds a plan from an already-collected occupancy bitmap laid out like the plan's own index
+     * ({@code ((y - minY) * sizeZ + (z - minZ)) * sizeX + (x - minX)}). The bitmap is adopted, not copied.
+     */
+    static BattleTowerCollapsePlan fromOccupancy(int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ,
+                                                 BitSet blocks, int floorY) {
+        return new BattleTowerCollapsePlan(minX, minY, minZ, sizeX, sizeY, sizeZ, blocks, null, floorY);
+    }
+}
@@ -0,0 +1,148 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admission queue for the collapses of one world.
+ *
+ * At most {@code maxActive} collapses run at once; the rest wait in arrival order. Each tick splits one shared
+ * time budget across the active collapses and visits them round-robin, starting one further along every tick,
+ * so several towers cleared together slow each other down instead of stacking their cost on the world thread.
+ *
+ * Owned by a world's {@link BattleTowerCollapseResource}; {@link #tick} must only run on that world's thread.
+ * The counters may be read from anywhere.
+ */
+final class BattleTowerCollapseQueue<T> {
+
+    interface Worker<T> {
+        /**
+         * Advances one collapse by up to {@code budgetNanos} of work.
+         *
+         * @return {@code true} once the collapse is finished and should leave the queue
+         */
+        boolean step(T job, long budgetNanos);
+
+        /**
+         * Called when {@link #step} threw. The collapse leaves the queue after this tick, so clean it up here.
+         */
+        default void failed(T job, RuntimeException e) {
+        }
+    }
+
+    private static final class Entry<T> {
+        final T job;
+        final long enqueuedAtNanos;
+        boolean finished;
+
+        Entry(T job, long enqueuedAtNanos) {
+            this.job = job;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    private final ArrayDeque<Entry<T>> waiting = new ArrayDeque<>();
+    private final List<Entry<T>> active = new ArrayList<>();
+    private int nextActive;
+    private long admitted;
+    private long lastWaitNanos;
+    private long maxWaitNanos;
+
+    /**
+     * @return the number of collapses queued ahead of this one (0 if it can start on the next tick)
+     */
+    synchronized int enqueue(T job, long nowNanos) {
+        for (Entry<T> e : active) {
+            if (e.job.equals(job)) {
+                return 0;
+            }
+        }
+        for (Entry<T> e : waiting) {
+            if (e.job.equals(job)) {
+                return waiting.size();
+            }
+        }
+        waiting.addLast(new Entry<>(job, nowNanos));
+        return waiting.size() - 1;
+    }
+
+    synchronized boolean isIdle() {
+        return active.isEmpty() && waiting.isEmpty();
+    }
+
+    synchronized int activeCount() {
+        return active.size();
+    }
+
+    synchronized int waitingCount() {
+        return waiting.size();
+    }
+
+    synchronized long admittedCount() {
+        return admitted;
+    }
+
+    /**
+     * Queue wait of the most recently admitted collapse.
+     */
+    synchronized long lastWaitNanos() {
+        return lastWaitNanos;
+    }
+
+    synchronized long maxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    /**
+     * How long the head of the queue has been waiting so far, or 0 if nothing is waiting.
+     */
+    synchronized long oldestWaitNanos(long nowNanos) {
+        Entry<T> head = waiting.peekFirst();
+        return head == null ? 0 : nowNanos - head.enqueuedAtNanos;
+    }
+
+    void tick(long nowNanos, int maxActive, long totalBudgetNanos, Worker<T> worker) {
+        int count;
+        int start;
+        synchronized (this) {
+            while (active.size() < Math.max(1, maxActive) && !waiting.isEmpty()) {
+                Entry<T> e = waiting.pollFirst();
+                long waited = nowNanos - e.enqueuedAtNanos;
+                lastWaitNanos = waited;
+                maxWaitNanos = Math.max(maxWaitNanos, waited);
+                admitted++;
+                active.add(e);
+            }
+            count = active.size();
+            if (count == 0) {
+                return;
+            }
+            start = nextActive % count;
+            nextActive = start + 1;
+        }
+
+        // Only tick() changes the active list, so it can be walked without copying.
+        long deadline = System.nanoTime() + totalBudgetNanos;
+        long share = Math.max(1, totalBudgetNanos / count);
+        for (int i = 0; i < count; i++) {
+            Entry<T> e = active.get((start + i) % count);
+            try {
+                e.finished = worker.step(e.job, share);
+            } catch (RuntimeException ex) {
+                // A collapse that throws would otherwise hold its slot forever.
+                e.finished = true;
+                worker.failed(e.job, ex);
+            }
+            if (System.nanoTime() > deadline) {
+                // Out of budget; whoever was skipped goes first next tick.
+                nextActive = start + i + 1;
+                break;
+            }
+        }
+
+        synchronized (this) {
+            active.removeIf(e -> e.finished);
+        }
+    }
+}
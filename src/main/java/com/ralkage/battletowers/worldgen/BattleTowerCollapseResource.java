@@ -0,0 +1,88 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.component.Resource;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-world collapse state, stored as an entity store resource and advanced by {@link BattleTowerCollapseSystem}
+ * on the world thread.
+ */
+public final class BattleTowerCollapseResource implements Resource<EntityStore> {
+
+    private static volatile ResourceType<EntityStore, BattleTowerCollapseResource> resourceType;
+
+    final BattleTowerCollapseQueue<BattleTowerCollapse.TowerKey> queue = new BattleTowerCollapseQueue<>();
+    // Areas of running (or just finished) collapses where newly spawned item entities are despawned at once.
+    final List<DropRegion> dropRegions = new ArrayList<>();
+    BattleTowerCollapseQueue.Worker<BattleTowerCollapse.TowerKey> worker;
+    long lastStepNanos;
+    // Effect packets the world's collapses may still send this tick, and a position reused for every emitter.
+    int effectPacketsLeft;
+    final Vector3d effectPos = new Vector3d();
+    // Collapse snapshots being pasted back, oldest first.
+    final List<BattleTowerCollapseSnapshot.Restore> restores = new ArrayList<>();
+
+    /**
+     * Cylinder around a collapsing tower, read by {@link BattleTowerDropSuppressionSystem}.
+     */
+    static final class DropRegion {
+        final int centerX;
+        final int centerZ;
+        final int minY;
+        final int maxY;
+        final long radiusSq;
+        long expiresAtNanos;
+        int suppressed;
+
+        DropRegion(int centerX, int centerZ, int minY, int maxY, int radius, long expiresAtNanos) {
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.minY = minY;
+            this.maxY = maxY;
+            this.radiusSq = (long) radius * radius;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean contains(double x, double y, double z) {
+            if (y < minY || y >= maxY + 1) {
+                return false;
+            }
+            double dx = x - centerX;
+            double dz = z - centerZ;
+            return dx * dx + dz * dz <= radiusSq;
+        }
+    }
+
+    public static ResourceType<EntityStore, BattleTowerCollapseResource> getResourceType() {
+        return resourceType;
+    }
+
+    public static void setResourceType(ResourceType<EntityStore, BattleTowerCollapseResource> type) {
+        resourceType = type;
+    }
+
+    DropRegion dropRegionAt(double x, double y, double z) {
+        for (int i = 0; i < dropRegions.size(); i++) {
+            DropRegion region = dropRegions.get(i);
+            if (region.contains(x, y, z)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    boolean isIdle() {
+        return dropRegions.isEmpty() && restores.isEmpty() && queue.isIdle();
+    }
+
+    @Override
+    public Resource<EntityStore> clone() {
+        // Collapse progress is runtime-only and tied to the live world; a copy starts empty.
+        return new BattleTowerCollapseResource();
+    }
+}
@@ -0,0 +1,658 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackTransaction;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
+import com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerBlockState;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * What a collapse removed, so an admin can put the tower back.
+ *
+ * Blocks are captured as the collapse removes them, in the order it walks its plan (plan index, top down): a
+ * palette of (block type, rotation) pairs and runs of (palette entry, length) over the plan's index space, where
+ * entry 0 means "nothing removed here". A tower is a few hundred runs, so a snapshot stays at a few KB in memory and on disk.
+ * Positions removed out of walk order (the final sweep) are kept as a short list next to the runs. Container
+ * contents and the rubble containers placed on the ruin are recorded too.
+ *
+ * Snapshots are saved per world as {@code <time>_<x>_<y>_<z>.snap}, keeping the newest {@link #setKeepCount}. A
+ * {@link Restore} pastes one back from the collapse system's tick, a time-boxed slice per tick, bottom up, only
+ * into empty positions. Container contents are not re-created: what is still in the rubble containers moves back
+ * into the containers it came from. NPCs and spawn markers are not part of a snapshot.
+ */
+final class BattleTowerCollapseSnapshot {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final int MAGIC = 0x4254534E; // "BTSN"
+    private static final int VERSION = 2;
+
+    private static volatile Path directory;
+    private static volatile int keepCount = 16;
+
+    final String worldName;
+    final int towerX;
+    final int towerY;
+    final int towerZ;
+    final long createdAtEpochMs;
+    private final int minX;
+    private final int minY;
+    private final int minZ;
+    private final int sizeX;
+    private final int sizeZ;
+    // First plan index of the runs; they walk down from here.
+    private final int top;
+
+    // Capture state. Palette entry 0 is "nothing removed"; block ids are asset indices until saved.
+    private int[] palette = new int[8];
+    private byte[] paletteRotations = new byte[8];
+    private int paletteSize = 1;
+    private int[] runValues = new int[64];
+    private int[] runLengths = new int[64];
+    private int runCount;
+    // Next plan index the runs expect.
+    private int next;
+    private int[] extras = new int[0];
+    private int extraCount;
+    private final List<Container> containers = new ArrayList<>();
+    private int[] rubble = new int[0];
+    private int rubbleCount;
+
+    private record Container(int planIndex, String[] itemIds, int[] quantities) {
+    }
+
+    private BattleTowerCollapseSnapshot(BattleTowerCollapse.TowerKey key, BattleTowerCollapsePlan plan) {
+        this.worldName = key.worldName();
+        this.towerX = key.x();
+        this.towerY = key.y();
+        this.towerZ = key.z();
+        this.createdAtEpochMs = System.currentTimeMillis();
+        this.minX = plan.minX;
+        this.minY = plan.minY;
+        this.minZ = plan.minZ;
+        this.sizeX = plan.sizeX;
+        this.sizeZ = plan.sizeZ;
+        this.top = plan.lastIndex();
+        this.next = top;
+    }
+
+    /**
+     * Where snapshots are kept; {@code null} turns them off.
+     */
+    static void setDirectory(Path dir) {
+        directory = dir;
+    }
+
+    /**
+     * How many snapshots to keep per world; 0 turns them off.
+     */
+    static void setKeepCount(int count) {
+        keepCount = Math.max(0, count);
+    }
+
+    /**
+     * Starts capturing a collapse, or returns {@code null} when snapshots are off.
+     */
+    static BattleTowerCollapseSnapshot begin(BattleTowerCollapse.TowerKey key, BattleTowerCollapsePlan plan) {
+        if (directory == null || keepCount <= 0 || key.worldName() == null) {
+            return null;
+        }
+        return new BattleTowerCollapseSnapshot(key, plan);
+    }
+
+    /**
+     * Records the block about to be removed at a plan index, with its rotation index, and the container contents
+     * if it holds one. Must run on the world thread, before the block state is destroyed.
+     */
+    void recordBlock(int planIndex, int blockId, int rotation, BlockState state) {
+        int entry = paletteEntry(blockId, rotation);
+        if (planIndex <= next && planIndex >= 0) {
+            if (planIndex < next) {
+                appendRun(0, next - planIndex);
+            }
+            appendRun(entry, 1);
+            next = planIndex - 1;
+        } else {
+            if (extraCount * 2 == extras.length) {
+                extras = Arrays.copyOf(extras, Math.max(8, extras.length * 2));
+            }
+            extras[extraCount * 2] = planIndex;
+            extras[extraCount * 2 + 1] = entry;
+            extraCount++;
+        }
+
+        if (state instanceof ItemContainerBlockState containerState) {
+            recordContainer(planIndex, containerState);
+        }
+    }
+
+    /**
+     * Records a rubble container placed at the ruin; a restore removes it again.
+     */
+    void recordRubble(int x, int y, int z) {
+        if (rubbleCount * 3 == rubble.length) {
+            rubble = Arrays.copyOf(rubble, Math.max(12, rubble.length * 2));
+        }
+        rubble[rubbleCount * 3] = x;
+        rubble[rubbleCount * 3 + 1] = y;
+        rubble[rubbleCount * 3 + 2] = z;
+        rubbleCount++;
+    }
+
+    private void recordContainer(int planIndex, ItemContainerBlockState containerState) {
+        try {
+            ItemContainer container = containerState.getItemContainer();
+            if (container == null) {
+                return;
+            }
+            List<String> ids = new ArrayList<>();
+            List<Integer> quantities = new ArrayList<>();
+            for (short slot = 0; slot < container.getCapacity(); slot++) {
+                ItemStack stack = container.getItemStack(slot);
+                if (stack != null && !stack.isEmpty()) {
+                    ids.add(stack.getItemId());
+                    quantities.add(stack.getQuantity());
+                }
+            }
+            if (!ids.isEmpty()) {
+                containers.add(new Container(planIndex, ids.toArray(new String[0]),
+                        quantities.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    private int paletteEntry(int blockId, int rotation) {
+        for (int i = 1; i < paletteSize; i++) {
+            if (palette[i] == blockId && paletteRotations[i] == (byte) rotation) {
+                return i;
+            }
+        }
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, palette.length * 2);
+            paletteRotations = Arrays.copyOf(paletteRotations, palette.length);
+        }
+        palette[paletteSize] = blockId;
+        paletteRotations[paletteSize] = (byte) rotation;
+        return paletteSize++;
+    }
+
+    private void appendRun(int value, int length) {
+        if (runCount > 0 && runValues[runCount - 1] == value) {
+            runLengths[runCount - 1] += length;
+            return;
+        }
+        if (runCount == runValues.length) {
+            runValues = Arrays.copyOf(runValues, runCount * 2);
+            runLengths = Arrays.copyOf(runLengths, runCount * 2);
+        }
+        runValues[runCount] = value;
+        runLengths[runCount] = length;
+        runCount++;
+    }
+
+    /**
+     * Writes the snapshot to its world's directory and drops the oldest ones beyond the keep count. Does file I/O;
+     * keep it off the world thread.
+     */
+    void save() {
+        Path dir = worldDirectory(worldName);
+        if (dir == null || runCount == 0 && extraCount == 0) {
+            return;
+        }
+        String[] names = new String[paletteSize];
+        try {
+            var assetMap = BlockType.getAssetMap();
+            for (int i = 1; i < paletteSize; i++) {
+                BlockType type = assetMap.getAsset(palette[i]);
+                names[i] = type != null ? type.getId() : "";
+            }
+        } catch (Exception e) {
+            LOGGER.atWarning().log("Could not name snapshot blocks for tower at (%d, %d, %d): %s", towerX, towerY, towerZ, e.getMessage());
+            return;
+        }
+
+        Path file = dir.resolve(String.format("%013d_%d_%d_%d.snap", createdAtEpochMs, towerX, towerY, towerZ));
+        try {
+            Files.createDirectories(dir);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(minX);
+                out.writeInt(minY);
+                out.writeInt(minZ);
+                out.writeInt(sizeX);
+                out.writeInt(sizeZ);
+                out.writeInt(top);
+                writeVarInt(out, paletteSize);
+                for (int i = 1; i < paletteSize; i++) {
+                    out.writeUTF(names[i]);
+                    out.writeByte(paletteRotations[i]);
+                }
+                writeVarInt(out, runCount);
+                for (int i = 0; i < runCount; i++) {
+                    writeVarInt(out, runValues[i]);
+                    writeVarInt(out, runLengths[i]);
+                }
+                writeVarInt(out, extraCount);
+                for (int i = 0; i < extraCount * 2; i++) {
+                    writeVarInt(out, extras[i]);
+                }
+                writeVarInt(out, containers.size());
+                for (Container container : containers) {
+                    writeVarInt(out, container.planIndex());
+                    writeVarInt(out, container.itemIds().length);
+                    for (int i = 0; i < container.itemIds().length; i++) {
+                        out.writeUTF(container.itemIds()[i]);
+                        writeVarInt(out, container.quantities()[i]);
+                    }
+                }
+                writeVarInt(out, rubbleCount);
+                for (int i = 0; i < rubbleCount * 3; i++) {
+                    out.writeInt(rubble[i]);
+                }
+            }
+            LOGGER.atFine().log("Saved collapse snapshot %s (%d palette entries, %d runs, %d bytes)",
+                    file.getFileName(), paletteSize - 1, runCount, Files.size(file));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.atWarning().log("Could not save collapse snapshot %s: %s", file, e.getMessage());
+            return;
+        }
+        prune(dir);
+    }
+
+    private static void prune(Path dir) {
+        List<Path> files = list(dir);
+        for (int i = 0; i < files.size() - keepCount; i++) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * The world's snapshot files, oldest first.
+     */
+    private static List<Path> list(Path dir) {
+        if (dir == null || !Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".snap")).sorted().toList();
+        } catch (IOException e) {
+            return List.of();
+        }
+    }
+
+    private static Path worldDirectory(String worldName) {
+        Path dir = directory;
+        return dir == null || worldName == null ? null : dir.resolve(BattleTowerCollapse.worldFileName(worldName));
+    }
+
+    /**
+     * Newest snapshot of a tower whose boss anchor is within {@code radius} blocks (horizontally) of (x, z).
+     */
+    static Path findNearest(String worldName, int x, int z, int radius) {
+        List<Path> files = list(worldDirectory(worldName));
+        long radiusSq = (long) radius * radius;
+        for (int i = files.size() - 1; i >= 0; i--) {
+            String[] parts = files.get(i).getFileName().toString().replace(".snap", "").split("_");
+            if (parts.length != 4) {
+                continue;
+            }
+            try {
+                long dx = Integer.parseInt(parts[1]) - x;
+                long dz = Integer.parseInt(parts[3]) - z;
+                if (dx * dx + dz * dz <= radiusSq) {
+                    return files.get(i);
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads a snapshot file into a {@link Restore}. Does file I/O; keep it off the world thread.
+     */
+    static Restore load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a collapse snapshot");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("unsupported collapse snapshot version " + version);
+            }
+            int minX = in.readInt();
+            int minY = in.readInt();
+            int minZ = in.readInt();
+            int sizeX = in.readInt();
+            int sizeZ = in.readInt();
+            int top = in.readInt();
+            String[] names = new String[readVarInt(in)];
+            int[] rotations = new int[names.length];
+            for (int i = 1; i < names.length; i++) {
+                names[i] = in.readUTF();
+                // Version 1 kept no rotations; those blocks go back unrotated.
+                rotations[i] = version >= 2 ? in.readUnsignedByte() : 0;
+            }
+
+            // Expand the runs to (index, entry) pairs, then reverse them so the tower is rebuilt bottom up.
+            int runCount = readVarInt(in);
+            int[] indices = new int[64];
+            int[] entries = new int[64];
+            int count = 0;
+            int index = top;
+            for (int r = 0; r < runCount; r++) {
+                int value = readVarInt(in);
+                int length = readVarInt(in);
+                if (value == 0) {
+                    index -= length;
+                    continue;
+                }
+                for (int i = 0; i < length; i++, index--) {
+                    if (count == indices.length) {
+                        indices = Arrays.copyOf(indices, count * 2);
+                        entries = Arrays.copyOf(entries, count * 2);
+                    }
+                    indices[count] = index;
+                    entries[count] = value;
+                    count++;
+                }
+            }
+            int extraCount = readVarInt(in);
+            int total = count + extraCount;
+            int[] orderedIndices = new int[total];
+            int[] orderedEntries = new int[total];
+            for (int i = 0; i < count; i++) {
+                orderedIndices[i] = indices[count - 1 - i];
+                orderedEntries[i] = entries[count - 1 - i];
+            }
+            for (int i = count; i < total; i++) {
+                orderedIndices[i] = readVarInt(in);
+                orderedEntries[i] = readVarInt(in);
+            }
+
+            Map<Integer, ItemStack[]> containers = new HashMap<>();
+            int containerCount = readVarInt(in);
+            for (int c = 0; c < containerCount; c++) {
+                int planIndex = readVarInt(in);
+                ItemStack[] stacks = new ItemStack[readVarInt(in)];
+                for (int i = 0; i < stacks.length; i++) {
+                    stacks[i] = new ItemStack(in.readUTF(), readVarInt(in), null);
+                }
+                containers.put(planIndex, stacks);
+            }
+
+            int[] rubble = new int[readVarInt(in) * 3];
+            for (int i = 0; i < rubble.length; i++) {
+                rubble[i] = in.readInt();
+            }
+
+            return new Restore(file.getFileName().toString(), minX, minY, minZ, sizeX, sizeZ,
+                    names, rotations, orderedIndices, orderedEntries, containers, rubble);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    /**
+     * A snapshot being pasted back into the world, advanced by {@link BattleTowerCollapse#tickWorld}.
+     */
+    static final class Restore {
+        final String name;
+        private final int minX;
+        private final int minY;
+        private final int minZ;
+        private final int sizeX;
+        private final int sizeZ;
+        private final String[] names;
+        private final int[] rotations;
+        private final int[] indices;
+        private final int[] entries;
+        private final Map<Integer, ItemStack[]> containers;
+        private final int[] rubble;
+        private BlockType[] types;
+        private int[] typeIds;
+        // What the rubble containers held when the restore started, moved back into the containers it came from.
+        private final List<ItemStack> loot = new ArrayList<>();
+        private final List<ItemContainer> refilled = new ArrayList<>();
+        private int next;
+        int placed;
+        int skipped;
+
+        private Restore(String name, int minX, int minY, int minZ, int sizeX, int sizeZ, String[] names,
+                        int[] rotations, int[] indices, int[] entries, Map<Integer, ItemStack[]> containers,
+                        int[] rubble) {
+            this.name = name;
+            this.minX = minX;
+            this.minY = minY;
+            this.minZ = minZ;
+            this.sizeX = sizeX;
+            this.sizeZ = sizeZ;
+            this.names = names;
+            this.rotations = rotations;
+            this.indices = indices;
+            this.entries = entries;
+            this.containers = containers;
+            this.rubble = rubble;
+        }
+
+        int blockCount() {
+            return indices.length;
+        }
+
+        /**
+         * Pastes blocks until the deadline. Must run on the world thread.
+         *
+         * @return {@code true} once every block has been handled
+         */
+        boolean step(World world, long deadlineNanos) {
+            if (types == null) {
+                start(world);
+            }
+            BattleTowerBlockClassTable classes = BattleTowerBlockClassifier.table();
+            long cachedChunkIndex = Long.MIN_VALUE;
+            WorldChunk chunk = null;
+            int ops = 0;
+            while (next < indices.length) {
+                int index = indices[next];
+                int entry = entries[next];
+                next++;
+                ops++;
+
+                int x = minX + index % sizeX;
+                int z = minZ + (index / sizeX) % sizeZ;
+                int y = minY + index / (sizeX * sizeZ);
+                long chunkIndex = ChunkUtil.indexChunkFromBlock(x, z);
+                if (chunkIndex != cachedChunkIndex) {
+                    cachedChunkIndex = chunkIndex;
+                    chunk = world.getChunkIfLoaded(chunkIndex);
+                }
+                if (paste(chunk, classes, ChunkUtil.localCoordinate(x), y, ChunkUtil.localCoordinate(z), typeIds[entry],
+                        types[entry], rotations[entry], containers.get(index))) {
+                    placed++;
+                } else {
+                    skipped++;
+                }
+
+                if ((ops & 31) == 0 && System.nanoTime() > deadlineNanos) {
+                    break;
+                }
+            }
+            if (next < indices.length) {
+                return false;
+            }
+            placeLeftoverLoot();
+            return true;
+        }
+
+        private void start(World world) {
+            types = new BlockType[names.length];
+            typeIds = new int[names.length];
+            try {
+                var assetMap = BlockType.getAssetMap();
+                for (int i = 1; i < names.length; i++) {
+                    types[i] = assetMap.getAsset(names[i]);
+                    typeIds[i] = assetMap.getIndex(names[i]);
+                }
+            } catch (Exception ignored) {
+            }
+            // Whatever is still in the rubble containers goes back into the tower's own containers.
+            for (int i = 0; i < rubble.length; i += 3) {
+                try {
+                    WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunkFromBlock(rubble[i], rubble[i + 2]));
+                    if (chunk == null) {
+                        continue;
+                    }
+                    int localX = ChunkUtil.localCoordinate(rubble[i]);
+                    int localZ = ChunkUtil.localCoordinate(rubble[i + 2]);
+                    BlockState state = chunk.getState(localX, rubble[i + 1], localZ);
+                    if (state instanceof ItemContainerBlockState containerState && containerState.getItemContainer() != null) {
+                        List<ItemStack> stacks = containerState.getItemContainer().removeAllItemStacks();
+                        if (stacks != null) {
+                            for (ItemStack stack : stacks) {
+                                if (stack != null && !stack.isEmpty()) {
+                                    loot.add(stack);
+                                }
+                            }
+                        }
+                    }
+                    chunk.setState(localX, rubble[i + 1], localZ, (BlockState) null, true);
+                    chunk.setBlock(localX, rubble[i + 1], localZ, BlockType.EMPTY);
+                } catch (Exception ignored) {
+                }
+            }
+        }
+
+        private boolean paste(WorldChunk chunk, BattleTowerBlockClassTable classes, int localX, int y, int localZ,
+                              int typeId, BlockType type, int rotation, ItemStack[] recorded) {
+            if (chunk == null || type == null) {
+                return false;
+            }
+            try {
+                if (!classes.has(chunk.getBlock(localX, y, localZ), BattleTowerBlockClassTable.EMPTY)) {
+                    // Something was built here since the collapse; leave it.
+                    return false;
+                }
+                chunk.setBlock(localX, y, localZ, typeId, type, rotation, 0, 0);
+                if (chunk.getState(localX, y, localZ) instanceof ItemContainerBlockState containerState) {
+                    ItemContainer container = containerState.getItemContainer();
+                    if (container != null) {
+                        refilled.add(container);
+                        if (recorded != null) {
+                            for (ItemStack stack : recorded) {
+                                moveLoot(container, stack.getItemId(), stack.getQuantity());
+                            }
+                        }
+                    }
+                }
+                return true;
+            } catch (Exception ignored) {
+                return false;
+            }
+        }
+
+        /**
+         * Moves up to {@code quantity} of an item from the rubble loot into a restored container.
+         */
+        private void moveLoot(ItemContainer container, String itemId, int quantity) {
+            for (int i = 0; i < loot.size() && quantity > 0; i++) {
+                ItemStack stack = loot.get(i);
+                if (!itemId.equals(stack.getItemId())) {
+                    continue;
+                }
+                int moved = Math.min(quantity, stack.getQuantity());
+                ItemStack remainder = add(container, moved == stack.getQuantity() ? stack : stack.withQuantity(moved));
+                int added = moved - (remainder != null ? remainder.getQuantity() : 0);
+                quantity -= added;
+                int left = stack.getQuantity() - added;
+                if (left > 0) {
+                    loot.set(i, stack.withQuantity(left));
+                    if (added < moved) {
+                        // Container full.
+                        return;
+                    }
+                } else {
+                    loot.remove(i--);
+                }
+            }
+        }
+
+        /**
+         * Rubble loot that no restored container claimed (its container position was built over, or players
+         * swapped items) goes into any restored container with room.
+         */
+        private void placeLeftoverLoot() {
+            for (ItemContainer container : refilled) {
+                for (int i = 0; i < loot.size(); i++) {
+                    ItemStack remainder = add(container, loot.get(i));
+                    if (remainder != null) {
+                        loot.set(i, remainder);
+                    } else {
+                        loot.remove(i--);
+                    }
+                }
+                if (loot.isEmpty()) {
+                    return;
+                }
+            }
+            if (!loot.isEmpty()) {
+                LOGGER.atWarning().log("Restore %s had no room for %d item stacks from the rubble containers.",
+                        name, loot.size());
+            }
+        }
+
+        /**
+         * @return what did not fit, or {@code null}
+         */
+        private static ItemStack add(ItemContainer container, ItemStack stack) {
+            try {
+                ItemStackTransaction transaction = container.addItemStack(stack);
+                ItemStack remainder = transaction != null ? transaction.getRemainder() : null;
+                return remainder != null && !remainder.isEmpty() ? remainder : null;
+            } catch (Exception ignored) {
+                return stack;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.system.tick.TickingSystem;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+/**
+ * Advances tower collapses from inside the world tick.
+ *
+ * Collapse work used to be produced on a scheduler thread and marshalled onto the world with
+ * {@code world.execute}; when the world lagged those tasks queued up and then ran back-to-back. Ticking here
+ * keeps the work in step with the world: a slow tick simply means fewer collapse steps.
+ */
+public final class BattleTowerCollapseSystem extends TickingSystem<EntityStore> {
+
+    private final ResourceType<EntityStore, BattleTowerCollapseResource> resourceType;
+
+    public BattleTowerCollapseSystem(ResourceType<EntityStore, BattleTowerCollapseResource> resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    @Override
+    public void tick(float dt, int systemIndex, Store<EntityStore> store) {
+        BattleTowerCollapseResource resource = store.getResource(resourceType);
+        if (resource == null || resource.isIdle()) {
+            return;
+        }
+        World world;
+        try {
+            world = store.getExternalData().getWorld();
+        } catch (Exception ignored) {
+            return;
+        }
+        if (world != null) {
+            BattleTowerCollapse.tickWorld(world, resource, System.nanoTime());
+        }
+    }
+}
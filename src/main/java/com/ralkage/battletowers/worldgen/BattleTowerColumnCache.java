@@ -0,0 +1,54 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the chunk columns a {@link BattleTowerVoxelAccess} resolved, unloaded ones included, so code that reads
+ * many blocks from the few chunk columns a tower spans resolves each of them once.
+ *
+ * Cached columns are only valid while their chunks stay loaded; on a live world, use one cache per world-thread
+ * tick and {@link #clear} it (or drop it) before the next.
+ */
+final class BattleTowerColumnCache implements BattleTowerVoxelAccess {
+
+    // Power of two, well above the chunk columns one tower spans; a full cache starts over.
+    private static final int SLOTS = 32;
+
+    private final BattleTowerVoxelAccess voxels;
+    private final long[] keys = new long[SLOTS];
+    private final Column[] columns = new Column[SLOTS];
+    private final boolean[] used = new boolean[SLOTS];
+    private int size;
+
+    BattleTowerColumnCache(BattleTowerVoxelAccess voxels) {
+        this.voxels = voxels;
+    }
+
+    @Override
+    public Column column(int chunkX, int chunkZ) {
+        long key = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        int slot = (int) (key ^ (key >>> 29)) * 0x9E3779B9 >>> 27;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return columns[slot];
+            }
+            slot = (slot + 1) & (SLOTS - 1);
+        }
+        Column column = voxels.column(chunkX, chunkZ);
+        if (size == SLOTS / 2) {
+            clear();
+            return column;
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        columns[slot] = column;
+        size++;
+        return column;
+    }
+
+    void clear() {
+        Arrays.fill(used, false);
+        Arrays.fill(columns, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.component.AddReason;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.ResourceType;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.RefSystem;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Despawns item entities the moment they spawn inside a collapsing tower.
+ *
+ * Removing blocks, NPCs and containers makes the game drop items, some of them a tick or two later. Rather than
+ * sweeping the area again after the collapse, each collapse registers a drop region on its world's
+ * {@link BattleTowerCollapseResource} and any item spawned inside it is removed before it reaches a client.
+ */
+public final class BattleTowerDropSuppressionSystem extends RefSystem<EntityStore> {
+
+    private final ResourceType<EntityStore, BattleTowerCollapseResource> resourceType;
+
+    public BattleTowerDropSuppressionSystem(ResourceType<EntityStore, BattleTowerCollapseResource> resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return ItemComponent.getComponentType();
+    }
+
+    @Override
+    public void onEntityAdded(
+            @Nonnull Ref<EntityStore> ref,
+            @Nonnull AddReason reason,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+        if (reason != AddReason.SPAWN) {
+            // Items loaded with a chunk were not produced by the collapse.
+            return;
+        }
+        BattleTowerCollapseResource resource = store.getResource(resourceType);
+        if (resource == null || resource.dropRegions.isEmpty()) {
+            return;
+        }
+
+        try {
+            TransformComponent transform = commandBuffer.getComponent(ref, TransformComponent.getComponentType());
+            if (transform == null) {
+                transform = store.getComponent(ref, TransformComponent.getComponentType());
+            }
+            if (transform == null) {
+                return;
+            }
+            Vector3d pos = transform.getPosition();
+            BattleTowerCollapseResource.DropRegion region = resource.dropRegionAt(pos.getX(), pos.getY(), pos.getZ());
+            if (region != null) {
+                commandBuffer.removeEntity(ref, RemoveReason.REMOVE);
+                region.suppressed++;
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    @Override
+    public void onEntityRemove(
+            @Nonnull Ref<EntityStore> ref,
+            @Nonnull RemoveReason reason,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull CommandBuffer<EntityStore> commandBuffer
+    ) {
+    }
+}
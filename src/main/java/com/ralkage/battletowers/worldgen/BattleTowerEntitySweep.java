@@ -0,0 +1,138 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.component.Archetype;
+import com.hypixel.hytale.component.RemoveReason;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.modules.entity.item.ItemComponent;
+import com.hypixel.hytale.server.core.modules.entity.item.PickupItemComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
+import com.hypixel.hytale.server.spawning.spawnmarkers.SpawnMarkerEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Removes a tower's entities (NPCs, spawn markers, dropped items) in one pass over the entity store.
+ *
+ * Only archetype chunks carrying a requested kind are visited, so the cost follows the number of NPCs, markers and
+ * items rather than every entity in the world. Each archetype chunk is classified once from its archetype; per
+ * entity only the transform is read, and matches are removed through the chunk's command buffer. Players are never
+ * matched.
+ */
+final class BattleTowerEntitySweep {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    static final int NPCS = 1;
+    static final int SPAWN_MARKERS = 1 << 1;
+    static final int ITEMS = 1 << 2;
+
+    record Result(int npcs, int spawnMarkers, int items) {
+        static final Result NONE = new Result(0, 0, 0);
+    }
+
+    private BattleTowerEntitySweep() {
+    }
+
+    /**
+     * Removes entities of the given kinds whose position is inside the cylinder around (centerX, centerZ).
+     * Must run on the world thread.
+     *
+     * @param kinds any combination of {@link #NPCS}, {@link #SPAWN_MARKERS} and {@link #ITEMS}
+     */
+    static Result sweep(World world, int kinds, int centerX, int centerZ, int minY, int maxY, int radius) {
+        if (world == null || kinds == 0) {
+            return Result.NONE;
+        }
+        try {
+            Store<EntityStore> store = world.getEntityStore().getStore();
+            var transformType = TransformComponent.getComponentType();
+            var npcType = NPCEntity.getComponentType();
+            var markerType = SpawnMarkerEntity.getComponentType();
+            var itemType = ItemComponent.getComponentType();
+            var pickupType = PickupItemComponent.getComponentType();
+
+            List<Query<EntityStore>> wanted = new ArrayList<>(4);
+            if ((kinds & NPCS) != 0) {
+                wanted.add(npcType);
+            }
+            if ((kinds & SPAWN_MARKERS) != 0) {
+                wanted.add(markerType);
+            }
+            if ((kinds & ITEMS) != 0) {
+                // Dropped items are ECS entities with ItemComponent / PickupItemComponent.
+                wanted.add(itemType);
+                wanted.add(pickupType);
+            }
+            @SuppressWarnings("unchecked")
+            Query<EntityStore> query = Query.and(
+                    transformType,
+                    Query.not(Player.getComponentType()),
+                    Query.or(wanted.toArray(new Query[0])));
+
+            long radiusSq = (long) radius * radius;
+            // Removed per kind, then the number of entities that failed.
+            int[] removed = new int[4];
+            Exception[] firstFailure = new Exception[1];
+
+            store.forEachChunk(query, (archetypeChunk, commandBuffer) -> {
+                Archetype<EntityStore> archetype = archetypeChunk.getArchetype();
+                int kind;
+                if (archetype.contains(npcType)) {
+                    kind = 0;
+                } else if (archetype.contains(markerType)) {
+                    kind = 1;
+                } else {
+                    kind = 2;
+                }
+                if ((kinds & (1 << kind)) == 0) {
+                    // e.g. an NPC that also carries an item component while only items were requested.
+                    return;
+                }
+
+                for (int i = 0; i < archetypeChunk.size(); i++) {
+                    try {
+                        TransformComponent transform = archetypeChunk.getComponent(i, transformType);
+                        if (transform == null) {
+                            continue;
+                        }
+                        Vector3d pos = transform.getPosition();
+                        int y = (int) Math.floor(pos.getY());
+                        if (y < minY || y > maxY) {
+                            continue;
+                        }
+                        double dx = pos.getX() - centerX;
+                        double dz = pos.getZ() - centerZ;
+                        if (dx * dx + dz * dz > radiusSq) {
+                            continue;
+                        }
+
+                        // The buffer applies removals after the walk, so the chunk isn't modified while iterated.
+                        commandBuffer.removeEntity(archetypeChunk.getReferenceTo(i), RemoveReason.REMOVE);
+                        removed[kind]++;
+                    } catch (Exception e) {
+                        if (removed[3]++ == 0) {
+                            firstFailure[0] = e;
+                        }
+                    }
+                }
+            });
+
+            if (firstFailure[0] != null) {
+                LOGGER.atWarning().log("Entity sweep at (%d, %d) skipped %d entities; first failure: %s",
+                        centerX, centerZ, removed[3], firstFailure[0]);
+            }
+            return new Result(removed[0], removed[1], removed[2]);
+        } catch (Exception e) {
+            LOGGER.atWarning().log("Entity sweep at (%d, %d) failed: %s", centerX, centerZ, e);
+            return Result.NONE;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-world counters and gauges for the tower subsystems.
+ *
+ * Hot paths count events here instead of logging each one: a counter update is a {@link LongAdder} increment,
+ * with no formatting or boxing. Every {@link #SUMMARY_INTERVAL_SECONDS} one line per world summarizes what
+ * changed since the previous line; worlds with no activity stay quiet. Per-event detail is still available at
+ * FINE level through {@link #sampled}, which lets only one event in {@link #SAMPLE_EVERY} through.
+ */
+public final class BattleTowerMetrics {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final long SUMMARY_INTERVAL_SECONDS = 60;
+    static final int SAMPLE_EVERY = 64;
+
+    public enum Stat {
+        COLLAPSES_STARTED("collapses started"),
+        COLLAPSES_FINISHED("finished"),
+        BLOCKS_REMOVED("blocks removed"),
+        BLOCKS_VISITED("visited"),
+        NPCS_PURGED("npcs purged"),
+        MARKERS_REMOVED("markers removed"),
+        DROPS_SUPPRESSED("drops suppressed"),
+        DROPS_REMOVED("drops removed"),
+        RUBBLE_STACKS("rubble stacks"),
+        EFFECT_CUES("effect cues"),
+        EFFECT_PACKETS("effect packets"),
+        NPCS_SPAWNED("npcs spawned"),
+        BOSSES_RANDOMIZED("bosses randomized");
+
+        final String label;
+
+        Stat(String label) {
+            this.label = label;
+        }
+    }
+
+    public enum Gauge {
+        ACTIVE_COLLAPSES("active"),
+        WAITING_COLLAPSES("waiting");
+
+        final String label;
+
+        Gauge(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final ConcurrentHashMap<String, WorldMetrics> WORLDS = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "BattleTower-Metrics");
+        t.setDaemon(true);
+        return t;
+    });
+    private static volatile ScheduledFuture<?> summaryTask;
+
+    private BattleTowerMetrics() {
+    }
+
+    public static void start() {
+        if (summaryTask != null) {
+            return;
+        }
+        summaryTask = SCHEDULER.scheduleAtFixedRate(BattleTowerMetrics::logSummaries,
+                SUMMARY_INTERVAL_SECONDS, SUMMARY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static void shutdown() {
+        try {
+            SCHEDULER.shutdownNow();
+        } catch (Exception ignored) {
+        }
+        summaryTask = null;
+    }
+
+    public static void increment(String worldName, Stat stat) {
+        world(worldName).stats[stat.ordinal()].increment();
+    }
+
+    public static void add(String worldName, Stat stat, long amount) {
+        if (amount != 0) {
+            world(worldName).stats[stat.ordinal()].add(amount);
+        }
+    }
+
+    public static void set(String worldName, Gauge gauge, long value) {
+        world(worldName).gauges[gauge.ordinal()] = value;
+    }
+
+    /**
+     * Counts one event on the stat's debug channel.
+     *
+     * @return {@code true} for the first event and every {@link #SAMPLE_EVERY}th after it, i.e. when the caller
+     * should log its per-event detail
+     */
+    public static boolean sampled(String worldName, Stat stat) {
+        LongAdder events = world(worldName).samples[stat.ordinal()];
+        events.increment();
+        return events.sum() % SAMPLE_EVERY == 1;
+    }
+
+    /**
+     * One line per world with the running totals, for diagnostics.
+     */
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, WorldMetrics> e : WORLDS.entrySet()) {
+            WorldMetrics m = e.getValue();
+            long[] totals = new long[m.stats.length];
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] = m.stats[i].sum();
+            }
+            lines.add(e.getKey() + ": " + format(totals, m.gauges, true));
+        }
+        return lines;
+    }
+
+    private static WorldMetrics world(String worldName) {
+        return WORLDS.computeIfAbsent(worldName != null ? worldName : "?", _n -> new WorldMetrics());
+    }
+
+    private static void logSummaries() {
+        for (Map.Entry<String, WorldMetrics> e : WORLDS.entrySet()) {
+            WorldMetrics m = e.getValue();
+            long[] delta = new long[m.stats.length];
+            boolean changed = false;
+            for (int i = 0; i < delta.length; i++) {
+                long total = m.stats[i].sum();
+                delta[i] = total - m.reported[i];
+                m.reported[i] = total;
+                changed |= delta[i] != 0;
+            }
+            if (changed) {
+                LOGGER.atInfo().log("BattleTowers[%s] last %ds: %s", e.getKey(), SUMMARY_INTERVAL_SECONDS,
+                        format(delta, m.gauges, false));
+            }
+        }
+    }
+
+    private static String format(long[] stats, long[] gauges, boolean includeZero) {
+        StringBuilder sb = new StringBuilder();
+        Stat[] all = Stat.values();
+        for (int i = 0; i < all.length; i++) {
+            if (stats[i] == 0 && !includeZero) {
+                continue;
+            }
+            if (!sb.isEmpty()) {
+                sb.append(", ");
+            }
+            sb.append(all[i].label).append('=').append(stats[i]);
+        }
+        Gauge[] allGauges = Gauge.values();
+        sb.append(" |");
+        for (int i = 0; i < allGauges.length; i++) {
+            sb.append(' ').append(allGauges[i].label).append('=').append(gauges[i]);
+        }
+        return sb.toString();
+    }
+
+    private static final class WorldMetrics {
+        final LongAdder[] stats = adders(Stat.values().length);
+        final LongAdder[] samples = adders(Stat.values().length);
+        final long[] reported = new long[Stat.values().length];
+        // Written by the owning world thread, read by the summary; a stale read only delays a line.
+        final long[] gauges = new long[Gauge.values().length];
+
+        private static LongAdder[] adders(int n) {
+            LongAdder[] a = new LongAdder[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = new LongAdder();
+            }
+            return a;
+        }
+    }
+}
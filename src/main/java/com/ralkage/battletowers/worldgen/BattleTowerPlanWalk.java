@@ -0,0 +1,152 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+/**
+ * Removes a collapse plan's blocks through a {@link BattleTowerVoxelAccess}, top layer first.
+ *
+ * A walk keeps the position it has reached, so a collapse can remove a bounded number of blocks per tick and
+ * continue on the next one. Each step resolves a chunk column once: a layer crosses the same few columns once per
+ * row, so the columns it has seen are kept for the rest of the step.
+ */
+final class BattleTowerPlanWalk {
+
+    final BattleTowerCollapsePlan plan;
+    // Next plan index to visit (walks down from the top); -1 once every planned position has been visited.
+    volatile int cursor;
+    int visited;
+
+    BattleTowerPlanWalk(BattleTowerCollapsePlan plan) {
+        this.plan = plan;
+        this.cursor = plan.lastIndex();
+    }
+
+    boolean isDone() {
+        return cursor < 0;
+    }
+
+    int remaining() {
+        return plan.blockCount - visited;
+    }
+
+    /**
+     * Visits planned positions downward until {@code maxOps} positions have been visited or the deadline passes.
+     *
+     * @return the number of blocks removed
+     */
+    int step(BattleTowerVoxelAccess voxels, BattleTowerBlockClassTable classes, boolean verify,
+             int maxOps, long deadlineNanos) {
+        // One step runs within one world-thread tick, so the columns stay loaded for as long as they are cached.
+        BattleTowerColumnCache columns = new BattleTowerColumnCache(voxels);
+        int cachedChunkX = Integer.MIN_VALUE;
+        int cachedChunkZ = Integer.MIN_VALUE;
+        BattleTowerVoxelAccess.Column column = null;
+        int index = cursor;
+        int ops = 0;
+        int removed = 0;
+
+        while (index >= 0 && ops < maxOps) {
+            int x = plan.xAt(index);
+            int y = plan.yAt(index);
+            int z = plan.zAt(index);
+            int chunkX = ChunkUtil.chunkCoordinate(x);
+            int chunkZ = ChunkUtil.chunkCoordinate(z);
+            if (chunkX != cachedChunkX || chunkZ != cachedChunkZ) {
+                cachedChunkX = chunkX;
+                cachedChunkZ = chunkZ;
+                column = columns.column(chunkX, chunkZ);
+            }
+            if (column != null && removePlanned(column, classes, ChunkUtil.localCoordinate(x), y,
+                    ChunkUtil.localCoordinate(z), verify, plan.expectedAt(index), index)) {
+                removed++;
+            }
+            index = plan.previous(index - 1);
+            ops++;
+
+            // The clock is only read every few blocks; removals are cheap individually.
+            if ((ops & 15) == 0 && System.nanoTime() > deadlineNanos) {
+                break;
+            }
+        }
+
+        visited += ops;
+        cursor = index;
+        return removed;
+    }
+
+    /**
+     * Removes the planned blocks in the slab {@code bottomY..topY}, one chunk column at a time.
+     *
+     * @return the number of blocks removed
+     */
+    static int removeLayers(BattleTowerVoxelAccess voxels, BattleTowerBlockClassTable classes, BattleTowerCollapsePlan plan,
+                            int topY, int bottomY, boolean verify) {
+        int fromY = Math.min(topY, plan.minY + plan.sizeY - 1);
+        int toY = Math.max(bottomY, plan.minY);
+        if (fromY < toY) {
+            return 0;
+        }
+
+        int removed = 0;
+        for (int cx = ChunkUtil.chunkCoordinate(plan.minX); cx <= ChunkUtil.chunkCoordinate(plan.maxX()); cx++) {
+            int chunkMinX = cx * ChunkUtil.SIZE;
+            int fromX = Math.max(plan.minX, chunkMinX);
+            int toX = Math.min(plan.maxX(), chunkMinX + ChunkUtil.SIZE - 1);
+
+            for (int cz = ChunkUtil.chunkCoordinate(plan.minZ); cz <= ChunkUtil.chunkCoordinate(plan.maxZ()); cz++) {
+                int chunkMinZ = cz * ChunkUtil.SIZE;
+                int fromZ = Math.max(plan.minZ, chunkMinZ);
+                int toZ = Math.min(plan.maxZ(), chunkMinZ + ChunkUtil.SIZE - 1);
+
+                BattleTowerVoxelAccess.Column column = voxels.column(cx, cz);
+                if (column == null) {
+                    continue;
+                }
+
+                for (int y = fromY; y >= toY; y--) {
+                    for (int x = fromX; x <= toX; x++) {
+                        int localX = ChunkUtil.localCoordinate(x);
+                        for (int z = fromZ; z <= toZ; z++) {
+                            int index = plan.indexOf(x, y, z);
+                            if (index < 0 || !plan.contains(x, y, z)) {
+                                continue;
+                            }
+                            if (removePlanned(column, classes, localX, y, ChunkUtil.localCoordinate(z), verify,
+                                    plan.expectedAt(index), index)) {
+                                removed++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Clears one planned position. With {@code verify}, the block is only removed if it still matches
+     * {@code expectedBlock}, is tower material, or holds a container, so anything a player built into the
+     * footprint is left alone.
+     */
+    static boolean removePlanned(BattleTowerVoxelAccess.Column column, BattleTowerBlockClassTable classes,
+                                 int localX, int y, int localZ, boolean verify, int expectedBlock, int planIndex) {
+        int blockId = column.blockAt(localX, y, localZ);
+        if (blockId == BattleTowerVoxelAccess.UNREADABLE) {
+            return false;
+        }
+        int flags = classes.flags(blockId);
+        if ((flags & BattleTowerBlockClassTable.EMPTY) != 0) {
+            return false;
+        }
+
+        if (verify
+                && blockId != expectedBlock
+                && (flags & BattleTowerBlockClassTable.IMPLODABLE) == 0
+                && !column.isContainer(localX, y, localZ)) {
+            return false;
+        }
+
+        column.clear(localX, y, localZ, blockId, planIndex);
+        return true;
+    }
+}
@@ -7,6 +7,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.List;
 
 /**
  * Ensures battle tower prefabs are available under the server prefab root directory.
@@ -19,19 +20,22 @@ public final class BattleTowerPrefabInstaller {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
-    private static final String RESOURCE_DIR = "Server/Prefabs/BattleTower/";
-    private static final String[] PREFAB_FILES = {
+    /** Directory of the tower prefabs, relative to a prefab root. */
+    public static final String PREFAB_DIR = "BattleTower/";
+    /** Every bundled tower prefab, in tier order; the one list the installer, loaders and diagnostics share. */
+    public static final List<String> PREFAB_FILES = List.of(
             "battletower_tier1.prefab.json",
             "battletower_tier2.prefab.json",
             "battletower_tier3.prefab.json",
             "battletower_shore.prefab.json"
-    };
+    );
+    static final String RESOURCE_DIR = "Server/Prefabs/" + PREFAB_DIR;
 
     private BattleTowerPrefabInstaller() {
     }
 
     public static void ensureInstalled(Class<?> resourceAnchor) {
-        Path destDir = Path.of("prefabs").resolve("BattleTower");
+        Path destDir = Path.of("prefabs").resolve(PREFAB_DIR);
         try {
             Files.createDirectories(destDir);
         } catch (IOException e) {
@@ -0,0 +1,98 @@
+package com.ralkage.battletowers.worldgen;
+
+/**
+ * Where a {@link BattleTowerPrefabShape} sits in the world: the world position of the prefab anchor plus a
+ * quarter-turn rotation about Y (0..3).
+ */
+record BattleTowerPrefabPlacement(BattleTowerPrefabShape shape, int rotation, int originX, int originY, int originZ) {
+
+    int worldX(int localX, int localZ) {
+        return originX + rotateX(rotation, localX - shape.anchorX, localZ - shape.anchorZ);
+    }
+
+    int worldY(int localY) {
+        return originY + (localY - shape.anchorY);
+    }
+
+    int worldZ(int localX, int localZ) {
+        return originZ + rotateZ(rotation, localX - shape.anchorX, localZ - shape.anchorZ);
+    }
+
+    static int rotateX(int rotation, int dx, int dz) {
+        return switch (rotation & 3) {
+            case 1 -> -dz;
+            case 2 -> -dx;
+            case 3 -> dz;
+            default -> dx;
+        };
+    }
+
+    static int rotateZ(int rotation, int dx, int dz) {
+        return switch (rotation & 3) {
+            case 1 -> dx;
+            case 2 -> -dz;
+            case 3 -> -dx;
+            default -> dz;
+        };
+    }
+
+    /**
+     * Origin implied by a boss marker recorded at {@code (anchorX, anchorY, anchorZ)} (floored marker position)
+     * for the given rotation. Callers should also probe the neighbouring origins to absorb rounding.
+     */
+    static BattleTowerPrefabPlacement fromBossAnchor(BattleTowerPrefabShape shape, int rotation, int anchorX, int anchorY, int anchorZ) {
+        double relX = shape.bossX - shape.anchorX;
+        double relZ = shape.bossZ - shape.anchorZ;
+        double rotX = switch (rotation & 3) {
+            case 1 -> -relZ;
+            case 2 -> -relX;
+            case 3 -> relZ;
+            default -> relX;
+        };
+        double rotZ = switch (rotation & 3) {
+            case 1 -> relX;
+            case 2 -> -relZ;
+            case 3 -> -relX;
+            default -> relZ;
+        };
+        int originX = (int) Math.floor(anchorX - rotX);
+        int originZ = (int) Math.floor(anchorZ - rotZ);
+        int originY = anchorY - (int) Math.floor(shape.bossY - shape.anchorY);
+        return new BattleTowerPrefabPlacement(shape, rotation & 3, originX, originY, originZ);
+    }
+
+    /**
+     * Placement implied by a boss marker as the prefab paste placed it: the rotation is the quarter turns between its
+     * yaw and the prefab's, the origin follows from its exact position. Callers should still check the neighbouring
+     * origins, since how a paste rounds rotated entity positions isn't known here.
+     *
+     * @param yaw marker yaw in radians
+     */
+    static BattleTowerPrefabPlacement fromBossMarker(BattleTowerPrefabShape shape, float yaw, double x, double y, double z) {
+        int rotation = Math.floorMod(quarterTurns(yaw) - quarterTurns(shape.bossYaw), 4);
+        double relX = shape.bossX - shape.anchorX;
+        double relZ = shape.bossZ - shape.anchorZ;
+        int originX = (int) Math.round(x - switch (rotation) {
+            case 1 -> -relZ;
+            case 2 -> -relX;
+            case 3 -> relZ;
+            default -> relX;
+        });
+        int originZ = (int) Math.round(z - switch (rotation) {
+            case 1 -> relX;
+            case 2 -> -relZ;
+            case 3 -> -relX;
+            default -> relZ;
+        });
+        int originY = (int) Math.round(y - (shape.bossY - shape.anchorY));
+        return new BattleTowerPrefabPlacement(shape, rotation, originX, originY, originZ);
+    }
+
+    private static int quarterTurns(float yaw) {
+        return (int) Math.round(yaw / (Math.PI / 2));
+    }
+
+    BattleTowerPrefabPlacement offset(int dx, int dy, int dz) {
+        return new BattleTowerPrefabPlacement(shape, rotation, originX + dx, originY + dy, originZ + dz);
+    }
+}
@@ -0,0 +1,192 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.prefab.selection.standard.BlockSelection;
+import com.hypixel.hytale.server.spawning.spawnmarkers.SpawnMarkerEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Block layout of a bundled battle tower prefab, taken from the {@link BlockSelection} the server's PrefabStore
+ * parsed from {@code Server/Prefabs/BattleTower/*.prefab.json}.
+ *
+ * Only non-empty blocks are kept. Coordinates are prefab-local; {@link BattleTowerPrefabPlacement} maps them
+ * into the world. The boss marker position lets a tower anchor (which is recorded from the boss marker) be
+ * turned back into a prefab origin; its marker id and yaw let a placed marker be traced back to the prefab and
+ * rotation it came from.
+ */
+final class BattleTowerPrefabShape {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    static final String EMPTY_BLOCK_NAME = "Empty";
+
+    private static volatile List<BattleTowerPrefabShape> bundled;
+
+    final String id;
+    final int anchorX;
+    final int anchorY;
+    final int anchorZ;
+    final int[] xs;
+    final int[] ys;
+    final int[] zs;
+    final String[] names;
+    final double bossX;
+    final double bossY;
+    final double bossZ;
+    final String bossMarkerId;
+    // Radians, as in the server's TransformComponent.
+    final float bossYaw;
+
+    BattleTowerPrefabShape(String id, int anchorX, int anchorY, int anchorZ,
+                           int[] xs, int[] ys, int[] zs, String[] names,
+                           double bossX, double bossY, double bossZ, String bossMarkerId, float bossYaw) {
+        this.id = id;
+        this.anchorX = anchorX;
+        this.anchorY = anchorY;
+        this.anchorZ = anchorZ;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.names = names;
+        this.bossX = bossX;
+        this.bossY = bossY;
+        this.bossZ = bossZ;
+        this.bossMarkerId = bossMarkerId;
+        this.bossYaw = bossYaw;
+    }
+
+    int blockCount() {
+        return xs.length;
+    }
+
+    /**
+     * Tower prefabs from {@link BattleTowerPrefabInstaller#PREFAB_FILES} that have a boss marker, built once and
+     * cached. Loading goes through the PrefabStore, so callers should warm this off the world thread. Nothing is
+     * cached while no prefab can be loaded yet (e.g. before the server has finished starting).
+     */
+    static List<BattleTowerPrefabShape> bundled(Predicate<String> isBossMarkerId) {
+        List<BattleTowerPrefabShape> current = bundled;
+        if (current != null) {
+            return current;
+        }
+        synchronized (BattleTowerPrefabShape.class) {
+            if (bundled != null) {
+                return bundled;
+            }
+            List<BattleTowerPrefabShape> loaded = loadBundled(isBossMarkerId);
+            if (!loaded.isEmpty()) {
+                bundled = loaded;
+            }
+            return loaded;
+        }
+    }
+
+    /**
+     * The bundled shapes if they have been loaded, else an empty list; never loads them.
+     */
+    static List<BattleTowerPrefabShape> loaded() {
+        List<BattleTowerPrefabShape> current = bundled;
+        return current != null ? current : List.of();
+    }
+
+    /**
+     * Replaces the bundled shapes, for running the collapse code without a server (the headless simulator).
+     */
+    static void setBundled(List<BattleTowerPrefabShape> shapes) {
+        bundled = Collections.unmodifiableList(new ArrayList<>(shapes));
+    }
+
+    private static List<BattleTowerPrefabShape> loadBundled(Predicate<String> isBossMarkerId) {
+        List<BattleTowerPrefabShape> shapes = new ArrayList<>();
+        for (String file : BattleTowerPrefabInstaller.PREFAB_FILES) {
+            try {
+                BlockSelection prefab = BattleTowerPrefabs.load(file);
+                if (prefab == null) {
+                    continue;
+                }
+                BattleTowerPrefabShape shape = of(file.substring(0, file.indexOf('.')), prefab, isBossMarkerId);
+                if (shape != null) {
+                    shapes.add(shape);
+                }
+            } catch (RuntimeException e) {
+                // Skip unreadable prefab; the collapse falls back to surveying.
+                LOGGER.atWarning().log("Could not load tower prefab %s for collapse planning: %s", file, e.getMessage());
+            }
+        }
+        return Collections.unmodifiableList(shapes);
+    }
+
+    /**
+     * @return the prefab's shape, or {@code null} if the prefab has no boss marker
+     */
+    static BattleTowerPrefabShape of(String id, BlockSelection prefab, Predicate<String> isBossMarkerId) {
+        BossMarker boss = findBossMarker(prefab, isBossMarkerId);
+        if (boss == null) {
+            return null;
+        }
+
+        var assetMap = BlockType.getAssetMap();
+        int capacity = Math.max(16, prefab.getBlockCount());
+        int[] xs = new int[capacity];
+        int[] ys = new int[capacity];
+        int[] zs = new int[capacity];
+        String[] names = new String[capacity];
+        int[] count = new int[1];
+        prefab.forEachBlock((x, y, z, block) -> {
+            BlockType type = assetMap.getAsset(block.blockId());
+            String name = type != null ? type.getId() : null;
+            if (name == null || EMPTY_BLOCK_NAME.equals(name)) {
+                return;
+            }
+            int i = count[0]++;
+            if (i == xs.length) {
+                throw new IllegalStateException("prefab " + id + " has more blocks than it reports");
+            }
+            xs[i] = x;
+            ys[i] = y;
+            zs[i] = z;
+            names[i] = name;
+        });
+
+        int n = count[0];
+        return new BattleTowerPrefabShape(id, prefab.getAnchorX(), prefab.getAnchorY(), prefab.getAnchorZ(),
+                Arrays.copyOf(xs, n), Arrays.copyOf(ys, n), Arrays.copyOf(zs, n),
+                Arrays.copyOf(names, n), boss.x(), boss.y(), boss.z(), boss.markerId(), boss.yaw());
+    }
+
+    private record BossMarker(String markerId, double x, double y, double z, float yaw) {
+    }
+
+    private static BossMarker findBossMarker(BlockSelection prefab, Predicate<String> isBossMarkerId) {
+        var markerType = SpawnMarkerEntity.getComponentType();
+        var transformType = TransformComponent.getComponentType();
+        BossMarker[] found = new BossMarker[1];
+        prefab.forEachEntity(holder -> {
+            if (found[0] != null) {
+                return;
+            }
+            try {
+                SpawnMarkerEntity marker = holder.getComponent(markerType);
+                if (marker == null || !isBossMarkerId.test(marker.getSpawnMarkerId())) {
+                    return;
+                }
+                TransformComponent transform = holder.getComponent(transformType);
+                if (transform != null) {
+                    Vector3d position = transform.getPosition();
+                    found[0] = new BossMarker(marker.getSpawnMarkerId(), position.getX(), position.getY(), position.getZ(),
+                            transform.getRotation().getYaw());
+                }
+            } catch (RuntimeException ignored) {
+            }
+        });
+        return found[0];
+    }
+}
@@ -4,8 +4,6 @@ import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.prefab.PrefabStore;
 import com.hypixel.hytale.server.core.prefab.selection.standard.BlockSelection;
 
-import java.nio.file.Path;
-
 /**
  * Lazy-loading prefab accessor for command-based tower placement.
  *
@@ -19,12 +17,6 @@ import java.nio.file.Path;
 public class BattleTowerPrefabs {
 
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-    private static final String[] TIER_PREFAB_FILES = {
-            "BattleTower/battletower_tier1.prefab.json",
-            "BattleTower/battletower_tier2.prefab.json",
-            "BattleTower/battletower_tier3.prefab.json",
-            "BattleTower/battletower_shore.prefab.json"
-    };
 
     private static BlockSelection cachedPrefab;
     private static boolean loadAttempted;
@@ -41,18 +33,29 @@ public class BattleTowerPrefabs {
         return cachedPrefab;
     }
 
+    /**
+     * Loads one of {@link BattleTowerPrefabInstaller#PREFAB_FILES} through the PrefabStore.
+     *
+     * @return the prefab, or {@code null} if the store isn't available yet or the file can't be loaded
+     */
+    static BlockSelection load(String prefabFile) {
+        PrefabStore store = PrefabStore.get();
+        if (store == null) {
+            return null;
+        }
+        return store.getPrefab(store.getServerPrefabsPath().resolve(BattleTowerPrefabInstaller.PREFAB_DIR + prefabFile));
+    }
+
     private static BlockSelection loadFromStore() {
         try {
-            PrefabStore store = PrefabStore.get();
-            if (store == null) {
+            if (PrefabStore.get() == null) {
                 LOGGER.atWarning().log("PrefabStore not available.");
                 return null;
             }
 
-            Path serverPrefabsPath = store.getServerPrefabsPath();
-            for (String prefabFile : TIER_PREFAB_FILES) {
+            for (String prefabFile : BattleTowerPrefabInstaller.PREFAB_FILES) {
                 try {
-                    BlockSelection prefab = store.getPrefab(serverPrefabsPath.resolve(prefabFile));
+                    BlockSelection prefab = load(prefabFile);
                     if (prefab != null) {
                         LOGGER.atInfo().log("Loaded battle tower prefab: %s (%d blocks)",
                                 prefabFile, prefab.getBlockCount());
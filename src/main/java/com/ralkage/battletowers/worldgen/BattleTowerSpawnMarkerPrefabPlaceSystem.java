@@ -23,7 +23,8 @@ import java.util.concurrent.ThreadLocalRandom;
  * Vanilla {@link SpawnMarkerEntity#spawnNPC} asserts that the marker entity has a UUIDComponent and will crash
  * the world thread if it's missing. Our battle tower prefabs include SpawnMarker entities but no UUIDComponent.
  *
- * Running at prefab entity placement time guarantees the UUID exists before SpawnMarkerSystems ticks.
+ * Running at prefab entity placement time guarantees the UUID exists before SpawnMarkerSystems ticks. Tower boss
+ * markers also record their tower's anchor and prefab placement here.
  */
 public final class BattleTowerSpawnMarkerPrefabPlaceSystem
         extends WorldEventSystem<EntityStore, PrefabPlaceEntityEvent> {
@@ -65,7 +66,9 @@ public final class BattleTowerSpawnMarkerPrefabPlaceSystem
             } catch (Exception ignored) {
             }
             if (world != null && t != null) {
-                BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, t.getPosition());
+                BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, t.getPosition(), markerId);
+                // The marker still carries the prefab's placeholder id and the paste's rotation here.
+                BattleTowerCollapse.recordBossMarkerPlacement(world, markerId, t.getPosition(), t.getRotation().getYaw());
             }
 
             // Randomize the boss marker to a real boss SpawnMarker asset (vanilla systems will spawn from this).
@@ -76,7 +79,10 @@ public final class BattleTowerSpawnMarkerPrefabPlaceSystem
                     if (chosenAsset != null) {
                         marker.setSpawnMarker(chosenAsset);
                         holder.putComponent(SpawnMarkerEntity.getComponentType(), marker);
-                        LOGGER.atInfo().log("Tower boss randomized: %s -> %s", markerId, chosen);
+                        if (world != null) {
+                            BattleTowerMetrics.increment(world.getName(), BattleTowerMetrics.Stat.BOSSES_RANDOMIZED);
+                        }
+                        LOGGER.atFine().log("Tower boss randomized: %s -> %s", markerId, chosen);
                     }
                 } catch (Exception ignored) {
                 }
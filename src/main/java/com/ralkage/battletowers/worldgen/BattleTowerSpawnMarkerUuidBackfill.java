@@ -25,6 +25,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  * Vanilla SpawnMarkerEntity.spawnNPC() asserts UUIDComponent is present; missing UUID will crash the world thread.
  * We fix existing markers at world load, and also on chunk pre-load processing for safety.
+ *
+ * Without a usable tower registry the world-load pass also registers every loaded tower boss marker, filling the
+ * registry; once a world has one its towers are restored from that instead, and the pass only adds the missing UUIDs.
  */
 public final class BattleTowerSpawnMarkerUuidBackfill {
 
@@ -49,16 +52,17 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
                 if (world == null) {
                     continue;
                 }
-                try {
-                    world.execute(() -> backfillWorld(world));
-                } catch (Exception ignored) {
-                }
+                // With a restored registry the towers are already tracked; the UUID fix still has to run.
+                boolean registerAnchors = !BattleTowerCollapse.restoreTowerAnchors(world);
+                // A backfill already pending for this world covers a repeated request.
+                BattleTowerWorldTasks.submitIfIdle(world, "marker-backfill", false,
+                        () -> backfillWorld(world, registerAnchors));
             }
         } catch (Exception ignored) {
         }
     }
 
-    private static void backfillWorld(World world) {
+    private static void backfillWorld(World world, boolean registerAnchors) {
         try {
             Store<EntityStore> store = world.getEntityStore().getStore();
 
@@ -75,6 +79,9 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
                     UUIDComponent generated = UUIDComponent.randomUUID();
                     commandBuffer.putComponent(ref, uuidType, generated);
                     fixed.incrementAndGet();
+                    if (!registerAnchors) {
+                        continue;
+                    }
 
                     try {
                         SpawnMarkerEntity marker = archetypeChunk.getComponent(i, markerType);
@@ -88,7 +95,7 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
 
                         TransformComponent t = archetypeChunk.getComponent(i, transformType);
                         if (t != null && generated.getUuid() != null) {
-                            BattleTowerCollapse.registerBossMarkerAnchor(world, generated.getUuid(), t.getPosition());
+                            BattleTowerCollapse.registerBossMarkerAnchor(world, generated.getUuid(), t.getPosition(), markerId);
                         }
                     } catch (Exception ignored) {
                     }
@@ -99,6 +106,38 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
             if (n > 0) {
                 LOGGER.atInfo().log("Backfilled UUIDComponent on %d SpawnMarker entities in world '%s'.", n, world.getName());
             }
+
+            if (registerAnchors) {
+                // One full pass over the markers that already have a UUID, so a new registry starts with every
+                // loaded tower rather than only the ones fixed above.
+                AtomicInteger registered = new AtomicInteger();
+                store.forEachChunk(Query.and(markerType, uuidType), (archetypeChunk, commandBuffer) -> {
+                    for (int i = 0; i < archetypeChunk.size(); i++) {
+                        try {
+                            SpawnMarkerEntity marker = archetypeChunk.getComponent(i, markerType);
+                            if (marker == null || !BattleTowerCollapse.isTowerBossSpawnMarkerId(marker.getSpawnMarkerId())) {
+                                continue;
+                            }
+                            UUIDComponent uuidComponent = archetypeChunk.getComponent(i, uuidType);
+                            UUID markerUuid = uuidComponent != null ? uuidComponent.getUuid() : null;
+                            if (markerUuid == null || BattleTowerCollapse.isBossMarkerAnchored(markerUuid)) {
+                                continue;
+                            }
+                            TransformComponent t = archetypeChunk.getComponent(i, transformType);
+                            if (t != null) {
+                                BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, t.getPosition(),
+                                        marker.getSpawnMarkerId());
+                                registered.incrementAndGet();
+                            }
+                        } catch (Exception ignored) {
+                        }
+                    }
+                });
+                if (registered.get() > 0) {
+                    LOGGER.atInfo().log("Registered %d loaded tower boss markers in world '%s'.",
+                            registered.get(), world.getName());
+                }
+            }
         } catch (Exception e) {
             LOGGER.atFine().log("SpawnMarker UUID backfill skipped for world '%s': %s",
                     world != null ? world.getName() : "null", e.getMessage());
@@ -139,12 +178,13 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
                             UUIDComponent uuidComponent = entityHolder.getComponent(uuidType);
                             String markerId = marker.getSpawnMarkerId();
                             if (uuidComponent != null && uuidComponent.getUuid() != null) {
-                                if (BattleTowerCollapse.isTowerBossSpawnMarkerId(markerId)) {
+                                if (BattleTowerCollapse.isTowerBossSpawnMarkerId(markerId)
+                                        && !BattleTowerCollapse.isBossMarkerAnchored(uuidComponent.getUuid())) {
                                     TransformComponent t = entityHolder.getComponent(transformType);
                                     Vector3d pos = t != null ? t.getPosition() : null;
                                     UUID markerUuid = uuidComponent.getUuid();
                                     if (pos != null && markerUuid != null) {
-                                        BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos);
+                                        BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos, markerId);
                                     }
                                 }
                                 continue;
@@ -163,7 +203,7 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
                                 Vector3d pos = t != null ? t.getPosition() : null;
                                 UUID markerUuid = generated.getUuid();
                                 if (pos != null && markerUuid != null) {
-                                    BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos);
+                                    BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos, markerId);
                                 }
                             }
                         }
@@ -187,12 +227,13 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
                             UUIDComponent uuidComponent = store.getComponent(ref, uuidType);
                             String markerId = marker.getSpawnMarkerId();
                             if (uuidComponent != null && uuidComponent.getUuid() != null) {
-                                if (BattleTowerCollapse.isTowerBossSpawnMarkerId(markerId)) {
+                                if (BattleTowerCollapse.isTowerBossSpawnMarkerId(markerId)
+                                        && !BattleTowerCollapse.isBossMarkerAnchored(uuidComponent.getUuid())) {
                                     TransformComponent t = store.getComponent(ref, transformType);
                                     Vector3d pos = t != null ? t.getPosition() : null;
                                     UUID markerUuid = uuidComponent.getUuid();
                                     if (pos != null && markerUuid != null) {
-                                        BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos);
+                                        BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos, markerId);
                                     }
                                 }
                                 continue;
@@ -207,7 +248,7 @@ public final class BattleTowerSpawnMarkerUuidBackfill {
                                 Vector3d pos = t != null ? t.getPosition() : null;
                                 UUID markerUuid = generated.getUuid();
                                 if (pos != null && markerUuid != null) {
-                                    BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos);
+                                    BattleTowerCollapse.registerBossMarkerAnchor(world, markerUuid, pos, markerId);
                                 }
                             }
                         } catch (Exception ignored) {
@@ -19,6 +19,7 @@ import com.hypixel.hytale.server.spawning.SpawningContext;
 import com.hypixel.hytale.server.spawning.spawnmarkers.SpawnMarkerEntity;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +40,7 @@ public final class BattleTowerSpawner {
     private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
     private static final long SCAN_INTERVAL_SECONDS = 5;
+    private static final String SCAN_TASK = "spawner-scan";
     private static volatile int activationRadiusChunks = 4; // ~64 blocks
 
     /** Tracks markers we've already spawned NPCs for, per-world (by marker entity ref hashCode). */
@@ -63,6 +65,10 @@ public final class BattleTowerSpawner {
         activationRadiusChunks = Math.max(1, (blocks + (ChunkUtil.SIZE - 1)) / ChunkUtil.SIZE);
     }
 
+    static int getActivationRadiusChunks() {
+        return activationRadiusChunks;
+    }
+
     public static void register(EventRegistry eventRegistry) {
         eventRegistry.registerGlobal(AllWorldsLoadedEvent.class, BattleTowerSpawner::onWorldsLoaded);
 
@@ -116,10 +122,8 @@ public final class BattleTowerSpawner {
                 if (world == null) {
                     continue;
                 }
-                try {
-                    world.execute(() -> processMarkers(world));
-                } catch (Exception ignored) {
-                }
+                // A scan still pending covers this one; an overloaded world skips scans until it catches up.
+                BattleTowerWorldTasks.submitIfIdle(world, SCAN_TASK, true, () -> processMarkers(world));
             }
         } catch (Exception e) {
             LOGGER.atFine().log("Spawner tick failed: %s", e.getMessage());
@@ -140,18 +144,22 @@ public final class BattleTowerSpawner {
             }
 
             // Collect chunk indexes near players
+            BattleTowerTrace trace = BattleTowerTrace.of(world.getName());
+            double[] playerPositions = trace != null ? new double[8] : null;
+            int players = 0;
             Set<Long> chunksToScan = new HashSet<>();
+            int r = activationRadiusChunks;
             for (var playerRef : world.getPlayerRefs()) {
                 try {
                     Vector3d pos = playerRef.getTransform().getPosition();
-                    int cx = ChunkUtil.chunkCoordinate((int) Math.floor(pos.getX()));
-                    int cz = ChunkUtil.chunkCoordinate((int) Math.floor(pos.getZ()));
-
-                    int r = activationRadiusChunks;
-                    for (int dx = -r; dx <= r; dx++) {
-                        for (int dz = -r; dz <= r; dz++) {
-                            chunksToScan.add(ChunkUtil.indexChunk(cx + dx, cz + dz));
+                    addChunksAround(chunksToScan, pos.getX(), pos.getZ(), r);
+                    if (playerPositions != null) {
+                        if (players * 2 == playerPositions.length) {
+                            playerPositions = Arrays.copyOf(playerPositions, playerPositions.length * 2);
                         }
+                        playerPositions[players * 2] = pos.getX();
+                        playerPositions[players * 2 + 1] = pos.getZ();
+                        players++;
                     }
                 } catch (Exception ignored) {
                 }
@@ -198,6 +206,14 @@ public final class BattleTowerSpawner {
                         }
 
                         int markerId = ref.hashCode();
+                        if (trace != null) {
+                            TransformComponent markerTransform = store.getComponent(ref, TransformComponent.getComponentType());
+                            if (markerTransform != null) {
+                                Vector3d p = markerTransform.getPosition();
+                                trace.marker(markerId, marker.getSpawnMarkerId(), p.getX(), p.getY(), p.getZ(),
+                                        activatedMarkers.contains(markerId));
+                            }
+                        }
                         if (activatedMarkers.contains(markerId)) {
                             continue;
                         }
@@ -213,7 +229,8 @@ public final class BattleTowerSpawner {
                             if (chosen != null && !chosen.isEmpty()) {
                                 npcTypeId = chosen;
                                 if (!markerNpcTypeId.equals(chosen)) {
-                                    LOGGER.atInfo().log("Tower boss randomized: %s -> %s", markerNpcTypeId, chosen);
+                                    BattleTowerMetrics.increment(world.getName(), BattleTowerMetrics.Stat.BOSSES_RANDOMIZED);
+                                    LOGGER.atFine().log("Tower boss randomized: %s -> %s", markerNpcTypeId, chosen);
                                 }
                             }
                         }
@@ -239,6 +256,10 @@ public final class BattleTowerSpawner {
                 }
             }
 
+            if (trace != null) {
+                trace.scan(System.nanoTime(), playerPositions, players);
+            }
+
             // Phase 2: Spawn NPCs (safe - not iterating entity refs anymore)
             int spawned = 0;
             for (PendingSpawn ps : pendingSpawns) {
@@ -252,9 +273,11 @@ public final class BattleTowerSpawner {
                             new Vector3f(0, 0, 0),
                              model,
                              (npc, npcRef, s) -> {
-                                 LOGGER.atInfo().log("Spawned %s at (%.1f, %.1f, %.1f) model=%s",
-                                         ps.npcTypeId, ps.position.getX(), ps.position.getY(), ps.position.getZ(),
-                                         model != null ? "resolved" : "null");
+                                 if (BattleTowerMetrics.sampled(world.getName(), BattleTowerMetrics.Stat.NPCS_SPAWNED)) {
+                                     LOGGER.atFine().log("Spawned %s at (%.1f, %.1f, %.1f) model=%s",
+                                             ps.npcTypeId, ps.position.getX(), ps.position.getY(), ps.position.getZ(),
+                                             model != null ? "resolved" : "null");
+                                 }
 
                                  if (BattleTowerCollapse.isBossNpcTypeId(ps.npcTypeId)) {
                                      BattleTowerCollapse.registerBossAnchor(world, s, npcRef, ps.position);
@@ -272,15 +295,26 @@ public final class BattleTowerSpawner {
                 }
             }
 
-            if (spawned > 0) {
-                LOGGER.atInfo().log("BattleTowerSpawner: spawned %d NPCs this tick.", spawned);
-            }
+            BattleTowerMetrics.add(world.getName(), BattleTowerMetrics.Stat.NPCS_SPAWNED, spawned);
         } catch (Exception e) {
             LOGGER.atWarning().log("processMarkers error: %s: %s",
                     e.getClass().getSimpleName(), e.getMessage());
         }
     }
 
+    /**
+     * Adds the index of every chunk within {@code radiusChunks} (a square) of the chunk holding (x, z).
+     */
+    static void addChunksAround(Set<Long> chunks, double x, double z, int radiusChunks) {
+        int cx = ChunkUtil.chunkCoordinate((int) Math.floor(x));
+        int cz = ChunkUtil.chunkCoordinate((int) Math.floor(z));
+        for (int dx = -radiusChunks; dx <= radiusChunks; dx++) {
+            for (int dz = -radiusChunks; dz <= radiusChunks; dz++) {
+                chunks.add(ChunkUtil.indexChunk(cx + dx, cz + dz));
+            }
+        }
+    }
+
     /**
      * Resolves the Model for an NPC role, matching what NPCSpawnCommand does internally.
      * The Model provides ModelComponent and PersistentModel - without it, NPCs are invisible.
@@ -0,0 +1,469 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * One-pass survey of the area around a tower anchor for collapses that have no prefab plan.
+ *
+ * Every column in the survey square is read once, top-down, until it reaches a block that is neither tower
+ * material, a container nor surface noise. That single walk yields the tower's top, its footprint (center/radius),
+ * the ground height around it, and a bitmap of every tower block above the ruin floor. The collapse then removes
+ * exactly those bits instead of rescanning the world for each layer and for the final sweeps.
+ *
+ * A foreign block only counts as natural ground at or below the ruin floor, which is known once every column has
+ * been read. Columns that stopped above it (player-placed dirt on a tower wall, a fluid, a hill inside the
+ * footprint) are read on down to the floor by {@link Scan#extend}, so tower blocks beneath them are still removed.
+ *
+ * Blocks are read through a {@link BattleTowerVoxelAccess}, so the survey runs the same on a live world, on an
+ * in-memory volume, and on a {@link BattleTowerSurveyCopy} taken on the world thread. Chunk columns are scanned
+ * independently and merged, so the copy can be surveyed in parallel ({@link #surveyAsync}).
+ */
+final class BattleTowerSurvey {
+
+    // Geometry uses the same square and layer thresholds the per-layer scan used.
+    private static final int GEOMETRY_SCAN_RADIUS = 24;
+    private static final int GEOMETRY_SCAN_LAYERS = 48;
+    private static final int GEOMETRY_MIN_LAYER_BLOCKS = 24;
+    private static final int GROUND_MIN_SAMPLES = 5;
+    // If no ground is found, prefer leaving a stump over digging into terrain.
+    private static final int NO_GROUND_MAX_DEPTH = 60;
+
+    record Result(BattleTowerCollapsePlan plan, int topY, int centerX, int centerZ, int radius, int groundY, long blocksRead) {
+    }
+
+    /**
+     * A completed column scan with the tower's geometry and ruin floor. Columns the scan left above the floor are
+     * read by {@link #extend} (on the world thread for a live world) before {@link #result} builds the plan.
+     */
+    static final class Scan {
+        private final Area area;
+        private final Partial all;
+        private final int topY;
+        private final int centerX;
+        private final int centerZ;
+        private final int radius;
+        private final int groundY;
+        private final int floorY;
+        // Columns, by survey column index, that stopped at a foreign block above the floor.
+        private final int[] pending;
+        private int nextPending;
+
+        private Scan(Area area, Partial all, int topY, int centerX, int centerZ, int radius, int groundY, int floorY,
+                     int[] pending) {
+            this.area = area;
+            this.all = all;
+            this.topY = topY;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.radius = radius;
+            this.groundY = groundY;
+            this.floorY = floorY;
+            this.pending = pending;
+        }
+
+        boolean isComplete() {
+            return nextPending == pending.length;
+        }
+
+        /**
+         * Reads pending columns below where the scan stopped, down to the ruin floor, until all are read or
+         * {@code deadlineNanos} passes; always reads at least one column. Foreign blocks are stepped over.
+         *
+         * @return {@code true} once every pending column has been read
+         */
+        boolean extend(BattleTowerVoxelAccess voxels, BattleTowerBlockClassTable classes, long deadlineNanos) {
+            int size = area.size;
+            int cachedChunkX = Integer.MIN_VALUE;
+            int cachedChunkZ = Integer.MIN_VALUE;
+            BattleTowerVoxelAccess.Column chunk = null;
+            boolean first = true;
+            while (nextPending < pending.length) {
+                if (!first && System.nanoTime() - deadlineNanos >= 0) {
+                    return false;
+                }
+                first = false;
+
+                int column = pending[nextPending++];
+                int x = area.minX + column % size;
+                int z = area.minZ + column / size;
+                int chunkX = ChunkUtil.chunkCoordinate(x);
+                int chunkZ = ChunkUtil.chunkCoordinate(z);
+                if (chunkX != cachedChunkX || chunkZ != cachedChunkZ) {
+                    chunk = voxels.column(chunkX, chunkZ);
+                    cachedChunkX = chunkX;
+                    cachedChunkZ = chunkZ;
+                }
+                if (chunk == null) {
+                    continue;
+                }
+                int localX = ChunkUtil.localCoordinate(x);
+                int localZ = ChunkUtil.localCoordinate(z);
+                for (int y = area.stopY[column] - 1; y >= floorY; y--) {
+                    int blockId = chunk.blockAt(localX, y, localZ);
+                    if (blockId == BattleTowerVoxelAccess.UNREADABLE) {
+                        continue;
+                    }
+                    int flags = classes.flags(blockId);
+                    all.blocksRead++;
+                    if ((flags & BattleTowerBlockClassTable.IMPLODABLE) != 0 || chunk.isContainer(localX, y, localZ)) {
+                        all.tower.set(((y - area.minY) * size + (z - area.minZ)) * size + (x - area.minX));
+                    }
+                }
+            }
+            return true;
+        }
+
+        Result result() {
+            BattleTowerCollapsePlan plan = cropPlan(all.tower, area.minX, area.minY, area.minZ, area.size, area.sizeY,
+                    centerX, centerZ, radius, topY, floorY);
+            return new Result(plan, topY, centerX, centerZ, radius, groundY, all.blocksRead);
+        }
+    }
+
+    private BattleTowerSurvey() {
+    }
+
+    /**
+     * Surveys columns within {@link BattleTowerCollapse#MAX_SWEEP_RADIUS} of the anchor between {@code minY} and
+     * {@code maxY}, including the {@link Scan#extend} pass. On a live world, must run on the world thread.
+     */
+    static Result survey(BattleTowerVoxelAccess voxels, BattleTowerBlockClassTable classes,
+                         int anchorX, int anchorZ, int maxY, int minY) {
+        Area area = new Area(anchorX, anchorZ, maxY, minY);
+        Partial all = new Partial(area);
+        for (int cx = area.firstChunkX(); cx <= area.lastChunkX(); cx++) {
+            for (int cz = area.firstChunkZ(); cz <= area.lastChunkZ(); cz++) {
+                scanChunk(area, all, voxels, classes, cx, cz);
+            }
+        }
+        Scan scan = finish(area, all);
+        while (!scan.extend(voxels, classes, System.nanoTime())) {
+            // extend reads at least one column per call.
+        }
+        return scan.result();
+    }
+
+    /**
+     * The column scan of {@link #survey} over a complete {@link BattleTowerSurveyCopy}, with each chunk column
+     * scanned as its own task on {@code executor} and the results merged there. Runs no world-thread code. The copy
+     * ends where each column's scan stopped, so the {@link Scan#extend} pass has to read the live world.
+     */
+    static CompletableFuture<Scan> surveyAsync(BattleTowerSurveyCopy copy, BattleTowerBlockClassTable classes,
+                                                 Executor executor) {
+        Area area = new Area(copy.anchorX, copy.anchorZ, copy.maxY, copy.minY);
+        List<CompletableFuture<Partial>> parts = new ArrayList<>();
+        for (int cx = area.firstChunkX(); cx <= area.lastChunkX(); cx++) {
+            for (int cz = area.firstChunkZ(); cz <= area.lastChunkZ(); cz++) {
+                int chunkX = cx;
+                int chunkZ = cz;
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    Partial part = new Partial(area);
+                    scanChunk(area, part, copy, classes, chunkX, chunkZ);
+                    return part;
+                }, executor));
+            }
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApplyAsync(_v -> {
+            Partial all = parts.get(0).join();
+            for (int i = 1; i < parts.size(); i++) {
+                all.merge(parts.get(i).join());
+            }
+            return finish(area, all);
+        }, executor);
+    }
+
+    /**
+     * The survey square and, per column, the ground height and where the scan stopped. Chunk columns write
+     * disjoint parts of {@code groundY} and {@code stopY}, so parallel scans can share them.
+     */
+    private static final class Area {
+        final int anchorX;
+        final int anchorZ;
+        final int maxY;
+        final int minY;
+        final int minX;
+        final int minZ;
+        final int size;
+        final int sizeY;
+        final int[] groundY;
+        // Height of the foreign block each column's scan stopped at, or MIN_VALUE if it reached minY.
+        final int[] stopY;
+
+        Area(int anchorX, int anchorZ, int maxY, int minY) {
+            int half = BattleTowerCollapse.MAX_SWEEP_RADIUS;
+            this.anchorX = anchorX;
+            this.anchorZ = anchorZ;
+            this.maxY = maxY;
+            this.minY = minY;
+            this.minX = anchorX - half;
+            this.minZ = anchorZ - half;
+            this.size = 2 * half + 1;
+            this.sizeY = Math.max(1, maxY - minY + 1);
+            this.groundY = new int[size * size];
+            Arrays.fill(groundY, Integer.MIN_VALUE);
+            this.stopY = new int[size * size];
+            Arrays.fill(stopY, Integer.MIN_VALUE);
+        }
+
+        int firstChunkX() {
+            return ChunkUtil.chunkCoordinate(minX);
+        }
+
+        int lastChunkX() {
+            return ChunkUtil.chunkCoordinate(minX + size - 1);
+        }
+
+        int firstChunkZ() {
+            return ChunkUtil.chunkCoordinate(minZ);
+        }
+
+        int lastChunkZ() {
+            return ChunkUtil.chunkCoordinate(minZ + size - 1);
+        }
+    }
+
+    /**
+     * What a scan of some chunk columns found: their tower blocks, the highest one near the anchor, and the
+     * per-layer footprint of recognizable tower material (for the center/radius estimate).
+     */
+    private static final class Partial {
+        final BitSet tower;
+        final int[] layerCount;
+        final int[] layerMinX;
+        final int[] layerMaxX;
+        final int[] layerMinZ;
+        final int[] layerMaxZ;
+        int topY = Integer.MIN_VALUE;
+        long blocksRead;
+
+        Partial(Area area) {
+            int sizeY = area.sizeY;
+            tower = new BitSet(area.size * area.size * sizeY);
+            layerCount = new int[sizeY];
+            layerMinX = new int[sizeY];
+            layerMaxX = new int[sizeY];
+            layerMinZ = new int[sizeY];
+            layerMaxZ = new int[sizeY];
+            Arrays.fill(layerMinX, Integer.MAX_VALUE);
+            Arrays.fill(layerMaxX, Integer.MIN_VALUE);
+            Arrays.fill(layerMinZ, Integer.MAX_VALUE);
+            Arrays.fill(layerMaxZ, Integer.MIN_VALUE);
+        }
+
+        void merge(Partial other) {
+            tower.or(other.tower);
+            for (int layer = 0; layer < layerCount.length; layer++) {
+                layerCount[layer] += other.layerCount[layer];
+                layerMinX[layer] = Math.min(layerMinX[layer], other.layerMinX[layer]);
+                layerMaxX[layer] = Math.max(layerMaxX[layer], other.layerMaxX[layer]);
+                layerMinZ[layer] = Math.min(layerMinZ[layer], other.layerMinZ[layer]);
+                layerMaxZ[layer] = Math.max(layerMaxZ[layer], other.layerMaxZ[layer]);
+            }
+            topY = Math.max(topY, other.topY);
+            blocksRead += other.blocksRead;
+        }
+    }
+
+    /**
+     * Reads the survey columns inside one chunk column top-down until the first foreign block.
+     */
+    private static void scanChunk(Area area, Partial part, BattleTowerVoxelAccess voxels, BattleTowerBlockClassTable classes,
+                                  int cx, int cz) {
+        int minX = area.minX;
+        int minZ = area.minZ;
+        int size = area.size;
+        int minY = area.minY;
+        int[] groundY = area.groundY;
+        int topScanRSq = BattleTowerCollapse.TOP_SCAN_RADIUS * BattleTowerCollapse.TOP_SCAN_RADIUS;
+
+        int chunkMinX = cx * ChunkUtil.SIZE;
+        int fromX = Math.max(minX, chunkMinX);
+        int toX = Math.min(minX + size - 1, chunkMinX + ChunkUtil.SIZE - 1);
+        int chunkMinZ = cz * ChunkUtil.SIZE;
+        int fromZ = Math.max(minZ, chunkMinZ);
+        int toZ = Math.min(minZ + size - 1, chunkMinZ + ChunkUtil.SIZE - 1);
+
+        BattleTowerVoxelAccess.Column chunk = voxels.column(cx, cz);
+        if (chunk == null) {
+            return;
+        }
+
+        for (int x = fromX; x <= toX; x++) {
+            int localX = ChunkUtil.localCoordinate(x);
+            int dx = x - area.anchorX;
+            for (int z = fromZ; z <= toZ; z++) {
+                int localZ = ChunkUtil.localCoordinate(z);
+                int dz = z - area.anchorZ;
+                int column = (z - minZ) * size + (x - minX);
+                boolean inTopScan = dx * dx + dz * dz <= topScanRSq;
+                boolean inGeometry = Math.abs(dx) <= GEOMETRY_SCAN_RADIUS && Math.abs(dz) <= GEOMETRY_SCAN_RADIUS;
+
+                for (int y = area.maxY; y >= minY; y--) {
+                    int blockId = chunk.blockAt(localX, y, localZ);
+                    if (blockId == BattleTowerVoxelAccess.UNREADABLE) {
+                        continue;
+                    }
+                    int flags = classes.flags(blockId);
+                    part.blocksRead++;
+                    if ((flags & BattleTowerBlockClassTable.EMPTY) != 0) {
+                        continue;
+                    }
+
+                    boolean noise = (flags & BattleTowerBlockClassTable.SURFACE_NOISE) != 0;
+                    if (!noise && groundY[column] == Integer.MIN_VALUE) {
+                        groundY[column] = y;
+                    }
+
+                    if ((flags & BattleTowerBlockClassTable.IMPLODABLE) == 0 && !chunk.isContainer(localX, y, localZ)) {
+                        if (noise) {
+                            continue;
+                        }
+                        // Natural ground if it is at or below the ruin floor; finish() decides once that is known.
+                        area.stopY[column] = y;
+                        break;
+                    }
+
+                    int layer = y - minY;
+                    part.tower.set((layer * size + (z - minZ)) * size + (x - minX));
+                    if (inTopScan && y > part.topY) {
+                        part.topY = y;
+                    }
+                    if (inGeometry) {
+                        part.layerCount[layer]++;
+                        if (x < part.layerMinX[layer]) part.layerMinX[layer] = x;
+                        if (x > part.layerMaxX[layer]) part.layerMaxX[layer] = x;
+                        if (z < part.layerMinZ[layer]) part.layerMinZ[layer] = z;
+                        if (z > part.layerMaxZ[layer]) part.layerMaxZ[layer] = z;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns the scanned columns into the tower's geometry and ruin floor, and lists the columns that stopped above
+     * the floor inside the final sweep circle.
+     */
+    private static Scan finish(Area area, Partial all) {
+        int minY = area.minY;
+        int topY = all.topY;
+        if (topY == Integer.MIN_VALUE) {
+            topY = area.maxY;
+        }
+        int[] layerCount = all.layerCount;
+
+        // Footprint: the first layer from the top with enough tower material, else the fullest layer seen.
+        int centerX = area.anchorX;
+        int centerZ = area.anchorZ;
+        int radius = BattleTowerCollapse.IMPLOSION_RADIUS;
+        int best = -1;
+        int stopY = Math.max(minY, topY - GEOMETRY_SCAN_LAYERS);
+        for (int y = topY; y >= stopY; y--) {
+            int layer = y - minY;
+            if (best < 0 || layerCount[layer] > layerCount[best]) {
+                best = layer;
+            }
+            if (layerCount[layer] >= GEOMETRY_MIN_LAYER_BLOCKS) {
+                break;
+            }
+        }
+        if (best >= 0 && layerCount[best] > 0) {
+            centerX = (all.layerMinX[best] + all.layerMaxX[best]) / 2;
+            centerZ = (all.layerMinZ[best] + all.layerMaxZ[best]) / 2;
+            int rx = Math.max(Math.abs(all.layerMaxX[best] - centerX), Math.abs(all.layerMinX[best] - centerX));
+            int rz = Math.max(Math.abs(all.layerMaxZ[best] - centerZ), Math.abs(all.layerMinZ[best] - centerZ));
+            radius = Math.max(BattleTowerCollapse.IMPLOSION_RADIUS, Math.max(rx, rz) + 3);
+            radius = Math.min(BattleTowerCollapse.MAX_SWEEP_RADIUS, radius);
+        }
+
+        int ground = medianGroundY(area.groundY, area.minX, area.minZ, area.size, centerX, centerZ, radius, topY);
+        int floorY;
+        if (ground == Integer.MIN_VALUE) {
+            floorY = Math.max(minY, topY - NO_GROUND_MAX_DEPTH);
+        } else {
+            floorY = Math.max(minY, Math.min(topY, ground + BattleTowerCollapse.RUIN_PRESERVE_LAYERS));
+        }
+
+        int sweepRadius = Math.min(BattleTowerCollapse.MAX_SWEEP_RADIUS, radius + BattleTowerCollapse.FINAL_SWEEP_EXTRA_RADIUS);
+        int sweepRSq = sweepRadius * sweepRadius;
+        int size = area.size;
+        int[] pending = new int[size * size];
+        int pendingCount = 0;
+        for (int column = 0; column < size * size; column++) {
+            int dx = area.minX + column % size - centerX;
+            int dz = area.minZ + column / size - centerZ;
+            if (area.stopY[column] > floorY && dx * dx + dz * dz <= sweepRSq) {
+                pending[pendingCount++] = column;
+            }
+        }
+        return new Scan(area, all, topY, centerX, centerZ, radius, ground, floorY, Arrays.copyOf(pending, pendingCount));
+    }
+
+    /**
+     * Median ground height sampled on two rings just outside the tower footprint.
+     */
+    private static int medianGroundY(int[] groundY, int minX, int minZ, int size,
+                                     int centerX, int centerZ, int towerRadius, int topY) {
+        int r0 = Math.max(BattleTowerCollapse.IMPLOSION_RADIUS, towerRadius);
+        int[] samples = new int[32];
+        int count = 0;
+        for (int r : new int[]{r0 + 3, r0 + 6}) {
+            int half = Math.max(1, r / 2);
+            int[][] offsets = {
+                    {r, 0}, {-r, 0}, {0, r}, {0, -r},
+                    {r, r}, {-r, r}, {r, -r}, {-r, -r},
+                    {r, half}, {r, -half}, {-r, half}, {-r, -half},
+                    {half, r}, {-half, r}, {half, -r}, {-half, -r},
+            };
+            for (int[] o : offsets) {
+                int lx = centerX + o[0] - minX;
+                int lz = centerZ + o[1] - minZ;
+                if (lx < 0 || lz < 0 || lx >= size || lz >= size) {
+                    continue;
+                }
+                int y = groundY[lz * size + lx];
+                if (y != Integer.MIN_VALUE && y <= topY) {
+                    samples[count++] = y;
+                }
+            }
+        }
+        if (count < GROUND_MIN_SAMPLES) {
+            return Integer.MIN_VALUE;
+        }
+        Arrays.sort(samples, 0, count);
+        return samples[count / 2];
+    }
+
+    /**
+     * Keeps the surveyed tower blocks from {@code floorY} to {@code topY} inside the final sweep circle.
+     */
+    private static BattleTowerCollapsePlan cropPlan(BitSet tower, int minX, int minY, int minZ, int size, int sizeY,
+                                                    int centerX, int centerZ, int towerRadius, int topY, int floorY) {
+        int sweepRadius = Math.min(BattleTowerCollapse.MAX_SWEEP_RADIUS, towerRadius + BattleTowerCollapse.FINAL_SWEEP_EXTRA_RADIUS);
+        int sweepRSq = sweepRadius * sweepRadius;
+        int layerSize = size * size;
+        int fromLayer = Math.max(0, floorY - minY);
+        int toLayer = Math.min(sizeY - 1, topY - minY);
+        int planSizeY = Math.max(1, toLayer - fromLayer + 1);
+
+        BitSet blocks = new BitSet(layerSize * planSizeY);
+        if (toLayer >= fromLayer) {
+            int end = (toLayer + 1) * layerSize;
+            for (int i = tower.nextSetBit(fromLayer * layerSize); i >= 0 && i < end; i = tower.nextSetBit(i + 1)) {
+                int dx = minX + i % size - centerX;
+                int dz = minZ + (i / size) % size - centerZ;
+                if (dx * dx + dz * dz <= sweepRSq) {
+                    blocks.set(i - fromLayer * layerSize);
+                }
+            }
+        }
+        return BattleTowerCollapsePlan.fromOccupancy(minX, minY + fromLayer, minZ, size, planSizeY, size, blocks, floorY);
+    }
+}
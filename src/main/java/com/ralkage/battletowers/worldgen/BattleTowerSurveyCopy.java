@@ -0,0 +1,175 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Copy of exactly the blocks a {@link BattleTowerSurvey} reads, so the survey can run off the world thread.
+ *
+ * Each column of the survey square is copied top-down until the survey would stop in it (its first foreign block), along
+ * with which of the copied blocks are containers, since block states can only be checked on the world thread.
+ * {@link #copy} is resumable, so the copy can be spread over several ticks within a time budget. Once
+ * {@link #isComplete() complete} it is never written again and may be read from any number of threads.
+ *
+ * Reads of positions that were not copied (below where the survey stops, or in chunks that weren't loaded)
+ * return {@link BattleTowerVoxelAccess#UNREADABLE}.
+ */
+final class BattleTowerSurveyCopy implements BattleTowerVoxelAccess {
+
+    final int anchorX;
+    final int anchorZ;
+    final int maxY;
+    final int minY;
+    private final int minX;
+    private final int minZ;
+    private final int size;
+    // Per survey column: where its blocks start in {@link #blocks} (-1 until copied or if unloaded), and how many.
+    private final int[] start;
+    private final int[] length;
+    private int[] blocks = new int[16 * 1024];
+    private int used;
+    private final BitSet containers = new BitSet();
+    private int next;
+    private long blocksCopied;
+
+    /**
+     * Covers the survey square of {@link BattleTowerSurvey#survey} for the same arguments.
+     */
+    BattleTowerSurveyCopy(int anchorX, int anchorZ, int maxY, int minY) {
+        int half = BattleTowerCollapse.MAX_SWEEP_RADIUS;
+        this.anchorX = anchorX;
+        this.anchorZ = anchorZ;
+        this.maxY = maxY;
+        this.minY = minY;
+        this.minX = anchorX - half;
+        this.minZ = anchorZ - half;
+        this.size = 2 * half + 1;
+        this.start = new int[size * size];
+        this.length = new int[size * size];
+        Arrays.fill(start, -1);
+    }
+
+    boolean isComplete() {
+        return next == size * size;
+    }
+
+    long blocksCopied() {
+        return blocksCopied;
+    }
+
+    /**
+     * Copies columns from {@code live} until all are copied or {@code deadlineNanos} passes; always copies at least
+     * one column. On a live world, must run on the world thread.
+     *
+     * @return {@code true} once the copy is complete
+     */
+    boolean copy(BattleTowerVoxelAccess live, BattleTowerBlockClassTable classes, long deadlineNanos) {
+        int cachedChunkX = Integer.MIN_VALUE;
+        int cachedChunkZ = Integer.MIN_VALUE;
+        Column chunk = null;
+        boolean first = true;
+        while (next < size * size) {
+            if (!first && System.nanoTime() - deadlineNanos >= 0) {
+                return false;
+            }
+            first = false;
+
+            int column = next++;
+            int x = minX + column % size;
+            int z = minZ + column / size;
+            int chunkX = ChunkUtil.chunkCoordinate(x);
+            int chunkZ = ChunkUtil.chunkCoordinate(z);
+            if (chunkX != cachedChunkX || chunkZ != cachedChunkZ) {
+                chunk = live.column(chunkX, chunkZ);
+                cachedChunkX = chunkX;
+                cachedChunkZ = chunkZ;
+            }
+            if (chunk != null) {
+                copyColumn(chunk, classes, column, ChunkUtil.localCoordinate(x), ChunkUtil.localCoordinate(z));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The same top-down walk as the survey's, keeping every block it reads.
+     */
+    private void copyColumn(Column chunk, BattleTowerBlockClassTable classes, int column, int localX, int localZ) {
+        start[column] = used;
+        for (int y = maxY; y >= minY; y--) {
+            int blockId = chunk.blockAt(localX, y, localZ);
+            append(blockId);
+            if (blockId == UNREADABLE) {
+                continue;
+            }
+            int flags = classes.flags(blockId);
+            if ((flags & BattleTowerBlockClassTable.EMPTY) != 0 || (flags & BattleTowerBlockClassTable.IMPLODABLE) != 0) {
+                continue;
+            }
+            if (chunk.isContainer(localX, y, localZ)) {
+                containers.set(used - 1);
+                continue;
+            }
+            if ((flags & BattleTowerBlockClassTable.SURFACE_NOISE) == 0) {
+                break;
+            }
+        }
+        length[column] = used - start[column];
+        blocksCopied += length[column];
+    }
+
+    private void append(int blockId) {
+        if (used == blocks.length) {
+            blocks = Arrays.copyOf(blocks, used * 2);
+        }
+        blocks[used++] = blockId;
+    }
+
+    /**
+     * Index into {@link #blocks} of a position, or -1 if it wasn't copied.
+     */
+    private int indexOf(int x, int y, int z) {
+        int lx = x - minX;
+        int lz = z - minZ;
+        if (lx < 0 || lz < 0 || lx >= size || lz >= size || y > maxY) {
+            return -1;
+        }
+        int column = lz * size + lx;
+        int depth = maxY - y;
+        return start[column] < 0 || depth >= length[column] ? -1 : start[column] + depth;
+    }
+
+    @Override
+    public Column column(int chunkX, int chunkZ) {
+        return new CopyColumn(chunkX * ChunkUtil.SIZE, chunkZ * ChunkUtil.SIZE);
+    }
+
+    private final class CopyColumn implements Column {
+        private final int baseX;
+        private final int baseZ;
+
+        CopyColumn(int baseX, int baseZ) {
+            this.baseX = baseX;
+            this.baseZ = baseZ;
+        }
+
+        @Override
+        public int blockAt(int localX, int y, int localZ) {
+            int index = indexOf(baseX + localX, y, baseZ + localZ);
+            return index < 0 ? UNREADABLE : blocks[index];
+        }
+
+        @Override
+        public boolean isContainer(int localX, int y, int localZ) {
+            int index = indexOf(baseX + localX, y, baseZ + localZ);
+            return index >= 0 && containers.get(index);
+        }
+
+        @Override
+        public void clear(int localX, int y, int localZ, int blockId, int planIndex) {
+            throw new UnsupportedOperationException("survey copies are read-only");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Spatial index over the known tower anchors, so chest clicks and {@code /battletowers delay} only look at towers
+ * near the query point instead of every tower ever seen.
+ *
+ * Anchors are bucketed per world into square regions of {@link #REGION_SIZE} blocks, keyed by the packed region
+ * coordinates. A radius query visits only the regions its bounding square overlaps; for a radius wider than the
+ * populated part of the world it walks the populated regions instead, whichever is fewer.
+ *
+ * Thread-safe; updated from both the world threads and the collapse scheduler.
+ */
+final class BattleTowerTowerIndex {
+
+    private static final int REGION_SHIFT = 6;
+    static final int REGION_SIZE = 1 << REGION_SHIFT;
+
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, Set<BattleTowerCollapse.TowerKey>>> worlds =
+            new ConcurrentHashMap<>();
+
+    void add(BattleTowerCollapse.TowerKey key) {
+        var regions = worlds.computeIfAbsent(key.worldName(), _w -> new ConcurrentHashMap<>());
+        regions.compute(regionKey(key.x(), key.z()), (_r, set) -> {
+            if (set == null) {
+                set = ConcurrentHashMap.newKeySet();
+            }
+            set.add(key);
+            return set;
+        });
+    }
+
+    void remove(BattleTowerCollapse.TowerKey key) {
+        var regions = worlds.get(key.worldName());
+        if (regions == null) {
+            return;
+        }
+        // Empty regions are dropped so wide queries never walk stale buckets.
+        regions.computeIfPresent(regionKey(key.x(), key.z()), (_r, set) -> {
+            set.remove(key);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    void clear() {
+        worlds.clear();
+    }
+
+    /**
+     * True if any anchor within {@code radius} blocks (horizontally) of (x, z) passes {@code filter}.
+     */
+    boolean anyWithin(String worldName, int x, int z, int radius, Predicate<BattleTowerCollapse.TowerKey> filter) {
+        return nearest(worldName, x, z, radius, filter, true) != null;
+    }
+
+    /**
+     * The anchor closest to (x, z) horizontally, within {@code radius} blocks, that passes {@code filter};
+     * or {@code null}.
+     */
+    BattleTowerCollapse.TowerKey nearest(String worldName, int x, int z, int radius,
+                                         Predicate<BattleTowerCollapse.TowerKey> filter) {
+        return nearest(worldName, x, z, radius, filter, false);
+    }
+
+    private BattleTowerCollapse.TowerKey nearest(String worldName, int x, int z, int radius,
+                                                 Predicate<BattleTowerCollapse.TowerKey> filter, boolean firstMatch) {
+        var regions = worldName == null ? null : worlds.get(worldName);
+        if (regions == null || regions.isEmpty()) {
+            return null;
+        }
+
+        int r = Math.max(0, radius);
+        long radiusSq = (long) r * r;
+        int minRx = (x - r) >> REGION_SHIFT;
+        int maxRx = (x + r) >> REGION_SHIFT;
+        int minRz = (z - r) >> REGION_SHIFT;
+        int maxRz = (z + r) >> REGION_SHIFT;
+        long span = (long) (maxRx - minRx + 1) * (maxRz - minRz + 1);
+
+        Best best = new Best();
+        if (span <= regions.size()) {
+            for (int rx = minRx; rx <= maxRx; rx++) {
+                for (int rz = minRz; rz <= maxRz; rz++) {
+                    Set<BattleTowerCollapse.TowerKey> set = regions.get(pack(rx, rz));
+                    if (set != null && scan(set, x, z, radiusSq, filter, best) && firstMatch) {
+                        return best.key;
+                    }
+                }
+            }
+        } else {
+            for (Set<BattleTowerCollapse.TowerKey> set : regions.values()) {
+                if (scan(set, x, z, radiusSq, filter, best) && firstMatch) {
+                    return best.key;
+                }
+            }
+        }
+        return best.key;
+    }
+
+    /**
+     * @return {@code true} if {@code best} was improved
+     */
+    private static boolean scan(Collection<BattleTowerCollapse.TowerKey> keys, int x, int z, long radiusSq,
+                                Predicate<BattleTowerCollapse.TowerKey> filter, Best best) {
+        boolean improved = false;
+        for (BattleTowerCollapse.TowerKey key : keys) {
+            long dx = key.x() - x;
+            long dz = key.z() - z;
+            long distSq = dx * dx + dz * dz;
+            if (distSq > radiusSq || distSq >= best.distSq) {
+                continue;
+            }
+            if (filter != null && !filter.test(key)) {
+                continue;
+            }
+            best.key = key;
+            best.distSq = distSq;
+            improved = true;
+        }
+        return improved;
+    }
+
+    private static long regionKey(int x, int z) {
+        return pack(x >> REGION_SHIFT, z >> REGION_SHIFT);
+    }
+
+    private static long pack(int rx, int rz) {
+        return ((long) rx << 32) | (rz & 0xFFFFFFFFL);
+    }
+
+    private static final class Best {
+        BattleTowerCollapse.TowerKey key;
+        long distSq = Long.MAX_VALUE;
+    }
+}
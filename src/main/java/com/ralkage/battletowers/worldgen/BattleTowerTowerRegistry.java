@@ -0,0 +1,381 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-disk list of a world's towers, so their boss anchors are known at startup without scanning every spawn
+ * marker.
+ *
+ * Towers are added as their boss markers are seen: a full pass over the loaded markers when the registry is
+ * created, then as chunks load. A tower whose chunks have not loaded since the registry was created is not in it
+ * until they do.
+ *
+ * The file is memory-mapped and holds fixed-width {@value #RECORD_SIZE}-byte records: packed position, boss marker
+ * UUID, tier, {@link #PLACED}/{@link #COLLAPSING}/{@link #COLLAPSED} state, and the prefab placement: prefab id
+ * hash (0 while the prefab isn't known), rotation (-1 while the placement isn't known) and origin. Records are sorted
+ * by packed position for binary search, except for a short unsorted tail of towers added since the last merge; the
+ * tail is merged once it reaches {@link #TAIL_LIMIT} records.
+ * Updates write the mapped record in place, so the OS persists them without an explicit write.
+ *
+ * A file with a bad header is ignored and rebuilt from the marker scan it replaces.
+ */
+final class BattleTowerTowerRegistry {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final int MAGIC = 0x42545452; // "BTTR"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 56;
+    static final int TAIL_LIMIT = 64;
+    private static final int INITIAL_CAPACITY = 256;
+
+    static final int PLACED = 0;
+    static final int COLLAPSING = 1;
+    static final int COLLAPSED = 2;
+
+    // Record layout.
+    private static final int POS = 0;
+    private static final int UUID_MSB = 8;
+    private static final int UUID_LSB = 16;
+    private static final int TIER = 24;
+    private static final int STATE = 28;
+    private static final int PREFAB = 32;
+    private static final int ROTATION = 36;
+    private static final int ORIGIN_X = 40;
+    private static final int ORIGIN_Y = 44;
+    private static final int ORIGIN_Z = 48;
+
+    private static final ConcurrentHashMap<String, BattleTowerTowerRegistry> REGISTRIES = new ConcurrentHashMap<>();
+    private static volatile Path directory;
+
+    record Tower(int x, int y, int z, UUID markerUuid, int tier, int state,
+                 int prefabIdHash, int rotation, int originX, int originY, int originZ) {
+
+        boolean hasPlacement() {
+            return rotation >= 0;
+        }
+    }
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int capacity;
+    private int sortedCount;
+    private int tailCount;
+    // True if the file was missing or unreadable, i.e. its towers still have to be found by scanning.
+    private boolean rebuilt;
+    private boolean failed;
+
+    private BattleTowerTowerRegistry(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Where registries are kept; {@code null} turns them off.
+     */
+    static void setDirectory(Path dir) {
+        directory = dir;
+    }
+
+    /**
+     * The world's registry, opened on first use, or {@code null} when registries are off or the file can't be opened.
+     */
+    static BattleTowerTowerRegistry of(String worldName) {
+        Path dir = directory;
+        if (dir == null || worldName == null) {
+            return null;
+        }
+        BattleTowerTowerRegistry registry = REGISTRIES.computeIfAbsent(worldName,
+                name -> new BattleTowerTowerRegistry(dir.resolve(BattleTowerCollapse.worldFileName(name) + ".towers")));
+        synchronized (registry) {
+            if (registry.map == null && !registry.failed) {
+                registry.open();
+            }
+            return registry.failed ? null : registry;
+        }
+    }
+
+    static void closeAll() {
+        for (BattleTowerTowerRegistry registry : REGISTRIES.values()) {
+            registry.close();
+        }
+        REGISTRIES.clear();
+    }
+
+    /**
+     * Packs a block position into the registry's sort key: x and z in 26 bits, y in 12 bits, all signed.
+     */
+    static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    static int unpackX(long pos) {
+        return (int) (pos >> 38);
+    }
+
+    static int unpackY(long pos) {
+        return (int) (pos << 52 >> 52);
+    }
+
+    static int unpackZ(long pos) {
+        return (int) (pos << 26 >> 38);
+    }
+
+    /**
+     * True if the registry started empty because its file was missing or unreadable.
+     */
+    synchronized boolean wasRebuilt() {
+        return rebuilt;
+    }
+
+    synchronized int size() {
+        return sortedCount + tailCount;
+    }
+
+    synchronized List<Tower> towers() {
+        List<Tower> out = new ArrayList<>(sortedCount + tailCount);
+        for (int i = 0; i < sortedCount + tailCount; i++) {
+            out.add(read(i));
+        }
+        return out;
+    }
+
+    synchronized Tower find(int x, int y, int z) {
+        int index = indexOf(pack(x, y, z));
+        return index >= 0 ? read(index) : null;
+    }
+
+    /**
+     * Records the boss marker of a tower. A tower already registered at this position only has its UUID and
+     * tier updated (and only if they changed), so re-registering a known tower doesn't touch the file.
+     */
+    synchronized void putMarker(int x, int y, int z, UUID markerUuid, int tier) {
+        if (failed) {
+            return;
+        }
+        long pos = pack(x, y, z);
+        int index = indexOf(pos);
+        if (index >= 0) {
+            int at = offset(index);
+            if (map.getLong(at + UUID_MSB) != markerUuid.getMostSignificantBits()
+                    || map.getLong(at + UUID_LSB) != markerUuid.getLeastSignificantBits()) {
+                map.putLong(at + UUID_MSB, markerUuid.getMostSignificantBits());
+                map.putLong(at + UUID_LSB, markerUuid.getLeastSignificantBits());
+            }
+            if (tier > 0 && map.getInt(at + TIER) != tier) {
+                map.putInt(at + TIER, tier);
+            }
+            return;
+        }
+
+        if (sortedCount + tailCount >= capacity && !grow()) {
+            return;
+        }
+        int at = offset(sortedCount + tailCount);
+        map.putLong(at + POS, pos);
+        map.putLong(at + UUID_MSB, markerUuid.getMostSignificantBits());
+        map.putLong(at + UUID_LSB, markerUuid.getLeastSignificantBits());
+        map.putInt(at + TIER, Math.max(0, tier));
+        map.putInt(at + STATE, PLACED);
+        map.putInt(at + PREFAB, 0);
+        map.putInt(at + ROTATION, -1);
+        map.putInt(at + ORIGIN_X, 0);
+        map.putInt(at + ORIGIN_Y, 0);
+        map.putInt(at + ORIGIN_Z, 0);
+        map.putInt(at + ORIGIN_Z + 4, 0);
+        tailCount++;
+        writeCounts();
+        if (tailCount >= TAIL_LIMIT) {
+            merge();
+        }
+    }
+
+    synchronized void setState(int x, int y, int z, int state) {
+        int index = failed ? -1 : indexOf(pack(x, y, z));
+        if (index >= 0) {
+            map.putInt(offset(index) + STATE, state);
+        }
+    }
+
+    /**
+     * Records where the tower's prefab was placed.
+     *
+     * @param prefabIdHash the prefab's id hash, or 0 if only the rotation and origin are known
+     */
+    synchronized void setPlacement(int x, int y, int z, int prefabIdHash, int rotation, int originX, int originY, int originZ) {
+        int index = failed ? -1 : indexOf(pack(x, y, z));
+        if (index >= 0) {
+            int at = offset(index);
+            map.putInt(at + PREFAB, prefabIdHash);
+            map.putInt(at + ROTATION, rotation);
+            map.putInt(at + ORIGIN_X, originX);
+            map.putInt(at + ORIGIN_Y, originY);
+            map.putInt(at + ORIGIN_Z, originZ);
+        }
+    }
+
+    private int indexOf(long pos) {
+        if (map == null) {
+            return -1;
+        }
+        int lo = 0;
+        int hi = sortedCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long at = map.getLong(offset(mid) + POS);
+            if (at < pos) {
+                lo = mid + 1;
+            } else if (at > pos) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        for (int i = sortedCount; i < sortedCount + tailCount; i++) {
+            if (map.getLong(offset(i) + POS) == pos) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Tower read(int index) {
+        int at = offset(index);
+        long pos = map.getLong(at + POS);
+        UUID uuid = new UUID(map.getLong(at + UUID_MSB), map.getLong(at + UUID_LSB));
+        return new Tower(unpackX(pos), unpackY(pos), unpackZ(pos), uuid,
+                map.getInt(at + TIER), map.getInt(at + STATE), map.getInt(at + PREFAB), map.getInt(at + ROTATION),
+                map.getInt(at + ORIGIN_X), map.getInt(at + ORIGIN_Y), map.getInt(at + ORIGIN_Z));
+    }
+
+    private static int offset(int index) {
+        return HEADER_SIZE + index * RECORD_SIZE;
+    }
+
+    /**
+     * Sorts the tail into the sorted region. Records are moved as whole byte blocks.
+     */
+    private void merge() {
+        int count = sortedCount + tailCount;
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = map.getLong(offset(i) + POS);
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+
+        byte[] records = new byte[count * RECORD_SIZE];
+        map.get(HEADER_SIZE, records);
+        byte[] sorted = new byte[records.length];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(records, order[i] * RECORD_SIZE, sorted, i * RECORD_SIZE, RECORD_SIZE);
+        }
+        map.put(HEADER_SIZE, sorted);
+        sortedCount = count;
+        tailCount = 0;
+        writeCounts();
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(file.getParent());
+            boolean existed = Files.exists(file);
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            int storedSorted = 0;
+            int storedTail = 0;
+            boolean valid = false;
+            boolean outdated = false;
+            if (existed && size >= HEADER_SIZE) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                header.order(ByteOrder.LITTLE_ENDIAN);
+                storedSorted = header.getInt(8);
+                storedTail = header.getInt(12);
+                outdated = header.getInt(0) == MAGIC && header.getInt(4) < VERSION;
+                valid = header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                        && storedSorted >= 0 && storedTail >= 0
+                        && HEADER_SIZE + (long) (storedSorted + storedTail) * RECORD_SIZE <= size;
+            }
+            if (outdated) {
+                LOGGER.atInfo().log("Tower registry %s is from an older version; it will be rebuilt.", file);
+            } else if (!valid && existed && size > 0) {
+                LOGGER.atWarning().log("Tower registry %s is unreadable; it will be rebuilt.", file);
+            }
+
+            int records = valid ? storedSorted + storedTail : 0;
+            capacity = (int) Math.max(INITIAL_CAPACITY, Math.max(records, (size - HEADER_SIZE) / RECORD_SIZE));
+            mapCapacity();
+            if (valid) {
+                sortedCount = storedSorted;
+                tailCount = storedTail;
+            } else {
+                sortedCount = 0;
+                tailCount = 0;
+                map.putInt(0, MAGIC);
+                map.putInt(4, VERSION);
+                writeCounts();
+                rebuilt = true;
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            LOGGER.atWarning().log("Tower registry %s unavailable: %s", file, e.getMessage());
+        }
+    }
+
+    private boolean grow() {
+        try {
+            capacity *= 2;
+            mapCapacity();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            LOGGER.atWarning().log("Tower registry %s could not grow: %s", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private void mapCapacity() throws IOException {
+        // Mapping past the end of the file extends it.
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void writeCounts() {
+        map.putInt(8, sortedCount);
+        map.putInt(12, tailCount);
+    }
+
+    private synchronized void close() {
+        try {
+            if (map != null) {
+                map.force();
+            }
+        } catch (Exception ignored) {
+        }
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (Exception ignored) {
+        }
+        map = null;
+        channel = null;
+    }
+}
@@ -0,0 +1,436 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Opt-in recording of what drives a world's tower subsystems, for replaying real workloads offline: player
+ * positions at each spawner scan and the markers it finds, boss deaths, collapses entering the queue, collapse
+ * ticks, and every block a collapse reads.
+ *
+ * One file per world and server run. After a header (magic, version, world name, the collapse and spawner
+ * settings) come variable-length events: a type byte, then unsigned or zigzag varints. Timed events carry the
+ * nanoseconds since the previous timed event; positions are in 1/16 blocks. Block reads carry their position as a
+ * delta from the previous read and the block's index; each index is named by a {@link #BLOCK_NAME} event before
+ * its first read, since indexes differ between servers.
+ *
+ * Events are encoded into memory on the calling thread and written out in {@value #FLUSH_BYTES}-byte chunks on a
+ * background thread. Recording stops once a trace reaches its size limit.
+ */
+final class BattleTowerTrace {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    static final int MAGIC = 0x42545443; // "BTTC"
+    static final int VERSION = 1;
+
+    // Timed: players at a scan, after the markers that scan found.
+    static final int SCAN = 1;
+    // Untimed: a spawn marker seen by a scan for the first time.
+    static final int MARKER = 2;
+    static final int BOSS_DEATH = 3;
+    static final int ENQUEUE = 4;
+    static final int COLLAPSE_TICK = 5;
+    static final int BLOCK_NAME = 6;
+    static final int READ = 7;
+    static final int CONTAINER = 8;
+
+    private static final int FLUSH_BYTES = 64 * 1024;
+
+    private static final ConcurrentHashMap<String, BattleTowerTrace> TRACES = new ConcurrentHashMap<>();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "BattleTower-Trace");
+        t.setDaemon(true);
+        return t;
+    });
+    private static volatile Path directory;
+    private static volatile boolean enabled;
+    private static volatile long maxBytes = 256L * 1024 * 1024;
+
+    private final Path file;
+    private byte[] buffer = new byte[FLUSH_BYTES + 1024];
+    private int length;
+    private long written;
+    private long lastNanos;
+    private boolean timed;
+    private int lastX;
+    private int lastY;
+    private int lastZ;
+    private final BitSet namedBlocks = new BitSet();
+    private final Set<Integer> seenMarkers = new HashSet<>();
+    private FileChannel channel;
+    // Also set by the writer thread on a write error.
+    private volatile boolean stopped;
+
+    private BattleTowerTrace(String worldName, Path file) {
+        this.file = file;
+        writeInt(MAGIC);
+        writeVar(VERSION);
+        writeString(worldName);
+        writeVar(System.currentTimeMillis());
+        writeVar(BattleTowerCollapse.getImplosionTickMs());
+        writeVar(BattleTowerCollapse.getImplosionTargetSeconds());
+        writeVar(BattleTowerCollapse.getImplosionTickBudgetMicros());
+        writeVar(BattleTowerCollapse.getMaxActivePerWorld());
+        writeVar(BattleTowerCollapse.getCollapseDelaySeconds());
+        writeVar(BattleTowerCollapse.isPrefabPlanEnabled() ? 1 : 0);
+        writeVar(BattleTowerSpawner.getActivationRadiusChunks());
+    }
+
+    /**
+     * Where traces are kept; {@code null} turns tracing off.
+     */
+    static void setDirectory(Path dir) {
+        directory = dir;
+    }
+
+    static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    static void setMaxMegabytes(int megabytes) {
+        maxBytes = Math.max(1, megabytes) * 1024L * 1024L;
+    }
+
+    /**
+     * The world's trace, or {@code null} when tracing is off.
+     */
+    static BattleTowerTrace of(String worldName) {
+        Path dir = directory;
+        if (!enabled || dir == null || worldName == null) {
+            return null;
+        }
+        return TRACES.computeIfAbsent(worldName, name -> new BattleTowerTrace(name,
+                dir.resolve(BattleTowerCollapse.worldFileName(name) + "-" + System.currentTimeMillis() + ".bttrace")));
+    }
+
+    /**
+     * Writes out and closes every trace, waiting briefly for the writer thread to finish.
+     */
+    static void closeAll() {
+        for (BattleTowerTrace trace : TRACES.values()) {
+            trace.close();
+        }
+        TRACES.clear();
+        try {
+            WRITER.submit(() -> {
+            }).get(5, TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * {@code voxels} with every block read recorded to the world's trace, or {@code voxels} itself when tracing
+     * is off.
+     */
+    static BattleTowerVoxelAccess recording(String worldName, BattleTowerVoxelAccess voxels) {
+        return recording(worldName, voxels, BattleTowerTrace::assetName);
+    }
+
+    /**
+     * @param blockName names a block index for the trace's palette
+     */
+    static BattleTowerVoxelAccess recording(String worldName, BattleTowerVoxelAccess voxels, IntFunction<String> blockName) {
+        BattleTowerTrace trace = of(worldName);
+        return trace == null ? voxels : new Recording(trace, voxels, blockName);
+    }
+
+    /**
+     * A marker found by a spawner scan; only its first sighting is recorded.
+     *
+     * @param activated whether the spawner had already spawned its NPC before this trace saw it
+     */
+    synchronized void marker(int markerRef, String spawnMarkerId, double x, double y, double z, boolean activated) {
+        if (stopped || !seenMarkers.add(markerRef)) {
+            return;
+        }
+        writeVar(MARKER);
+        writeZigzag(markerRef);
+        writeString(spawnMarkerId);
+        writePosition(x);
+        writePosition(y);
+        writePosition(z);
+        writeVar(activated ? 1 : 0);
+        flushIfFull();
+    }
+
+    /**
+     * @param positions the scanning players' x and z, interleaved
+     */
+    synchronized void scan(long nowNanos, double[] positions, int players) {
+        if (stopped) {
+            return;
+        }
+        beginTimed(SCAN, nowNanos);
+        writeVar(players);
+        for (int i = 0; i < players * 2; i++) {
+            writePosition(positions[i]);
+        }
+        flushIfFull();
+    }
+
+    /**
+     * @param key the tower the boss was resolved to, or {@code null} if none was found
+     */
+    synchronized void bossDeath(long nowNanos, double x, double y, double z, BattleTowerCollapse.TowerKey key) {
+        if (stopped) {
+            return;
+        }
+        beginTimed(BOSS_DEATH, nowNanos);
+        writePosition(x);
+        writePosition(y);
+        writePosition(z);
+        writeVar(key != null ? 1 : 0);
+        if (key != null) {
+            writeKey(key);
+        }
+        flushIfFull();
+    }
+
+    synchronized void enqueue(long nowNanos, BattleTowerCollapse.TowerKey key) {
+        if (stopped) {
+            return;
+        }
+        beginTimed(ENQUEUE, nowNanos);
+        writeKey(key);
+        flushIfFull();
+    }
+
+    synchronized void collapseTick(long nowNanos) {
+        if (stopped) {
+            return;
+        }
+        beginTimed(COLLAPSE_TICK, nowNanos);
+        flushIfFull();
+    }
+
+    private synchronized void read(int x, int y, int z, int blockId, IntFunction<String> blockName) {
+        if (stopped) {
+            return;
+        }
+        if (blockId >= 0 && !namedBlocks.get(blockId)) {
+            namedBlocks.set(blockId);
+            writeVar(BLOCK_NAME);
+            writeVar(blockId);
+            writeString(blockName.apply(blockId));
+        }
+        writeVar(READ);
+        writeDelta(x, y, z);
+        writeZigzag(blockId);
+        flushIfFull();
+    }
+
+    private synchronized void container(int x, int y, int z) {
+        if (stopped) {
+            return;
+        }
+        writeVar(CONTAINER);
+        writeDelta(x, y, z);
+        flushIfFull();
+    }
+
+    private static String assetName(int blockId) {
+        try {
+            BlockType type = BlockType.getAssetMap().getAsset(blockId);
+            return type != null ? type.getId() : "";
+        } catch (Exception ignored) {
+            return "";
+        }
+    }
+
+    private void beginTimed(int type, long nowNanos) {
+        writeVar(type);
+        // The first timed event is time zero.
+        writeVar(timed ? Math.max(0, nowNanos - lastNanos) : 0);
+        lastNanos = nowNanos;
+        timed = true;
+    }
+
+    private void writeKey(BattleTowerCollapse.TowerKey key) {
+        writeZigzag(key.x());
+        writeZigzag(key.y());
+        writeZigzag(key.z());
+    }
+
+    private void writeDelta(int x, int y, int z) {
+        writeZigzag(x - lastX);
+        writeZigzag(y - lastY);
+        writeZigzag(z - lastZ);
+        lastX = x;
+        lastY = y;
+        lastZ = z;
+    }
+
+    private void writePosition(double v) {
+        writeZigzag(Math.round(v * 16));
+    }
+
+    private void writeString(String s) {
+        byte[] bytes = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+        writeVar(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeInt(int v) {
+        ensure(4);
+        buffer[length++] = (byte) (v >>> 24);
+        buffer[length++] = (byte) (v >>> 16);
+        buffer[length++] = (byte) (v >>> 8);
+        buffer[length++] = (byte) v;
+    }
+
+    private void writeZigzag(long v) {
+        writeVar((v << 1) ^ (v >> 63));
+    }
+
+    private void writeVar(long v) {
+        ensure(10);
+        while ((v & ~0x7FL) != 0) {
+            buffer[length++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buffer[length++] = (byte) v;
+    }
+
+    private void ensure(int bytes) {
+        if (length + bytes > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes));
+        }
+    }
+
+    private void flushIfFull() {
+        if (length >= FLUSH_BYTES) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (length == 0) {
+            return;
+        }
+        written += length;
+        if (written > maxBytes) {
+            // Drop the chunk that went over rather than write a trace cut mid-event.
+            stopped = true;
+            length = 0;
+            LOGGER.atWarning().log("Tower trace %s reached its size limit; recording stopped.", file);
+            return;
+        }
+        byte[] chunk = Arrays.copyOf(buffer, length);
+        length = 0;
+        try {
+            WRITER.execute(() -> write(chunk));
+        } catch (Exception ignored) {
+        }
+    }
+
+    // Only ever runs on the writer thread.
+    private void write(byte[] chunk) {
+        try {
+            if (channel == null) {
+                Files.createDirectories(file.getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            ByteBuffer data = ByteBuffer.wrap(chunk);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        } catch (IOException | RuntimeException e) {
+            stopped = true;
+            LOGGER.atWarning().log("Tower trace %s disabled after write error: %s", file, e.getMessage());
+        }
+    }
+
+    private synchronized void close() {
+        if (!stopped) {
+            flush();
+        }
+        stopped = true;
+        try {
+            WRITER.execute(() -> {
+                try {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                } catch (Exception ignored) {
+                }
+            });
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Records reads (with the block read) and container checks that come back true, in world coordinates.
+     */
+    private static final class Recording implements BattleTowerVoxelAccess {
+        private final BattleTowerTrace trace;
+        private final BattleTowerVoxelAccess voxels;
+        private final IntFunction<String> blockName;
+
+        Recording(BattleTowerTrace trace, BattleTowerVoxelAccess voxels, IntFunction<String> blockName) {
+            this.trace = trace;
+            this.voxels = voxels;
+            this.blockName = blockName;
+        }
+
+        @Override
+        public Column column(int chunkX, int chunkZ) {
+            Column column = voxels.column(chunkX, chunkZ);
+            return column == null ? null : new RecordingColumn(column, chunkX * ChunkUtil.SIZE, chunkZ * ChunkUtil.SIZE);
+        }
+
+        private final class RecordingColumn implements Column {
+            private final Column column;
+            private final int baseX;
+            private final int baseZ;
+
+            RecordingColumn(Column column, int baseX, int baseZ) {
+                this.column = column;
+                this.baseX = baseX;
+                this.baseZ = baseZ;
+            }
+
+            @Override
+            public int blockAt(int localX, int y, int localZ) {
+                int blockId = column.blockAt(localX, y, localZ);
+                trace.read(baseX + localX, y, baseZ + localZ, blockId, blockName);
+                return blockId;
+            }
+
+            @Override
+            public boolean isContainer(int localX, int y, int localZ) {
+                boolean container = column.isContainer(localX, y, localZ);
+                if (container) {
+                    trace.container(baseX + localX, y, baseZ + localZ);
+                }
+                return container;
+            }
+
+            @Override
+            public void clear(int localX, int y, int localZ, int blockId, int planIndex) {
+                column.clear(localX, y, localZ, blockId, planIndex);
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.ralkage.battletowers.worldgen;
+
+/**
+ * The block reads and writes the collapse algorithms need, one chunk column at a time.
+ *
+ * {@link BattleTowerSurvey} and {@link BattleTowerPlanWalk} only see this interface, so they run the same against
+ * a live world ({@link BattleTowerWorldVoxels}) as against an in-memory volume ({@link BattleTowerArrayVoxels})
+ * for benchmarks and offline checks. Columns use the world's chunk size ({@code ChunkUtil.SIZE}) and local x/z.
+ */
+interface BattleTowerVoxelAccess {
+
+    /**
+     * Returned by {@link Column#blockAt} for positions that can't be read (e.g. outside the world's height).
+     */
+    int UNREADABLE = Integer.MIN_VALUE;
+
+    /**
+     * The chunk column at chunk coordinates (chunkX, chunkZ), or {@code null} if it isn't loaded.
+     */
+    Column column(int chunkX, int chunkZ);
+
+    interface Column {
+
+        /**
+         * Block type index at a local position, or {@link #UNREADABLE}.
+         */
+        int blockAt(int localX, int y, int localZ);
+
+        boolean isContainer(int localX, int y, int localZ);
+
+        /**
+         * Removes the block at a local position, together with its block state.
+         *
+         * @param blockId   the block's index as last read by {@link #blockAt}
+         * @param planIndex the position's index in the collapse plan, or -1
+         */
+        void clear(int localX, int y, int localZ, int blockId, int planIndex);
+    }
+}
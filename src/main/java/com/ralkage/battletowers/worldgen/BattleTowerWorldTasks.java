@@ -0,0 +1,242 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Submits work from plugin threads onto world threads without piling onto a lagging world.
+ *
+ * Each (world, purpose) pair has at most one {@code world.execute} task in flight. Requests made while it is
+ * pending either join it ({@link #submitBatched}) or are dropped because the pending task already covers them
+ * ({@link #submitIfIdle}). The time from submission to execution is measured per world; while it is above
+ * {@link #OVERLOAD_DELAY_MS}, sheddable work is skipped until the world catches up.
+ */
+public final class BattleTowerWorldTasks {
+
+    private static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
+
+    private static final long OVERLOAD_DELAY_MS = 500;
+    // A slow measurement only counts for this long, so shed work gets to probe the world again.
+    private static final long OVERLOAD_MEMORY_MS = 10_000;
+    // A task that never ran (e.g. its world shut down) stops blocking its slot after this long.
+    private static final long STALE_IN_FLIGHT_MS = 30_000;
+    private static final int MAX_BATCH = 64;
+
+    private static final ConcurrentHashMap<String, WorldSlots> WORLDS = new ConcurrentHashMap<>();
+    // Source of per-dispatch tokens; 0 is never handed out and marks an idle slot.
+    private static final AtomicLong TOKENS = new AtomicLong();
+
+    private BattleTowerWorldTasks() {
+    }
+
+    /**
+     * Runs {@code task} on the world thread unless a task for this purpose is already pending.
+     *
+     * @param sheddable skip the task entirely while the world is overloaded
+     * @return {@code true} if a new world task was submitted; {@code false} if it was coalesced, shed, or the world
+     *         rejected it
+     */
+    public static boolean submitIfIdle(World world, String purpose, boolean sheddable, Runnable task) {
+        WorldSlots worldSlots = worldSlots(world);
+        Slot slot = worldSlots.slot(purpose);
+        if (sheddable && worldSlots.isOverloaded()) {
+            slot.shed.increment();
+            return false;
+        }
+        long token = slot.acquire();
+        if (token == 0) {
+            slot.coalesced.increment();
+            return false;
+        }
+        return dispatch(world, worldSlots, slot, token, task);
+    }
+
+    /**
+     * Adds {@code task} to the purpose's pending batch; the whole batch runs in one world task.
+     *
+     * @param sheddable while the world is overloaded, drop the oldest entries beyond {@link #MAX_BATCH}; only for
+     *                  work a later request makes up for. Anything else (e.g. admitting a collapse) must pass
+     *                  {@code false}.
+     * @return {@code false} if the world rejected the task; it was taken back out of the batch and will not run
+     */
+    public static boolean submitBatched(World world, String purpose, boolean sheddable, Runnable task) {
+        WorldSlots worldSlots = worldSlots(world);
+        Slot slot = worldSlots.slot(purpose);
+        slot.batch.add(task);
+        int size = slot.batchSize.incrementAndGet();
+        if (sheddable && size > MAX_BATCH && worldSlots.isOverloaded() && slot.batch.poll() != null) {
+            slot.batchSize.decrementAndGet();
+            slot.shed.increment();
+        }
+        long token = slot.acquire();
+        if (token == 0) {
+            slot.coalesced.increment();
+            return true;
+        }
+        if (dispatch(world, worldSlots, slot, token, slot.drainTask(world))) {
+            return true;
+        }
+        if (slot.batch.remove(task)) {
+            slot.batchSize.decrementAndGet();
+        }
+        return false;
+    }
+
+    /**
+     * True while tasks on this world wait longer than {@link #OVERLOAD_DELAY_MS} to run.
+     */
+    public static boolean isOverloaded(World world) {
+        WorldSlots worldSlots = WORLDS.get(world.getName());
+        return worldSlots != null && worldSlots.isOverloaded();
+    }
+
+    /**
+     * One line per (world, purpose): submissions, coalesced and shed requests, and queue delay.
+     */
+    public static List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, WorldSlots> w : WORLDS.entrySet()) {
+            for (Map.Entry<String, Slot> p : w.getValue().byPurpose.entrySet()) {
+                Slot slot = p.getValue();
+                lines.add(String.format("%s/%s: submitted=%d coalesced=%d shed=%d lastDelay=%dms maxDelay=%dms%s",
+                        w.getKey(), p.getKey(), slot.submitted.sum(), slot.coalesced.sum(), slot.shed.sum(),
+                        TimeUnit.NANOSECONDS.toMillis(slot.lastDelayNanos),
+                        TimeUnit.NANOSECONDS.toMillis(slot.maxDelayNanos),
+                        slot.inFlight.get() != 0 ? " (pending)" : ""));
+            }
+        }
+        return lines;
+    }
+
+    private static WorldSlots worldSlots(World world) {
+        return WORLDS.computeIfAbsent(world.getName(), _n -> new WorldSlots());
+    }
+
+    /**
+     * Submits {@code task} under the slot's current {@code token}.
+     *
+     * @return {@code false} if the world rejected it; the slot is free again
+     */
+    private static boolean dispatch(World world, WorldSlots worldSlots, Slot slot, long token, Runnable task) {
+        slot.submitted.increment();
+        long submittedAt = System.nanoTime();
+        slot.submittedAtNanos = submittedAt;
+        try {
+            world.execute(() -> {
+                long delay = System.nanoTime() - submittedAt;
+                slot.lastDelayNanos = delay;
+                slot.maxDelayNanos = Math.max(slot.maxDelayNanos, delay);
+                worldSlots.lastDelayNanos = delay;
+                worldSlots.lastMeasuredAtNanos = System.nanoTime();
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    LOGGER.atWarning().withCause(e).log("World task failed in %s.", world.getName());
+                } finally {
+                    slot.release(world, worldSlots, token);
+                }
+            });
+            return true;
+        } catch (Exception e) {
+            slot.inFlight.compareAndSet(token, 0);
+            LOGGER.atWarning().log("World %s rejected a task: %s", world.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static final class WorldSlots {
+        final ConcurrentHashMap<String, Slot> byPurpose = new ConcurrentHashMap<>();
+        volatile long lastDelayNanos;
+        volatile long lastMeasuredAtNanos;
+
+        Slot slot(String purpose) {
+            return byPurpose.computeIfAbsent(purpose, _p -> new Slot());
+        }
+
+        boolean isOverloaded() {
+            long threshold = TimeUnit.MILLISECONDS.toNanos(OVERLOAD_DELAY_MS);
+            long now = System.nanoTime();
+            if (lastDelayNanos > threshold && now - lastMeasuredAtNanos < TimeUnit.MILLISECONDS.toNanos(OVERLOAD_MEMORY_MS)) {
+                return true;
+            }
+            // A task still waiting past the threshold means the world is behind right now, unless it has waited so
+            // long that it most likely never runs (see Slot.acquire).
+            long stale = TimeUnit.MILLISECONDS.toNanos(STALE_IN_FLIGHT_MS);
+            for (Slot slot : byPurpose.values()) {
+                long waited = now - slot.submittedAtNanos;
+                if (slot.inFlight.get() != 0 && waited > threshold && waited <= stale) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Slot {
+        // Token of the dispatch that owns the slot, or 0 when idle.
+        final AtomicLong inFlight = new AtomicLong();
+        final ConcurrentLinkedQueue<Runnable> batch = new ConcurrentLinkedQueue<>();
+        final AtomicInteger batchSize = new AtomicInteger();
+        final LongAdder submitted = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        volatile long submittedAtNanos;
+        volatile long lastDelayNanos;
+        volatile long maxDelayNanos;
+
+        /**
+         * @return a token for a new dispatch, or 0 while another one owns the slot
+         */
+        long acquire() {
+            long token = TOKENS.incrementAndGet();
+            if (inFlight.compareAndSet(0, token)) {
+                return token;
+            }
+            // The pending task was most likely dropped by its world; take the slot over.
+            long pending = inFlight.get();
+            if (pending != 0 && System.nanoTime() - submittedAtNanos > TimeUnit.MILLISECONDS.toNanos(STALE_IN_FLIGHT_MS)
+                    && inFlight.compareAndSet(pending, token)) {
+                return token;
+            }
+            return 0;
+        }
+
+        void release(World world, WorldSlots worldSlots, long token) {
+            if (!inFlight.compareAndSet(token, 0)) {
+                // A late task whose slot was taken over; the newer dispatch owns it and its batch.
+                return;
+            }
+            // Batched work that arrived while the drain was running must not wait for the next request.
+            if (!batch.isEmpty()) {
+                long next = acquire();
+                if (next != 0) {
+                    dispatch(world, worldSlots, this, next, drainTask(world));
+                }
+            }
+        }
+
+        Runnable drainTask(World world) {
+            return () -> {
+                Runnable next;
+                while ((next = batch.poll()) != null) {
+                    batchSize.decrementAndGet();
+                    try {
+                        next.run();
+                    } catch (Exception e) {
+                        LOGGER.atWarning().withCause(e).log("Batched world task failed in %s.", world.getName());
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.server.core.asset.type.blocktype.config.BlockType;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.chunk.WorldChunk;
+import com.hypixel.hytale.server.core.universe.world.meta.BlockState;
+import com.hypixel.hytale.server.core.universe.world.meta.state.DestroyableBlockState;
+import com.hypixel.hytale.server.core.universe.world.meta.state.ItemContainerBlockState;
+
+import java.util.List;
+
+/**
+ * {@link BattleTowerVoxelAccess} over a live world's loaded chunks. Must be used on the world thread.
+ *
+ * Cleared blocks have their block state destroyed first. For a collapse, container contents are moved into its
+ * rubble list instead of spilling, and removed blocks are recorded in its snapshot.
+ */
+final class BattleTowerWorldVoxels implements BattleTowerVoxelAccess {
+
+    private final World world;
+    private final List<ItemStack> rubble;
+    private final BattleTowerCollapseSnapshot snapshot;
+
+    BattleTowerWorldVoxels(World world) {
+        this(world, null, null);
+    }
+
+    /**
+     * @param rubble   if non-null, a cleared container's contents are moved here first so destroying it spills nothing
+     * @param snapshot if non-null, cleared blocks are recorded here
+     */
+    BattleTowerWorldVoxels(World world, List<ItemStack> rubble, BattleTowerCollapseSnapshot snapshot) {
+        this.world = world;
+        this.rubble = rubble;
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public Column column(int chunkX, int chunkZ) {
+        WorldChunk chunk = world.getChunkIfLoaded(ChunkUtil.indexChunk(chunkX, chunkZ));
+        return chunk == null ? null : new ChunkColumn(chunk);
+    }
+
+    private final class ChunkColumn implements Column {
+        private final WorldChunk chunk;
+
+        ChunkColumn(WorldChunk chunk) {
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int blockAt(int localX, int y, int localZ) {
+            try {
+                return chunk.getBlock(localX, y, localZ);
+            } catch (Exception ignored) {
+                return UNREADABLE;
+            }
+        }
+
+        @Override
+        public boolean isContainer(int localX, int y, int localZ) {
+            try {
+                return chunk.getState(localX, y, localZ) instanceof ItemContainerBlockState;
+            } catch (Exception ignored) {
+                return false;
+            }
+        }
+
+        @Override
+        public void clear(int localX, int y, int localZ, int blockId, int planIndex) {
+            BlockState state = null;
+            try {
+                state = chunk.getState(localX, y, localZ);
+            } catch (Exception ignored) {
+            }
+            if (snapshot != null) {
+                int rotation = 0;
+                try {
+                    rotation = chunk.getRotationIndex(localX, y, localZ);
+                } catch (Exception ignored) {
+                }
+                snapshot.recordBlock(planIndex, blockId, rotation, state);
+            }
+            removeBlockAndState(chunk, localX, y, localZ, state, rubble);
+        }
+    }
+
+    private static void removeBlockAndState(WorldChunk chunk, int localX, int y, int localZ, BlockState state,
+                                            List<ItemStack> rubble) {
+        try {
+            if (state != null) {
+                if (rubble != null && state instanceof ItemContainerBlockState containerState) {
+                    drainContainer(containerState, rubble);
+                }
+                try {
+                    if (state instanceof DestroyableBlockState destroyable) {
+                        destroyable.onDestroy();
+                    }
+                } catch (Exception ignored) {
+                }
+                try {
+                    state.invalidate();
+                } catch (Exception ignored) {
+                }
+                try {
+                    chunk.setState(localX, y, localZ, (BlockState) null, true);
+                } catch (Exception ignored) {
+                }
+            }
+        } catch (Exception ignored) {
+        }
+
+        try {
+            chunk.setBlock(localX, y, localZ, BlockType.EMPTY);
+        } catch (Exception ignored) {
+        }
+    }
+
+    private static void drainContainer(ItemContainerBlockState containerState, List<ItemStack> rubble) {
+        try {
+            ItemContainer container = containerState.getItemContainer();
+            if (container == null) {
+                return;
+            }
+            List<ItemStack> stacks = container.removeAllItemStacks();
+            if (stacks == null) {
+                return;
+            }
+            for (ItemStack stack : stacks) {
+                if (stack != null && !stack.isEmpty()) {
+                    rubble.add(stack);
+                }
+            }
+        } catch (Exception ignored) {
+        }
+    }
+}
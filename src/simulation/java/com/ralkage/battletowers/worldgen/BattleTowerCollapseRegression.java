@@ -0,0 +1,155 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.ToLongFunction;
+
+/**
+ * Headless collapse regression: every bundled tower prefab, in every rotation, collapsed with both the prefab
+ * plan and the survey plan on a {@link BattleTowerSimulatedWorld}.
+ *
+ * Each scenario must leave the ruin intact, no tower blocks above it and the terrain untouched. Its world-thread
+ * phases (median over the measured runs) are checked against the budgets below: over-budget phases are printed as
+ * warnings, and only fail the scenario with {@code budgets}. Run with {@code ./gradlew collapseRegression}, which
+ * is part of {@code check}, or {@code ./gradlew collapseBudgets} to enforce the budgets. Exits non-zero on any
+ * failure.
+ *
+ * Arguments: {@code budgets} to enforce the budgets, and an optional budget scale (e.g. {@code 2.0} on a slow CI
+ * machine).
+ */
+public final class BattleTowerCollapseRegression {
+
+    // The first scenario would otherwise be measured against unoptimized code.
+    private static final int JIT_WARMUP_RUNS = 20;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    // Budgets per collapse phase, in microseconds. The first tick matches and plans a prefab in one go; a survey
+    // copies its blocks in budgeted ticks (checked as max tick) and plans off the world thread.
+    private static final long MATCH_BUDGET_MICROS = 5_000;
+    private static final long PREFAB_PLAN_BUDGET_MICROS = 5_000;
+    private static final long SURVEY_BUDGET_MICROS = 25_000;
+    private static final long CLEANUP_BUDGET_MICROS = 10_000;
+    // Copy and removal ticks get the configured per-tick budget plus the slack of their clock checks.
+    private static final double TICK_BUDGET_SLACK = 1.5;
+
+    private BattleTowerCollapseRegression() {
+    }
+
+    public static void main(String[] args) {
+        boolean enforceBudgets = false;
+        double scale = 1.0;
+        for (String arg : args) {
+            if (arg.equals("budgets")) {
+                enforceBudgets = true;
+            } else {
+                scale = Double.parseDouble(arg);
+            }
+        }
+        List<BattleTowerPrefabShape> shapes = BattleTowerPrefabFiles.load();
+        if (shapes.isEmpty()) {
+            System.out.println("FAIL no bundled tower prefabs with a boss marker");
+            System.exit(1);
+        }
+
+        BattleTowerSimulatedWorld warmup = BattleTowerSimulatedWorld.of(shapes.get(0), 0);
+        for (int i = 0; i < JIT_WARMUP_RUNS; i++) {
+            for (BattleTowerCollapseSimulation.Mode mode : BattleTowerCollapseSimulation.Mode.values()) {
+                BattleTowerCollapseSimulation.run(warmup, mode);
+            }
+        }
+
+        int failed = 0;
+        int scenarios = 0;
+        for (BattleTowerPrefabShape shape : shapes) {
+            for (int rotation = 0; rotation < 4; rotation++) {
+                BattleTowerSimulatedWorld world = BattleTowerSimulatedWorld.of(shape, rotation);
+                for (BattleTowerCollapseSimulation.Mode mode : BattleTowerCollapseSimulation.Mode.values()) {
+                    scenarios++;
+                    if (!runScenario(world, mode, enforceBudgets, scale)) {
+                        failed++;
+                    }
+                }
+            }
+        }
+
+        System.out.printf(Locale.ROOT, "%d of %d collapse scenarios passed%n", scenarios - failed, scenarios);
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean runScenario(BattleTowerSimulatedWorld world, BattleTowerCollapseSimulation.Mode mode,
+                                       boolean enforceBudgets, double scale) {
+        BattleTowerCollapseSimulation.Result[] runs = new BattleTowerCollapseSimulation.Result[MEASURED_RUNS];
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            BattleTowerCollapseSimulation.run(world, mode);
+        }
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            runs[i] = BattleTowerCollapseSimulation.run(world, mode);
+        }
+
+        BattleTowerCollapseSimulation.Result last = runs[MEASURED_RUNS - 1];
+        List<String> failures = new ArrayList<>();
+        for (BattleTowerCollapseSimulation.Result run : runs) {
+            if (!run.passed()) {
+                failures.addAll(run.failures);
+                break;
+            }
+        }
+        long match = median(runs, r -> r.matchNanos);
+        long copy = median(runs, r -> r.copyNanos);
+        long plan = median(runs, r -> r.planNanos);
+        long maxTick = median(runs, r -> r.maxTickNanos);
+        long implode = median(runs, r -> r.implodeNanos);
+        long cleanup = median(runs, r -> r.cleanupNanos);
+
+        boolean prefab = mode == BattleTowerCollapseSimulation.Mode.PREFAB;
+        long tickBudgetMicros = (long) (BattleTowerCollapse.getImplosionTickBudgetMicros() * TICK_BUDGET_SLACK);
+        List<String> overBudget = new ArrayList<>();
+        overBudget(overBudget, "match", match, prefab ? MATCH_BUDGET_MICROS : Long.MAX_VALUE, scale);
+        overBudget(overBudget, "plan", plan, prefab ? PREFAB_PLAN_BUDGET_MICROS : SURVEY_BUDGET_MICROS, scale);
+        overBudget(overBudget, "max tick", maxTick, tickBudgetMicros, scale);
+        overBudget(overBudget, "cleanup", cleanup, CLEANUP_BUDGET_MICROS, scale);
+        if (enforceBudgets) {
+            failures.addAll(overBudget);
+        }
+
+        System.out.printf(Locale.ROOT,
+                "%-4s %-18s rot=%d %-6s planned=%d removed=%d reads=%d ticks=%d collapse=%.1fs"
+                        + " match=%.2fms copy=%.2fms plan=%.2fms tick(max)=%.3fms implode=%.2fms cleanup=%.2fms%n",
+                !failures.isEmpty() ? "FAIL" : overBudget.isEmpty() ? "OK" : "WARN", world.placement.shape().id, world.placement.rotation(),
+                mode.name().toLowerCase(Locale.ROOT), last.planned, last.removed, last.reads, last.ticks,
+                last.collapseNanos / 1e9, match / 1e6, copy / 1e6, plan / 1e6, maxTick / 1e6, implode / 1e6, cleanup / 1e6);
+        for (String failure : failures) {
+            System.out.println("     " + failure);
+        }
+        if (!enforceBudgets) {
+            for (String warning : overBudget) {
+                System.out.println("     " + warning);
+            }
+        }
+        return failures.isEmpty();
+    }
+
+    private static void overBudget(List<String> failures, String phase, long nanos, long budgetMicros, double scale) {
+        if (budgetMicros == Long.MAX_VALUE) {
+            return;
+        }
+        long budgetNanos = (long) (budgetMicros * 1_000L * scale);
+        if (nanos > budgetNanos) {
+            failures.add(String.format(Locale.ROOT, "%s took %.3fms, budget %.3fms", phase, nanos / 1e6, budgetNanos / 1e6));
+        }
+    }
+
+    private static long median(BattleTowerCollapseSimulation.Result[] runs, ToLongFunction<BattleTowerCollapseSimulation.Result> cost) {
+        long[] values = new long[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            values[i] = cost.applyAsLong(runs[i]);
+        }
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+}
@@ -0,0 +1,190 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One collapse of a {@link BattleTowerSimulatedWorld} tower, driven the way the world thread drives a live one:
+ * the boss dies, the countdown runs out, the first ticks plan the collapse (one for a prefab, a few for a survey's
+ * block copy), later ticks remove paced batches top layer first, and the last tick runs the cleanup sweep.
+ *
+ * Time between ticks comes from a {@link BattleTowerVirtualClock}, so a 30 s countdown and a 10 s collapse take
+ * as long as the work itself. Work inside a tick is timed with the real clock; that is the world-thread cost the
+ * regression budgets check.
+ */
+final class BattleTowerCollapseSimulation {
+
+    enum Mode {
+        /** Plan from the bundled prefab matched at the boss anchor, verifying each block before removal. */
+        PREFAB,
+        /** Plan from a survey of the blocks around the anchor. */
+        SURVEY
+    }
+
+    /**
+     * What one run did and cost. Costs are real nanoseconds spent in each world-thread phase.
+     */
+    static final class Result {
+        final List<String> failures = new ArrayList<>();
+        long matchNanos;
+        long copyNanos;
+        long planNanos;
+        long implodeNanos;
+        long maxTickNanos;
+        long cleanupNanos;
+        int ticks;
+        int planned;
+        int removed;
+        long reads;
+        long countdownNanos;
+        long collapseNanos;
+
+        boolean passed() {
+            return failures.isEmpty();
+        }
+    }
+
+    private final BattleTowerSimulatedWorld world;
+    private final BattleTowerSimulatedCollapse collapse;
+    private final BattleTowerVirtualClock clock = new BattleTowerVirtualClock();
+    private final Result result = new Result();
+    private final long tickNanos;
+    private final long budgetNanos;
+    private long startedAtNanos = -1;
+
+    private BattleTowerCollapseSimulation(BattleTowerSimulatedWorld world, Mode mode) {
+        this.world = world;
+        this.collapse = new BattleTowerSimulatedCollapse(world.bossKey(), mode == Mode.PREFAB, world.voxels,
+                world.classes, world::blockIndex);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(BattleTowerCollapse.getImplosionTickMs());
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(BattleTowerCollapse.getImplosionTickBudgetMicros());
+    }
+
+    /**
+     * Stands the tower back up, collapses it and checks what is left.
+     */
+    static Result run(BattleTowerSimulatedWorld world, Mode mode) {
+        world.reset();
+        BattleTowerCollapseSimulation simulation = new BattleTowerCollapseSimulation(world, mode);
+        simulation.trigger();
+        return simulation.result;
+    }
+
+    private void trigger() {
+        long delayNanos = TimeUnit.SECONDS.toNanos(BattleTowerCollapse.getCollapseDelaySeconds());
+        long targetNanos = TimeUnit.SECONDS.toNanos(BattleTowerCollapse.getImplosionTargetSeconds());
+        clock.schedule(delayNanos, this::tick);
+
+        // A collapse that neither finishes nor fails within a few times its target is stuck.
+        boolean idle = clock.runUntilIdle(delayNanos + 4 * targetNanos);
+        result.matchNanos = collapse.matchNanos;
+        result.copyNanos = collapse.copyNanos;
+        result.planNanos = collapse.planNanos;
+        result.implodeNanos = collapse.implodeNanos;
+        result.maxTickNanos = collapse.maxTickNanos;
+        result.cleanupNanos = collapse.cleanupNanos;
+        result.ticks = collapse.ticks;
+        result.removed = collapse.removed;
+        result.planned = collapse.plan == null ? 0 : collapse.plan.blockCount;
+        result.reads = world.voxels.reads();
+        result.countdownNanos = delayNanos;
+        if (collapse.failure != null) {
+            result.failures.add(collapse.failure);
+            return;
+        }
+        if (!idle || !collapse.finished) {
+            result.failures.add("collapse did not finish within " + 4 * targetNanos / 1_000_000_000L + "s of its start");
+            return;
+        }
+        if (collapse.placement != null && !collapse.placement.equals(world.placement)) {
+            result.failures.add("matched " + collapse.placement + ", placed " + world.placement);
+        }
+        checkWorld(collapse.plan);
+        if (result.collapseNanos > targetNanos + 2 * tickNanos) {
+            result.failures.add(String.format("collapse took %.1fs, target is %ds",
+                    result.collapseNanos / 1e9, targetNanos / 1_000_000_000L));
+        }
+    }
+
+    private void tick() {
+        long now = clock.nanoTime();
+        boolean planned = collapse.plan != null;
+        boolean done = collapse.step(now, budgetNanos);
+        // The target is for removal, so the collapse is timed from the tick that planned it, as the pacer is;
+        // a survey's copy ticks come before that.
+        if (!planned && collapse.plan != null) {
+            startedAtNanos = now;
+        }
+        if (done) {
+            result.collapseNanos = startedAtNanos < 0 ? 0 : clock.nanoTime() - startedAtNanos;
+            return;
+        }
+        clock.schedule(tickNanos, this::tick);
+    }
+
+    /**
+     * Ruin intact below the floor, no tower block left above it, and every terrain block as it was.
+     */
+    private void checkWorld(BattleTowerCollapsePlan plan) {
+        int expectedFloorY = BattleTowerSimulatedWorld.GROUND_Y + BattleTowerCollapse.RUIN_PRESERVE_LAYERS;
+        if (plan.floorY != expectedFloorY) {
+            result.failures.add("ruin floor at Y=" + plan.floorY + ", expected Y=" + expectedFloorY);
+        }
+
+        BattleTowerPrefabPlacement placement = world.placement;
+        BattleTowerPrefabShape shape = placement.shape();
+        BattleTowerArrayVoxels voxels = world.voxels;
+        BattleTowerArrayVoxels terrain = world.terrain;
+        BattleTowerArrayVoxels standing = world.standing;
+        int ruinMissing = 0;
+        int towerLeft = 0;
+        for (int i = 0; i < shape.blockCount(); i++) {
+            int x = placement.worldX(shape.xs[i], shape.zs[i]);
+            int y = placement.worldY(shape.ys[i]);
+            int z = placement.worldZ(shape.xs[i], shape.zs[i]);
+            int now = voxels.get(x, y, z);
+            if (y < expectedFloorY && now != standing.get(x, y, z)) {
+                ruinMissing++;
+            } else if (y >= expectedFloorY && (world.classes.flags(now) & BattleTowerBlockClassTable.EMPTY) == 0) {
+                towerLeft++;
+            }
+        }
+        if (ruinMissing > 0) {
+            result.failures.add(ruinMissing + " ruin blocks below Y=" + expectedFloorY + " removed");
+        }
+        if (towerLeft > 0) {
+            result.failures.add(towerLeft + " tower blocks left standing at or above Y=" + expectedFloorY);
+        }
+
+        // Anything else above the floor inside the sweep circle that looks like tower material is a stray pillar;
+        // anything that differs from the terrain outside the prefab's own blocks was carved.
+        int sweepRSq = BattleTowerCollapse.MAX_SWEEP_RADIUS * BattleTowerCollapse.MAX_SWEEP_RADIUS;
+        int stray = 0;
+        int carved = 0;
+        for (int y = voxels.minY; y < voxels.minY + voxels.sizeY; y++) {
+            for (int z = voxels.minZ; z < voxels.minZ + voxels.sizeZ; z++) {
+                for (int x = voxels.minX; x < voxels.minX + voxels.sizeX; x++) {
+                    int now = voxels.get(x, y, z);
+                    int before = standing.get(x, y, z);
+                    boolean towerBlock = before != terrain.get(x, y, z);
+                    if (!towerBlock && now != before) {
+                        carved++;
+                    }
+                    int dx = x - plan.centerX;
+                    int dz = z - plan.centerZ;
+                    if (y >= expectedFloorY && dx * dx + dz * dz <= sweepRSq
+                            && (world.classes.flags(now) & BattleTowerBlockClassTable.IMPLODABLE) != 0) {
+                        stray++;
+                    }
+                }
+            }
+        }
+        if (stray > 0) {
+            result.failures.add(stray + " stray tower blocks above the ruin");
+        }
+        if (carved > 0) {
+            result.failures.add(carved + " terrain blocks carved");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * All samples of one cost, kept so exact percentiles can be reported at the end of a run.
+ */
+final class BattleTowerLatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long total;
+    private boolean sorted = true;
+
+    void add(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+        total += nanos;
+        sorted = false;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long percentile(double p) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(samples, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(p / 100.0 * count) - 1;
+        return samples[Math.max(0, Math.min(count - 1, rank))];
+    }
+
+    long max() {
+        return percentile(100);
+    }
+
+    double mean() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    /**
+     * Appends {@code "name": {...}} with the count and the mean, p50/p90/p99/p99.9 and max in microseconds.
+     */
+    void appendJson(StringBuilder out, String name) {
+        out.append('"').append(name).append("\": {")
+                .append("\"count\": ").append(count)
+                .append(String.format(Locale.ROOT,
+                        ", \"meanMicros\": %.2f, \"p50Micros\": %.2f, \"p90Micros\": %.2f, \"p99Micros\": %.2f"
+                                + ", \"p999Micros\": %.2f, \"maxMicros\": %.2f",
+                        mean() / 1e3, percentile(50) / 1e3, percentile(90) / 1e3, percentile(99) / 1e3,
+                        percentile(99.9) / 1e3, max() / 1e3))
+                .append('}');
+    }
+}
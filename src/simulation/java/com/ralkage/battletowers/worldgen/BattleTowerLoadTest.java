@@ -0,0 +1,478 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test for one world: N towers from the bundled prefabs, M players walking between them, the spawner
+ * activating markers around players, boss fights, and the collapses those fights set off running concurrently
+ * through the real admission queue.
+ *
+ * The world runs on a virtual clock at 30 ticks per second; only the plugin's own world-thread work is timed,
+ * with the real clock. NPCs and fights are modelled, not simulated: a player kills one of the tower's NPCs every
+ * few seconds, the boss last. The run ends once every tower has collapsed or the time limit is reached, and
+ * writes a JSON report (world-thread time percentiles, queue depths, entity counts) for comparing runs.
+ *
+ * Arguments are {@code key=value} pairs: towers, players, minutes, seed, spacing, fightKillSeconds, survey
+ * (plan by survey instead of prefab), out (report path), trace (directory to record a {@link BattleTowerTrace}
+ * into, on the virtual clock, for {@link BattleTowerTraceReplay}).
+ */
+public final class BattleTowerLoadTest {
+
+    private static final long WORLD_TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / 30;
+    // Same cadence as the spawner's scan task.
+    private static final long SCAN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final double PLAYER_SPEED_BLOCKS_PER_SECOND = 5.5;
+    private static final double FIGHT_REACH_BLOCKS = 12;
+    private static final int ACTIVATION_RADIUS_BLOCKS = 64;
+    private static final int BOSS_LOOKUP_RADIUS = 64;
+    private static final int TARGET_CHOICES = 3;
+
+    private enum TowerPhase { STANDING, COUNTDOWN, COLLAPSING, COLLAPSED }
+
+    private static final class TowerState {
+        final BattleTowerLoadWorld.Tower tower;
+        TowerPhase phase = TowerPhase.STANDING;
+        final boolean[] activated;
+        int aliveMobs;
+        boolean bossAlive;
+
+        TowerState(BattleTowerLoadWorld.Tower tower) {
+            this.tower = tower;
+            this.activated = new boolean[tower.markers().size()];
+        }
+    }
+
+    private static final class Player {
+        double x;
+        double z;
+        TowerState target;
+        long nextKillAtNanos;
+    }
+
+    private record MarkerRef(TowerState tower, int marker) {
+    }
+
+    private final Map<String, String> options;
+    private final int towerCount;
+    private final int playerCount;
+    private final long seed;
+    private final long killIntervalNanos;
+    private final boolean prefab;
+    private final long limitNanos;
+    private final int maxActive;
+    private final long collapseTickNanos;
+    private final long collapseBudgetNanos;
+
+    private final BattleTowerVirtualClock clock = new BattleTowerVirtualClock();
+    private final SplittableRandom random;
+    private final BattleTowerLoadWorld world;
+    private final List<TowerState> towers = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+    private final Map<Long, List<MarkerRef>> markersByChunk = new HashMap<>();
+    private final BattleTowerTowerIndex index = new BattleTowerTowerIndex();
+    private final Map<BattleTowerCollapse.TowerKey, TowerState> byKey = new HashMap<>();
+    private final BattleTowerCollapseQueue<BattleTowerSimulatedCollapse> queue = new BattleTowerCollapseQueue<>();
+    private final Map<BattleTowerSimulatedCollapse, TowerState> collapsing = new HashMap<>();
+    private final BattleTowerTrace trace;
+    private final BattleTowerVoxelAccess voxels;
+
+    private final BattleTowerLatencyRecorder worldTick = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder spawnerScan = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder bossDeath = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder collapseTick = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder collapseStart = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder collapseCleanup = new BattleTowerLatencyRecorder();
+    private long tickCost;
+    private long nextScanNanos;
+    private long nextCollapseTickNanos;
+    private long worldTicks;
+    private int collapseTicks;
+    private int maxActiveSeen;
+    private int maxWaitingSeen;
+    private long waitingTotal;
+    private int npcsSpawned;
+    private int npcsAlive;
+    private int maxNpcsAlive;
+    private int bossesKilled;
+    private int collapsesFinished;
+    private int collapsesFailed;
+    private long blocksRemoved;
+    private long elapsedNanos;
+
+    private BattleTowerLoadTest(Map<String, String> options) {
+        this.options = options;
+        towerCount = Math.max(1, intOption("towers", 16));
+        playerCount = Math.max(0, intOption("players", 8));
+        seed = intOption("seed", 1);
+        killIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, intOption("fightKillSeconds", 3)));
+        prefab = !Boolean.parseBoolean(options.getOrDefault("survey", "false"));
+        limitNanos = TimeUnit.MINUTES.toNanos(Math.max(1, intOption("minutes", 30)));
+        maxActive = BattleTowerCollapse.getMaxActivePerWorld();
+        collapseTickNanos = TimeUnit.MILLISECONDS.toNanos(BattleTowerCollapse.getImplosionTickMs());
+        collapseBudgetNanos = TimeUnit.MICROSECONDS.toNanos(BattleTowerCollapse.getImplosionTickBudgetMicros());
+
+        random = new SplittableRandom(seed);
+        List<BattleTowerPrefabShape> shapes = BattleTowerPrefabFiles.load();
+        if (shapes.isEmpty()) {
+            throw new IllegalStateException("no bundled tower prefabs with a boss marker");
+        }
+        world = new BattleTowerLoadWorld(shapes, towerCount, Math.max(64, intOption("spacing", 160)), seed);
+        String traceDir = options.get("trace");
+        if (traceDir != null) {
+            // The trace's header records which plan the collapses used.
+            BattleTowerCollapse.setPrefabPlanEnabled(prefab);
+            BattleTowerTrace.setDirectory(Path.of(traceDir));
+            BattleTowerTrace.setEnabled(true);
+        }
+        trace = BattleTowerTrace.of(BattleTowerLoadWorld.WORLD_NAME);
+        voxels = BattleTowerTrace.recording(BattleTowerLoadWorld.WORLD_NAME, world, world::blockName);
+        for (BattleTowerLoadWorld.Tower tower : world.towers) {
+            TowerState state = new TowerState(tower);
+            towers.add(state);
+            byKey.put(tower.key(), state);
+            index.add(tower.key());
+            for (int i = 0; i < tower.markers().size(); i++) {
+                BattleTowerLoadWorld.Marker m = tower.markers().get(i);
+                long chunk = ChunkUtil.indexChunkFromBlock((int) Math.floor(m.x()), (int) Math.floor(m.z()));
+                markersByChunk.computeIfAbsent(chunk, _c -> new ArrayList<>()).add(new MarkerRef(state, i));
+            }
+        }
+        for (int i = 0; i < playerCount; i++) {
+            Player player = new Player();
+            player.x = random.nextDouble(-world.halfWidth, world.halfWidth);
+            player.z = random.nextDouble(-world.halfWidth, world.halfWidth);
+            players.add(player);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        BattleTowerLoadTest test = new BattleTowerLoadTest(options);
+        test.run();
+        BattleTowerTrace.closeAll();
+
+        String report = test.report();
+        Path out = Path.of(options.getOrDefault("out", "build/reports/loadtest/loadtest-"
+                + test.towerCount + "t-" + test.playerCount + "p-seed" + test.seed + ".json"));
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, report, StandardCharsets.UTF_8);
+        System.out.print(report);
+        System.out.println("Report written to " + out.toAbsolutePath());
+    }
+
+    private void run() {
+        clock.schedule(0, this::worldTick);
+        clock.runUntilIdle(limitNanos);
+        elapsedNanos = Math.min(clock.nanoTime(), limitNanos);
+    }
+
+    private boolean done() {
+        return collapsesFinished + collapsesFailed == towers.size() && queue.isIdle();
+    }
+
+    private void worldTick() {
+        long now = clock.nanoTime();
+        tickCost = 0;
+        worldTicks++;
+
+        movePlayers();
+        if (now >= nextScanNanos) {
+            nextScanNanos = now + SCAN_INTERVAL_NANOS;
+            scan();
+        }
+        fight(now);
+        if (now >= nextCollapseTickNanos) {
+            nextCollapseTickNanos = now + collapseTickNanos;
+            tickCollapses(now);
+        }
+
+        worldTick.add(tickCost);
+        if (!done()) {
+            clock.schedule(WORLD_TICK_NANOS, this::worldTick);
+        }
+    }
+
+    private void movePlayers() {
+        double step = PLAYER_SPEED_BLOCKS_PER_SECOND * WORLD_TICK_NANOS / 1e9;
+        for (Player player : players) {
+            if (player.target == null || player.target.phase != TowerPhase.STANDING) {
+                player.target = chooseTarget(player);
+                player.nextKillAtNanos = 0;
+                if (player.target == null) {
+                    continue;
+                }
+            }
+            // Walk well inside fighting reach of the boss marker, then stay put.
+            BattleTowerCollapse.TowerKey key = player.target.tower.key();
+            double dx = key.x() - player.x;
+            double dz = key.z() - player.z;
+            double dist = Math.sqrt(dx * dx + dz * dz);
+            if (dist <= FIGHT_REACH_BLOCKS / 2) {
+                continue;
+            }
+            double move = Math.min(step, dist - FIGHT_REACH_BLOCKS / 2);
+            player.x += dx / dist * move;
+            player.z += dz / dist * move;
+        }
+    }
+
+    /**
+     * One of the few nearest standing towers, so players spread out instead of all converging on one.
+     */
+    private TowerState chooseTarget(Player player) {
+        List<TowerState> standing = new ArrayList<>();
+        for (TowerState tower : towers) {
+            if (tower.phase == TowerPhase.STANDING) {
+                standing.add(tower);
+            }
+        }
+        if (standing.isEmpty()) {
+            return null;
+        }
+        standing.sort((a, b) -> Double.compare(distSq(player, a), distSq(player, b)));
+        return standing.get(random.nextInt(Math.min(TARGET_CHOICES, standing.size())));
+    }
+
+    private static double distSq(Player player, TowerState tower) {
+        double dx = tower.tower.key().x() - player.x;
+        double dz = tower.tower.key().z() - player.z;
+        return dx * dx + dz * dz;
+    }
+
+    /**
+     * The spawner's scan: chunks around players, then every not-yet-activated marker in them spawns its NPC.
+     */
+    private void scan() {
+        long start = System.nanoTime();
+        Set<Long> chunks = new HashSet<>();
+        int radiusChunks = Math.max(1, (ACTIVATION_RADIUS_BLOCKS + (ChunkUtil.SIZE - 1))
+                / ChunkUtil.SIZE);
+        for (Player player : players) {
+            BattleTowerSpawner.addChunksAround(chunks, player.x, player.z, radiusChunks);
+        }
+        for (long chunk : chunks) {
+            List<MarkerRef> refs = markersByChunk.get(chunk);
+            if (refs == null) {
+                continue;
+            }
+            for (MarkerRef ref : refs) {
+                TowerState tower = ref.tower();
+                if (tower.phase != TowerPhase.STANDING) {
+                    continue;
+                }
+                if (trace != null) {
+                    BattleTowerLoadWorld.Marker m = tower.tower.markers().get(ref.marker());
+                    trace.marker(tower.tower.id() * 1024 + ref.marker(), m.spawnMarkerId(), m.x(), m.y(), m.z(),
+                            tower.activated[ref.marker()]);
+                }
+                if (tower.activated[ref.marker()]) {
+                    continue;
+                }
+                tower.activated[ref.marker()] = true;
+                if (tower.tower.markers().get(ref.marker()).boss()) {
+                    tower.bossAlive = true;
+                } else {
+                    tower.aliveMobs++;
+                }
+                npcsSpawned++;
+                npcsAlive++;
+            }
+        }
+        maxNpcsAlive = Math.max(maxNpcsAlive, npcsAlive);
+        if (trace != null) {
+            double[] positions = new double[players.size() * 2];
+            for (int i = 0; i < players.size(); i++) {
+                positions[i * 2] = players.get(i).x;
+                positions[i * 2 + 1] = players.get(i).z;
+            }
+            trace.scan(clock.nanoTime(), positions, players.size());
+        }
+        long elapsed = System.nanoTime() - start;
+        spawnerScan.add(elapsed);
+        tickCost += elapsed;
+    }
+
+    private void fight(long now) {
+        for (Player player : players) {
+            TowerState tower = player.target;
+            if (tower == null || tower.phase != TowerPhase.STANDING || distSq(player, tower) > FIGHT_REACH_BLOCKS * FIGHT_REACH_BLOCKS) {
+                continue;
+            }
+            if (player.nextKillAtNanos == 0) {
+                player.nextKillAtNanos = now + killIntervalNanos;
+                continue;
+            }
+            if (now < player.nextKillAtNanos) {
+                continue;
+            }
+            player.nextKillAtNanos = now + killIntervalNanos;
+            if (tower.aliveMobs > 0) {
+                tower.aliveMobs--;
+                npcsAlive--;
+            } else if (tower.bossAlive) {
+                tower.bossAlive = false;
+                npcsAlive--;
+                onBossDefeated(tower);
+            }
+        }
+    }
+
+    /**
+     * What the boss death system does on the world thread: find the tower and start its countdown.
+     */
+    private void onBossDefeated(TowerState tower) {
+        long start = System.nanoTime();
+        BattleTowerCollapse.TowerKey key = tower.tower.key();
+        BattleTowerCollapse.TowerKey found = index.nearest(BattleTowerLoadWorld.WORLD_NAME, key.x(), key.z(),
+                BOSS_LOOKUP_RADIUS, null);
+        TowerState state = found == null ? null : byKey.get(found);
+        if (trace != null) {
+            trace.bossDeath(clock.nanoTime(), key.x(), key.y(), key.z(), found);
+        }
+        if (state != null && state.phase == TowerPhase.STANDING) {
+            state.phase = TowerPhase.COUNTDOWN;
+            bossesKilled++;
+            clock.schedule(TimeUnit.SECONDS.toNanos(BattleTowerCollapse.getCollapseDelaySeconds()), () -> enqueue(state));
+        }
+        long elapsed = System.nanoTime() - start;
+        bossDeath.add(elapsed);
+        tickCost += elapsed;
+    }
+
+    private void enqueue(TowerState state) {
+        state.phase = TowerPhase.COLLAPSING;
+        BattleTowerSimulatedCollapse collapse = new BattleTowerSimulatedCollapse(state.tower.key(), prefab, voxels,
+                world.classes, world::blockIndex);
+        collapsing.put(collapse, state);
+        if (trace != null) {
+            trace.enqueue(clock.nanoTime(), state.tower.key());
+        }
+        queue.enqueue(collapse, clock.nanoTime());
+    }
+
+    private void tickCollapses(long now) {
+        if (trace != null) {
+            trace.collapseTick(now);
+        }
+        if (queue.isIdle()) {
+            return;
+        }
+        long start = System.nanoTime();
+        queue.tick(now, maxActive, collapseBudgetNanos, (collapse, share) -> {
+            boolean planned = collapse.plan != null;
+            boolean finished = collapse.step(now, share);
+            if (!planned && (collapse.plan != null || collapse.failure != null)) {
+                collapseStart.add(collapse.worldStartNanos());
+            }
+            if (finished) {
+                onCollapseFinished(collapse);
+            }
+            return finished;
+        });
+        long elapsed = System.nanoTime() - start;
+        collapseTick.add(elapsed);
+        tickCost += elapsed;
+
+        collapseTicks++;
+        maxActiveSeen = Math.max(maxActiveSeen, queue.activeCount());
+        maxWaitingSeen = Math.max(maxWaitingSeen, queue.waitingCount());
+        waitingTotal += queue.waitingCount();
+    }
+
+    private void onCollapseFinished(BattleTowerSimulatedCollapse collapse) {
+        TowerState state = collapsing.remove(collapse);
+        if (state == null) {
+            return;
+        }
+        state.phase = TowerPhase.COLLAPSED;
+        index.remove(state.tower.key());
+        // The collapse purges whatever of the tower's NPCs is still alive.
+        npcsAlive -= state.aliveMobs + (state.bossAlive ? 1 : 0);
+        state.aliveMobs = 0;
+        state.bossAlive = false;
+        if (collapse.failure != null) {
+            collapsesFailed++;
+            return;
+        }
+        collapsesFinished++;
+        blocksRemoved += collapse.removed;
+        collapseCleanup.add(collapse.cleanupNanos);
+    }
+
+    private String report() {
+        StringBuilder out = new StringBuilder();
+        out.append("{\n");
+        out.append("  \"scenario\": {")
+                .append("\"towers\": ").append(towerCount)
+                .append(", \"players\": ").append(playerCount)
+                .append(", \"seed\": ").append(seed)
+                .append(", \"plan\": \"").append(prefab ? "prefab" : "survey").append('"')
+                .append(", \"fightKillSeconds\": ").append(TimeUnit.NANOSECONDS.toSeconds(killIntervalNanos))
+                .append(", \"limitMinutes\": ").append(TimeUnit.NANOSECONDS.toMinutes(limitNanos))
+                .append(", \"maxActivePerWorld\": ").append(maxActive)
+                .append(", \"implosionTickMs\": ").append(TimeUnit.NANOSECONDS.toMillis(collapseTickNanos))
+                .append(", \"implosionTickBudgetMicros\": ").append(TimeUnit.NANOSECONDS.toMicros(collapseBudgetNanos))
+                .append(", \"collapseDelaySeconds\": ").append(BattleTowerCollapse.getCollapseDelaySeconds())
+                .append("},\n");
+        out.append(String.format(Locale.ROOT,
+                "  \"result\": {\"virtualSeconds\": %.1f, \"worldTicks\": %d, \"completed\": %b, \"bossesKilled\": %d"
+                        + ", \"collapsesFinished\": %d, \"collapsesFailed\": %d, \"blocksRemoved\": %d"
+                        + ", \"chunkColumnsLoaded\": %d, \"blockReads\": %d},%n",
+                elapsedNanos / 1e9, worldTicks, done(), bossesKilled, collapsesFinished, collapsesFailed,
+                blocksRemoved, world.loadedColumns(), world.reads()));
+        out.append("  \"worldThread\": {\n    ");
+        worldTick.appendJson(out, "tick");
+        out.append(",\n    ");
+        spawnerScan.appendJson(out, "spawnerScan");
+        out.append(",\n    ");
+        bossDeath.appendJson(out, "bossDeath");
+        out.append(",\n    ");
+        collapseTick.appendJson(out, "collapseTick");
+        out.append(",\n    ");
+        collapseStart.appendJson(out, "collapseStart");
+        out.append(",\n    ");
+        collapseCleanup.appendJson(out, "collapseCleanup");
+        out.append("\n  },\n");
+        out.append(String.format(Locale.ROOT,
+                "  \"queue\": {\"maxActive\": %d, \"maxWaiting\": %d, \"meanWaiting\": %.2f, \"admitted\": %d"
+                        + ", \"maxWaitSeconds\": %.1f},%n",
+                maxActiveSeen, maxWaitingSeen, collapseTicks == 0 ? 0.0 : (double) waitingTotal / collapseTicks,
+                queue.admittedCount(), queue.maxWaitNanos() / 1e9));
+        out.append(String.format(Locale.ROOT,
+                "  \"entities\": {\"npcsSpawned\": %d, \"maxNpcsAlive\": %d, \"npcsAliveAtEnd\": %d}%n",
+                npcsSpawned, maxNpcsAlive, npcsAlive));
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private int intOption(String key, int def) {
+        try {
+            return Integer.parseInt(options.getOrDefault(key, Integer.toString(def)).trim());
+        } catch (NumberFormatException ignored) {
+            return def;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Synthetic world for the load test: many bundled tower prefabs on flat grass-over-stone terrain, placed on a
+ * jittered grid with random prefabs and rotations.
+ *
+ * Chunk columns are generated the first time a collapse reads them, so only the chunks around towers ever take
+ * memory. Each tower also carries the spawn markers baked into its prefab, in world coordinates.
+ */
+final class BattleTowerLoadWorld implements BattleTowerVoxelAccess {
+
+    static final String WORLD_NAME = "loadtest";
+    static final int GROUND_Y = 64;
+    private static final int MIN_Y = GROUND_Y - 16;
+    private static final int HEIGHT = 128;
+    private static final int COLUMN_AREA = ChunkUtil.SIZE * ChunkUtil.SIZE;
+    private static final String PREFAB_DIR = BattleTowerPrefabInstaller.RESOURCE_DIR;
+
+    record Marker(String spawnMarkerId, double x, double y, double z, boolean boss) {
+    }
+
+    record Tower(int id, BattleTowerPrefabPlacement placement, BattleTowerCollapse.TowerKey key, List<Marker> markers) {
+    }
+
+    final List<Tower> towers = new ArrayList<>();
+    final BattleTowerBlockClassTable classes;
+    final int halfWidth;
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final int empty;
+    private final int stone;
+    private final int dirt;
+    private final int grass;
+    private final int tallGrass;
+    // Prefab blocks per chunk column, as (local index, block index, container) triples, pasted on generation.
+    private final Map<Long, List<int[]>> pastes = new HashMap<>();
+    private final Map<Long, ChunkColumn> columns = new HashMap<>();
+    private long reads;
+
+    /**
+     * @param spacing distance in blocks between neighbouring grid cells; each tower is jittered inside its cell
+     */
+    BattleTowerLoadWorld(List<BattleTowerPrefabShape> shapes, int towerCount, int spacing, long seed) {
+        empty = index(BattleTowerSimulatedWorld.EMPTY_ID);
+        stone = index("Rock_Stone");
+        dirt = index("Soil_Dirt");
+        grass = index("Soil_Grass");
+        tallGrass = index("Plant_Grass_Tall");
+        for (BattleTowerPrefabShape shape : shapes) {
+            for (String name : shape.names) {
+                index(name);
+            }
+        }
+        classes = BattleTowerBlockClassTable.build(names.toArray(new String[0]), empty);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, List<Marker>> markersByShape = new HashMap<>();
+        int side = (int) Math.ceil(Math.sqrt(towerCount));
+        halfWidth = side * spacing / 2;
+        int jitter = Math.max(0, spacing / 4);
+        for (int i = 0; i < towerCount; i++) {
+            BattleTowerPrefabShape shape = shapes.get(random.nextInt(shapes.size()));
+            int cellX = -halfWidth + (i % side) * spacing + spacing / 2;
+            int cellZ = -halfWidth + (i / side) * spacing + spacing / 2;
+            int originX = cellX + (jitter == 0 ? 0 : random.nextInt(-jitter, jitter + 1));
+            int originZ = cellZ + (jitter == 0 ? 0 : random.nextInt(-jitter, jitter + 1));
+            BattleTowerPrefabPlacement placement = new BattleTowerPrefabPlacement(shape, random.nextInt(4),
+                    originX, GROUND_Y + 1, originZ);
+            int[] boss = BattleTowerSimulatedWorld.bossAnchor(placement);
+            BattleTowerCollapse.TowerKey key = new BattleTowerCollapse.TowerKey(WORLD_NAME, boss[0], boss[1], boss[2]);
+            List<Marker> local = markersByShape.computeIfAbsent(shape.id, BattleTowerLoadWorld::readMarkers);
+            towers.add(new Tower(i, placement, key, placeMarkers(placement, local)));
+            paste(placement);
+        }
+    }
+
+    String blockName(int index) {
+        return index >= 0 && index < names.size() ? names.get(index) : "";
+    }
+
+    int blockIndex(String name) {
+        Integer index = indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Chunk columns generated so far.
+     */
+    int loadedColumns() {
+        return columns.size();
+    }
+
+    long reads() {
+        return reads;
+    }
+
+    @Override
+    public Column column(int chunkX, int chunkZ) {
+        long index = ChunkUtil.indexChunk(chunkX, chunkZ);
+        ChunkColumn column = columns.get(index);
+        if (column == null) {
+            column = generate(index);
+            columns.put(index, column);
+        }
+        return column;
+    }
+
+    private ChunkColumn generate(long chunkIndex) {
+        short[] blocks = new short[HEIGHT * COLUMN_AREA];
+        BitSet containers = new BitSet();
+        int baseX = ChunkUtil.xOfChunkIndex(chunkIndex) * ChunkUtil.SIZE;
+        int baseZ = ChunkUtil.zOfChunkIndex(chunkIndex) * ChunkUtil.SIZE;
+        Arrays.fill(blocks, (short) empty);
+        for (int lz = 0; lz < ChunkUtil.SIZE; lz++) {
+            for (int lx = 0; lx < ChunkUtil.SIZE; lx++) {
+                int column = lz * ChunkUtil.SIZE + lx;
+                for (int y = MIN_Y; y < GROUND_Y - 3; y++) {
+                    blocks[(y - MIN_Y) * COLUMN_AREA + column] = (short) stone;
+                }
+                for (int y = GROUND_Y - 3; y < GROUND_Y; y++) {
+                    blocks[(y - MIN_Y) * COLUMN_AREA + column] = (short) dirt;
+                }
+                blocks[(GROUND_Y - MIN_Y) * COLUMN_AREA + column] = (short) grass;
+                int noise = ((baseX + lx) * 73_856_093) ^ ((baseZ + lz) * 19_349_663);
+                if ((noise & 7) == 1) {
+                    blocks[(GROUND_Y + 1 - MIN_Y) * COLUMN_AREA + column] = (short) tallGrass;
+                }
+            }
+        }
+        // Towers clear the grass they stand in, then paste over the terrain.
+        List<int[]> paste = pastes.getOrDefault(chunkIndex, List.of());
+        for (int[] block : paste) {
+            int column = block[0] % COLUMN_AREA;
+            if (blocks[(GROUND_Y + 1 - MIN_Y) * COLUMN_AREA + column] == tallGrass) {
+                blocks[(GROUND_Y + 1 - MIN_Y) * COLUMN_AREA + column] = (short) empty;
+            }
+        }
+        for (int[] block : paste) {
+            blocks[block[0]] = (short) block[1];
+            if (block[2] != 0) {
+                containers.set(block[0]);
+            }
+        }
+        return new ChunkColumn(blocks, containers);
+    }
+
+    private void paste(BattleTowerPrefabPlacement placement) {
+        BattleTowerPrefabShape shape = placement.shape();
+        for (int i = 0; i < shape.blockCount(); i++) {
+            int x = placement.worldX(shape.xs[i], shape.zs[i]);
+            int y = placement.worldY(shape.ys[i]);
+            int z = placement.worldZ(shape.xs[i], shape.zs[i]);
+            if (y < MIN_Y || y >= MIN_Y + HEIGHT) {
+                continue;
+            }
+            long chunk = ChunkUtil.indexChunkFromBlock(x, z);
+            int local = (y - MIN_Y) * COLUMN_AREA + ChunkUtil.localCoordinate(z) * ChunkUtil.SIZE + ChunkUtil.localCoordinate(x);
+            pastes.computeIfAbsent(chunk, _c -> new ArrayList<>())
+                    .add(new int[]{local, indexByName.get(shape.names[i]), shape.names[i].contains("Chest") ? 1 : 0});
+        }
+    }
+
+    private static List<Marker> placeMarkers(BattleTowerPrefabPlacement placement, List<Marker> local) {
+        BattleTowerPrefabShape shape = placement.shape();
+        List<Marker> placed = new ArrayList<>(local.size());
+        for (Marker m : local) {
+            double dx = m.x() - shape.anchorX;
+            double dz = m.z() - shape.anchorZ;
+            double rx = switch (placement.rotation() & 3) {
+                case 1 -> -dz;
+                case 2 -> -dx;
+                case 3 -> dz;
+                default -> dx;
+            };
+            double rz = switch (placement.rotation() & 3) {
+                case 1 -> dx;
+                case 2 -> -dz;
+                case 3 -> -dx;
+                default -> dz;
+            };
+            placed.add(new Marker(m.spawnMarkerId(), placement.originX() + rx,
+                    placement.originY() + m.y() - shape.anchorY, placement.originZ() + rz, m.boss()));
+        }
+        return placed;
+    }
+
+    /**
+     * Spawn markers baked into a bundled prefab, in prefab-local coordinates.
+     */
+    @SuppressWarnings("unchecked")
+    private static List<Marker> readMarkers(String shapeId) {
+        List<Marker> markers = new ArrayList<>();
+        try (InputStream in = BattleTowerLoadWorld.class.getClassLoader()
+                .getResourceAsStream(PREFAB_DIR + shapeId + ".prefab.json")) {
+            if (in == null) {
+                return markers;
+            }
+            Map<String, Object> root = (Map<String, Object>) BattleTowerJsonReader.parse(
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            List<Object> entities = (List<Object>) root.get("entities");
+            if (entities == null) {
+                return markers;
+            }
+            for (Object o : entities) {
+                try {
+                    Map<String, Object> components = (Map<String, Object>) ((Map<String, Object>) o).get("Components");
+                    Map<String, Object> marker = (Map<String, Object>) components.get("SpawnMarkerComponent");
+                    if (marker == null) {
+                        continue;
+                    }
+                    String id = (String) marker.get("SpawnMarker");
+                    Map<String, Object> transform = (Map<String, Object>) components.get("Transform");
+                    Map<String, Object> position = (Map<String, Object>) transform.get("Position");
+                    markers.add(new Marker(id,
+                            ((Number) position.get("X")).doubleValue(),
+                            ((Number) position.get("Y")).doubleValue(),
+                            ((Number) position.get("Z")).doubleValue(),
+                            BattleTowerCollapse.isTowerBossMarkerId(id)));
+                } catch (RuntimeException ignored) {
+                }
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // A prefab without readable markers just spawns nothing.
+        }
+        return markers;
+    }
+
+    private int index(String name) {
+        Integer index = indexByName.get(name);
+        if (index != null) {
+            return index;
+        }
+        names.add(name);
+        indexByName.put(name, names.size() - 1);
+        return names.size() - 1;
+    }
+
+    private final class ChunkColumn implements Column {
+        private final short[] blocks;
+        private final BitSet containers;
+
+        ChunkColumn(short[] blocks, BitSet containers) {
+            this.blocks = blocks;
+            this.containers = containers;
+        }
+
+        @Override
+        public int blockAt(int localX, int y, int localZ) {
+            reads++;
+            if (y < MIN_Y || y >= MIN_Y + HEIGHT) {
+                return empty;
+            }
+            return blocks[(y - MIN_Y) * COLUMN_AREA + localZ * ChunkUtil.SIZE + localX];
+        }
+
+        @Override
+        public boolean isContainer(int localX, int y, int localZ) {
+            return y >= MIN_Y && y < MIN_Y + HEIGHT
+                    && containers.get((y - MIN_Y) * COLUMN_AREA + localZ * ChunkUtil.SIZE + localX);
+        }
+
+        @Override
+        public void clear(int localX, int y, int localZ, int blockId, int planIndex) {
+            if (y < MIN_Y || y >= MIN_Y + HEIGHT) {
+                return;
+            }
+            int index = (y - MIN_Y) * COLUMN_AREA + localZ * ChunkUtil.SIZE + localX;
+            blocks[index] = (short) empty;
+            containers.clear(index);
+        }
+    }
+}
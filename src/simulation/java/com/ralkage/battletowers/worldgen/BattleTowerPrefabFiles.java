@@ -0,0 +1,128 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tower prefab shapes for the headless tools, read from the prefab JSON in the jar.
+ *
+ * In the server the shapes come from the PrefabStore; the simulator has no server, so it parses the same
+ * {@link BattleTowerPrefabInstaller#PREFAB_FILES} itself and installs the result with
+ * {@link BattleTowerPrefabShape#setBundled}, so the collapse code sees the shapes it would see in game.
+ */
+final class BattleTowerPrefabFiles {
+
+    private BattleTowerPrefabFiles() {
+    }
+
+    /**
+     * Parses the bundled prefabs that have a boss marker and makes them the collapse code's bundled shapes.
+     */
+    static List<BattleTowerPrefabShape> load() {
+        List<BattleTowerPrefabShape> shapes = new ArrayList<>();
+        ClassLoader cl = BattleTowerPrefabFiles.class.getClassLoader();
+        for (String file : BattleTowerPrefabInstaller.PREFAB_FILES) {
+            try (InputStream in = cl.getResourceAsStream(BattleTowerPrefabInstaller.RESOURCE_DIR + file)) {
+                if (in == null) {
+                    continue;
+                }
+                String json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                BattleTowerPrefabShape shape = parse(file.substring(0, file.indexOf('.')), json);
+                if (shape != null) {
+                    shapes.add(shape);
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("WARN skipping prefab " + file + ": " + e.getMessage());
+            }
+        }
+        BattleTowerPrefabShape.setBundled(shapes);
+        return BattleTowerPrefabShape.bundled(BattleTowerCollapse::isTowerBossMarkerId);
+    }
+
+    /**
+     * @return the parsed shape, or {@code null} if the prefab has no boss marker.
+     */
+    @SuppressWarnings("unchecked")
+    static BattleTowerPrefabShape parse(String id, String json) {
+        Map<String, Object> root = (Map<String, Object>) BattleTowerJsonReader.parse(json);
+
+        Map<String, Object> boss = findBossMarker((List<Object>) root.get("entities"));
+        if (boss == null) {
+            return null;
+        }
+        Map<String, Object> transform = (Map<String, Object>) boss.get("Transform");
+        Map<String, Object> position = (Map<String, Object>) transform.get("Position");
+        Map<String, Object> rotation = (Map<String, Object>) transform.get("Rotation");
+        // Prefab JSON stores degrees; shapes keep radians, as the server's transforms do.
+        double yaw = rotation != null ? doubleValue(rotation.get("Yaw")) : 0;
+
+        List<Object> blocks = (List<Object>) root.get("blocks");
+        int count = 0;
+        for (Object o : blocks) {
+            if (!BattleTowerPrefabShape.EMPTY_BLOCK_NAME.equals(((Map<String, Object>) o).get("name"))) {
+                count++;
+            }
+        }
+
+        int[] xs = new int[count];
+        int[] ys = new int[count];
+        int[] zs = new int[count];
+        String[] names = new String[count];
+        int i = 0;
+        for (Object o : blocks) {
+            Map<String, Object> block = (Map<String, Object>) o;
+            String name = (String) block.get("name");
+            if (BattleTowerPrefabShape.EMPTY_BLOCK_NAME.equals(name)) {
+                continue;
+            }
+            xs[i] = intValue(block.get("x"));
+            ys[i] = intValue(block.get("y"));
+            zs[i] = intValue(block.get("z"));
+            names[i] = name;
+            i++;
+        }
+
+        return new BattleTowerPrefabShape(id,
+                intValue(root.get("anchorX")), intValue(root.get("anchorY")), intValue(root.get("anchorZ")),
+                xs, ys, zs, names,
+                doubleValue(position.get("X")), doubleValue(position.get("Y")), doubleValue(position.get("Z")),
+                (String) ((Map<String, Object>) boss.get("SpawnMarkerComponent")).get("SpawnMarker"),
+                (float) Math.toRadians(yaw));
+    }
+
+    /**
+     * @return the components of the prefab's boss marker entity, or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> findBossMarker(List<Object> entities) {
+        if (entities == null) {
+            return null;
+        }
+        for (Object o : entities) {
+            try {
+                Map<String, Object> components = (Map<String, Object>) ((Map<String, Object>) o).get("Components");
+                Map<String, Object> marker = (Map<String, Object>) components.get("SpawnMarkerComponent");
+                if (marker == null || !BattleTowerCollapse.isTowerBossMarkerId((String) marker.get("SpawnMarker"))) {
+                    continue;
+                }
+                if (components.get("Transform") instanceof Map<?, ?> transform && transform.get("Position") instanceof Map<?, ?>) {
+                    return components;
+                }
+            } catch (RuntimeException ignored) {
+            }
+        }
+        return null;
+    }
+
+    private static double doubleValue(Object value) {
+        return value instanceof Number n ? n.doubleValue() : 0;
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number n ? n.intValue() : 0;
+    }
+}
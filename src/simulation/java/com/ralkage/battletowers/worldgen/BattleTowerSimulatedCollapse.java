@@ -0,0 +1,178 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+/**
+ * One tower collapse over a {@link BattleTowerVoxelAccess}, stepped the way
+ * {@code BattleTowerCollapse.stepCollapse} steps a live one: the first step matches the prefab at the boss anchor
+ * and plans (or, surveying, steps copy the survey's blocks within the budget, the survey then runs on the
+ * planner pool, and steps read on down to the floor the columns it stopped above), later steps remove paced batches top layer first, and the step after the plan runs out does the
+ * cleanup sweep and reports the collapse finished.
+ *
+ * Each phase's cost is timed with the real clock; the pacer is fed the caller's (virtual) clock. The off-thread
+ * survey is waited for in the step that finishes the copy, so {@link #planNanos} is its latency, not world-thread
+ * time.
+ */
+final class BattleTowerSimulatedCollapse {
+
+    private final BattleTowerCollapse.TowerKey key;
+    private final boolean prefab;
+    private final BattleTowerVoxelAccess voxels;
+    private final BattleTowerBlockClassTable classes;
+    private final ToIntFunction<String> blockIndex;
+
+    BattleTowerPrefabPlacement placement;
+    BattleTowerCollapsePlan plan;
+    private BattleTowerPlanWalk walk;
+    private BattleTowerCollapsePacer pacer;
+    private BattleTowerSurveyCopy copy;
+    private BattleTowerSurvey.Scan scan;
+    String failure;
+    boolean finished;
+
+    long matchNanos;
+    long copyNanos;
+    long planNanos;
+    long implodeNanos;
+    long maxTickNanos;
+    long cleanupNanos;
+    int ticks;
+    int removed;
+
+    /**
+     * @param prefab     match and plan from the bundled prefabs (verifying blocks), else survey
+     * @param blockIndex resolves a block type id to its block index (negative if unknown)
+     */
+    BattleTowerSimulatedCollapse(BattleTowerCollapse.TowerKey key, boolean prefab, BattleTowerVoxelAccess voxels,
+                                 BattleTowerBlockClassTable classes, ToIntFunction<String> blockIndex) {
+        this.key = key;
+        this.prefab = prefab;
+        this.voxels = voxels;
+        this.classes = classes;
+        this.blockIndex = blockIndex;
+    }
+
+    /**
+     * One collapse tick.
+     *
+     * @return {@code true} once the collapse is finished (or failed) and should leave the queue
+     */
+    boolean step(long nowNanos, long budgetNanos) {
+        if (finished) {
+            return true;
+        }
+        if (plan == null) {
+            if (!start(budgetNanos)) {
+                finished = true;
+            }
+            return finished;
+        }
+        if (!walk.isDone()) {
+            implode(nowNanos, budgetNanos);
+            return false;
+        }
+        finish();
+        return true;
+    }
+
+    /**
+     * One planning step.
+     *
+     * @return {@code false} if the collapse failed; otherwise {@link #plan} is set once planning is done
+     */
+    private boolean start(long budgetNanos) {
+        if (prefab) {
+            long start = System.nanoTime();
+            placement = BattleTowerCollapse.resolvePrefabPlacement(voxels, key.x(), key.y(), key.z(), blockIndex);
+            matchNanos = System.nanoTime() - start;
+            if (placement == null) {
+                failure = "no prefab match at the boss anchor";
+                return false;
+            }
+            start = System.nanoTime();
+            plan = BattleTowerCollapse.planForPlacement(placement, blockIndex);
+            planNanos = System.nanoTime() - start;
+            return startPlan();
+        }
+
+        if (scan != null) {
+            long start = System.nanoTime();
+            boolean extended = scan.extend(voxels, classes, start + budgetNanos);
+            long elapsed = System.nanoTime() - start;
+            ticks++;
+            copyNanos += elapsed;
+            maxTickNanos = Math.max(maxTickNanos, elapsed);
+            if (!extended) {
+                return true;
+            }
+            plan = scan.result().plan();
+            scan = null;
+            return startPlan();
+        }
+
+        if (copy == null) {
+            copy = new BattleTowerSurveyCopy(key.x(), key.z(), key.y() + BattleTowerCollapse.ROOF_HEADROOM,
+                    key.y() - BattleTowerCollapse.TOWER_CLEARANCE);
+        }
+        long start = System.nanoTime();
+        boolean copied = copy.copy(voxels, classes, start + budgetNanos);
+        long elapsed = System.nanoTime() - start;
+        ticks++;
+        copyNanos += elapsed;
+        maxTickNanos = Math.max(maxTickNanos, elapsed);
+        if (!copied) {
+            return true;
+        }
+
+        start = System.nanoTime();
+        scan = BattleTowerSurvey.surveyAsync(copy, classes, BattleTowerCollapse.planner()).join();
+        planNanos = System.nanoTime() - start;
+        copy = null;
+        return true;
+    }
+
+    /**
+     * World-thread time from the first tick until removal can start: the match, copy and survey extension, and the
+     * plan when it is
+     * built in-tick (prefab plans).
+     */
+    long worldStartNanos() {
+        return matchNanos + copyNanos + (placement != null ? planNanos : 0);
+    }
+
+    private boolean startPlan() {
+        if (plan == null || plan.isEmpty()) {
+            failure = "empty collapse plan";
+            return false;
+        }
+
+        walk = new BattleTowerPlanWalk(plan);
+        pacer = new BattleTowerCollapsePacer(TimeUnit.SECONDS.toNanos(BattleTowerCollapse.getImplosionTargetSeconds()),
+                TimeUnit.MILLISECONDS.toNanos(BattleTowerCollapse.getImplosionTickMs()));
+        return true;
+    }
+
+    private void implode(long nowNanos, long budgetNanos) {
+        long start = System.nanoTime();
+        int maxOps = pacer.opsForTick(nowNanos, walk.remaining(), budgetNanos);
+        int visitedBefore = walk.visited;
+        removed += walk.step(voxels, classes, prefab, maxOps, start + budgetNanos);
+        long elapsed = System.nanoTime() - start;
+        pacer.record(walk.visited - visitedBefore, elapsed);
+
+        ticks++;
+        implodeNanos += elapsed;
+        maxTickNanos = Math.max(maxTickNanos, elapsed);
+    }
+
+    private void finish() {
+        long start = System.nanoTime();
+        // Prefab plans removed exactly the tower's blocks; surveyed ones recheck their bitmap.
+        if (placement == null) {
+            removed += BattleTowerPlanWalk.removeLayers(voxels, classes, plan, plan.topY, plan.floorY, false);
+        }
+        cleanupNanos = System.nanoTime() - start;
+        finished = true;
+    }
+}
@@ -0,0 +1,179 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory world for the collapse simulator: one bundled prefab pasted onto synthetic terrain.
+ *
+ * The terrain is grass over dirt over stone with a few one-block mounds, tall grass, and a natural stone boulder
+ * inside the sweep radius. Shore prefabs also get water along one side at ground level. The prefab's anchor layer
+ * sits on the first layer above the grass, the way the spawner places towers, so its foundation replaces terrain.
+ *
+ * Block indices are assigned from the terrain names and the prefab's own block names; the terrain as it was
+ * before the paste is kept for the "nothing carved" check.
+ */
+final class BattleTowerSimulatedWorld {
+
+    static final String EMPTY_ID = "Empty";
+    static final int GROUND_Y = 64;
+    // Wide enough for the survey square (MAX_SWEEP_RADIUS around the anchor) plus its chunk rounding.
+    static final int HALF_WIDTH = 64;
+    private static final int DEPTH = 16;
+    private static final int HEADROOM = 96;
+    private static final int CLEAR_RADIUS = 14;
+
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    final BattleTowerPrefabPlacement placement;
+    final BattleTowerArrayVoxels terrain;
+    final BattleTowerArrayVoxels standing;
+    final BattleTowerArrayVoxels voxels;
+    final BattleTowerBlockClassTable classes;
+    final int bossX;
+    final int bossY;
+    final int bossZ;
+
+    private BattleTowerSimulatedWorld(BattleTowerPrefabShape shape, int rotation) {
+        int empty = index(EMPTY_ID);
+        int stone = index("Rock_Stone");
+        int dirt = index("Soil_Dirt");
+        int grass = index("Soil_Grass");
+        int tallGrass = index("Plant_Grass_Tall");
+        int sand = index("Soil_Sand");
+        int water = index("Water_Source");
+        for (String name : shape.names) {
+            index(name);
+        }
+
+        int minY = GROUND_Y - DEPTH;
+        terrain = new BattleTowerArrayVoxels(-HALF_WIDTH, minY, -HALF_WIDTH,
+                2 * HALF_WIDTH, DEPTH + HEADROOM, 2 * HALF_WIDTH, empty);
+        boolean shore = shape.id.contains("shore");
+        for (int x = -HALF_WIDTH; x < HALF_WIDTH; x++) {
+            for (int z = -HALF_WIDTH; z < HALF_WIDTH; z++) {
+                for (int y = minY; y < GROUND_Y - 3; y++) {
+                    terrain.set(x, y, z, stone);
+                }
+                int distSq = x * x + z * z;
+                int noise = (x * 73_856_093) ^ (z * 19_349_663);
+                if (shore && x > CLEAR_RADIUS + 6) {
+                    terrain.set(x, GROUND_Y - 3, z, sand);
+                    terrain.set(x, GROUND_Y - 2, z, sand);
+                    terrain.set(x, GROUND_Y - 1, z, water);
+                    terrain.set(x, GROUND_Y, z, water);
+                    continue;
+                }
+                for (int y = GROUND_Y - 3; y < GROUND_Y; y++) {
+                    terrain.set(x, y, z, dirt);
+                }
+                terrain.set(x, GROUND_Y, z, grass);
+                if (distSq <= CLEAR_RADIUS * CLEAR_RADIUS) {
+                    continue;
+                }
+                if ((noise & 63) == 0) {
+                    terrain.set(x, GROUND_Y, z, dirt);
+                    terrain.set(x, GROUND_Y + 1, z, grass);
+                } else if ((noise & 7) == 1) {
+                    terrain.set(x, GROUND_Y + 1, z, tallGrass);
+                }
+            }
+        }
+        // Natural rock inside the sweep radius must survive the collapse.
+        for (int x = -18; x <= -16; x++) {
+            for (int z = 3; z <= 5; z++) {
+                for (int y = GROUND_Y + 1; y <= GROUND_Y + 2; y++) {
+                    terrain.set(x, y, z, stone);
+                }
+            }
+        }
+
+        placement = new BattleTowerPrefabPlacement(shape, rotation, 0, GROUND_Y + 1, 0);
+        standing = new BattleTowerArrayVoxels(terrain.minX, terrain.minY, terrain.minZ,
+                terrain.sizeX, terrain.sizeY, terrain.sizeZ, empty);
+        standing.copyFrom(terrain);
+        for (int i = 0; i < shape.blockCount(); i++) {
+            int x = placement.worldX(shape.xs[i], shape.zs[i]);
+            int y = placement.worldY(shape.ys[i]);
+            int z = placement.worldZ(shape.xs[i], shape.zs[i]);
+            int blockId = indexByName.get(shape.names[i]);
+            if (shape.names[i].contains("Chest")) {
+                standing.setContainer(x, y, z, blockId);
+            } else {
+                standing.set(x, y, z, blockId);
+            }
+        }
+        voxels = new BattleTowerArrayVoxels(terrain.minX, terrain.minY, terrain.minZ,
+                terrain.sizeX, terrain.sizeY, terrain.sizeZ, empty);
+        voxels.copyFrom(standing);
+        classes = BattleTowerBlockClassTable.build(names.toArray(new String[0]), empty);
+
+        int[] boss = bossAnchor(placement);
+        bossX = boss[0];
+        bossY = boss[1];
+        bossZ = boss[2];
+    }
+
+    static BattleTowerSimulatedWorld of(BattleTowerPrefabShape shape, int rotation) {
+        return new BattleTowerSimulatedWorld(shape, rotation);
+    }
+
+    /**
+     * The tower key a live server records for this placement: the floored position of its boss marker.
+     */
+    static int[] bossAnchor(BattleTowerPrefabPlacement placement) {
+        BattleTowerPrefabShape shape = placement.shape();
+        double relX = shape.bossX - shape.anchorX;
+        double relZ = shape.bossZ - shape.anchorZ;
+        double rotX = switch (placement.rotation() & 3) {
+            case 1 -> -relZ;
+            case 2 -> -relX;
+            case 3 -> relZ;
+            default -> relX;
+        };
+        double rotZ = switch (placement.rotation() & 3) {
+            case 1 -> relX;
+            case 2 -> -relZ;
+            case 3 -> -relX;
+            default -> relZ;
+        };
+        return new int[]{
+                (int) Math.floor(placement.originX() + rotX),
+                (int) Math.floor(placement.originY() + shape.bossY - shape.anchorY),
+                (int) Math.floor(placement.originZ() + rotZ)
+        };
+    }
+
+    BattleTowerCollapse.TowerKey bossKey() {
+        return new BattleTowerCollapse.TowerKey("simulation", bossX, bossY, bossZ);
+    }
+
+    /**
+     * Puts the tower back up for the next run.
+     */
+    void reset() {
+        voxels.copyFrom(standing);
+        voxels.resetCounters();
+    }
+
+    /**
+     * @return the block index of a block type id, or -1 if neither the terrain nor the prefab uses it
+     */
+    int blockIndex(String name) {
+        Integer index = indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    private int index(String name) {
+        Integer index = indexByName.get(name);
+        if (index != null) {
+            return index;
+        }
+        names.add(name);
+        indexByName.put(name, names.size() - 1);
+        return names.size() - 1;
+    }
+}
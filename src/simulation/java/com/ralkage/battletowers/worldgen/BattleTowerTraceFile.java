@@ -0,0 +1,355 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link BattleTowerTrace} read back: its header, its timed events in order, and the world as the recorded
+ * collapses first read it.
+ *
+ * Block reads become a {@link BattleTowerVoxelAccess} holding the first value read at each position, i.e. the
+ * world before any recorded collapse touched it. Block indexes are renamed into this file's own palette (which
+ * also holds every bundled prefab block), so a trace replays the same whichever server recorded it. Positions no
+ * recorded read covered read as empty and are counted as misses.
+ */
+final class BattleTowerTraceFile implements BattleTowerVoxelAccess {
+
+    interface Event {
+        long atNanos();
+    }
+
+    record Scan(long atNanos, double[] positions) implements Event {
+    }
+
+    /**
+     * Untimed in the trace; carries the time of the scan that found it.
+     */
+    record Marker(long atNanos, int ref, String spawnMarkerId, double x, double y, double z, boolean activated) implements Event {
+    }
+
+    record BossDeath(long atNanos, double x, double y, double z, BattleTowerCollapse.TowerKey key) implements Event {
+    }
+
+    record Enqueue(long atNanos, BattleTowerCollapse.TowerKey key) implements Event {
+    }
+
+    record CollapseTick(long atNanos) implements Event {
+    }
+
+    private static final short UNRECORDED = -1;
+    private static final short UNREADABLE_ENTRY = -2;
+    private static final int COLUMN_AREA = ChunkUtil.SIZE * ChunkUtil.SIZE;
+
+    final String worldName;
+    final long startedAtEpochMs;
+    final long tickMs;
+    final long targetSeconds;
+    final long tickBudgetMicros;
+    final int maxActive;
+    final long collapseDelaySeconds;
+    final boolean prefabPlan;
+    final int activationRadiusChunks;
+    final List<Event> events = new ArrayList<>();
+    final BattleTowerBlockClassTable classes;
+    final long recordedReads;
+    final long bytes;
+
+    private final Map<String, Integer> indexByName = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final int empty;
+    private final int minY;
+    private final int height;
+    private final Map<Long, TraceColumn> columns = new HashMap<>();
+    private long reads;
+    private long misses;
+
+    private BattleTowerTraceFile(byte[] data, List<BattleTowerPrefabShape> shapes) throws IOException {
+        bytes = data.length;
+        Reader in = new Reader(data);
+        if (in.readInt() != BattleTowerTrace.MAGIC) {
+            throw new IOException("not a tower trace");
+        }
+        int version = (int) in.readVar();
+        if (version != BattleTowerTrace.VERSION) {
+            throw new IOException("unsupported trace version " + version);
+        }
+        worldName = in.readString();
+        startedAtEpochMs = in.readVar();
+        tickMs = in.readVar();
+        targetSeconds = in.readVar();
+        tickBudgetMicros = in.readVar();
+        maxActive = (int) in.readVar();
+        collapseDelaySeconds = in.readVar();
+        prefabPlan = in.readVar() != 0;
+        activationRadiusChunks = (int) in.readVar();
+
+        empty = index(BattleTowerSimulatedWorld.EMPTY_ID);
+        for (BattleTowerPrefabShape shape : shapes) {
+            for (String name : shape.names) {
+                index(name);
+            }
+        }
+
+        // Reads are kept as (x, y, z, local index) until the height range is known.
+        Map<Integer, Integer> localByRecorded = new HashMap<>();
+        Map<Long, int[]> firstReads = new HashMap<>();
+        List<long[]> containers = new ArrayList<>();
+        int lowY = Integer.MAX_VALUE;
+        int highY = Integer.MIN_VALUE;
+        long readCount = 0;
+        long now = 0;
+        int x = 0;
+        int y = 0;
+        int z = 0;
+        // A trace cut short (size limit, crash) ends mid-event; everything before it still replays.
+        try {
+            while (in.hasMore()) {
+                int type = (int) in.readVar();
+                switch (type) {
+                    case BattleTowerTrace.SCAN -> {
+                        now += in.readVar();
+                        int players = (int) in.readVar();
+                        double[] positions = new double[players * 2];
+                        for (int i = 0; i < positions.length; i++) {
+                            positions[i] = in.readPosition();
+                        }
+                        events.add(new Scan(now, positions));
+                    }
+                    case BattleTowerTrace.MARKER -> events.add(new Marker(now, (int) in.readZigzag(), in.readString(),
+                            in.readPosition(), in.readPosition(), in.readPosition(), in.readVar() != 0));
+                    case BattleTowerTrace.BOSS_DEATH -> {
+                        now += in.readVar();
+                        double bx = in.readPosition();
+                        double by = in.readPosition();
+                        double bz = in.readPosition();
+                        BattleTowerCollapse.TowerKey key = in.readVar() != 0 ? in.readKey(worldName) : null;
+                        events.add(new BossDeath(now, bx, by, bz, key));
+                    }
+                    case BattleTowerTrace.ENQUEUE -> {
+                        now += in.readVar();
+                        events.add(new Enqueue(now, in.readKey(worldName)));
+                    }
+                    case BattleTowerTrace.COLLAPSE_TICK -> {
+                        now += in.readVar();
+                        events.add(new CollapseTick(now));
+                    }
+                    case BattleTowerTrace.BLOCK_NAME -> {
+                        int recorded = (int) in.readVar();
+                        String name = in.readString();
+                        localByRecorded.put(recorded, name.isEmpty() ? empty : index(name));
+                    }
+                    case BattleTowerTrace.READ, BattleTowerTrace.CONTAINER -> {
+                        x += (int) in.readZigzag();
+                        y += (int) in.readZigzag();
+                        z += (int) in.readZigzag();
+                        lowY = Math.min(lowY, y);
+                        highY = Math.max(highY, y);
+                        if (type == BattleTowerTrace.CONTAINER) {
+                            containers.add(new long[]{x, y, z});
+                            continue;
+                        }
+                        int recorded = (int) in.readZigzag();
+                        readCount++;
+                        long position = ((long) x << 40) ^ ((long) (y & 0xFFFF) << 24) ^ (z & 0xFFFFFFL);
+                        if (!firstReads.containsKey(position)) {
+                            int local = recorded == UNREADABLE ? UNREADABLE_ENTRY : localByRecorded.getOrDefault(recorded, empty);
+                            firstReads.put(position, new int[]{x, y, z, local});
+                        }
+                    }
+                    default -> throw new IOException("unknown event type " + type);
+                }
+            }
+        } catch (IndexOutOfBoundsException truncated) {
+            // Dropped: the torn last event.
+        }
+        recordedReads = readCount;
+        minY = lowY == Integer.MAX_VALUE ? 0 : lowY;
+        height = highY < minY ? 1 : highY - minY + 1;
+        classes = BattleTowerBlockClassTable.build(names.toArray(new String[0]), empty);
+
+        for (int[] read : firstReads.values()) {
+            TraceColumn column = columnAt(read[0], read[2]);
+            column.blocks[column.offset(read[0], read[1], read[2])] = (short) read[3];
+        }
+        for (long[] c : containers) {
+            TraceColumn column = columnAt((int) c[0], (int) c[2]);
+            column.containers.set(column.offset((int) c[0], (int) c[1], (int) c[2]));
+        }
+        for (TraceColumn column : columns.values()) {
+            column.snapshot();
+        }
+    }
+
+    static BattleTowerTraceFile read(Path file, List<BattleTowerPrefabShape> shapes) throws IOException {
+        return new BattleTowerTraceFile(Files.readAllBytes(file), shapes);
+    }
+
+    int blockIndex(String name) {
+        Integer index = indexByName.get(name);
+        return index == null ? -1 : index;
+    }
+
+    long reads() {
+        return reads;
+    }
+
+    /**
+     * Reads of positions no recorded read covered; non-zero means the replayed code read outside what the live
+     * collapse read, so its result there is a guess (empty).
+     */
+    long misses() {
+        return misses;
+    }
+
+    /**
+     * Puts every recorded block back, for another replay.
+     */
+    void reset() {
+        for (TraceColumn column : columns.values()) {
+            column.restore();
+        }
+        reads = 0;
+        misses = 0;
+    }
+
+    @Override
+    public Column column(int chunkX, int chunkZ) {
+        return columns.get(ChunkUtil.indexChunk(chunkX, chunkZ));
+    }
+
+    private TraceColumn columnAt(int x, int z) {
+        return columns.computeIfAbsent(ChunkUtil.indexChunkFromBlock(x, z), _c -> new TraceColumn());
+    }
+
+    private int index(String name) {
+        Integer index = indexByName.get(name);
+        if (index != null) {
+            return index;
+        }
+        names.add(name);
+        indexByName.put(name, names.size() - 1);
+        return names.size() - 1;
+    }
+
+    private final class TraceColumn implements Column {
+        private final short[] blocks = new short[height * COLUMN_AREA];
+        private final BitSet containers = new BitSet();
+        private short[] recorded;
+        private BitSet recordedContainers;
+
+        TraceColumn() {
+            Arrays.fill(blocks, UNRECORDED);
+        }
+
+        int offset(int x, int y, int z) {
+            return (y - minY) * COLUMN_AREA + ChunkUtil.localCoordinate(z) * ChunkUtil.SIZE + ChunkUtil.localCoordinate(x);
+        }
+
+        void snapshot() {
+            recorded = blocks.clone();
+            recordedContainers = (BitSet) containers.clone();
+        }
+
+        void restore() {
+            System.arraycopy(recorded, 0, blocks, 0, blocks.length);
+            containers.clear();
+            containers.or(recordedContainers);
+        }
+
+        @Override
+        public int blockAt(int localX, int y, int localZ) {
+            reads++;
+            if (y < minY || y >= minY + height) {
+                misses++;
+                return empty;
+            }
+            short block = blocks[(y - minY) * COLUMN_AREA + localZ * ChunkUtil.SIZE + localX];
+            if (block == UNRECORDED) {
+                misses++;
+                return empty;
+            }
+            return block == UNREADABLE_ENTRY ? UNREADABLE : block;
+        }
+
+        @Override
+        public boolean isContainer(int localX, int y, int localZ) {
+            return y >= minY && y < minY + height
+                    && containers.get((y - minY) * COLUMN_AREA + localZ * ChunkUtil.SIZE + localX);
+        }
+
+        @Override
+        public void clear(int localX, int y, int localZ, int blockId, int planIndex) {
+            if (y < minY || y >= minY + height) {
+                return;
+            }
+            int index = (y - minY) * COLUMN_AREA + localZ * ChunkUtil.SIZE + localX;
+            blocks[index] = (short) empty;
+            containers.clear(index);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        boolean hasMore() {
+            return position < data.length;
+        }
+
+        int readInt() {
+            int v = 0;
+            for (int i = 0; i < 4; i++) {
+                v = (v << 8) | (data[position++] & 0xFF);
+            }
+            return v;
+        }
+
+        long readVar() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+        }
+
+        long readZigzag() {
+            long v = readVar();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        double readPosition() {
+            return readZigzag() / 16.0;
+        }
+
+        String readString() {
+            int length = (int) readVar();
+            if (position + length > data.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            String s = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return s;
+        }
+
+        BattleTowerCollapse.TowerKey readKey(String worldName) {
+            return new BattleTowerCollapse.TowerKey(worldName, (int) readZigzag(), (int) readZigzag(), (int) readZigzag());
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.ralkage.battletowers.worldgen;
+
+import com.hypixel.hytale.math.util.ChunkUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded {@link BattleTowerTrace} offline: the recorded scans, boss deaths, queue entries and
+ * collapse ticks are fed, at their recorded times, through the spawner's chunk selection, the tower index, the
+ * real collapse queue and {@link BattleTowerSimulatedCollapse} over the world the live collapses read.
+ *
+ * The inputs are replayed exactly, so two runs (or two builds) see the same workload. What a collapse does per
+ * tick still depends on how fast this machine is, as it does live: the tick budget is real time. Only the
+ * plugin's own world-thread work is timed. NPCs are not spawned; a scan activates markers as the live one would.
+ *
+ * Arguments are a trace file, then {@code key=value} pairs: plan ({@code recorded}, {@code prefab} or
+ * {@code survey}), runs (replays; the first is a warmup when there is more than one), budgetMicros and maxActive
+ * (override the recorded settings), out (report path).
+ */
+public final class BattleTowerTraceReplay {
+
+    private static final int BOSS_LOOKUP_RADIUS = 64;
+    // Ticks added after the trace ends so collapses it cut off can finish.
+    private static final long DRAIN_LIMIT_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final BattleTowerTraceFile trace;
+    private final boolean prefab;
+    private final int maxActive;
+    private final long budgetNanos;
+    private final long tickNanos;
+
+    private final BattleTowerLatencyRecorder spawnerScan = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder bossDeath = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder collapseTick = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder collapseStart = new BattleTowerLatencyRecorder();
+    private final BattleTowerLatencyRecorder collapseCleanup = new BattleTowerLatencyRecorder();
+
+    // Per run.
+    private BattleTowerCollapseQueue<BattleTowerSimulatedCollapse> queue;
+    private Map<Long, List<BattleTowerTraceFile.Marker>> markersByChunk;
+    private Set<Integer> activated;
+    private BattleTowerTowerIndex index;
+    private boolean measuring;
+
+    // Counts are the last run's; times and queue maxima are over all measured runs.
+    private int scans;
+    private int activations;
+    private int bossDeaths;
+    private int bossLookupsMatched;
+    private int enqueued;
+    private int collapsesFinished;
+    private int collapsesFailed;
+    private long blocksRemoved;
+    private int drainTicks;
+    private int maxActiveSeen;
+    private int maxWaitingSeen;
+    private long maxWaitNanos;
+
+    private BattleTowerTraceReplay(BattleTowerTraceFile trace, String plan, int maxActive, long budgetMicros) {
+        this.trace = trace;
+        this.prefab = switch (plan) {
+            case "prefab" -> true;
+            case "survey" -> false;
+            default -> trace.prefabPlan;
+        };
+        this.maxActive = maxActive;
+        this.budgetNanos = TimeUnit.MICROSECONDS.toNanos(budgetMicros);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(trace.tickMs);
+        // The simulated collapse paces itself from these, as the live one does.
+        BattleTowerCollapse.setImplosionTickMs(trace.tickMs);
+        BattleTowerCollapse.setImplosionTargetSeconds(trace.targetSeconds);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new LinkedHashMap<>();
+        Path file = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            } else {
+                file = Path.of(arg);
+            }
+        }
+        if (file == null) {
+            System.out.println("usage: BattleTowerTraceReplay <trace> [plan=recorded|prefab|survey] [runs=N]"
+                    + " [budgetMicros=N] [maxActive=N] [out=report.json]");
+            System.exit(2);
+        }
+
+        List<BattleTowerPrefabShape> shapes = BattleTowerPrefabFiles.load();
+        BattleTowerTraceFile trace = BattleTowerTraceFile.read(file, shapes);
+        int runs = Math.max(1, intOption(options, "runs", 3));
+        BattleTowerTraceReplay replay = new BattleTowerTraceReplay(trace,
+                options.getOrDefault("plan", "recorded").trim().toLowerCase(Locale.ROOT),
+                Math.max(1, intOption(options, "maxActive", trace.maxActive)),
+                Math.max(1, intOption(options, "budgetMicros", (int) trace.tickBudgetMicros)));
+        for (int run = 0; run < runs; run++) {
+            replay.run(runs == 1 || run > 0);
+        }
+
+        String report = replay.report(file, runs == 1 ? 1 : runs - 1);
+        String name = file.getFileName().toString().replaceFirst("\\.bttrace$", "");
+        Path out = Path.of(options.getOrDefault("out", "build/reports/replay/" + name + ".json"));
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, report, StandardCharsets.UTF_8);
+        System.out.print(report);
+        System.out.println("Report written to " + out.toAbsolutePath());
+    }
+
+    private void run(boolean measure) {
+        measuring = measure;
+        scans = activations = bossDeaths = bossLookupsMatched = enqueued = 0;
+        collapsesFinished = collapsesFailed = drainTicks = 0;
+        blocksRemoved = 0;
+        trace.reset();
+        queue = new BattleTowerCollapseQueue<>();
+        markersByChunk = new HashMap<>();
+        activated = new HashSet<>();
+        index = new BattleTowerTowerIndex();
+
+        long last = 0;
+        for (BattleTowerTraceFile.Event event : trace.events) {
+            last = event.atNanos();
+            if (event instanceof BattleTowerTraceFile.Marker marker) {
+                addMarker(marker);
+            } else if (event instanceof BattleTowerTraceFile.Scan scan) {
+                scan(scan);
+            } else if (event instanceof BattleTowerTraceFile.BossDeath death) {
+                bossDeath(death);
+            } else if (event instanceof BattleTowerTraceFile.Enqueue enqueue) {
+                enqueue(enqueue);
+            } else if (event instanceof BattleTowerTraceFile.CollapseTick) {
+                tick(last);
+            }
+        }
+        for (long now = last + tickNanos; !queue.isIdle() && now - last <= DRAIN_LIMIT_NANOS; now += tickNanos) {
+            if (measuring) {
+                drainTicks++;
+            }
+            tick(now);
+        }
+    }
+
+    private void addMarker(BattleTowerTraceFile.Marker marker) {
+        long chunk = ChunkUtil.indexChunkFromBlock((int) Math.floor(marker.x()), (int) Math.floor(marker.z()));
+        markersByChunk.computeIfAbsent(chunk, _c -> new ArrayList<>()).add(marker);
+        if (marker.activated()) {
+            activated.add(marker.ref());
+        }
+        if (BattleTowerCollapse.isTowerBossMarkerId(marker.spawnMarkerId())) {
+            index.add(new BattleTowerCollapse.TowerKey(trace.worldName, (int) Math.floor(marker.x()),
+                    (int) Math.floor(marker.y()), (int) Math.floor(marker.z())));
+        }
+    }
+
+    /**
+     * The spawner's scan: chunks around the recorded players, then every not-yet-activated marker in them.
+     */
+    private void scan(BattleTowerTraceFile.Scan scan) {
+        long start = System.nanoTime();
+        Set<Long> chunks = new HashSet<>();
+        double[] positions = scan.positions();
+        for (int i = 0; i + 1 < positions.length; i += 2) {
+            BattleTowerSpawner.addChunksAround(chunks, positions[i], positions[i + 1], trace.activationRadiusChunks);
+        }
+        int activatedNow = 0;
+        for (long chunk : chunks) {
+            List<BattleTowerTraceFile.Marker> markers = markersByChunk.get(chunk);
+            if (markers == null) {
+                continue;
+            }
+            for (BattleTowerTraceFile.Marker marker : markers) {
+                if (activated.add(marker.ref())) {
+                    activatedNow++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (measuring) {
+            spawnerScan.add(elapsed);
+            scans++;
+            activations += activatedNow;
+        }
+    }
+
+    /**
+     * Resolves the boss to a tower by the nearest boss marker and checks it against the tower the live server
+     * resolved.
+     */
+    private void bossDeath(BattleTowerTraceFile.BossDeath death) {
+        long start = System.nanoTime();
+        BattleTowerCollapse.TowerKey found = index.nearest(trace.worldName, (int) Math.floor(death.x()),
+                (int) Math.floor(death.z()), BOSS_LOOKUP_RADIUS, null);
+        long elapsed = System.nanoTime() - start;
+        if (measuring) {
+            bossDeath.add(elapsed);
+            bossDeaths++;
+            if (found != null && found.equals(death.key())) {
+                bossLookupsMatched++;
+            }
+        }
+    }
+
+    private void enqueue(BattleTowerTraceFile.Enqueue enqueue) {
+        index.remove(enqueue.key());
+        queue.enqueue(new BattleTowerSimulatedCollapse(enqueue.key(), prefab, trace, trace.classes, trace::blockIndex),
+                enqueue.atNanos());
+        if (measuring) {
+            enqueued++;
+        }
+    }
+
+    private void tick(long now) {
+        if (queue.isIdle()) {
+            return;
+        }
+        long start = System.nanoTime();
+        queue.tick(now, maxActive, budgetNanos, (collapse, share) -> {
+            boolean planned = collapse.plan != null;
+            boolean finished = collapse.step(now, share);
+            if (measuring && !planned && (collapse.plan != null || collapse.failure != null)) {
+                collapseStart.add(collapse.worldStartNanos());
+            }
+            if (finished && measuring) {
+                if (collapse.failure != null) {
+                    collapsesFailed++;
+                } else {
+                    collapsesFinished++;
+                    blocksRemoved += collapse.removed;
+                    collapseCleanup.add(collapse.cleanupNanos);
+                }
+            }
+            return finished;
+        });
+        long elapsed = System.nanoTime() - start;
+        if (measuring) {
+            collapseTick.add(elapsed);
+            maxActiveSeen = Math.max(maxActiveSeen, queue.activeCount());
+            maxWaitingSeen = Math.max(maxWaitingSeen, queue.waitingCount());
+            maxWaitNanos = Math.max(maxWaitNanos, queue.maxWaitNanos());
+        }
+    }
+
+    private String report(Path file, int measuredRuns) {
+        long recordedNanos = trace.events.isEmpty() ? 0 : trace.events.get(trace.events.size() - 1).atNanos();
+        StringBuilder out = new StringBuilder();
+        out.append("{\n");
+        out.append(String.format(Locale.ROOT,
+                "  \"scenario\": {\"trace\": \"%s\", \"world\": \"%s\", \"traceBytes\": %d, \"recordedSeconds\": %.1f"
+                        + ", \"events\": %d, \"recordedReads\": %d, \"plan\": \"%s\", \"measuredRuns\": %d"
+                        + ", \"maxActivePerWorld\": %d, \"implosionTickMs\": %d, \"implosionTickBudgetMicros\": %d},%n",
+                file.getFileName().toString().replace("\"", ""), trace.worldName.replace("\"", ""), trace.bytes,
+                recordedNanos / 1e9, trace.events.size(), trace.recordedReads, prefab ? "prefab" : "survey",
+                measuredRuns, maxActive, TimeUnit.NANOSECONDS.toMillis(tickNanos),
+                TimeUnit.NANOSECONDS.toMicros(budgetNanos)));
+        out.append(String.format(Locale.ROOT,
+                "  \"result\": {\"scans\": %d, \"markersActivated\": %d, \"bossDeaths\": %d, \"bossLookupsMatched\": %d"
+                        + ", \"collapsesEnqueued\": %d, \"collapsesFinished\": %d, \"collapsesFailed\": %d"
+                        + ", \"blocksRemoved\": %d, \"drainTicks\": %d, \"blockReads\": %d, \"readMisses\": %d},%n",
+                scans, activations, bossDeaths, bossLookupsMatched, enqueued, collapsesFinished, collapsesFailed,
+                blocksRemoved, drainTicks, trace.reads(), trace.misses()));
+        out.append("  \"worldThread\": {\n    ");
+        spawnerScan.appendJson(out, "spawnerScan");
+        out.append(",\n    ");
+        bossDeath.appendJson(out, "bossDeath");
+        out.append(",\n    ");
+        collapseTick.appendJson(out, "collapseTick");
+        out.append(",\n    ");
+        collapseStart.appendJson(out, "collapseStart");
+        out.append(",\n    ");
+        collapseCleanup.appendJson(out, "collapseCleanup");
+        out.append("\n  },\n");
+        out.append(String.format(Locale.ROOT,
+                "  \"queue\": {\"maxActive\": %d, \"maxWaiting\": %d, \"maxWaitSeconds\": %.1f}%n",
+                maxActiveSeen, maxWaitingSeen, maxWaitNanos / 1e9));
+        out.append("}\n");
+        return out.toString();
+    }
+
+    private static int intOption(Map<String, String> options, String key, int def) {
+        try {
+            return Integer.parseInt(options.getOrDefault(key, Integer.toString(def)).trim());
+        } catch (NumberFormatException ignored) {
+            return def;
+        }
+    }
+}
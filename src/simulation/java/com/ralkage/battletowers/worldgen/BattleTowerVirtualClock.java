@@ -0,0 +1,45 @@
+package com.ralkage.battletowers.worldgen;
+
+import java.util.PriorityQueue;
+
+/**
+ * Single-threaded stand-in for the collapse scheduler: tasks run in due order, and the clock jumps straight to
+ * each task's due time instead of waiting for it.
+ */
+final class BattleTowerVirtualClock {
+
+    private record Task(long dueNanos, long sequence, Runnable action) {
+    }
+
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>((a, b) -> a.dueNanos != b.dueNanos
+            ? Long.compare(a.dueNanos, b.dueNanos)
+            : Long.compare(a.sequence, b.sequence));
+    private long nowNanos;
+    private long sequence;
+
+    long nanoTime() {
+        return nowNanos;
+    }
+
+    void schedule(long delayNanos, Runnable action) {
+        tasks.add(new Task(nowNanos + Math.max(0, delayNanos), sequence++, action));
+    }
+
+    /**
+     * Runs due tasks, including ones they schedule, until none are left or the clock would pass {@code limitNanos}.
+     *
+     * @return {@code true} if every task ran
+     */
+    boolean runUntilIdle(long limitNanos) {
+        while (!tasks.isEmpty()) {
+            Task next = tasks.peek();
+            if (next.dueNanos > limitNanos) {
+                return false;
+            }
+            tasks.poll();
+            nowNanos = next.dueNanos;
+            next.action.run();
+        }
+        return true;
+    }
+}